@@ -0,0 +1,197 @@
+package ru.yandex.practicum.filmorate.audit;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Журнал аудита с записью в фоновом потоке.
+ * <p>
+ * Поток запроса только создает {@link AuditEvent} и кладет его в ограниченный кольцевой буфер без блокировок
+ * ({@link AuditRingBuffer}); если журнал выключен уровнем логгера, событие сразу отбрасывается. Поток записи
+ * забирает события пачками до {@code batchSize}, сериализует каждое в одну строку JSON и передает ее логгеру
+ * на уровне INFO:
+ * <pre>
+ * {"time":"2022-07-01T10:00:00Z","action":"FILM_ADDED","id":1,"entity":{"id":1,"name":"Film",...}}
+ * {"time":"2022-07-01T10:00:01Z","action":"LIKE_ADDED","id":1,"otherId":2}
+ * </pre>
+ * Когда событий нет, поток записи засыпает на {@link #IDLE_WAIT_NANOS}, поэтому писателям не нужно его
+ * будить. Переполнение буфера обрабатывается по {@link AuditOverflowPolicy}.
+ */
+@Slf4j
+public final class AsyncAuditLog implements AuditLog {
+
+    /**
+     * Пауза потока записи при пустом буфере.
+     */
+    static final long IDLE_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    /**
+     * Пауза писателя при заполненном буфере и политике {@link AuditOverflowPolicy#BLOCK}.
+     */
+    private static final long FULL_WAIT_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final Logger target;
+
+    private final ObjectWriter writer;
+
+    private final AuditRingBuffer<AuditEvent> buffer;
+
+    private final int batchSize;
+
+    private final AuditOverflowPolicy overflowPolicy;
+
+    private final LongAdder dropped = new LongAdder();
+
+    private final AtomicLong written = new AtomicLong();
+
+    private final Thread writerThread;
+
+    private volatile boolean closed;
+
+    /**
+     * @param target         Логгер, в который пишутся события.
+     * @param objectMapper   Сериализация сущностей.
+     * @param capacity       Емкость буфера (округляется вверх до степени двойки).
+     * @param batchSize      Максимальное количество событий, забираемых из буфера за раз.
+     * @param overflowPolicy Поведение при заполненном буфере.
+     */
+    public AsyncAuditLog(final Logger target,
+                         final ObjectMapper objectMapper,
+                         final int capacity,
+                         final int batchSize,
+                         final AuditOverflowPolicy overflowPolicy) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Размер пачки должен быть положительным: " + batchSize);
+        }
+
+        this.target = target;
+        this.writer = objectMapper.writer();
+        this.buffer = new AuditRingBuffer<>(capacity);
+        this.batchSize = batchSize;
+        this.overflowPolicy = overflowPolicy;
+        this.writerThread = new Thread(this::writeLoop, "audit-writer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    @Override
+    public void record(final AuditEvent event) {
+        if (closed || !target.isInfoEnabled()) {
+            return;
+        }
+
+        if (buffer.offer(event)) {
+            return;
+        }
+
+        if (overflowPolicy == AuditOverflowPolicy.BLOCK) {
+            while (!closed) {
+                LockSupport.parkNanos(this, FULL_WAIT_NANOS);
+                if (buffer.offer(event)) {
+                    return;
+                }
+            }
+        }
+
+        dropped.increment();
+    }
+
+    /**
+     * Количество событий, отброшенных из-за переполнения буфера или после закрытия журнала.
+     */
+    public long dropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Количество записанных событий.
+     */
+    public long written() {
+        return written.get();
+    }
+
+    /**
+     * Приблизительное количество событий, ожидающих записи.
+     */
+    public int pending() {
+        return buffer.size();
+    }
+
+    /**
+     * Записать оставшиеся события и остановить поток записи.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+
+        closed = true;
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writeLoop() {
+        final List<AuditEvent> batch = new ArrayList<>(batchSize);
+        while (true) {
+            // флаг читается до буфера: после закрытия последний проход забирает все опубликованные события
+            final boolean stopping = closed;
+            if (buffer.drain(batch::add, batchSize) > 0) {
+                write(batch);
+                batch.clear();
+            } else if (stopping) {
+                return;
+            } else {
+                LockSupport.parkNanos(this, IDLE_WAIT_NANOS);
+            }
+        }
+    }
+
+    private void write(final List<AuditEvent> batch) {
+        for (final AuditEvent event : batch) {
+            try {
+                target.info(toJson(event));
+            } catch (IOException | RuntimeException e) {
+                log.warn("Не удалось записать событие аудита {}: {}", event.getAction(), e.getMessage());
+            }
+        }
+        written.addAndGet(batch.size());
+    }
+
+    private String toJson(final AuditEvent event) throws IOException {
+        final StringWriter out = new StringWriter(256);
+        try (JsonGenerator generator = writer.getFactory().createGenerator(out)) {
+            generator.writeStartObject();
+            generator.writeStringField("time", Instant.ofEpochMilli(event.getTimestamp()).toString());
+            generator.writeStringField("action", event.getAction().name());
+            generator.writeNumberField("id", event.getId());
+            if (event.getOtherId() != 0) {
+                generator.writeNumberField("otherId", event.getOtherId());
+            }
+            if (event.getEntity() != null) {
+                generator.writeFieldName("entity");
+                writer.writeValue(generator, event.getEntity());
+            }
+            generator.writeEndObject();
+        }
+
+        return out.toString();
+    }
+}
@@ -0,0 +1,42 @@
+package ru.yandex.practicum.filmorate.audit;
+
+/**
+ * Изменение, записываемое в журнал аудита.
+ */
+public enum AuditAction {
+
+    /**
+     * Добавлен фильм; {@code id} – фильм, {@code entity} – добавленный фильм.
+     */
+    FILM_ADDED,
+
+    /**
+     * Обновлен фильм; {@code id} – фильм, {@code entity} – новая версия.
+     */
+    FILM_UPDATED,
+
+    /**
+     * Поставлен лайк; {@code id} – фильм, {@code otherId} – пользователь.
+     */
+    LIKE_ADDED,
+
+    /**
+     * Создан пользователь; {@code id} – пользователь, {@code entity} – созданный пользователь.
+     */
+    USER_ADDED,
+
+    /**
+     * Обновлен пользователь; {@code id} – пользователь, {@code entity} – новая версия.
+     */
+    USER_UPDATED,
+
+    /**
+     * Пользователи стали друзьями; {@code id} и {@code otherId} – пользователи.
+     */
+    FRIEND_ADDED,
+
+    /**
+     * Пользователи больше не друзья; {@code id} и {@code otherId} – пользователи.
+     */
+    FRIEND_REMOVED
+}
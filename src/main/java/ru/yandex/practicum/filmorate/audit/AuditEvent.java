@@ -0,0 +1,54 @@
+package ru.yandex.practicum.filmorate.audit;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Value;
+import org.springframework.lang.Nullable;
+
+/**
+ * Событие журнала аудита.
+ * <p>
+ * Создание события – только запоминание ссылок и времени: сущности неизменяемы, поэтому их сериализация
+ * откладывается до записи журнала в фоновом потоке.
+ */
+@Value
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class AuditEvent {
+
+    /**
+     * Время изменения, миллисекунды от начала эпохи.
+     */
+    long timestamp;
+
+    AuditAction action;
+
+    /**
+     * Идентификатор измененной сущности.
+     */
+    long id;
+
+    /**
+     * Идентификатор второй сущности связи (лайка, дружбы) или 0.
+     */
+    long otherId;
+
+    /**
+     * Новая версия сущности или {@code null} для связей.
+     */
+    @Nullable
+    Object entity;
+
+    /**
+     * Событие изменения сущности.
+     */
+    public static AuditEvent entity(final AuditAction action, final long id, final Object entity) {
+        return new AuditEvent(System.currentTimeMillis(), action, id, 0, entity);
+    }
+
+    /**
+     * Событие изменения связи двух сущностей.
+     */
+    public static AuditEvent relation(final AuditAction action, final long id, final long otherId) {
+        return new AuditEvent(System.currentTimeMillis(), action, id, otherId, null);
+    }
+}
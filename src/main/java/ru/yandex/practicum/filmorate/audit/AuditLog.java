@@ -0,0 +1,44 @@
+package ru.yandex.practicum.filmorate.audit;
+
+/**
+ * Журнал аудита: структурированные записи об изменениях фильмов, пользователей и связей между ними.
+ * <p>
+ * В отличие от {@link ru.yandex.practicum.filmorate.storage.wal.WriteAheadLog} журнал аудита не участвует
+ * в восстановлении данных, и запрос не ждет его записи.
+ */
+public interface AuditLog extends AutoCloseable {
+
+    /**
+     * Передать событие в журнал. Не блокирует поток запроса, кроме переполнения с политикой
+     * {@link AuditOverflowPolicy#BLOCK}.
+     *
+     * @param event Событие.
+     */
+    void record(AuditEvent event);
+
+    @Override
+    default void close() {
+    }
+
+    /**
+     * Журнал, который ничего не записывает.
+     */
+    static AuditLog disabled() {
+        return DisabledAuditLog.INSTANCE;
+    }
+
+    /**
+     * @see #disabled()
+     */
+    final class DisabledAuditLog implements AuditLog {
+
+        private static final DisabledAuditLog INSTANCE = new DisabledAuditLog();
+
+        private DisabledAuditLog() {
+        }
+
+        @Override
+        public void record(final AuditEvent event) {
+        }
+    }
+}
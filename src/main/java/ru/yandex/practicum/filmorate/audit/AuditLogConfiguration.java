@@ -0,0 +1,69 @@
+package ru.yandex.practicum.filmorate.audit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Журнал аудита изменений.
+ * <p>
+ * События пишутся в логгер {@link #AUDIT_LOGGER} на уровне INFO, по одной строке JSON на событие; журнал
+ * выключается уровнем этого логгера ({@code logging.level.filmorate.audit=off}) или настройкой
+ * {@code filmorate.audit.enabled}.
+ * <p>
+ * Настройки:
+ * <ul>
+ *     <li>{@code filmorate.audit.enabled} – вести ли журнал;</li>
+ *     <li>{@code filmorate.audit.buffer-size} – емкость буфера событий;</li>
+ *     <li>{@code filmorate.audit.batch-size} – сколько событий поток записи забирает за раз;</li>
+ *     <li>{@code filmorate.audit.overflow} – что делать при заполненном буфере ({@link AuditOverflowPolicy}).</li>
+ * </ul>
+ * <p>
+ * Метрики: {@code filmorate.audit.events} с тегом {@code result} ({@code written} – записанные, {@code dropped} –
+ * отброшенные при переполнении) и {@code filmorate.audit.pending} – события в буфере.
+ */
+@Configuration
+public class AuditLogConfiguration {
+
+    public static final String AUDIT_LOGGER = "filmorate.audit";
+
+    @Value("${filmorate.audit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${filmorate.audit.buffer-size:8192}")
+    private int bufferSize;
+
+    @Value("${filmorate.audit.batch-size:256}")
+    private int batchSize;
+
+    @Value("${filmorate.audit.overflow:drop}")
+    private AuditOverflowPolicy overflowPolicy;
+
+    @Bean
+    public AuditLog auditLog(final ObjectMapper objectMapper, final MeterRegistry meterRegistry) {
+        if (!enabled) {
+            return AuditLog.disabled();
+        }
+
+        final AsyncAuditLog auditLog = new AsyncAuditLog(LoggerFactory.getLogger(AUDIT_LOGGER), objectMapper,
+                bufferSize, batchSize, overflowPolicy);
+        FunctionCounter.builder("filmorate.audit.events", auditLog, AsyncAuditLog::written)
+                .description("События журнала аудита")
+                .tag("result", "written")
+                .register(meterRegistry);
+        FunctionCounter.builder("filmorate.audit.events", auditLog, AsyncAuditLog::dropped)
+                .description("События журнала аудита")
+                .tag("result", "dropped")
+                .register(meterRegistry);
+        Gauge.builder("filmorate.audit.pending", auditLog, AsyncAuditLog::pending)
+                .description("События аудита, ожидающие записи")
+                .register(meterRegistry);
+
+        return auditLog;
+    }
+}
@@ -0,0 +1,19 @@
+package ru.yandex.practicum.filmorate.audit;
+
+/**
+ * Поведение {@link AsyncAuditLog}, когда буфер событий заполнен (поток записи не успевает за запросами).
+ */
+public enum AuditOverflowPolicy {
+
+    /**
+     * Отбросить событие и увеличить счетчик отброшенных: запросы никогда не ждут журнал.
+     */
+    DROP,
+
+    /**
+     * Ждать освобождения места в буфере: журнал полон, но запросы замедляются до скорости записи журнала.
+     * Ждет поток, изменивший данные, – поток запроса, а в реактивном режиме поток цикла событий Netty,
+     * поэтому с реактивным режимом эту политику использовать не стоит.
+     */
+    BLOCK
+}
@@ -0,0 +1,102 @@
+package ru.yandex.practicum.filmorate.audit;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/**
+ * Ограниченный кольцевой буфер без блокировок для многих писателей и одного читателя.
+ * <p>
+ * Писатель занимает позицию сдвигом {@code tail} через CAS и публикует элемент записью в ячейку; пустая ячейка
+ * ({@code null}) означает, что элемент еще не опубликован. Читатель забирает элементы подряд до первой пустой
+ * ячейки, очищает ячейки и только потом сдвигает {@code head}, поэтому писатель, увидевший свободное место,
+ * всегда пишет в очищенную ячейку.
+ *
+ * @param <E> Тип элементов.
+ */
+final class AuditRingBuffer<E> {
+
+    private final AtomicReferenceArray<E> slots;
+
+    private final int mask;
+
+    /**
+     * Следующая позиция для писателей.
+     */
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * Следующая позиция для читателя; изменяется только читателем.
+     */
+    private volatile long head;
+
+    /**
+     * @param capacity Минимальная емкость; округляется вверх до степени двойки.
+     */
+    AuditRingBuffer(final int capacity) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Емкость буфера должна быть от 1 до 2^30: " + capacity);
+        }
+
+        final int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    /**
+     * Добавить элемент, если есть место.
+     *
+     * @return {@code false}, если буфер заполнен.
+     */
+    boolean offer(final E element) {
+        long position;
+        do {
+            position = tail.get();
+            if (position - head >= slots.length()) {
+                return false;
+            }
+        } while (!tail.compareAndSet(position, position + 1));
+
+        slots.lazySet((int) position & mask, element);
+
+        return true;
+    }
+
+    /**
+     * Забрать опубликованные элементы по порядку. Вызывается только читателем.
+     *
+     * @param consumer Получатель элементов.
+     * @param limit    Максимальное количество элементов.
+     * @return Количество переданных элементов.
+     */
+    int drain(final Consumer<? super E> consumer, final int limit) {
+        long position = head;
+        int count = 0;
+        while (count < limit) {
+            final int index = (int) position & mask;
+            final E element = slots.get(index);
+            if (element == null) {
+                break;
+            }
+
+            slots.lazySet(index, null);
+            consumer.accept(element);
+            position++;
+            count++;
+        }
+        head = position;
+
+        return count;
+    }
+
+    /**
+     * Приблизительное количество занятых позиций.
+     */
+    int size() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+
+    int capacity() {
+        return slots.length();
+    }
+}
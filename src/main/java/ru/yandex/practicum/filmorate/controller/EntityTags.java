@@ -0,0 +1,128 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Условные запросы по версии хранилища или сущности.
+ * <p>
+ * ETag строится из версии, а не из тела ответа: проверка {@code If-None-Match} не читает данные и не сериализует
+ * их, ответ {@code 304 Not Modified} отдается без тела. Версии живут в памяти и после перезапуска начинаются
+ * заново, поэтому в ETag входит метка запуска: тег, выданный до перезапуска, не совпадет ни с одним новым.
+ * <p>
+ * ETag сущности – ее версия ({@link ru.yandex.practicum.filmorate.model.Film#getVersion()}), поэтому тег из
+ * {@code If-Match} превращается обратно в версию для записи с проверкой.
+ */
+public final class EntityTags {
+
+    /**
+     * Метка запуска приложения.
+     */
+    private static final String EPOCH = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+
+    private EntityTags() {
+    }
+
+    /**
+     * Сильный ETag для версии.
+     *
+     * @param version Версия хранилища или сущности.
+     * @return ETag в кавычках.
+     */
+    public static String of(final long version) {
+        return '"' + EPOCH + '-' + version + '"';
+    }
+
+    /**
+     * Совпадает ли ETag с одним из тегов заголовка {@code If-None-Match}.
+     * <p>
+     * Для {@code If-None-Match} теги сравниваются слабо (RFC 7232): префикс {@code W/} не учитывается.
+     *
+     * @param ifNoneMatch Значение заголовка или {@code null}, если его нет.
+     * @param etag        Текущий ETag.
+     * @return {@code true}, если клиенту можно ответить {@code 304 Not Modified}.
+     */
+    public static boolean matches(final @Nullable String ifNoneMatch, final String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+
+        for (final String tag : ifNoneMatch.split(",")) {
+            final String trimmed = tag.trim();
+            final String opaque = trimmed.startsWith("W/") ? trimmed.substring(2) : trimmed;
+            if (opaque.equals("*") || opaque.equals(etag)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Версия, которую клиент ожидает у изменяемой сущности.
+     * <p>
+     * Заголовок {@code If-Match} важнее версии из тела запроса. Для {@code If-Match} теги сравниваются сильно
+     * (RFC 7232): слабый тег, тег прошлого запуска или нечитаемый тег не совпадают ни с одной версией, и запись
+     * отклоняется; {@code *} разрешает запись любой существующей сущности. Если в заголовке несколько тегов,
+     * запись разрешена, когда с текущей версией совпадает любой из них.
+     *
+     * @param ifMatch        Значение заголовка или {@code null}, если его нет.
+     * @param bodyVersion    Версия из тела запроса или {@code 0}, если ее нет.
+     * @param currentVersion Текущая версия сущности; читается, только если в заголовке есть наш тег.
+     * @return Ожидаемая версия; {@code 0} – без проверки версии; {@code -1} – ни одна версия не подходит.
+     */
+    public static long expectedVersion(final @Nullable String ifMatch,
+                                       final long bodyVersion,
+                                       final LongSupplier currentVersion) {
+        if (ifMatch == null) {
+            return bodyVersion;
+        }
+
+        final String prefix = '"' + EPOCH + '-';
+        long current = -1;
+        for (final String tag : ifMatch.split(",")) {
+            final String trimmed = tag.trim();
+            if (trimmed.equals("*")) {
+                return 0;
+            }
+
+            if (trimmed.startsWith(prefix) && trimmed.endsWith("\"") && trimmed.length() > prefix.length() + 1) {
+                try {
+                    final long version = Long.parseLong(trimmed.substring(prefix.length(), trimmed.length() - 1));
+                    if (version > 0) {
+                        if (current < 0) {
+                            current = currentVersion.getAsLong();
+                        }
+                        if (version == current) {
+                            return version;
+                        }
+                    }
+                } catch (NumberFormatException e) {
+                    // не наш тег, проверяем следующий
+                }
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Ответ {@code 304 Not Modified} без тела.
+     */
+    public static <T> ResponseEntity<T> notModified(final String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+    }
+
+    /**
+     * Тот же ответ с заголовком {@code ETag}.
+     */
+    public static <T> ResponseEntity<T> withTag(final ResponseEntity<T> response, final String etag) {
+        return ResponseEntity.status(response.getStatusCode())
+                .headers(response.getHeaders())
+                .eTag(etag)
+                .body(response.getBody());
+    }
+}
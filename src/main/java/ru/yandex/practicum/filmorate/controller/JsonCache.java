@@ -0,0 +1,254 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToLongFunction;
+
+/**
+ * Кэш сериализованного JSON (UTF-8) сущностей.
+ * <p>
+ * Сущности неизменяемы, а изменение в хранилище заменяет объект целиком, поэтому запись кэша действительна,
+ * пока хранилище возвращает тот же самый объект: проверка – сравнение ссылок, без версий и явного сброса.
+ * Запись заполняется при первой сериализации объекта и заменяется при сериализации его новой версии; старые
+ * байты после изменения сущности больше не отдаются. Массив сущностей собирается копированием готовых байтов
+ * в один буфер, без обращения к Jackson для уже сериализованных объектов.
+ * <p>
+ * Без предела кэш держал бы JSON всего каталога: по замеру {@code FilmStorageFootprint} в тестах это около
+ * 300 байт на фильм сверх самого фильма, больше четверти памяти heap-хранилища. Поэтому записи занимают
+ * не больше {@code maxBytes} вместе с оценкой накладных расходов на запись и вытесняются в порядке добавления:
+ * вытесненная сущность при следующем чтении сериализуется заново. Замененная запись учитывается до вытеснения,
+ * поэтому предел ограничивает всю удерживаемую память. Вытеснение выполняет добавляющий поток; при одновременном
+ * добавлении предел может ненадолго превыситься на размер добавляемых записей.
+ * <p>
+ * Если хранилище собирает новый объект при каждом чтении, сравнение ссылок никогда не совпадет; для такого
+ * хранилища есть {@link #uncached(ObjectMapper, MeterRegistry, String)}, который только собирает массив без
+ * хранения байтов.
+ * <p>
+ * Время сборки JSON-массива публикуется таймером {@code filmorate.json.serialization}, память записей –
+ * показателем {@code filmorate.json.cache.bytes}; оба с тегом {@code entity}.
+ *
+ * @param <T> Тип неизменяемой сущности.
+ */
+public final class JsonCache<T> {
+
+    /**
+     * Оценка памяти записи сверх байтов JSON: объекты записи и массива, узлы таблицы и очереди, ключ.
+     */
+    static final int ENTRY_OVERHEAD = 128;
+
+    private final ObjectWriter writer;
+
+    /**
+     * Способ получить идентификатор сущности или {@code null}, если байты не хранятся.
+     */
+    @Nullable
+    private final ToLongFunction<T> idOf;
+
+    private final ConcurrentMap<Long, Entry<T>> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Записи в порядке добавления; запись, замененная в {@link #entries}, остается здесь до вытеснения.
+     */
+    private final Queue<Entry<T>> insertionOrder = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Память записей из {@link #insertionOrder}.
+     */
+    private final AtomicLong cachedBytes = new AtomicLong();
+
+    private final long maxBytes;
+
+    private final Timer arrayTimer;
+
+    /**
+     * @param objectMapper  Настроенный для ответов {@link ObjectMapper}.
+     * @param idOf          Способ получить идентификатор сущности.
+     * @param maxBytes      Предел памяти записей в байтах.
+     * @param meterRegistry Реестр метрик.
+     * @param entity        Название сущности для тега метрик.
+     */
+    public JsonCache(final ObjectMapper objectMapper,
+                     final ToLongFunction<T> idOf,
+                     final long maxBytes,
+                     final MeterRegistry meterRegistry,
+                     final String entity) {
+        this(objectMapper.writer(), idOf, maxBytes, arrayTimer(meterRegistry, entity));
+
+        if (maxBytes < 0) {
+            throw new IllegalArgumentException("Предел памяти кэша не может быть отрицательным: " + maxBytes);
+        }
+        Gauge.builder("filmorate.json.cache.bytes", this, JsonCache::cachedBytes)
+                .description("Память кэша сериализованного JSON")
+                .tag("entity", entity)
+                .register(meterRegistry);
+    }
+
+    private JsonCache(final ObjectWriter writer,
+                      final @Nullable ToLongFunction<T> idOf,
+                      final long maxBytes,
+                      final Timer arrayTimer) {
+        this.writer = writer;
+        this.idOf = idOf;
+        this.maxBytes = maxBytes;
+        this.arrayTimer = arrayTimer;
+    }
+
+    /**
+     * Сериализация с тем же интерфейсом, но без хранения байтов.
+     *
+     * @param objectMapper  Настроенный для ответов {@link ObjectMapper}.
+     * @param meterRegistry Реестр метрик.
+     * @param entity        Название сущности для тега метрик.
+     */
+    public static <T> JsonCache<T> uncached(final ObjectMapper objectMapper,
+                                            final MeterRegistry meterRegistry,
+                                            final String entity) {
+        return new JsonCache<>(objectMapper.writer(), null, 0, arrayTimer(meterRegistry, entity));
+    }
+
+    /**
+     * Память, занятая записями, с оценкой накладных расходов.
+     */
+    public long cachedBytes() {
+        return cachedBytes.get();
+    }
+
+    /**
+     * JSON сущности.
+     *
+     * @param entity Сущность.
+     * @return Байты JSON; массив общий для всех вызовов и не должен изменяться.
+     */
+    public byte[] toJson(final T entity) {
+        if (idOf == null) {
+            return serialize(entity);
+        }
+
+        final long id = idOf.applyAsLong(entity);
+        final Entry<T> entry = entries.get(id);
+        if (entry != null && entry.entity == entity) {
+            return entry.json;
+        }
+
+        final byte[] json = serialize(entity);
+        final long size = json.length + ENTRY_OVERHEAD;
+        if (size <= maxBytes) {
+            final Entry<T> added = new Entry<>(id, entity, json);
+            entries.put(id, added);
+            insertionOrder.add(added);
+            cachedBytes.addAndGet(size);
+            evict();
+        }
+
+        return json;
+    }
+
+    /**
+     * JSON-массив сущностей.
+     *
+     * @param entities Сущности в порядке массива.
+     * @return Байты JSON-массива.
+     */
+    public byte[] toJsonArray(final List<T> entities) {
+        final long start = System.nanoTime();
+        final byte[][] parts = new byte[entities.size()][];
+        // скобки и запятые между элементами
+        int size = 2 + Math.max(0, parts.length - 1);
+        for (int i = 0; i < parts.length; i++) {
+            parts[i] = toJson(entities.get(i));
+            size += parts[i].length;
+        }
+
+        final byte[] json = new byte[size];
+        int position = 0;
+        json[position++] = '[';
+        for (int i = 0; i < parts.length; i++) {
+            if (i > 0) {
+                json[position++] = ',';
+            }
+            System.arraycopy(parts[i], 0, json, position, parts[i].length);
+            position += parts[i].length;
+        }
+        json[position] = ']';
+        arrayTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+        return json;
+    }
+
+    /**
+     * Тот же ответ, но с телом – JSON-массивом из кэша вместо списка сущностей.
+     *
+     * @param response Ответ со списком сущностей.
+     * @return Ответ с байтами JSON.
+     */
+    public ResponseEntity<byte[]> toJsonResponse(final ResponseEntity<List<T>> response) {
+        return ResponseEntity.status(response.getStatusCode())
+                .headers(response.getHeaders())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(toJsonArray(response.getBody()));
+    }
+
+    private static Timer arrayTimer(final MeterRegistry meterRegistry, final String entity) {
+        return Timer.builder("filmorate.json.serialization")
+                .description("Сборка JSON-массива ответа")
+                .tag("entity", entity)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofNanos(10_000))
+                .maximumExpectedValue(Duration.ofSeconds(1))
+                .register(meterRegistry);
+    }
+
+    /**
+     * Вытеснить самые старые записи сверх предела.
+     */
+    private void evict() {
+        Entry<T> eldest;
+        while (cachedBytes.get() > maxBytes && (eldest = insertionOrder.poll()) != null) {
+            cachedBytes.addAndGet(-(eldest.json.length + ENTRY_OVERHEAD));
+            entries.remove(eldest.id, eldest);
+        }
+    }
+
+    private byte[] serialize(final T entity) {
+        try {
+            return writer.writeValueAsBytes(entity);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException("Не удалось сериализовать " + entity, e);
+        }
+    }
+
+    /**
+     * Сериализованный объект и его JSON.
+     */
+    private static final class Entry<T> {
+
+        private final long id;
+
+        private final T entity;
+
+        private final byte[] json;
+
+        private Entry(final long id, final T entity, final byte[] json) {
+            this.id = id;
+            this.entity = entity;
+            this.json = json;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+/**
+ * Кэши сериализованного JSON фильмов и пользователей.
+ * <p>
+ * Компактное хранилище фильмов ({@code filmorate.storage.film-engine=compact}) собирает фильм заново при каждом
+ * чтении, поэтому кэш по ссылке для него бесполезен и только держал бы копию каталога в памяти.
+ * <p>
+ * Память каждого кэша ограничена {@code filmorate.json-cache.max-size}.
+ */
+@Configuration
+public class JsonCacheConfiguration {
+
+    @Value("${filmorate.json-cache.max-size:64MB}")
+    private DataSize maxSize;
+
+    @Bean
+    public JsonCache<Film> filmJsonCache(final ObjectMapper objectMapper,
+                                         final MeterRegistry meterRegistry,
+                                         @Value("${filmorate.storage.film-engine:heap}") final String filmEngine) {
+        if (filmEngine.equals("compact")) {
+            return JsonCache.uncached(objectMapper, meterRegistry, "film");
+        }
+
+        return new JsonCache<>(objectMapper, Film::getId, maxSize.toBytes(), meterRegistry, "film");
+    }
+
+    @Bean
+    public JsonCache<User> userJsonCache(final ObjectMapper objectMapper, final MeterRegistry meterRegistry) {
+        return new JsonCache<>(objectMapper, User::getId, maxSize.toBytes(), meterRegistry, "user");
+    }
+}
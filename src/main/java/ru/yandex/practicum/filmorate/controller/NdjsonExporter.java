@@ -0,0 +1,133 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.SynchronousSink;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+
+/**
+ * Потоковая выгрузка коллекций в формате NDJSON (одна JSON-сущность на строку).
+ * <p>
+ * Сущности сериализуются и пишутся в ответ по одной, поэтому расход памяти не зависит от размера коллекции:
+ * в памяти находится только буфер генератора Jackson и буфер ответа сервера. После первой сущности ответ
+ * сбрасывается в сокет, чтобы клиент получил первые байты сразу, дальше данные уходят по мере заполнения буферов.
+ * <p>
+ * Для реактивного режима выгрузка – поток буферов ({@link #toFlux(Iterable, DataBufferFactory)}): сущности
+ * сериализуются блоками по {@link #CHUNK_SIZE} байт только по запросу подписчика, поэтому медленный клиент
+ * останавливает обход коллекции, а не накапливает ответ в памяти.
+ */
+@Component
+public class NdjsonExporter {
+
+    public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
+    public static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType(APPLICATION_NDJSON_VALUE);
+
+    /**
+     * Примерный размер буфера реактивной выгрузки: буфер закрывается после сущности, на которой он превысил
+     * этот размер.
+     */
+    static final int CHUNK_SIZE = 32 * 1024;
+
+    private final ObjectWriter writer;
+
+    public NdjsonExporter(final ObjectMapper objectMapper) {
+        // без сброса буфера после каждой сущности: иначе сервер отправлял бы по пакету на сущность
+        this.writer = objectMapper.writer()
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .withRootValueSeparator("\n");
+    }
+
+    /**
+     * Тело ответа, выгружающее сущности по мере записи в сокет.
+     *
+     * @param entities Сущности для выгрузки. Обходятся один раз, во время записи ответа.
+     * @return Тело ответа.
+     */
+    public StreamingResponseBody stream(final Iterable<?> entities) {
+        return out -> write(entities, out);
+    }
+
+    /**
+     * Выгрузка в виде потока буферов для реактивного ответа.
+     * <p>
+     * Каждый буфер содержит целые сущности, каждая заканчивается переводом строки. Коллекция обходится по мере
+     * запроса буферов подписчиком; отмена подписки прекращает обход.
+     *
+     * @param entities      Сущности для выгрузки. Обходятся один раз, при подписке.
+     * @param bufferFactory Фабрика буферов ответа.
+     * @return Поток буферов.
+     */
+    public Flux<DataBuffer> toFlux(final Iterable<?> entities, final DataBufferFactory bufferFactory) {
+        return Flux.generate(entities::iterator, (Iterator<?> iterator, SynchronousSink<DataBuffer> sink) -> {
+            if (iterator.hasNext()) {
+                writeChunk(iterator, bufferFactory, sink);
+            } else {
+                sink.complete();
+            }
+
+            return iterator;
+        });
+    }
+
+    private void writeChunk(final Iterator<?> entities,
+                            final DataBufferFactory bufferFactory,
+                            final SynchronousSink<DataBuffer> sink) {
+        final DataBuffer buffer = bufferFactory.allocateBuffer(CHUNK_SIZE);
+        try (JsonGenerator generator = writer.getFactory().createGenerator(buffer.asOutputStream())) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+            // разделитель между сущностями пишет writer, перевод строки после последней – явно
+            while (entities.hasNext() && buffer.readableByteCount() < CHUNK_SIZE) {
+                writer.writeValue(generator, entities.next());
+                generator.flush();
+            }
+            generator.writeRaw('\n');
+        } catch (IOException | RuntimeException e) {
+            DataBufferUtils.release(buffer);
+            sink.error(e);
+            return;
+        }
+
+        sink.next(buffer);
+    }
+
+    /**
+     * Записать сущности в поток в формате NDJSON.
+     *
+     * @param entities Сущности для выгрузки.
+     * @param out      Поток для записи. Не закрывается.
+     * @throws IOException Ошибка записи.
+     */
+    public void write(final Iterable<?> entities, final OutputStream out) throws IOException {
+        try (JsonGenerator generator = writer.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+            boolean first = true;
+            for (final Object entity : entities) {
+                writer.writeValue(generator, entity);
+
+                if (first) {
+                    generator.flush();
+                    first = false;
+                }
+            }
+
+            if (!first) {
+                generator.writeRaw('\n');
+            }
+        }
+    }
+}
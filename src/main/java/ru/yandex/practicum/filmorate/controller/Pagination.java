@@ -0,0 +1,74 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exceptions.ValidationException;
+
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/**
+ * Постраничная выдача коллекций по курсору.
+ * <p>
+ * Курсор – идентификатор последней сущности предыдущей страницы. Если после страницы есть еще сущности,
+ * курсор следующей страницы возвращается в заголовке {@link #NEXT_CURSOR_HEADER}.
+ * <p>
+ * Запрос без {@code limit} возвращает {@link #maxPageSize} сущностей, а явный {@code limit} ограничен тем же
+ * значением: запрос страницы не должен возвращать меньше, чем запрос без нее.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "filmorate.pagination")
+public class Pagination {
+
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    /**
+     * Максимальный размер страницы, он же размер ответа без {@code limit}.
+     */
+    private int maxPageSize = 10_000;
+
+    /**
+     * Размер страницы для переданного клиентом {@code limit}.
+     *
+     * @param limit Запрошенный размер страницы или {@code null}, если он не передан.
+     * @return Размер страницы, ограниченный сверху настройками.
+     * @throws ValidationException Если {@code limit} меньше 1.
+     */
+    public int pageSize(final @Nullable Integer limit) {
+        if (limit == null) {
+            return maxPageSize;
+        }
+
+        if (limit < 1) {
+            throw new ValidationException("Размер страницы должен быть положительным.");
+        }
+
+        return Math.min(limit, maxPageSize);
+    }
+
+    /**
+     * Сформировать ответ из страницы, запрошенной с запасом в один элемент.
+     *
+     * @param pageWithNext Страница размером до {@code pageSize + 1}: лишний элемент означает, что есть следующая.
+     * @param pageSize     Размер страницы.
+     * @param idOf         Способ получить идентификатор (курсор) сущности.
+     * @return Ответ со страницей и, если есть следующая страница, ее курсором в заголовке.
+     */
+    public static <T> ResponseEntity<List<T>> toResponse(final List<T> pageWithNext,
+                                                         final int pageSize,
+                                                         final ToLongFunction<T> idOf) {
+        if (pageWithNext.size() <= pageSize) {
+            return ResponseEntity.ok(pageWithNext);
+        }
+
+        final List<T> page = pageWithNext.subList(0, pageSize);
+
+        return ResponseEntity.ok()
+                .header(NEXT_CURSOR_HEADER, Long.toString(idOf.applyAsLong(page.get(pageSize - 1))))
+                .body(page);
+    }
+}
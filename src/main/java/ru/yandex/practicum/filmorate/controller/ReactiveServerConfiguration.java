@@ -0,0 +1,23 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Сервер реактивного режима.
+ * <p>
+ * Tomcat нужен режиму Spring MVC и остается в classpath, а Spring Boot при выборе реактивного сервера
+ * предпочитает его Netty. Реактивный режим нужен ради Netty (несколько потоков обслуживают все соединения),
+ * поэтому сервер задается явно.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveServerConfiguration {
+
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+}
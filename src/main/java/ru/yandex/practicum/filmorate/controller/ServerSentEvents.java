@@ -0,0 +1,51 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.springframework.http.codec.ServerSentEvent;
+import reactor.core.publisher.Flux;
+import ru.yandex.practicum.filmorate.service.changes.ChangeEvent;
+import ru.yandex.practicum.filmorate.service.changes.ChangeType;
+
+import java.util.Locale;
+
+/**
+ * Поток изменений в формате Server-Sent Events ({@code text/event-stream}).
+ * <p>
+ * Изменение – событие {@code created} или {@code updated} с номером изменения в {@code id} и сущностью в JSON
+ * в {@code data}. Перед отключением медленного подписчика отправляется событие {@code resync}: клиенту нужно
+ * заново загрузить коллекцию. Пустые события для простаивающих соединений – комментарии, {@code EventSource}
+ * их не показывает.
+ */
+public final class ServerSentEvents {
+
+    private static final String RESYNC_DATA = "resync";
+
+    private static final String HEARTBEAT_COMMENT = "heartbeat";
+
+    private ServerSentEvents() {
+    }
+
+    /**
+     * Преобразовать поток изменений в события SSE.
+     */
+    public static <T> Flux<ServerSentEvent<Object>> of(final Flux<ChangeEvent<T>> changes) {
+        return changes.map(ServerSentEvents::toServerSentEvent);
+    }
+
+    private static ServerSentEvent<Object> toServerSentEvent(final ChangeEvent<?> change) {
+        if (change.getType() == ChangeType.HEARTBEAT) {
+            return ServerSentEvent.<Object>builder().comment(HEARTBEAT_COMMENT).build();
+        }
+
+        final String name = change.getType().name().toLowerCase(Locale.ROOT);
+        if (change.getType() == ChangeType.RESYNC) {
+            // событие без данных EventSource не доставляет
+            return ServerSentEvent.<Object>builder().event(name).data(RESYNC_DATA).build();
+        }
+
+        return ServerSentEvent.<Object>builder()
+                .id(Long.toString(change.getSequence()))
+                .event(name)
+                .data(change.getEntity())
+                .build();
+    }
+}
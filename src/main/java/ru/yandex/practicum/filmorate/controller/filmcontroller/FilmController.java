@@ -1,82 +1,288 @@
 package ru.yandex.practicum.filmorate.controller.filmcontroller;
 
-import lombok.extern.slf4j.Slf4j;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.lang.Nullable;
 import org.springframework.web.bind.annotation.*;
-import ru.yandex.practicum.filmorate.exceptions.IdentifierDoesNotExistException;
-import ru.yandex.practicum.filmorate.exceptions.ValidationException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import reactor.core.publisher.Flux;
+import ru.yandex.practicum.filmorate.controller.EntityTags;
+import ru.yandex.practicum.filmorate.controller.JsonCache;
+import ru.yandex.practicum.filmorate.controller.NdjsonExporter;
+import ru.yandex.practicum.filmorate.controller.Pagination;
+import ru.yandex.practicum.filmorate.controller.ServerSentEvents;
+import ru.yandex.practicum.filmorate.model.BatchItemResult;
+import ru.yandex.practicum.filmorate.model.Delta;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmPatch;
+import ru.yandex.practicum.filmorate.model.MergePatch;
+import ru.yandex.practicum.filmorate.service.filmservice.FilmService;
+import ru.yandex.practicum.filmorate.service.idempotency.IdempotencyCache;
 
 import javax.validation.Valid;
-import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
+import java.time.LocalDate;
+import java.util.List;
 
-@Slf4j
+/**
+ * API фильмов на Spring MVC (режим по умолчанию). В реактивном режиме те же запросы обрабатывает
+ * {@link ReactiveFilmController}.
+ */
 @RestController
 @RequestMapping("/films")
+@RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public final class FilmController {
 
-    /**
-     * Данные о фильмах.
-     */
-    private final Map<Long, Film> data = new HashMap<>();
+    private final FilmService filmService;
+
+    private final Pagination pagination;
+
+    private final NdjsonExporter ndjsonExporter;
+
+    private final JsonCache<Film> jsonCache;
 
     /**
-     * Получить все фильмы.
+     * Получить фильмы постранично в порядке возрастания идентификатора.
+     * <p>
+     * Без {@code limit} возвращается не больше {@link Pagination#getMaxPageSize()} фильмов. Если есть следующая
+     * страница, ее курсор передается в заголовке {@link Pagination#NEXT_CURSOR_HEADER}.
+     * <p>
+     * Если передан {@code releasedFrom} или {@code releasedTo}, возвращаются фильмы, выпущенные в этот период
+     * (границы включительно), в порядке даты выпуска; курсор при этом не используется, размер ответа
+     * ограничен так же, как размер страницы.
+     * <p>
+     * ETag ответа – версия хранилища фильмов: если фильмы не менялись с ответа, тег которого передан
+     * в {@code If-None-Match}, возвращается {@code 304 Not Modified} без тела. Тело ответа собирается из JSON
+     * фильмов, сохраненного в {@link JsonCache}.
      *
-     * @return Список всех фильмов (порядок добавления не сохраняется).
+     * @param limit        Размер страницы.
+     * @param cursor       Курсор: идентификатор последнего фильма предыдущей страницы.
+     * @param releasedFrom Начало периода выпуска в формате {@code yyyy-MM-dd}.
+     * @param releasedTo   Конец периода выпуска в формате {@code yyyy-MM-dd}.
+     * @param ifNoneMatch  ETag ранее полученного ответа.
+     * @return Страница фильмов.
      */
     @GetMapping
-    public Collection<Film> getAllFilms() {
-        return data.values();
+    public ResponseEntity<byte[]> getAllFilms(@RequestParam(required = false) @Nullable Integer limit,
+                                              @RequestParam(defaultValue = "0") long cursor,
+                                              @RequestParam(required = false) @Nullable
+                                              @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate releasedFrom,
+                                              @RequestParam(required = false) @Nullable
+                                              @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate releasedTo,
+                                              @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+                                              @Nullable String ifNoneMatch) {
+        final int pageSize = pagination.pageSize(limit);
+        // версия читается до данных: тег не бывает новее ответа
+        final String etag = EntityTags.of(filmService.version());
+        if (EntityTags.matches(ifNoneMatch, etag)) {
+            return EntityTags.notModified(etag);
+        }
+
+        if (releasedFrom != null || releasedTo != null) {
+            return jsonCache.toJsonResponse(ResponseEntity.ok()
+                    .eTag(etag)
+                    .body(filmService.findByReleaseDate(releasedFrom, releasedTo, pageSize)));
+        }
+
+        return jsonCache.toJsonResponse(EntityTags.withTag(Pagination.toResponse(
+                filmService.findPage(cursor, pageSize + 1), pageSize, Film::getId), etag));
     }
 
     /**
-     * Добавить новый фильм.
+     * Получить фильм по идентификатору.
+     * <p>
+     * ETag ответа – версия фильма; при совпадении с {@code If-None-Match} возвращается {@code 304 Not Modified}.
      *
-     * @return Добавленный фильм.
+     * @param id          Идентификатор фильма.
+     * @param ifNoneMatch ETag ранее полученного ответа.
+     * @return Фильм.
      */
-    @PostMapping
-    public Film addFilm(@Valid @RequestBody Film film) {
-        final long id = film.getId();
-
-        // временная проверка: передача идентификатора при создании новой сущности не подразумевается
-        if (data.containsKey(id)) {
-            throw new ValidationException("Фильм с таким идентификатором уже существует.");
+    @GetMapping("/{id}")
+    public ResponseEntity<byte[]> getFilm(@PathVariable long id,
+                                          @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+                                          @Nullable String ifNoneMatch) {
+        final long version = filmService.versionOf(id);
+        final String etag = EntityTags.of(version);
+        if (version != Film.NO_VERSION && EntityTags.matches(ifNoneMatch, etag)) {
+            return EntityTags.notModified(etag);
         }
 
-        // временная проверка: передача идентификатора при создании новой сущности не подразумевается
-        if (id < 0) {
-            throw new ValidationException("Идентификатор фильма не может быть меньше 0.");
-        }
+        // тег ответа – версия отданного тела: по нему можно изменить ровно это состояние
+        final Film film = filmService.findById(id);
+
+        return ResponseEntity.ok()
+                .eTag(EntityTags.of(film.getVersion()))
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(jsonCache.toJson(film));
+    }
 
-        data.put(id, film);
+    /**
+     * Выгрузить все фильмы потоком в формате NDJSON (по запросу с {@code Accept: application/x-ndjson}).
+     * <p>
+     * В отличие от {@link #getAllFilms(Integer, long, LocalDate, LocalDate, String)} размер выгрузки не ограничен:
+     * сущности пишутся в ответ по одной, не собираясь в памяти.
+     *
+     * @return Тело ответа, записывающее фильмы по мере обхода хранилища.
+     */
+    @GetMapping(produces = NdjsonExporter.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportFilms() {
+        return ResponseEntity.ok()
+                .contentType(NdjsonExporter.APPLICATION_NDJSON)
+                .body(ndjsonExporter.stream(filmService.findAll()));
+    }
+
+    /**
+     * Получить фильмы, добавленные или измененные после версии {@code sinceVersion} (синхронизация изменений).
+     * <p>
+     * Стоимость запроса зависит от количества изменений, а не от количества фильмов. Ответ содержит сущности
+     * в текущем состоянии и версию, которую нужно передать в следующем запросе; если изменений больше
+     * {@code limit}, следующий запрос вернет остальные. Если версия неизвестна (первая синхронизация, перезапуск
+     * приложения) или старше журнала изменений, ответ содержит {@code resyncRequired: true} и текущую версию:
+     * клиент заново загружает фильмы постранично и затем запрашивает изменения после этой версии.
+     *
+     * @param sinceVersion Версия из предыдущего ответа.
+     * @param limit        Максимальное количество фильмов в ответе.
+     * @return Изменения после версии.
+     */
+    @GetMapping(params = "sinceVersion")
+    public Delta<Film> getChangedFilms(@RequestParam long sinceVersion,
+                                       @RequestParam(required = false) @Nullable Integer limit) {
+        return filmService.findChangedSince(sinceVersion, pagination.pageSize(limit));
+    }
 
-        final Film addedFilm = data.get(id);
-        log.info(String.format("Добавлен новый фильм: %s.", addedFilm));
+    /**
+     * Подписаться на добавление и обновление фильмов (Server-Sent Events).
+     * <p>
+     * Событие отправляется после сохранения изменения, в том числе из пакетных запросов; формат событий
+     * описан в {@link ServerSentEvents}. Поток не ограничен по времени, но в режиме Spring MVC запрос
+     * завершается по {@code spring.mvc.async.request-timeout}, после чего {@code EventSource} переподключается
+     * сам. Тысячи простаивающих подписок дешевле держать в реактивном режиме.
+     *
+     * @return Бесконечный поток событий.
+     */
+    @GetMapping(path = "/changes/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Object>> streamChanges() {
+        return ServerSentEvents.of(filmService.streamChanges());
+    }
 
-        return addedFilm;
+    /**
+     * Добавить новый фильм.
+     * <p>
+     * Клиент, повторяющий запрос после обрыва или таймаута, передает в {@code Idempotency-Key} один и тот же
+     * ключ: повтор возвращает фильм, добавленный первым запросом, а не добавляет его еще раз.
+     *
+     * @param film           Новый фильм.
+     * @param idempotencyKey Ключ идемпотентности.
+     * @return Добавленный фильм.
+     * @see IdempotencyCache
+     */
+    @PostMapping
+    public Film addFilm(@Valid @RequestBody Film film,
+                        @RequestHeader(value = IdempotencyCache.IDEMPOTENCY_KEY_HEADER, required = false)
+                        @Nullable String idempotencyKey) {
+        return filmService.add(film, idempotencyKey);
     }
 
     /**
      * Обновить (полностью перезаписать) существующий фильм.
+     * <p>
+     * Если передан {@code If-Match} (ETag фильма) или поле {@code version}, фильм перезаписывается, только пока
+     * его версия не изменилась; иначе ответ {@code 412 Precondition Failed}. Без них последняя запись побеждает.
      *
-     * @return Обновленный фильм.
+     * @param film    Новое состояние фильма.
+     * @param ifMatch ETag фильма, к которому относится изменение.
+     * @return Обновленный фильм с новой версией.
      */
     @PutMapping
-    public Film updateFilm(@Valid @RequestBody Film film) {
-        final long id = film.getId();
+    public Film updateFilm(@Valid @RequestBody Film film,
+                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) @Nullable String ifMatch) {
+        return filmService.update(film.withVersion(EntityTags.expectedVersion(ifMatch, film.getVersion(),
+                () -> filmService.versionOf(film.getId()))));
+    }
 
-        if (!data.containsKey(id)) {
-            throw new IdentifierDoesNotExistException("Фильма с переданным идентификатором не существует в базе.");
-        }
+    /**
+     * Частично обновить фильм (JSON Merge Patch).
+     * <p>
+     * В теле передаются только изменяемые поля, {@code null} сбрасывает поле; проверяются только они. Версия
+     * проверяется так же, как в {@link #updateFilm(Film, String)}.
+     *
+     * @param id      Идентификатор фильма.
+     * @param patch   Изменения.
+     * @param ifMatch ETag фильма, к которому относится изменение.
+     * @return Обновленный фильм.
+     * @see FilmPatch
+     */
+    @PatchMapping(path = "/{id}",
+            consumes = {MergePatch.APPLICATION_MERGE_PATCH_JSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public Film patchFilm(@PathVariable long id,
+                          @RequestBody FilmPatch patch,
+                          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) @Nullable String ifMatch) {
+        return filmService.patch(id, patch, EntityTags.expectedVersion(ifMatch, patch.getVersion(),
+                () -> filmService.versionOf(id)));
+    }
+
+    /**
+     * Поставить фильму лайк.
+     *
+     * @param id     Идентификатор фильма.
+     * @param userId Идентификатор пользователя.
+     */
+    @PutMapping("/{id}/like/{userId}")
+    public void addLike(@PathVariable long id, @PathVariable long userId) {
+        filmService.addLike(id, userId);
+    }
 
-        data.put(id, film);
+    /**
+     * Получить самые популярные фильмы (по количеству лайков).
+     *
+     * @param count Количество фильмов, не больше {@link Pagination#getMaxPageSize()}.
+     * @return Фильмы по убыванию популярности.
+     */
+    @GetMapping("/popular")
+    public List<Film> getPopularFilms(@RequestParam(defaultValue = "10") int count) {
+        return filmService.findPopular(pagination.pageSize(count));
+    }
+
+    /**
+     * Найти фильмы по словам из названия и описания, в том числе по началу слова и с опечатками.
+     *
+     * @param q     Поисковый запрос.
+     * @param limit Количество фильмов, не больше {@link Pagination#getMaxPageSize()}.
+     * @return Фильмы по убыванию релевантности.
+     */
+    @GetMapping("/search")
+    public List<Film> searchFilms(@RequestParam String q, @RequestParam(defaultValue = "10") int limit) {
+        return filmService.search(q, pagination.pageSize(limit));
+    }
 
-        final Film updatedFilm = data.get(id);
-        log.info(String.format("Обновлен фильм: %s.", updatedFilm));
+    /**
+     * Добавить несколько фильмов одним запросом.
+     * <p>
+     * Каждый фильм валидируется и добавляется независимо: ответ содержит результат по каждому элементу.
+     *
+     * @param films Новые фильмы.
+     * @return Результаты в порядке переданных фильмов.
+     */
+    @PostMapping("/batch")
+    public List<BatchItemResult<Film>> addFilms(@RequestBody List<Film> films) {
+        return filmService.addAll(films);
+    }
 
-        return updatedFilm;
+    /**
+     * Обновить несколько фильмов одним запросом.
+     *
+     * @param films Новые версии фильмов.
+     * @return Результаты в порядке переданных фильмов.
+     * @see #addFilms(List)
+     */
+    @PutMapping("/batch")
+    public List<BatchItemResult<Film>> updateFilms(@RequestBody List<Film> films) {
+        return filmService.updateAll(films);
     }
 
 }
@@ -0,0 +1,206 @@
+package ru.yandex.practicum.filmorate.controller.filmcontroller;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.lang.Nullable;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.yandex.practicum.filmorate.controller.EntityTags;
+import ru.yandex.practicum.filmorate.controller.JsonCache;
+import ru.yandex.practicum.filmorate.controller.NdjsonExporter;
+import ru.yandex.practicum.filmorate.controller.Pagination;
+import ru.yandex.practicum.filmorate.model.BatchItemResult;
+import ru.yandex.practicum.filmorate.model.Delta;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmPatch;
+import ru.yandex.practicum.filmorate.model.MergePatch;
+import ru.yandex.practicum.filmorate.service.filmservice.FilmService;
+import ru.yandex.practicum.filmorate.service.idempotency.IdempotencyCache;
+
+import javax.validation.Valid;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * API фильмов в реактивном режиме (профиль {@code reactive}): те же адреса, параметры и ответы, что
+ * у {@link FilmController}, на WebFlux и Netty.
+ * <p>
+ * Чтение из хранилищ в памяти не блокируется и выполняется в потоке обработки соединений; запросы чтения
+ * выполняет {@link FilmController}, поэтому ETag, страницы и кэш JSON работают так же. Изменения не ждут
+ * записи на диск в потоке: ответ отправляется по завершении записи в журнал ({@code *Async} методы
+ * {@link FilmService}), а поток в это время обслуживает другие соединения. Выгрузка всех фильмов передается
+ * потоком буферов с обратным давлением (см. {@link NdjsonExporter#toFlux}).
+ */
+@RestController
+@RequestMapping("/films")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public final class ReactiveFilmController {
+
+    private final FilmService filmService;
+
+    private final NdjsonExporter ndjsonExporter;
+
+    /**
+     * Обработчик запросов чтения; сам по себе не блокирует.
+     */
+    private final FilmController reader;
+
+    public ReactiveFilmController(final FilmService filmService,
+                                  final Pagination pagination,
+                                  final NdjsonExporter ndjsonExporter,
+                                  final JsonCache<Film> jsonCache) {
+        this.filmService = filmService;
+        this.ndjsonExporter = ndjsonExporter;
+        this.reader = new FilmController(filmService, pagination, ndjsonExporter, jsonCache);
+    }
+
+    /**
+     * @see FilmController#getAllFilms(Integer, long, LocalDate, LocalDate, String)
+     */
+    @GetMapping
+    public Mono<ResponseEntity<byte[]>> getAllFilms(@RequestParam(required = false) @Nullable Integer limit,
+                                                    @RequestParam(defaultValue = "0") long cursor,
+                                                    @RequestParam(required = false) @Nullable
+                                                    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+                                                    LocalDate releasedFrom,
+                                                    @RequestParam(required = false) @Nullable
+                                                    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+                                                    LocalDate releasedTo,
+                                                    @RequestHeader(value = HttpHeaders.IF_NONE_MATCH,
+                                                            required = false) @Nullable String ifNoneMatch) {
+        return Mono.fromSupplier(() -> reader.getAllFilms(limit, cursor, releasedFrom, releasedTo, ifNoneMatch));
+    }
+
+    /**
+     * @see FilmController#getFilm(long, String)
+     */
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<byte[]>> getFilm(@PathVariable long id,
+                                                @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+                                                @Nullable String ifNoneMatch) {
+        return Mono.fromSupplier(() -> reader.getFilm(id, ifNoneMatch));
+    }
+
+    /**
+     * Выгрузить все фильмы в формате NDJSON. Фильмы читаются из хранилища по мере того, как клиент принимает
+     * данные.
+     *
+     * @see FilmController#exportFilms()
+     */
+    @GetMapping(produces = NdjsonExporter.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<Flux<DataBuffer>> exportFilms(final ServerHttpResponse response) {
+        return ResponseEntity.ok()
+                .contentType(NdjsonExporter.APPLICATION_NDJSON)
+                .body(ndjsonExporter.toFlux(filmService.findAll(), response.bufferFactory()));
+    }
+
+    /**
+     * @see FilmController#getChangedFilms(long, Integer)
+     */
+    @GetMapping(params = "sinceVersion")
+    public Mono<Delta<Film>> getChangedFilms(@RequestParam long sinceVersion,
+                                             @RequestParam(required = false) @Nullable Integer limit) {
+        return Mono.fromSupplier(() -> reader.getChangedFilms(sinceVersion, limit));
+    }
+
+    /**
+     * @see FilmController#streamChanges()
+     */
+    @GetMapping(path = "/changes/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Object>> streamChanges() {
+        return reader.streamChanges();
+    }
+
+    /**
+     * @see FilmController#addFilm(Film, String)
+     */
+    @PostMapping
+    public Mono<Film> addFilm(@Valid @RequestBody Mono<Film> film,
+                              @RequestHeader(value = IdempotencyCache.IDEMPOTENCY_KEY_HEADER, required = false)
+                              @Nullable String idempotencyKey) {
+        return film.flatMap(newFilm -> Mono.fromFuture(filmService.addAsync(newFilm, idempotencyKey)));
+    }
+
+    /**
+     * @see FilmController#updateFilm(Film, String)
+     */
+    @PutMapping
+    public Mono<Film> updateFilm(@Valid @RequestBody Mono<Film> film,
+                                 @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+                                 @Nullable String ifMatch) {
+        return film.flatMap(newFilm -> Mono.fromFuture(filmService.updateAsync(
+                newFilm.withVersion(EntityTags.expectedVersion(ifMatch, newFilm.getVersion(),
+                        () -> filmService.versionOf(newFilm.getId()))))));
+    }
+
+    /**
+     * @see FilmController#patchFilm(long, FilmPatch, String)
+     */
+    @PatchMapping(path = "/{id}",
+            consumes = {MergePatch.APPLICATION_MERGE_PATCH_JSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public Mono<Film> patchFilm(@PathVariable long id,
+                                @RequestBody Mono<FilmPatch> patch,
+                                @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+                                @Nullable String ifMatch) {
+        return patch.flatMap(filmPatch -> Mono.fromFuture(filmService.patchAsync(id, filmPatch,
+                EntityTags.expectedVersion(ifMatch, filmPatch.getVersion(),
+                        () -> filmService.versionOf(id)))));
+    }
+
+    /**
+     * @see FilmController#addLike(long, long)
+     */
+    @PutMapping("/{id}/like/{userId}")
+    public Mono<Void> addLike(@PathVariable long id, @PathVariable long userId) {
+        return Mono.defer(() -> Mono.fromFuture(filmService.addLikeAsync(id, userId)));
+    }
+
+    /**
+     * @see FilmController#getPopularFilms(int)
+     */
+    @GetMapping("/popular")
+    public Flux<Film> getPopularFilms(@RequestParam(defaultValue = "10") int count) {
+        return Flux.defer(() -> Flux.fromIterable(reader.getPopularFilms(count)));
+    }
+
+    /**
+     * @see FilmController#searchFilms(String, int)
+     */
+    @GetMapping("/search")
+    public Flux<Film> searchFilms(@RequestParam String q, @RequestParam(defaultValue = "10") int limit) {
+        return Flux.defer(() -> Flux.fromIterable(reader.searchFilms(q, limit)));
+    }
+
+    /**
+     * @see FilmController#addFilms(List)
+     */
+    @PostMapping("/batch")
+    public Mono<List<BatchItemResult<Film>>> addFilms(@RequestBody Mono<List<Film>> films) {
+        return films.flatMap(batch -> Mono.fromFuture(filmService.addAllAsync(batch)));
+    }
+
+    /**
+     * @see FilmController#updateFilms(List)
+     */
+    @PutMapping("/batch")
+    public Mono<List<BatchItemResult<Film>>> updateFilms(@RequestBody Mono<List<Film>> films) {
+        return films.flatMap(batch -> Mono.fromFuture(filmService.updateAllAsync(batch)));
+    }
+
+}
@@ -0,0 +1,219 @@
+package ru.yandex.practicum.filmorate.controller.usercontroller;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.lang.Nullable;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.yandex.practicum.filmorate.controller.EntityTags;
+import ru.yandex.practicum.filmorate.controller.JsonCache;
+import ru.yandex.practicum.filmorate.controller.NdjsonExporter;
+import ru.yandex.practicum.filmorate.controller.Pagination;
+import ru.yandex.practicum.filmorate.model.BatchItemResult;
+import ru.yandex.practicum.filmorate.model.Delta;
+import ru.yandex.practicum.filmorate.model.MergePatch;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.model.UserPatch;
+import ru.yandex.practicum.filmorate.service.idempotency.IdempotencyCache;
+import ru.yandex.practicum.filmorate.service.userservice.UserService;
+
+import javax.validation.Valid;
+import java.util.List;
+
+/**
+ * API пользователей в реактивном режиме (профиль {@code reactive}): те же адреса, параметры и ответы, что
+ * у {@link UserController}, на WebFlux и Netty.
+ *
+ * @see ru.yandex.practicum.filmorate.controller.filmcontroller.ReactiveFilmController
+ */
+@RestController
+@RequestMapping("/users")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public final class ReactiveUserController {
+
+    private final UserService userService;
+
+    private final NdjsonExporter ndjsonExporter;
+
+    /**
+     * Обработчик запросов чтения; сам по себе не блокирует.
+     */
+    private final UserController reader;
+
+    public ReactiveUserController(final UserService userService,
+                                  final Pagination pagination,
+                                  final NdjsonExporter ndjsonExporter,
+                                  final JsonCache<User> jsonCache) {
+        this.userService = userService;
+        this.ndjsonExporter = ndjsonExporter;
+        this.reader = new UserController(userService, pagination, ndjsonExporter, jsonCache);
+    }
+
+    /**
+     * @see UserController#getAllUsers(Integer, long, String)
+     */
+    @GetMapping
+    public Mono<ResponseEntity<byte[]>> getAllUsers(@RequestParam(required = false) @Nullable Integer limit,
+                                                    @RequestParam(defaultValue = "0") long cursor,
+                                                    @RequestHeader(value = HttpHeaders.IF_NONE_MATCH,
+                                                            required = false) @Nullable String ifNoneMatch) {
+        return Mono.fromSupplier(() -> reader.getAllUsers(limit, cursor, ifNoneMatch));
+    }
+
+    /**
+     * @see UserController#getUser(long, String)
+     */
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<byte[]>> getUser(@PathVariable long id,
+                                                @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+                                                @Nullable String ifNoneMatch) {
+        return Mono.fromSupplier(() -> reader.getUser(id, ifNoneMatch));
+    }
+
+    /**
+     * Выгрузить всех пользователей в формате NDJSON. Пользователи читаются из хранилища по мере того, как
+     * клиент принимает данные.
+     *
+     * @see UserController#exportUsers()
+     */
+    @GetMapping(produces = NdjsonExporter.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<Flux<DataBuffer>> exportUsers(final ServerHttpResponse response) {
+        return ResponseEntity.ok()
+                .contentType(NdjsonExporter.APPLICATION_NDJSON)
+                .body(ndjsonExporter.toFlux(userService.findAll(), response.bufferFactory()));
+    }
+
+    /**
+     * @see UserController#getUserByLogin(String)
+     */
+    @GetMapping("/by-login/{login}")
+    public Mono<User> getUserByLogin(@PathVariable String login) {
+        return Mono.fromSupplier(() -> reader.getUserByLogin(login));
+    }
+
+    /**
+     * @see UserController#autocompleteLogin(String, int)
+     */
+    @GetMapping("/autocomplete")
+    public Flux<User> autocompleteLogin(@RequestParam String prefix, @RequestParam(defaultValue = "10") int limit) {
+        return Flux.defer(() -> Flux.fromIterable(reader.autocompleteLogin(prefix, limit)));
+    }
+
+    /**
+     * @see UserController#getChangedUsers(long, Integer)
+     */
+    @GetMapping(params = "sinceVersion")
+    public Mono<Delta<User>> getChangedUsers(@RequestParam long sinceVersion,
+                                             @RequestParam(required = false) @Nullable Integer limit) {
+        return Mono.fromSupplier(() -> reader.getChangedUsers(sinceVersion, limit));
+    }
+
+    /**
+     * @see UserController#streamChanges()
+     */
+    @GetMapping(path = "/changes/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Object>> streamChanges() {
+        return reader.streamChanges();
+    }
+
+    /**
+     * @see UserController#addUser(User, String)
+     */
+    @PostMapping
+    public Mono<User> addUser(@Valid @RequestBody Mono<User> user,
+                              @RequestHeader(value = IdempotencyCache.IDEMPOTENCY_KEY_HEADER, required = false)
+                              @Nullable String idempotencyKey) {
+        return user.flatMap(newUser -> Mono.fromFuture(userService.addAsync(newUser, idempotencyKey)));
+    }
+
+    /**
+     * @see UserController#updateUser(User, String)
+     */
+    @PutMapping
+    public Mono<User> updateUser(@Valid @RequestBody Mono<User> user,
+                                 @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+                                 @Nullable String ifMatch) {
+        return user.flatMap(newUser -> Mono.fromFuture(userService.updateAsync(
+                newUser.withVersion(EntityTags.expectedVersion(ifMatch, newUser.getVersion(),
+                        () -> userService.versionOf(newUser.getId()))))));
+    }
+
+    /**
+     * @see UserController#patchUser(long, UserPatch, String)
+     */
+    @PatchMapping(path = "/{id}",
+            consumes = {MergePatch.APPLICATION_MERGE_PATCH_JSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public Mono<User> patchUser(@PathVariable long id,
+                                @RequestBody Mono<UserPatch> patch,
+                                @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+                                @Nullable String ifMatch) {
+        return patch.flatMap(userPatch -> Mono.fromFuture(userService.patchAsync(id, userPatch,
+                EntityTags.expectedVersion(ifMatch, userPatch.getVersion(),
+                        () -> userService.versionOf(id)))));
+    }
+
+    /**
+     * @see UserController#addUsers(List)
+     */
+    @PostMapping("/batch")
+    public Mono<List<BatchItemResult<User>>> addUsers(@RequestBody Mono<List<User>> users) {
+        return users.flatMap(batch -> Mono.fromFuture(userService.addAllAsync(batch)));
+    }
+
+    /**
+     * @see UserController#updateUsers(List)
+     */
+    @PutMapping("/batch")
+    public Mono<List<BatchItemResult<User>>> updateUsers(@RequestBody Mono<List<User>> users) {
+        return users.flatMap(batch -> Mono.fromFuture(userService.updateAllAsync(batch)));
+    }
+
+    /**
+     * @see UserController#addFriend(long, long)
+     */
+    @PutMapping("/{id}/friends/{friendId}")
+    public Mono<Void> addFriend(@PathVariable long id, @PathVariable long friendId) {
+        return Mono.defer(() -> Mono.fromFuture(userService.addFriendAsync(id, friendId)));
+    }
+
+    /**
+     * @see UserController#removeFriend(long, long)
+     */
+    @DeleteMapping("/{id}/friends/{friendId}")
+    public Mono<Void> removeFriend(@PathVariable long id, @PathVariable long friendId) {
+        return Mono.defer(() -> Mono.fromFuture(userService.removeFriendAsync(id, friendId)));
+    }
+
+    /**
+     * @see UserController#getFriends(long)
+     */
+    @GetMapping("/{id}/friends")
+    public Flux<User> getFriends(@PathVariable long id) {
+        return Flux.defer(() -> Flux.fromIterable(reader.getFriends(id)));
+    }
+
+    /**
+     * @see UserController#getCommonFriends(long, long)
+     */
+    @GetMapping("/{id}/friends/common/{otherId}")
+    public Flux<User> getCommonFriends(@PathVariable long id, @PathVariable long otherId) {
+        return Flux.defer(() -> Flux.fromIterable(reader.getCommonFriends(id, otherId)));
+    }
+
+}
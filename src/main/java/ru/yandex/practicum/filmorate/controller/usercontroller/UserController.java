@@ -1,88 +1,312 @@
 package ru.yandex.practicum.filmorate.controller.usercontroller;
 
-import lombok.extern.slf4j.Slf4j;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.lang.Nullable;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import reactor.core.publisher.Flux;
+import ru.yandex.practicum.filmorate.controller.EntityTags;
+import ru.yandex.practicum.filmorate.controller.JsonCache;
+import ru.yandex.practicum.filmorate.controller.NdjsonExporter;
+import ru.yandex.practicum.filmorate.controller.Pagination;
+import ru.yandex.practicum.filmorate.controller.ServerSentEvents;
+import ru.yandex.practicum.filmorate.exceptions.DuplicateValueException;
+import ru.yandex.practicum.filmorate.exceptions.IdempotencyKeyMismatchException;
 import ru.yandex.practicum.filmorate.exceptions.IdentifierDoesNotExistException;
 import ru.yandex.practicum.filmorate.exceptions.ValidationException;
+import ru.yandex.practicum.filmorate.exceptions.VersionConflictException;
+import ru.yandex.practicum.filmorate.model.BatchItemResult;
+import ru.yandex.practicum.filmorate.model.Delta;
+import ru.yandex.practicum.filmorate.model.MergePatch;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.model.UserPatch;
+import ru.yandex.practicum.filmorate.service.idempotency.IdempotencyCache;
+import ru.yandex.practicum.filmorate.service.userservice.UserService;
 
 import javax.validation.Valid;
-import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.List;
 
-@Slf4j
+/**
+ * API пользователей на Spring MVC (режим по умолчанию). В реактивном режиме те же запросы обрабатывает
+ * {@link ReactiveUserController}.
+ */
 @RestController
 @RequestMapping("/users")
+@RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public final class UserController {
 
-    private final Map<Long, User> data = new HashMap<>();
+    private final UserService userService;
+
+    private final Pagination pagination;
+
+    private final NdjsonExporter ndjsonExporter;
+
+    private final JsonCache<User> jsonCache;
 
     /**
-     * Получить всех пользователей.
+     * Получить пользователей постранично в порядке возрастания идентификатора.
+     * <p>
+     * Без {@code limit} возвращается не больше {@link Pagination#getMaxPageSize()} пользователей. Если есть
+     * следующая страница, ее курсор передается в заголовке {@link Pagination#NEXT_CURSOR_HEADER}.
+     * <p>
+     * ETag ответа – версия хранилища пользователей, см. {@link EntityTags}. Тело ответа собирается из JSON
+     * пользователей, сохраненного в {@link JsonCache}.
      *
-     * @return Список всех пользователей (порядок добавления не сохраняется).
+     * @param limit       Размер страницы.
+     * @param cursor      Курсор: идентификатор последнего пользователя предыдущей страницы.
+     * @param ifNoneMatch ETag ранее полученного ответа.
+     * @return Страница пользователей или {@code 304 Not Modified}, если пользователи не менялись.
      */
     @GetMapping
-    public Collection<User> getAllUsers() {
-        return data.values();
+    public ResponseEntity<byte[]> getAllUsers(@RequestParam(required = false) @Nullable Integer limit,
+                                              @RequestParam(defaultValue = "0") long cursor,
+                                              @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+                                              @Nullable String ifNoneMatch) {
+        final int pageSize = pagination.pageSize(limit);
+        final String etag = EntityTags.of(userService.version());
+        if (EntityTags.matches(ifNoneMatch, etag)) {
+            return EntityTags.notModified(etag);
+        }
+
+        return jsonCache.toJsonResponse(EntityTags.withTag(Pagination.toResponse(
+                userService.findPage(cursor, pageSize + 1), pageSize, User::getId), etag));
     }
 
     /**
-     * Создать нового пользователя.
+     * Получить пользователя по идентификатору.
      *
-     * @param user Новый пользователь.
-     * @return Объект нового пользователя.
-     * @throws ValidationException Исключение в случае невалидных данных.
+     * @param id          Идентификатор пользователя.
+     * @param ifNoneMatch ETag ранее полученного ответа.
+     * @return Пользователь или {@code 304 Not Modified}, если он не менялся.
      */
-    @PostMapping
-    public User addUser(@Valid @RequestBody User user) {
-        final long id = user.getId();
-
-        // временная проверка: передача идентификатора при создании новой сущности не подразумевается
-        if (id < 0) {
-            throw new ValidationException("Идентификатор пользователя не может быть меньше нуля.");
+    @GetMapping("/{id}")
+    public ResponseEntity<byte[]> getUser(@PathVariable long id,
+                                          @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+                                          @Nullable String ifNoneMatch) {
+        final long version = userService.versionOf(id);
+        final String etag = EntityTags.of(version);
+        if (version != User.NO_VERSION && EntityTags.matches(ifNoneMatch, etag)) {
+            return EntityTags.notModified(etag);
         }
 
-        // временная проверка: передача идентификатора при создании новой сущности не подразумевается
-        if (data.containsKey(id)) {
-            throw new ValidationException("Пользователь с указанным идентификатором уже существует.");
-        }
+        // тег ответа – версия отданного тела: по нему можно изменить ровно это состояние
+        final User user = userService.findById(id);
 
-        data.put(id, user);
+        return ResponseEntity.ok()
+                .eTag(EntityTags.of(user.getVersion()))
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(jsonCache.toJson(user));
+    }
 
-        final User addedUser = data.get(id);
-        log.info(String.format("Добавлен новый пользователь: %s.", addedUser));
+    /**
+     * Выгрузить всех пользователей потоком в формате NDJSON (по запросу с {@code Accept: application/x-ndjson}).
+     * <p>
+     * В отличие от {@link #getAllUsers(Integer, long, String)} размер выгрузки не ограничен: сущности
+     * пишутся в ответ по одной, не собираясь в памяти.
+     *
+     * @return Тело ответа, записывающее пользователей по мере обхода хранилища.
+     */
+    @GetMapping(produces = NdjsonExporter.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportUsers() {
+        return ResponseEntity.ok()
+                .contentType(NdjsonExporter.APPLICATION_NDJSON)
+                .body(ndjsonExporter.stream(userService.findAll()));
+    }
 
-        return addedUser;
+    /**
+     * Найти пользователя по логину без учета регистра.
+     *
+     * @param login Логин.
+     * @return Пользователь.
+     * @throws IdentifierDoesNotExistException Пользователя с таким логином нет.
+     */
+    @GetMapping("/by-login/{login}")
+    public User getUserByLogin(@PathVariable String login) {
+        return userService.findByLogin(login);
+    }
+
+    /**
+     * Подобрать пользователей по началу логина (автодополнение).
+     *
+     * @param prefix Начало логина, без учета регистра.
+     * @param limit  Количество пользователей, не больше {@link Pagination#getMaxPageSize()}.
+     * @return Пользователи в порядке логинов.
+     */
+    @GetMapping("/autocomplete")
+    public List<User> autocompleteLogin(@RequestParam String prefix, @RequestParam(defaultValue = "10") int limit) {
+        return userService.autocompleteLogin(prefix, pagination.pageSize(limit));
+    }
+
+    /**
+     * Получить пользователей, созданных или измененных после версии {@code sinceVersion} (синхронизация изменений).
+     *
+     * @param sinceVersion Версия из предыдущего ответа.
+     * @param limit        Максимальное количество пользователей в ответе.
+     * @return Изменения после версии.
+     * @see ru.yandex.practicum.filmorate.controller.filmcontroller.FilmController#getChangedFilms(long, Integer)
+     */
+    @GetMapping(params = "sinceVersion")
+    public Delta<User> getChangedUsers(@RequestParam long sinceVersion,
+                                       @RequestParam(required = false) @Nullable Integer limit) {
+        return userService.findChangedSince(sinceVersion, pagination.pageSize(limit));
+    }
+
+    /**
+     * Подписаться на создание и обновление пользователей (Server-Sent Events).
+     *
+     * @return Бесконечный поток событий.
+     * @see ru.yandex.practicum.filmorate.controller.filmcontroller.FilmController#streamChanges()
+     */
+    @GetMapping(path = "/changes/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Object>> streamChanges() {
+        return ServerSentEvents.of(userService.streamChanges());
+    }
+
+    /**
+     * Создать нового пользователя.
+     *
+     * <p>
+     * Повтор запроса с тем же {@code Idempotency-Key} возвращает пользователя, созданного первым запросом.
+     *
+     * @param user           Новый пользователь.
+     * @param idempotencyKey Ключ идемпотентности.
+     * @return Объект нового пользователя.
+     * @throws ValidationException             Исключение в случае невалидных данных.
+     * @throws DuplicateValueException         Электронная почта или логин заняты другим пользователем.
+     * @throws IdempotencyKeyMismatchException Ключ уже использован с другим пользователем.
+     * @see ru.yandex.practicum.filmorate.controller.filmcontroller.FilmController#addFilm
+     */
+    @PostMapping
+    public User addUser(@Valid @RequestBody User user,
+                        @RequestHeader(value = IdempotencyCache.IDEMPOTENCY_KEY_HEADER, required = false)
+                        @Nullable String idempotencyKey) {
+        return userService.add(user, idempotencyKey);
     }
 
     /**
      * Обновить (полностью перезаписать) данные о существующем пользователе.
+     * <p>
+     * Версия пользователя из {@code If-Match} или поля {@code version} проверяется так же, как версия фильма.
      *
-     * @param user Новый объект пользователя.
+     * @param user    Новый объект пользователя.
+     * @param ifMatch ETag пользователя, к которому относится изменение.
      * @return Записанный объект нового пользователя.
      * @throws IdentifierDoesNotExistException Исключение в отсутствия идентификатора в базе.
+     * @throws VersionConflictException        Пользователь изменен после чтения версии.
+     * @see ru.yandex.practicum.filmorate.controller.filmcontroller.FilmController#updateFilm
      */
     @PutMapping
-    public User updateUser(@Valid @RequestBody User user) {
-        final long id = user.getId();
+    public User updateUser(@Valid @RequestBody User user,
+                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) @Nullable String ifMatch) {
+        return userService.update(user.withVersion(EntityTags.expectedVersion(ifMatch, user.getVersion(),
+                () -> userService.versionOf(user.getId()))));
+    }
 
-        if (!data.containsKey(id)) {
-            throw new IdentifierDoesNotExistException("Пользователя с указанным идентификатором не существует.");
-        }
+    /**
+     * Частично обновить данные пользователя (JSON Merge Patch).
+     * <p>
+     * В теле передаются только изменяемые поля, {@code null} сбрасывает поле; проверяются только они.
+     *
+     * @param id      Идентификатор пользователя.
+     * @param patch   Изменения.
+     * @param ifMatch ETag пользователя, к которому относится изменение.
+     * @return Обновленный пользователь.
+     * @throws VersionConflictException Пользователь изменен после чтения версии.
+     * @see UserPatch
+     */
+    @PatchMapping(path = "/{id}",
+            consumes = {MergePatch.APPLICATION_MERGE_PATCH_JSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public User patchUser(@PathVariable long id,
+                          @RequestBody UserPatch patch,
+                          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) @Nullable String ifMatch) {
+        return userService.patch(id, patch, EntityTags.expectedVersion(ifMatch, patch.getVersion(),
+                () -> userService.versionOf(id)));
+    }
 
-        data.put(id, user);
+    /**
+     * Создать несколько пользователей одним запросом.
+     * <p>
+     * Каждый пользователь валидируется и создается независимо: ответ содержит результат по каждому элементу.
+     *
+     * @param users Новые пользователи.
+     * @return Результаты в порядке переданных пользователей.
+     */
+    @PostMapping("/batch")
+    public List<BatchItemResult<User>> addUsers(@RequestBody List<User> users) {
+        return userService.addAll(users);
+    }
 
-        final User updatedUser = data.get(id);
-        log.info(String.format("Обновлен пользователь: %s.", updatedUser));
+    /**
+     * Обновить данные нескольких пользователей одним запросом.
+     *
+     * @param users Новые данные пользователей.
+     * @return Результаты в порядке переданных пользователей.
+     * @see #addUsers(List)
+     */
+    @PutMapping("/batch")
+    public List<BatchItemResult<User>> updateUsers(@RequestBody List<User> users) {
+        return userService.updateAll(users);
+    }
 
-        return updatedUser;
+    /**
+     * Добавить пользователя в друзья (дружба взаимна).
+     *
+     * @param id       Идентификатор пользователя.
+     * @param friendId Идентификатор нового друга.
+     */
+    @PutMapping("/{id}/friends/{friendId}")
+    public void addFriend(@PathVariable long id, @PathVariable long friendId) {
+        userService.addFriend(id, friendId);
+    }
+
+    /**
+     * Удалить пользователя из друзей.
+     *
+     * @param id       Идентификатор пользователя.
+     * @param friendId Идентификатор друга.
+     */
+    @DeleteMapping("/{id}/friends/{friendId}")
+    public void removeFriend(@PathVariable long id, @PathVariable long friendId) {
+        userService.removeFriend(id, friendId);
+    }
+
+    /**
+     * Получить друзей пользователя.
+     *
+     * @param id Идентификатор пользователя.
+     * @return Друзья в порядке возрастания идентификатора.
+     */
+    @GetMapping("/{id}/friends")
+    public List<User> getFriends(@PathVariable long id) {
+        return userService.findFriends(id);
+    }
+
+    /**
+     * Получить общих друзей двух пользователей.
+     *
+     * @param id      Идентификатор пользователя.
+     * @param otherId Идентификатор другого пользователя.
+     * @return Общие друзья в порядке возрастания идентификатора.
+     */
+    @GetMapping("/{id}/friends/common/{otherId}")
+    public List<User> getCommonFriends(@PathVariable long id, @PathVariable long otherId) {
+        return userService.findCommonFriends(id, otherId);
     }
 
 }
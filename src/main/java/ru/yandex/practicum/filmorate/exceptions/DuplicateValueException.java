@@ -0,0 +1,19 @@
+package ru.yandex.practicum.filmorate.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Значение уникального поля (например, электронной почты пользователя) уже занято другой сущностью.
+ */
+@ResponseStatus(value = HttpStatus.CONFLICT)
+public final class DuplicateValueException extends RuntimeException {
+
+    public DuplicateValueException() {
+        this("Значение уже занято.");
+    }
+
+    public DuplicateValueException(String message) {
+        super(message);
+    }
+}
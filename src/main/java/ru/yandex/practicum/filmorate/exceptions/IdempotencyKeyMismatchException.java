@@ -0,0 +1,22 @@
+package ru.yandex.practicum.filmorate.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Ключ идемпотентности уже использован запросом с другим телом.
+ * <p>
+ * Отвечает {@code 422 Unprocessable Entity}: повтор не может вернуть результат чужого запроса, а выполнить
+ * запрос заново значило бы нарушить обещание ключа.
+ */
+@ResponseStatus(value = HttpStatus.UNPROCESSABLE_ENTITY)
+public final class IdempotencyKeyMismatchException extends RuntimeException {
+
+    public IdempotencyKeyMismatchException() {
+        this("Ключ идемпотентности уже использован с другим телом запроса.");
+    }
+
+    public IdempotencyKeyMismatchException(String message) {
+        super(message);
+    }
+}
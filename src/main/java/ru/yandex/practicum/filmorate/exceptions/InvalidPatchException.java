@@ -0,0 +1,21 @@
+package ru.yandex.practicum.filmorate.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Частичное обновление не может быть применено: измененные поля не валидны или меняют идентификатор.
+ * <p>
+ * Отвечает тем же {@code 400 Bad Request}, что и невалидное тело полного обновления.
+ */
+@ResponseStatus(value = HttpStatus.BAD_REQUEST)
+public final class InvalidPatchException extends RuntimeException {
+
+    public InvalidPatchException() {
+        this("Частичное обновление не валидно.");
+    }
+
+    public InvalidPatchException(String message) {
+        super(message);
+    }
+}
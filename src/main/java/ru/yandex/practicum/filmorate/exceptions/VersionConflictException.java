@@ -0,0 +1,22 @@
+package ru.yandex.practicum.filmorate.exceptions;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Сущность изменена после того, как клиент прочитал ее: версия из {@code If-Match} или тела запроса не совпадает
+ * с текущей.
+ * <p>
+ * Отвечает {@code 412 Precondition Failed}: клиенту нужно перечитать сущность и повторить изменение.
+ */
+@ResponseStatus(value = HttpStatus.PRECONDITION_FAILED)
+public final class VersionConflictException extends RuntimeException {
+
+    public VersionConflictException() {
+        this("Сущность изменена другим запросом.");
+    }
+
+    public VersionConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,78 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import javax.validation.executable.ExecutableValidator;
+import javax.validation.metadata.BeanDescriptor;
+import java.util.Set;
+
+/**
+ * Валидатор, считающий нарушенные ограничения.
+ * <p>
+ * Каждое нарушение увеличивает счетчик {@code filmorate.validation.failures} с тегами {@code entity} (класс
+ * проверяемого объекта) и {@code constraint} (аннотация ограничения, например {@code NotBlank}). Успешная
+ * проверка ничего не добавляет к работе исходного валидатора.
+ */
+public final class CountingValidator implements Validator {
+
+    private final Validator delegate;
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * @param delegate      Исходный валидатор.
+     * @param meterRegistry Реестр метрик.
+     */
+    public CountingValidator(final Validator delegate, final MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public <T> Set<ConstraintViolation<T>> validate(final T object, final Class<?>... groups) {
+        return count(delegate.validate(object, groups));
+    }
+
+    @Override
+    public <T> Set<ConstraintViolation<T>> validateProperty(final T object,
+                                                            final String propertyName,
+                                                            final Class<?>... groups) {
+        return count(delegate.validateProperty(object, propertyName, groups));
+    }
+
+    @Override
+    public <T> Set<ConstraintViolation<T>> validateValue(final Class<T> beanType,
+                                                         final String propertyName,
+                                                         final Object value,
+                                                         final Class<?>... groups) {
+        return count(delegate.validateValue(beanType, propertyName, value, groups));
+    }
+
+    @Override
+    public BeanDescriptor getConstraintsForClass(final Class<?> clazz) {
+        return delegate.getConstraintsForClass(clazz);
+    }
+
+    @Override
+    public <T> T unwrap(final Class<T> type) {
+        return delegate.unwrap(type);
+    }
+
+    @Override
+    public ExecutableValidator forExecutables() {
+        return delegate.forExecutables();
+    }
+
+    private <T> Set<ConstraintViolation<T>> count(final Set<ConstraintViolation<T>> violations) {
+        for (final ConstraintViolation<T> violation : violations) {
+            meterRegistry.counter("filmorate.validation.failures",
+                    "entity", violation.getRootBeanClass().getSimpleName(),
+                    "constraint", violation.getConstraintDescriptor().getAnnotation().annotationType().getSimpleName()
+            ).increment();
+        }
+
+        return violations;
+    }
+}
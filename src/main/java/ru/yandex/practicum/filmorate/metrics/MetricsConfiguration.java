@@ -0,0 +1,47 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.yandex.practicum.filmorate.storage.filmstorage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.userstorage.UserStorage;
+
+/**
+ * Метрики приложения, не привязанные к отдельному компоненту.
+ * <p>
+ * Метрики публикуются через Actuator, в том числе в формате Prometheus ({@code /actuator/prometheus}):
+ * <ul>
+ *     <li>{@code http.server.requests} – время ответа по шаблону пути, с гистограммой и процентилями
+ *     (настраивается в {@code application.properties});</li>
+ *     <li>{@code filmorate.storage.size} – количество фильмов и пользователей;</li>
+ *     <li>{@code filmorate.validation.failures} – нарушенные ограничения ({@link CountingValidator});</li>
+ *     <li>{@code filmorate.ids.allocated} – выделенные идентификаторы
+ *     ({@link ru.yandex.practicum.filmorate.storage.idgenerator.IdGeneratorConfiguration});</li>
+ *     <li>{@code filmorate.json.serialization} – сборка JSON-массивов ответов
+ *     ({@link ru.yandex.practicum.filmorate.controller.JsonCache});</li>
+ *     <li>{@code filmorate.audit.events}, {@code filmorate.audit.pending} – журнал аудита
+ *     ({@link ru.yandex.practicum.filmorate.audit.AuditLogConfiguration});</li>
+ *     <li>{@code filmorate.changes.subscribers}, {@code filmorate.changes.resyncs} – подписчики потоков изменений
+ *     ({@link ru.yandex.practicum.filmorate.service.changes.ChangeStreamConfiguration}).</li>
+ * </ul>
+ * Размеры хранилищ читаются только при сборе метрик, поэтому не добавляют работы к записи.
+ */
+@Configuration
+public class MetricsConfiguration {
+
+    @Bean
+    public MeterBinder storageSizeMetrics(final FilmStorage filmStorage, final UserStorage userStorage) {
+        return meterRegistry -> {
+            Gauge.builder("filmorate.storage.size", filmStorage, FilmStorage::size)
+                    .description("Количество сущностей в хранилище")
+                    .tag("entity", "film")
+                    .register(meterRegistry);
+            Gauge.builder("filmorate.storage.size", userStorage, UserStorage::size)
+                    .description("Количество сущностей в хранилище")
+                    .tag("entity", "user")
+                    .register(meterRegistry);
+        };
+    }
+}
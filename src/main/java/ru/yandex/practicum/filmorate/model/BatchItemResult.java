@@ -0,0 +1,45 @@
+package ru.yandex.practicum.filmorate.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Value;
+import org.springframework.lang.Nullable;
+
+/**
+ * Результат обработки одного элемента пакетного запроса.
+ *
+ * @param <T> Тип сущности.
+ */
+@Value
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchItemResult<T> {
+
+    /**
+     * Позиция элемента в пакете (с 0).
+     */
+    int index;
+
+    /**
+     * Признак успешной обработки элемента.
+     */
+    boolean success;
+
+    /**
+     * Сохраненная сущность (только при успехе).
+     */
+    @Nullable
+    T entity;
+
+    /**
+     * Описание ошибки (только при неудаче).
+     */
+    @Nullable
+    String error;
+
+    public static <T> BatchItemResult<T> success(final int index, final T entity) {
+        return new BatchItemResult<>(index, true, entity, null);
+    }
+
+    public static <T> BatchItemResult<T> failure(final int index, final String error) {
+        return new BatchItemResult<>(index, false, null, error);
+    }
+}
@@ -0,0 +1,30 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Изменения коллекции после версии, известной клиенту.
+ *
+ * @param <T> Тип сущности.
+ */
+@Value
+public class Delta<T> {
+
+    /**
+     * Версия, по которую включены изменения; передается в следующем запросе.
+     */
+    long version;
+
+    /**
+     * Версия клиента неизвестна или старше журнала изменений: нужно заново загрузить всю коллекцию и затем
+     * запрашивать изменения после {@link #version}.
+     */
+    boolean resyncRequired;
+
+    /**
+     * Добавленные или измененные сущности в текущем состоянии (пусто при {@link #resyncRequired}).
+     */
+    List<T> changed;
+}
@@ -1,6 +1,8 @@
 package ru.yandex.practicum.filmorate.model;
 
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.With;
 import org.springframework.lang.NonNull;
 import org.springframework.lang.Nullable;
 import util.validators.isafter.IsAfter;
@@ -15,17 +17,25 @@ import java.util.Objects;
  * Модель фильма.
  */
 @Data
+@With
 public final class Film {
 
     /**
-     * Источник уникальных идентификаторов {@link #id} и счетчик добавленных фильмов.
+     * Значение {@link #id} фильма, которому еще не выдан идентификатор.
      */
-    private static long counter = 1;
+    public static final long NO_ID = 0;
+
+    /**
+     * Значение {@link #version} фильма, еще не сохраненного в хранилище; в запросе на обновление – обновить без
+     * проверки версии.
+     */
+    public static final long NO_VERSION = 0;
 
     /**
      * Уникальный целочисленный идентификатор.
      * <p>
      * Здесь должна быть аннотация {@code @Min(1)}, но ее нет из-за особенностей тестов в ci.
+     * Идентификатор выдается при успешном добавлении фильма, до этого он равен {@link #NO_ID}.
      */
     private final long id;
 
@@ -54,6 +64,15 @@ public final class Film {
     @Min(1)
     private final int duration;
 
+    /**
+     * Версия: назначается хранилищем при каждом изменении и только растет.
+     * <p>
+     * В запросе на обновление – версия, которую видел клиент: если фильм с тех пор изменен, обновление
+     * отклоняется. В сравнении объектов версия не участвует: равны объекты с одинаковыми данными.
+     */
+    @EqualsAndHashCode.Exclude
+    private final long version;
+
     /**
      * No args constructor for jackson.
      */
@@ -66,12 +85,22 @@ public final class Film {
                 final @Nullable String description,
                 final @Nullable LocalDate releaseDate,
                 final int duration) {
-        this.id = Objects.requireNonNullElseGet(id, () -> counter++);
+        this(id, name, description, releaseDate, duration, NO_VERSION);
+    }
+
+    public Film(final @Nullable Long id,
+                final @NonNull String name,
+                final @Nullable String description,
+                final @Nullable LocalDate releaseDate,
+                final int duration,
+                final long version) {
+        this.id = Objects.requireNonNullElse(id, NO_ID);
 
         this.name = name;
         this.description = description;
         this.releaseDate = releaseDate;
         this.duration = duration;
+        this.version = version;
     }
 
 }
@@ -0,0 +1,74 @@
+package ru.yandex.practicum.filmorate.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.springframework.lang.Nullable;
+
+import java.time.LocalDate;
+
+/**
+ * Частичное обновление {@link Film}.
+ *
+ * @see MergePatch
+ */
+public final class FilmPatch extends MergePatch<Film> {
+
+    /**
+     * Значения полей, сброшенных в {@code null}.
+     */
+    private static final Film DEFAULTS = new Film();
+
+    @Nullable
+    private String name;
+
+    @Nullable
+    private String description;
+
+    @Nullable
+    private LocalDate releaseDate;
+
+    @Nullable
+    private Integer duration;
+
+    @Override
+    public Film applyTo(final Film film) {
+        Film patchedFilm = film;
+        if (isChanged("name")) {
+            patchedFilm = patchedFilm.withName(name != null ? name : DEFAULTS.getName());
+        }
+        if (isChanged("description")) {
+            patchedFilm = patchedFilm.withDescription(description != null ? description : DEFAULTS.getDescription());
+        }
+        if (isChanged("releaseDate")) {
+            patchedFilm = patchedFilm.withReleaseDate(releaseDate != null ? releaseDate : DEFAULTS.getReleaseDate());
+        }
+        if (isChanged("duration")) {
+            patchedFilm = patchedFilm.withDuration(duration != null ? duration : DEFAULTS.getDuration());
+        }
+
+        return patchedFilm;
+    }
+
+    @JsonProperty("name")
+    private void setName(final @Nullable String name) {
+        this.name = name;
+        change("name");
+    }
+
+    @JsonProperty("description")
+    private void setDescription(final @Nullable String description) {
+        this.description = description;
+        change("description");
+    }
+
+    @JsonProperty("releaseDate")
+    private void setReleaseDate(final @Nullable LocalDate releaseDate) {
+        this.releaseDate = releaseDate;
+        change("releaseDate");
+    }
+
+    @JsonProperty("duration")
+    private void setDuration(final @Nullable Integer duration) {
+        this.duration = duration;
+        change("duration");
+    }
+}
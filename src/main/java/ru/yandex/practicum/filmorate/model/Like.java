@@ -0,0 +1,33 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.Data;
+
+/**
+ * Лайк, поставленный пользователем фильму.
+ */
+@Data
+public final class Like {
+
+    /**
+     * Идентификатор фильма.
+     */
+    private final long filmId;
+
+    /**
+     * Идентификатор пользователя.
+     */
+    private final long userId;
+
+    /**
+     * No args constructor for jackson.
+     */
+    public Like() {
+        this(0, 0);
+    }
+
+    public Like(final long filmId, final long userId) {
+        this.filmId = filmId;
+        this.userId = userId;
+    }
+
+}
@@ -0,0 +1,89 @@
+package ru.yandex.practicum.filmorate.model;
+
+import com.fasterxml.jackson.annotation.JsonAnySetter;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.springframework.lang.Nullable;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Частичное обновление сущности в формате JSON Merge Patch (RFC 7396).
+ * <p>
+ * Поле, которого нет в документе, не меняется; {@code null} сбрасывает поле в значение по умолчанию – то же,
+ * что получила бы сущность, переданная в {@code PUT} без этого поля. Jackson вызывает сеттер только для полей,
+ * которые есть в документе, поэтому патч знает, какие поля изменены, и проверять нужно только их. Неизвестное
+ * поле – ошибка чтения запроса, а не молча пропущенное изменение.
+ * <p>
+ * Поле {@code version} – не изменение, а версия сущности, к которой клиент применяет патч.
+ *
+ * @param <T> Тип сущности.
+ */
+public abstract class MergePatch<T> {
+
+    /**
+     * Тип содержимого JSON Merge Patch.
+     */
+    public static final String APPLICATION_MERGE_PATCH_JSON_VALUE = "application/merge-patch+json";
+
+    private final Set<String> changed = new LinkedHashSet<>();
+
+    @Nullable
+    private Long id;
+
+    private long version;
+
+    /**
+     * Идентификатор из тела патча: менять его нельзя, но можно передать для проверки.
+     */
+    @Nullable
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * Версия сущности, к которой применяется патч, или {@code 0}, если клиент ее не передал.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Имена измененных полей в порядке документа.
+     */
+    public Set<String> changedProperties() {
+        return Collections.unmodifiableSet(changed);
+    }
+
+    /**
+     * Применить патч.
+     *
+     * @param entity Текущее состояние сущности.
+     * @return Новое состояние; {@code entity}, если патч пуст.
+     */
+    public abstract T applyTo(T entity);
+
+    protected final boolean isChanged(final String property) {
+        return changed.contains(property);
+    }
+
+    protected final void change(final String property) {
+        changed.add(property);
+    }
+
+    @JsonProperty("id")
+    private void setId(final @Nullable Long id) {
+        this.id = id;
+    }
+
+    @JsonProperty("version")
+    private void setVersion(final long version) {
+        this.version = version;
+    }
+
+    @JsonAnySetter
+    private void rejectUnknown(final String property, final Object value) {
+        throw new IllegalArgumentException("Неизвестное поле: " + property + ".");
+    }
+}
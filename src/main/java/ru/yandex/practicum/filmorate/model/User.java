@@ -1,6 +1,8 @@
 package ru.yandex.practicum.filmorate.model;
 
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.With;
 import org.springframework.lang.NonNull;
 import org.springframework.lang.Nullable;
 
@@ -15,12 +17,24 @@ import java.util.Objects;
  * Модель пользователя.
  */
 @Data
+@With
 public final class User {
 
-    private static long counter = 1;
+    /**
+     * Значение {@link #id} пользователя, которому еще не выдан идентификатор.
+     */
+    public static final long NO_ID = 0;
+
+    /**
+     * Значение {@link #version} пользователя, еще не сохраненного в хранилище; в запросе на обновление – обновить без
+     * проверки версии.
+     */
+    public static final long NO_VERSION = 0;
 
     /**
      * Уникальный целочисленный идентификатор.
+     * <p>
+     * Выдается при успешном добавлении пользователя, до этого равен {@link #NO_ID}.
      */
     private final long id;
 
@@ -51,6 +65,15 @@ public final class User {
     @PastOrPresent
     private final LocalDate birthday;
 
+    /**
+     * Версия: назначается хранилищем при каждом изменении и только растет.
+     * <p>
+     * В запросе на обновление – версия, которую видел клиент: если пользователь с тех пор изменен, обновление
+     * отклоняется. В сравнении объектов версия не участвует: равны объекты с одинаковыми данными.
+     */
+    @EqualsAndHashCode.Exclude
+    private final long version;
+
     /**
      * No args constructor for jackson.
      */
@@ -63,11 +86,21 @@ public final class User {
                 final @NonNull String login,
                 final @Nullable String name,
                 final @NonNull LocalDate birthday) {
-        this.id = Objects.requireNonNullElseGet(id, () -> counter++);
+        this(id, email, login, name, birthday, NO_VERSION);
+    }
+
+    public User(final @Nullable Long id,
+                final @NonNull String email,
+                final @NonNull String login,
+                final @Nullable String name,
+                final @NonNull LocalDate birthday,
+                final long version) {
+        this.id = Objects.requireNonNullElse(id, NO_ID);
         this.email = email;
         this.login = login;
         this.name = name;
         this.birthday = birthday;
+        this.version = version;
     }
 
     /**
@@ -0,0 +1,72 @@
+package ru.yandex.practicum.filmorate.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.springframework.lang.Nullable;
+
+import java.time.LocalDate;
+
+/**
+ * Частичное обновление {@link User}.
+ * <p>
+ * Сброшенное имя снова показывается как логин, сброшенный день рождения – сегодняшняя дата, как у пользователя,
+ * переданного без этих полей.
+ *
+ * @see MergePatch
+ */
+public final class UserPatch extends MergePatch<User> {
+
+    @Nullable
+    private String email;
+
+    @Nullable
+    private String login;
+
+    @Nullable
+    private String name;
+
+    @Nullable
+    private LocalDate birthday;
+
+    @Override
+    public User applyTo(final User user) {
+        User patchedUser = user;
+        if (isChanged("email")) {
+            patchedUser = patchedUser.withEmail(email != null ? email : "");
+        }
+        if (isChanged("login")) {
+            patchedUser = patchedUser.withLogin(login != null ? login : "");
+        }
+        if (isChanged("name")) {
+            patchedUser = patchedUser.withName(name);
+        }
+        if (isChanged("birthday")) {
+            patchedUser = patchedUser.withBirthday(birthday != null ? birthday : LocalDate.now());
+        }
+
+        return patchedUser;
+    }
+
+    @JsonProperty("email")
+    private void setEmail(final @Nullable String email) {
+        this.email = email;
+        change("email");
+    }
+
+    @JsonProperty("login")
+    private void setLogin(final @Nullable String login) {
+        this.login = login;
+        change("login");
+    }
+
+    @JsonProperty("name")
+    private void setName(final @Nullable String name) {
+        this.name = name;
+        change("name");
+    }
+
+    @JsonProperty("birthday")
+    private void setBirthday(final @Nullable LocalDate birthday) {
+        this.birthday = birthday;
+        change("birthday");
+    }
+}
@@ -0,0 +1,99 @@
+package ru.yandex.practicum.filmorate.service;
+
+import ru.yandex.practicum.filmorate.exceptions.DuplicateValueException;
+import ru.yandex.practicum.filmorate.exceptions.IdentifierDoesNotExistException;
+import ru.yandex.practicum.filmorate.exceptions.ValidationException;
+import ru.yandex.practicum.filmorate.exceptions.VersionConflictException;
+import ru.yandex.practicum.filmorate.model.BatchItemResult;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+
+/**
+ * Обработка пакетных запросов.
+ * <p>
+ * В отличие от {@code @Valid} на теле запроса невалидный элемент не прерывает обработку всего пакета:
+ * ошибка возвращается в результате этого элемента.
+ */
+public final class Batches {
+
+    /**
+     * Максимальное количество элементов в одном пакете.
+     */
+    public static final int MAX_BATCH_SIZE = 1000;
+
+    private Batches() {
+    }
+
+    /**
+     * Провалидировать все элементы пакета, затем применить операцию к валидным.
+     *
+     * @param validator Валидатор.
+     * @param batch     Пакет (от 1 до {@link #MAX_BATCH_SIZE} элементов).
+     * @param operation Операция над одним элементом. Ошибки {@link ValidationException},
+     *                  {@link IdentifierDoesNotExistException}, {@link DuplicateValueException} и
+     *                  {@link VersionConflictException} попадают в результат элемента.
+     * @return Результаты по каждому элементу в порядке пакета.
+     * @throws ValidationException Если размер пакета вне допустимых границ.
+     */
+    public static <T> List<BatchItemResult<T>> apply(final Validator validator,
+                                                     final List<T> batch,
+                                                     final UnaryOperator<T> operation) {
+        if (batch.isEmpty() || batch.size() > MAX_BATCH_SIZE) {
+            throw new ValidationException(String.format("Пакет должен содержать от 1 до %d элементов.", MAX_BATCH_SIZE));
+        }
+
+        final String[] errors = new String[batch.size()];
+        for (int i = 0; i < batch.size(); i++) {
+            errors[i] = validate(validator, batch.get(i));
+        }
+
+        final List<BatchItemResult<T>> results = new ArrayList<>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            if (errors[i] != null) {
+                results.add(BatchItemResult.failure(i, errors[i]));
+                continue;
+            }
+
+            try {
+                results.add(BatchItemResult.success(i, operation.apply(batch.get(i))));
+            } catch (ValidationException | IdentifierDoesNotExistException | DuplicateValueException
+                     | VersionConflictException e) {
+                results.add(BatchItemResult.failure(i, e.getMessage()));
+            }
+        }
+
+        return results;
+    }
+
+    /**
+     * Количество успешно обработанных элементов.
+     */
+    public static long countSuccessful(final List<? extends BatchItemResult<?>> results) {
+        return results.stream().filter(BatchItemResult::isSuccess).count();
+    }
+
+    /**
+     * @return Описание нарушенных ограничений или {@code null}, если элемент валиден.
+     */
+    private static <T> String validate(final Validator validator, final T entity) {
+        if (entity == null) {
+            return "элемент не может быть null";
+        }
+
+        final Set<ConstraintViolation<T>> violations = validator.validate(entity);
+        if (violations.isEmpty()) {
+            return null;
+        }
+
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+}
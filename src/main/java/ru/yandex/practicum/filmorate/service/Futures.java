@@ -0,0 +1,34 @@
+package ru.yandex.practicum.filmorate.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Ожидание асинхронных операций в синхронных методах сервисов.
+ */
+public final class Futures {
+
+    private Futures() {
+    }
+
+    /**
+     * Дождаться результата операции.
+     * <p>
+     * В отличие от {@link CompletableFuture#join()} выбрасывает исходную ошибку, а не {@link CompletionException}:
+     * иначе ошибка данных, полученная, например, повтором запроса с ключом идемпотентности из общего результата,
+     * не превратилась бы в свой код ответа.
+     *
+     * @param future Результат операции.
+     * @return Значение результата.
+     */
+    public static <T> T join(final CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
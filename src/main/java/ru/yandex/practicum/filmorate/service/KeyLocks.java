@@ -0,0 +1,46 @@
+package ru.yandex.practicum.filmorate.service;
+
+/**
+ * Набор мониторов для блокировки по идентификатору сущности (lock striping).
+ * <p>
+ * Используется, чтобы изменение одной сущности и связанные с ним действия (запись в журнал, обновление индексов)
+ * выполнялись в одном порядке для всех потоков. Изменения разных сущностей почти всегда попадают на разные
+ * мониторы и не конкурируют; чтение блокировок не использует.
+ */
+public final class KeyLocks {
+
+    private static final int DEFAULT_STRIPES = 1024;
+
+    private final Object[] locks;
+
+    private final int mask;
+
+    public KeyLocks() {
+        this(DEFAULT_STRIPES);
+    }
+
+    /**
+     * @param stripes Количество мониторов, округляется вверх до степени двойки.
+     */
+    public KeyLocks(final int stripes) {
+        final int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.locks = new Object[size];
+        this.mask = size - 1;
+
+        for (int i = 0; i < size; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    /**
+     * Монитор для идентификатора.
+     *
+     * @param id Идентификатор сущности.
+     * @return Монитор, общий для всех вызовов с этим идентификатором.
+     */
+    public Object lockFor(final long id) {
+        final long hash = id * 0x9E3779B97F4A7C15L;
+
+        return locks[(int) (hash >>> 32) & mask];
+    }
+}
@@ -0,0 +1,50 @@
+package ru.yandex.practicum.filmorate.service;
+
+import ru.yandex.practicum.filmorate.exceptions.InvalidPatchException;
+import ru.yandex.practicum.filmorate.model.MergePatch;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Применение частичных обновлений ({@link MergePatch}).
+ */
+public final class Patches {
+
+    private Patches() {
+    }
+
+    /**
+     * Применить патч к текущему состоянию сущности и проверить только измененные поля: остальные уже прошли
+     * проверку при сохранении.
+     *
+     * @param validator Валидатор.
+     * @param id        Идентификатор сущности из пути запроса.
+     * @param entity    Текущее состояние сущности.
+     * @param patch     Патч.
+     * @return Новое состояние сущности.
+     * @throws InvalidPatchException Патч меняет идентификатор или измененные поля не валидны.
+     */
+    public static <T> T apply(final Validator validator, final long id, final T entity, final MergePatch<T> patch) {
+        if (patch.getId() != null && patch.getId() != id) {
+            throw new InvalidPatchException("Идентификатор в теле запроса не совпадает с идентификатором в пути.");
+        }
+
+        final T patchedEntity = patch.applyTo(entity);
+        final List<String> errors = new ArrayList<>();
+        for (final String property : patch.changedProperties()) {
+            for (final ConstraintViolation<T> violation : validator.validateProperty(patchedEntity, property)) {
+                errors.add(property + ": " + violation.getMessage());
+            }
+        }
+
+        if (!errors.isEmpty()) {
+            errors.sort(null);
+            throw new InvalidPatchException(String.join("; ", errors));
+        }
+
+        return patchedEntity;
+    }
+}
@@ -0,0 +1,149 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.Nullable;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * Откат изменений в памяти, которые не удалось сохранить в журнал упреждающей записи.
+ * <p>
+ * Изменение применяется к хранилищу до записи на диск. Если запись не удалась, сущность возвращается
+ * к последнему состоянию, запись которого не завершилась ошибкой: добавленная удаляется, измененная получает
+ * прежние поля (с новой версией, чтобы клиенты с ETag и дельтами увидели изменение). Откат не применяется,
+ * если сущность уже перезаписана изменением, записанным позже: на диске окажется оно.
+ * <p>
+ * Откат выполняется под той же блокировкой идентификатора, что и запись, но не в потоке журнала: поток
+ * запроса может держать эту блокировку, ожидая места в очереди журнала.
+ *
+ * @param <T> Тип сущности.
+ */
+@Slf4j
+public final class WriteRollback<T> {
+
+    private final String entityName;
+
+    private final KeyLocks locks;
+
+    private final LongUnaryOperator versionOf;
+
+    private final Restore<T> restore;
+
+    /**
+     * Последнее еще не записанное изменение каждой сущности.
+     */
+    private final ConcurrentMap<Long, Pending<T>> pending = new ConcurrentHashMap<>();
+
+    /**
+     * @param entityName Название сущности для журнала приложения.
+     * @param locks      Блокировки, под которыми сервис изменяет сущности.
+     * @param versionOf  Текущая версия сущности в хранилище.
+     * @param restore    Возврат сущности к прежнему состоянию в хранилище.
+     */
+    public WriteRollback(final String entityName,
+                         final KeyLocks locks,
+                         final LongUnaryOperator versionOf,
+                         final Restore<T> restore) {
+        this.entityName = entityName;
+        this.locks = locks;
+        this.versionOf = versionOf;
+        this.restore = restore;
+    }
+
+    /**
+     * Откатить изменение, если его запись в журнал завершится ошибкой. Вызывается под блокировкой
+     * идентификатора сразу после изменения, в порядке изменений сущности.
+     *
+     * @param id           Идентификатор сущности.
+     * @param previous     Состояние до изменения или {@code null}, если сущность добавлена.
+     * @param savedVersion Версия, которую хранилище назначило изменению.
+     * @param pendingWrite Запись изменения в журнал.
+     */
+    public void track(final long id,
+                      final @Nullable T previous,
+                      final long savedVersion,
+                      final CompletableFuture<?> pendingWrite) {
+        if (pendingWrite.isDone() && !pendingWrite.isCompletedExceptionally()) {
+            return;
+        }
+
+        final Pending<T> change = new Pending<>(previous, savedVersion, pending.get(id));
+        pending.put(id, change);
+
+        // журнал завершает записи по порядку: предыдущее изменение сущности к этому моменту уже помечено
+        pendingWrite.whenComplete((ignored, error) -> {
+            if (error == null) {
+                change.before = null;
+                pending.remove(id, change);
+                return;
+            }
+
+            change.failed = true;
+            CompletableFuture.runAsync(() -> restore(id, change));
+        });
+    }
+
+    private void restore(final long id, final Pending<T> change) {
+        try {
+            synchronized (locks.lockFor(id)) {
+                if (versionOf.applyAsLong(id) != change.savedVersion) {
+                    // сущность уже перезаписана более поздним изменением
+                    return;
+                }
+
+                Pending<T> origin = change;
+                for (Pending<T> before = origin.before; before != null && before.failed; before = before.before) {
+                    origin = before;
+                }
+
+                restore.restore(id, origin.previous);
+                log.warn("Изменение сущности {} с идентификатором {} не сохранено в журнал и откачено.",
+                        entityName, id);
+            }
+        } catch (RuntimeException e) {
+            log.error("Не удалось откатить изменение сущности {} с идентификатором {}.", entityName, id, e);
+        } finally {
+            pending.remove(id, change);
+        }
+    }
+
+    /**
+     * Возврат сущности к прежнему состоянию. Вызывается под блокировкой идентификатора.
+     *
+     * @param <T> Тип сущности.
+     */
+    @FunctionalInterface
+    public interface Restore<T> {
+
+        /**
+         * @param id       Идентификатор сущности.
+         * @param previous Прежнее состояние или {@code null}, если сущность нужно удалить.
+         */
+        void restore(long id, @Nullable T previous);
+    }
+
+    private static final class Pending<T> {
+
+        @Nullable
+        private final T previous;
+
+        private final long savedVersion;
+
+        /**
+         * Предыдущее незаписанное изменение сущности; сбрасывается после записи этого, чтобы цепочка не росла.
+         */
+        @Nullable
+        private volatile Pending<T> before;
+
+        private volatile boolean failed;
+
+        private Pending(final @Nullable T previous, final long savedVersion, final @Nullable Pending<T> before) {
+            this.previous = previous;
+            this.savedVersion = savedVersion;
+            this.before = before;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package ru.yandex.practicum.filmorate.service.changes;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Value;
+import lombok.With;
+import org.springframework.lang.Nullable;
+
+/**
+ * Событие потока изменений.
+ *
+ * @param <T> Тип сущности.
+ */
+@Value
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class ChangeEvent<T> {
+
+    ChangeType type;
+
+    /**
+     * Номер изменения в потоке (с 1, без пропусков) или 0 для служебных событий.
+     */
+    @With(AccessLevel.PACKAGE)
+    long sequence;
+
+    /**
+     * Добавленная или обновленная сущность; {@code null} для служебных событий.
+     */
+    @Nullable
+    T entity;
+
+    /**
+     * Событие изменения сущности; номер назначается при рассылке.
+     */
+    static <T> ChangeEvent<T> change(final ChangeType type, final T entity) {
+        return new ChangeEvent<>(type, 0, entity);
+    }
+
+    /**
+     * Служебное событие без сущности.
+     */
+    static <T> ChangeEvent<T> signal(final ChangeType type) {
+        return new ChangeEvent<>(type, 0, null);
+    }
+}
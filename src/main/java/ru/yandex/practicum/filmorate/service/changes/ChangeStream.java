@@ -0,0 +1,155 @@
+package ru.yandex.practicum.filmorate.service.changes;
+
+import reactor.core.Disposable;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.concurrent.Queues;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Поток изменений сущностей одного типа для подписчиков (Server-Sent Events).
+ * <p>
+ * Писатель только кладет событие в неограниченную очередь без блокировок; рассылку подписчикам выполняет
+ * один поток из {@link Schedulers#parallel()} за раз, он же нумерует изменения. Поэтому стоимость записи
+ * не зависит от числа подписчиков, а все подписчики видят изменения в одном порядке.
+ * <p>
+ * У каждого подписчика свой буфер на {@code subscriberBufferSize} событий. Если подписчик не успевает
+ * принимать события и буфер заполнился, подписка на рассылку отменяется: подписчик получает уже накопленные
+ * события, затем {@link ChangeType#RESYNC}, и поток завершается, а остальные подписчики и писатели этого
+ * не замечают.
+ * Простаивающая подписка не занимает поток, только буфер и ссылку в списке подписчиков.
+ *
+ * @param <T> Тип сущности.
+ */
+public final class ChangeStream<T> implements AutoCloseable {
+
+    private final Sinks.Many<ChangeEvent<T>> sink = Sinks.many().multicast().directBestEffort();
+
+    private final Queue<ChangeEvent<T>> pending = Queues.<ChangeEvent<T>>unboundedMultiproducer().get();
+
+    /**
+     * Количество событий, поставленных в очередь с начала текущей рассылки; рассылку запускает тот,
+     * кто увеличил счетчик с нуля.
+     */
+    private final AtomicInteger wip = new AtomicInteger();
+
+    private final LongAdder resyncs = new LongAdder();
+
+    private final Scheduler scheduler = Schedulers.parallel();
+
+    private final int subscriberBufferSize;
+
+    private final Disposable heartbeat;
+
+    /**
+     * Номер последнего разосланного изменения; меняется только в рассылке.
+     */
+    private long sequence;
+
+    private volatile boolean closed;
+
+    /**
+     * @param subscriberBufferSize Количество событий, которое может накопиться у медленного подписчика.
+     * @param heartbeatInterval    Период событий {@link ChangeType#HEARTBEAT}.
+     */
+    public ChangeStream(final int subscriberBufferSize, final Duration heartbeatInterval) {
+        if (subscriberBufferSize < 1) {
+            throw new IllegalArgumentException("Размер буфера подписчика должен быть положительным: "
+                    + subscriberBufferSize);
+        }
+
+        this.subscriberBufferSize = subscriberBufferSize;
+        final long heartbeatMillis = heartbeatInterval.toMillis();
+        this.heartbeat = scheduler.schedulePeriodically(() -> enqueue(ChangeEvent.signal(ChangeType.HEARTBEAT)),
+                heartbeatMillis, heartbeatMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Разослать изменение подписчикам. Не ждет рассылки.
+     *
+     * @param type   {@link ChangeType#CREATED} или {@link ChangeType#UPDATED}.
+     * @param entity Новая версия сущности.
+     */
+    public void publish(final ChangeType type, final T entity) {
+        enqueue(ChangeEvent.change(type, entity));
+    }
+
+    /**
+     * Подписаться на изменения, опубликованные после подписки.
+     * <p>
+     * Первое событие – {@link ChangeType#HEARTBEAT} сразу после подписки: получив его, клиент знает, что все
+     * дальнейшие изменения до него дойдут (а HTTP-ответ с ним отправляет заголовки, не дожидаясь изменений).
+     * Поток бесконечен, пока подписчик успевает принимать события; иначе он завершается событием
+     * {@link ChangeType#RESYNC}.
+     */
+    public Flux<ChangeEvent<T>> subscribe() {
+        return sink.asFlux()
+                // подписка на рассылку выполняется раньше, чем отправляется первое событие
+                .mergeWith(Mono.just(ChangeEvent.signal(ChangeType.HEARTBEAT)))
+                // при переполнении подписка на рассылку отменяется сразу, а ошибка доходит до подписчика
+                // после уже накопленных событий
+                .onBackpressureBuffer(subscriberBufferSize, overflow -> resyncs.increment())
+                .onErrorResume(Exceptions::isOverflow, e -> Mono.just(ChangeEvent.signal(ChangeType.RESYNC)));
+    }
+
+    /**
+     * Количество подписчиков.
+     */
+    public int subscribers() {
+        return sink.currentSubscriberCount();
+    }
+
+    /**
+     * Количество подписчиков, отключенных из-за переполнения буфера.
+     */
+    public long resyncs() {
+        return resyncs.sum();
+    }
+
+    /**
+     * Завершить потоки подписчиков после рассылки уже опубликованных изменений.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        heartbeat.dispose();
+        drain();
+    }
+
+    private void enqueue(final ChangeEvent<T> event) {
+        pending.offer(event);
+        drain();
+    }
+
+    private void drain() {
+        if (wip.getAndIncrement() == 0) {
+            scheduler.schedule(this::dispatch);
+        }
+    }
+
+    private void dispatch() {
+        int missed = 1;
+        do {
+            ChangeEvent<T> event;
+            while ((event = pending.poll()) != null) {
+                // буфер подписчика запрашивает события без ограничения, поэтому рассылка никого не пропускает
+                sink.tryEmitNext(event.getType() == ChangeType.HEARTBEAT ? event : event.withSequence(++sequence));
+            }
+
+            if (closed) {
+                sink.tryEmitComplete();
+            }
+
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+}
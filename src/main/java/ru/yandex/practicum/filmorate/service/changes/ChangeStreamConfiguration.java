@@ -0,0 +1,60 @@
+package ru.yandex.practicum.filmorate.service.changes;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.time.Duration;
+
+/**
+ * Потоки изменений фильмов и пользователей.
+ * <p>
+ * Настройки:
+ * <ul>
+ *     <li>{@code filmorate.changes.subscriber-buffer-size} – сколько событий может накопиться у медленного
+ *     подписчика до его отключения;</li>
+ *     <li>{@code filmorate.changes.heartbeat-interval} – период пустых событий для простаивающих подписок.</li>
+ * </ul>
+ * <p>
+ * Метрики (с тегом {@code entity}): {@code filmorate.changes.subscribers} – подписчики,
+ * {@code filmorate.changes.resyncs} – подписчики, отключенные из-за переполнения буфера.
+ */
+@Configuration
+public class ChangeStreamConfiguration {
+
+    @Value("${filmorate.changes.subscriber-buffer-size:256}")
+    private int subscriberBufferSize;
+
+    @Value("${filmorate.changes.heartbeat-interval:15s}")
+    private Duration heartbeatInterval;
+
+    @Bean
+    public ChangeStream<Film> filmChangeStream(final MeterRegistry meterRegistry) {
+        return register(new ChangeStream<>(subscriberBufferSize, heartbeatInterval), "film", meterRegistry);
+    }
+
+    @Bean
+    public ChangeStream<User> userChangeStream(final MeterRegistry meterRegistry) {
+        return register(new ChangeStream<>(subscriberBufferSize, heartbeatInterval), "user", meterRegistry);
+    }
+
+    private static <T> ChangeStream<T> register(final ChangeStream<T> changeStream,
+                                                final String entity,
+                                                final MeterRegistry meterRegistry) {
+        Gauge.builder("filmorate.changes.subscribers", changeStream, ChangeStream::subscribers)
+                .description("Подписчики потока изменений")
+                .tag("entity", entity)
+                .register(meterRegistry);
+        FunctionCounter.builder("filmorate.changes.resyncs", changeStream, ChangeStream::resyncs)
+                .description("Подписчики потока изменений, отключенные из-за переполнения буфера")
+                .tag("entity", entity)
+                .register(meterRegistry);
+
+        return changeStream;
+    }
+}
@@ -0,0 +1,29 @@
+package ru.yandex.practicum.filmorate.service.changes;
+
+/**
+ * Тип события потока изменений.
+ */
+public enum ChangeType {
+
+    /**
+     * Сущность добавлена; событие содержит ее.
+     */
+    CREATED,
+
+    /**
+     * Сущность обновлена; событие содержит новую версию.
+     */
+    UPDATED,
+
+    /**
+     * Подписчик не успевал принимать события и отключен; часть изменений пропущена, клиенту нужно заново
+     * загрузить коллекцию и переподключиться. Последнее событие подписки.
+     */
+    RESYNC,
+
+    /**
+     * Периодическое событие без данных: не дает промежуточным узлам закрыть простаивающее соединение
+     * и обнаруживает отключившихся клиентов.
+     */
+    HEARTBEAT
+}
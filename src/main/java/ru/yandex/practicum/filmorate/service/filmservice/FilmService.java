@@ -0,0 +1,616 @@
+package ru.yandex.practicum.filmorate.service.filmservice;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import ru.yandex.practicum.filmorate.audit.AuditAction;
+import ru.yandex.practicum.filmorate.audit.AuditEvent;
+import ru.yandex.practicum.filmorate.audit.AuditLog;
+import ru.yandex.practicum.filmorate.exceptions.IdempotencyKeyMismatchException;
+import ru.yandex.practicum.filmorate.exceptions.IdentifierDoesNotExistException;
+import ru.yandex.practicum.filmorate.exceptions.InvalidPatchException;
+import ru.yandex.practicum.filmorate.exceptions.ValidationException;
+import ru.yandex.practicum.filmorate.exceptions.VersionConflictException;
+import ru.yandex.practicum.filmorate.model.BatchItemResult;
+import ru.yandex.practicum.filmorate.model.Delta;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmPatch;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.service.Batches;
+import ru.yandex.practicum.filmorate.service.Futures;
+import ru.yandex.practicum.filmorate.service.KeyLocks;
+import ru.yandex.practicum.filmorate.service.Patches;
+import ru.yandex.practicum.filmorate.service.WriteRollback;
+import ru.yandex.practicum.filmorate.service.changes.ChangeEvent;
+import ru.yandex.practicum.filmorate.service.changes.ChangeStream;
+import ru.yandex.practicum.filmorate.service.changes.ChangeType;
+import ru.yandex.practicum.filmorate.service.idempotency.IdempotencyCache;
+import ru.yandex.practicum.filmorate.storage.ChangeIndex;
+import ru.yandex.practicum.filmorate.storage.filmstorage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.idgenerator.IdGenerator;
+import ru.yandex.practicum.filmorate.storage.idgenerator.IdGeneratorConfiguration;
+import ru.yandex.practicum.filmorate.storage.likestorage.LikeStorage;
+import ru.yandex.practicum.filmorate.storage.userstorage.UserStorage;
+import ru.yandex.practicum.filmorate.storage.wal.WriteAheadLog;
+
+import javax.validation.Validator;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Predicate;
+
+/**
+ * Операции с фильмами.
+ * <p>
+ * Изменение применяется к хранилищу, индексам и журналу версий под блокировкой фильма и только затем
+ * ставится в журнал изменений; результат операции завершается после записи на диск. Поэтому чтения могут
+ * увидеть изменение раньше, чем оно сохранено. Если запись в журнал не удалась, клиент получает ошибку,
+ * а изменение откатывается в памяти (см. {@link WriteRollback}) и в поток изменений не публикуется.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class FilmService {
+
+    /**
+     * Хранилище фильмов.
+     */
+    private final FilmStorage storage;
+
+    /**
+     * Источник идентификаторов новых фильмов.
+     */
+    @Qualifier(IdGeneratorConfiguration.FILM_ID_GENERATOR)
+    private final IdGenerator idGenerator;
+
+    /**
+     * Валидатор для элементов пакетных запросов (одиночные запросы валидируются через {@code @Valid}).
+     */
+    private final Validator validator;
+
+    /**
+     * Журнал изменений: запрос завершается только после того, как изменение сохранено на диск.
+     */
+    private final WriteAheadLog<Film> writeAheadLog;
+
+    /**
+     * Хранилище пользователей (для проверки, что лайк ставит существующий пользователь).
+     */
+    private final UserStorage userStorage;
+
+    /**
+     * Хранилище лайков и рейтинга популярности.
+     */
+    private final LikeStorage likeStorage;
+
+    /**
+     * Журнал лайков.
+     */
+    private final WriteAheadLog<Like> likeWriteAheadLog;
+
+    /**
+     * Журнал аудита: событие кладется в буфер в потоке запроса, как только изменение применено, а пишется
+     * в фоновом потоке. Поток журнала изменений, завершающий запись на диск, журнал аудита не ждет.
+     */
+    private final AuditLog auditLog;
+
+    /**
+     * Поток изменений для подписчиков: изменения публикуются после сохранения на диск, в порядке версий
+     * каждого фильма.
+     */
+    private final ChangeStream<Film> changeStream;
+
+    /**
+     * Результаты создания по ключу идемпотентности.
+     */
+    private final IdempotencyCache<Film> idempotencyCache;
+
+    /**
+     * Упорядочивают изменение фильма в хранилище и его запись в журнал.
+     */
+    private final KeyLocks locks = new KeyLocks();
+
+    /**
+     * Откат изменений, которые не удалось записать в журнал.
+     */
+    private final WriteRollback<Film> rollback = new WriteRollback<>("Film", locks, this::versionOf, this::restore);
+
+    /**
+     * Получить все фильмы.
+     *
+     * @return Слабо согласованное представление всех фильмов.
+     */
+    public Collection<Film> findAll() {
+        return storage.findAll();
+    }
+
+    /**
+     * Получить страницу фильмов в порядке возрастания идентификатора.
+     *
+     * @see FilmStorage#findPage(long, int)
+     */
+    public List<Film> findPage(final long afterId, final int limit) {
+        return storage.findPage(afterId, limit);
+    }
+
+    /**
+     * Найти фильм по идентификатору.
+     *
+     * @throws IdentifierDoesNotExistException Фильма с таким идентификатором нет.
+     */
+    public Film findById(final long id) {
+        return storage.findById(id).orElseThrow(() ->
+                new IdentifierDoesNotExistException("Фильма с переданным идентификатором не существует в базе."));
+    }
+
+    /**
+     * Версия хранилища фильмов.
+     *
+     * @see FilmStorage#version()
+     */
+    public long version() {
+        return storage.version();
+    }
+
+    /**
+     * Версия фильма.
+     *
+     * @see FilmStorage#versionOf(long)
+     */
+    public long versionOf(final long id) {
+        return storage.versionOf(id);
+    }
+
+    /**
+     * Подписаться на добавление и обновление фильмов.
+     *
+     * @see ChangeStream#subscribe()
+     */
+    public Flux<ChangeEvent<Film>> streamChanges() {
+        return changeStream.subscribe();
+    }
+
+    /**
+     * Получить фильмы, добавленные или измененные после версии журнала изменений.
+     * <p>
+     * Сущности возвращаются в текущем состоянии: фильм, измененный уже после версии ответа, попадет и в следующий ответ.
+     *
+     * @see FilmStorage#changesSince(long, int)
+     */
+    public Delta<Film> findChangedSince(final long version, final int limit) {
+        final ChangeIndex.Changes changes = storage.changesSince(version, limit);
+        final List<Film> films = new ArrayList<>(changes.getIds().length);
+        for (final long id : changes.getIds()) {
+            storage.findById(id).ifPresent(films::add);
+        }
+
+        return new Delta<>(changes.getVersion(), changes.isResyncRequired(), films);
+    }
+
+    /**
+     * Получить фильмы, выпущенные в прокат в заданный период.
+     *
+     * @see FilmStorage#findByReleaseDate(LocalDate, LocalDate, int)
+     */
+    public List<Film> findByReleaseDate(final @Nullable LocalDate from, final @Nullable LocalDate to, final int limit) {
+        return storage.findByReleaseDate(from, to, limit);
+    }
+
+    /**
+     * Найти фильмы по названию и описанию.
+     *
+     * @throws ValidationException Пустой запрос.
+     * @see FilmStorage#search(String, int)
+     */
+    public List<Film> search(final String query, final int limit) {
+        if (query.isBlank()) {
+            throw new ValidationException("Поисковый запрос не может быть пустым.");
+        }
+
+        return storage.search(query, limit);
+    }
+
+    /**
+     * Добавить новый фильм.
+     *
+     * @param film Валидный фильм.
+     * @return Добавленный фильм с идентификатором и версией.
+     * @throws ValidationException Некорректный или уже занятый идентификатор.
+     */
+    public Film add(final Film film) {
+        return Futures.join(addAsync(film));
+    }
+
+    /**
+     * Добавить новый фильм, не дожидаясь записи изменения на диск в вызывающем потоке.
+     * <p>
+     * Фильм попадает в хранилище до возврата из метода, ошибки данных выбрасываются сразу; результат
+     * завершается, когда изменение сохранено в журнал.
+     *
+     * @param film Валидный фильм.
+     * @return Добавленный фильм с идентификатором.
+     * @throws ValidationException Некорректный или уже занятый идентификатор.
+     */
+    public CompletableFuture<Film> addAsync(final Film film) {
+        final List<CompletableFuture<Void>> pendingWrites = new ArrayList<>(1);
+        final Film addedFilm = doAdd(film, pendingWrites);
+
+        auditLog.record(AuditEvent.entity(AuditAction.FILM_ADDED, addedFilm.getId(), addedFilm));
+
+        return whenDurable(pendingWrites).thenApply(ignored -> addedFilm);
+    }
+
+    /**
+     * Добавить новый фильм один раз для ключа идемпотентности.
+     * <p>
+     * Повтор запроса с тем же ключом и тем же фильмом, в том числе одновременный, не добавляет фильм еще раз,
+     * а возвращает результат первого запроса.
+     *
+     * @param film           Валидный фильм.
+     * @param idempotencyKey Ключ идемпотентности или {@code null}, если клиент его не передал.
+     * @return Фильм, добавленный по этому ключу.
+     * @throws ValidationException             Некорректный или уже занятый идентификатор, некорректный ключ.
+     * @throws IdempotencyKeyMismatchException Ключ уже использован с другим фильмом.
+     * @see IdempotencyCache
+     */
+    public Film add(final Film film, final @Nullable String idempotencyKey) {
+        return Futures.join(addAsync(film, idempotencyKey));
+    }
+
+    /**
+     * Добавить новый фильм один раз для ключа идемпотентности, не дожидаясь записи изменения на диск
+     * в вызывающем потоке.
+     *
+     * @see #add(Film, String)
+     * @see #addAsync(Film)
+     */
+    public CompletableFuture<Film> addAsync(final Film film, final @Nullable String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return addAsync(film);
+        }
+
+        return idempotencyCache.execute(idempotencyKey, film, () -> addAsync(film));
+    }
+
+    /**
+     * Обновить (полностью перезаписать) существующий фильм.
+     * <p>
+     * Если у фильма задана версия, он записывается, только пока она совпадает с текущей версией фильма
+     * в хранилище (оптимистичная блокировка); без версии последняя запись побеждает, как раньше.
+     *
+     * @param film Валидный фильм.
+     * @return Обновленный фильм с новой версией.
+     * @throws IdentifierDoesNotExistException Фильма с таким идентификатором нет.
+     * @throws VersionConflictException        Фильм изменен после чтения версии.
+     */
+    public Film update(final Film film) {
+        return Futures.join(updateAsync(film));
+    }
+
+    /**
+     * Обновить существующий фильм, не дожидаясь записи изменения на диск в вызывающем потоке.
+     *
+     * @param film Валидный фильм.
+     * @return Обновленный фильм с новой версией.
+     * @throws IdentifierDoesNotExistException Фильма с таким идентификатором нет.
+     * @throws VersionConflictException        Фильм изменен после чтения версии.
+     * @see #addAsync(Film)
+     */
+    public CompletableFuture<Film> updateAsync(final Film film) {
+        final List<CompletableFuture<Void>> pendingWrites = new ArrayList<>(1);
+        final Film updatedFilm = doUpdate(film, pendingWrites);
+
+        auditLog.record(AuditEvent.entity(AuditAction.FILM_UPDATED, updatedFilm.getId(), updatedFilm));
+
+        return whenDurable(pendingWrites).thenApply(ignored -> updatedFilm);
+    }
+
+    /**
+     * Частично обновить фильм.
+     * <p>
+     * Патч применяется к текущему состоянию под той же блокировкой, что и любое изменение фильма, поэтому
+     * одновременные изменения не теряются; проверяются только измененные поля.
+     *
+     * @param id              Идентификатор фильма.
+     * @param patch           Изменения.
+     * @param expectedVersion Версия, к которой клиент применяет патч, или {@link Film#NO_VERSION} – к текущей.
+     * @return Обновленный фильм.
+     * @throws IdentifierDoesNotExistException Фильма с таким идентификатором нет.
+     * @throws InvalidPatchException           Измененные поля не валидны или патч меняет идентификатор.
+     * @throws VersionConflictException        Версия фильма не совпадает с ожидаемой.
+     */
+    public Film patch(final long id, final FilmPatch patch, final long expectedVersion) {
+        return Futures.join(patchAsync(id, patch, expectedVersion));
+    }
+
+    /**
+     * Частично обновить фильм, не дожидаясь записи изменения на диск в вызывающем потоке.
+     *
+     * @see #patch(long, FilmPatch, long)
+     * @see #addAsync(Film)
+     */
+    public CompletableFuture<Film> patchAsync(final long id, final FilmPatch patch, final long expectedVersion) {
+        final List<CompletableFuture<Void>> pendingWrites = new ArrayList<>(1);
+        final Film patchedFilm = doPatch(id, patch, expectedVersion, pendingWrites);
+        if (pendingWrites.isEmpty()) {
+            // патч ничего не изменил
+            return CompletableFuture.completedFuture(patchedFilm);
+        }
+
+        auditLog.record(AuditEvent.entity(AuditAction.FILM_UPDATED, patchedFilm.getId(), patchedFilm));
+
+        return whenDurable(pendingWrites).thenApply(ignored -> patchedFilm);
+    }
+
+    /**
+     * Добавить пакет фильмов.
+     *
+     * @param films Фильмы (не больше {@link Batches#MAX_BATCH_SIZE}).
+     * @return Результаты по каждому элементу в порядке пакета.
+     * @see Batches#apply(Validator, List, java.util.function.UnaryOperator)
+     */
+    public List<BatchItemResult<Film>> addAll(final List<Film> films) {
+        return Futures.join(addAllAsync(films));
+    }
+
+    /**
+     * Добавить пакет фильмов, не дожидаясь записи изменений на диск в вызывающем потоке.
+     *
+     * @see #addAll(List)
+     * @see #addAsync(Film)
+     */
+    public CompletableFuture<List<BatchItemResult<Film>>> addAllAsync(final List<Film> films) {
+        final List<CompletableFuture<Void>> pendingWrites = new ArrayList<>(films.size());
+        final List<BatchItemResult<Film>> results = Batches.apply(validator, films,
+                film -> doAdd(film, pendingWrites));
+
+        recordChanges(AuditAction.FILM_ADDED, results);
+
+        return whenDurable(pendingWrites).thenApply(ignored -> {
+            log.info("Добавлено фильмов пакетом: {} из {}.", Batches.countSuccessful(results), films.size());
+            return results;
+        });
+    }
+
+    /**
+     * Обновить пакет фильмов.
+     *
+     * @param films Фильмы (не больше {@link Batches#MAX_BATCH_SIZE}).
+     * @return Результаты по каждому элементу в порядке пакета.
+     * @see Batches#apply(Validator, List, java.util.function.UnaryOperator)
+     */
+    public List<BatchItemResult<Film>> updateAll(final List<Film> films) {
+        return Futures.join(updateAllAsync(films));
+    }
+
+    /**
+     * Обновить пакет фильмов, не дожидаясь записи изменений на диск в вызывающем потоке.
+     *
+     * @see #updateAll(List)
+     * @see #addAsync(Film)
+     */
+    public CompletableFuture<List<BatchItemResult<Film>>> updateAllAsync(final List<Film> films) {
+        final List<CompletableFuture<Void>> pendingWrites = new ArrayList<>(films.size());
+        final List<BatchItemResult<Film>> results = Batches.apply(validator, films,
+                film -> doUpdate(film, pendingWrites));
+
+        recordChanges(AuditAction.FILM_UPDATED, results);
+
+        return whenDurable(pendingWrites).thenApply(ignored -> {
+            log.info("Обновлено фильмов пакетом: {} из {}.", Batches.countSuccessful(results), films.size());
+            return results;
+        });
+    }
+
+    /**
+     * Поставить фильму лайк от имени пользователя.
+     *
+     * @param filmId Идентификатор фильма.
+     * @param userId Идентификатор пользователя.
+     * @throws IdentifierDoesNotExistException Фильма или пользователя с таким идентификатором нет.
+     * @throws ValidationException             Пользователь уже поставил лайк этому фильму.
+     */
+    public void addLike(final long filmId, final long userId) {
+        Futures.join(addLikeAsync(filmId, userId));
+    }
+
+    /**
+     * Поставить фильму лайк, не дожидаясь записи изменения на диск в вызывающем потоке.
+     *
+     * @see #addLike(long, long)
+     * @see #addAsync(Film)
+     */
+    public CompletableFuture<Void> addLikeAsync(final long filmId, final long userId) {
+        if (storage.findById(filmId).isEmpty()) {
+            throw new IdentifierDoesNotExistException("Фильма с переданным идентификатором не существует в базе.");
+        }
+
+        if (userStorage.findById(userId).isEmpty()) {
+            throw new IdentifierDoesNotExistException("Пользователя с переданным идентификатором не существует в базе.");
+        }
+
+        if (!likeStorage.add(filmId, userId)) {
+            throw new ValidationException("Пользователь уже поставил лайк этому фильму.");
+        }
+
+        // лайки коммутативны: порядок записи в журнал не важен, блокировка не нужна
+        final CompletableFuture<Void> pendingWrite = likeWriteAheadLog.append(new Like(filmId, userId));
+        auditLog.record(AuditEvent.relation(AuditAction.LIKE_ADDED, filmId, userId));
+
+        return pendingWrite;
+    }
+
+    /**
+     * Получить самые популярные фильмы.
+     * <p>
+     * Сначала идут фильмы с лайками по убыванию их количества, затем, если их не хватает, фильмы без лайков
+     * в порядке возрастания идентификатора. Стоимость пропорциональна {@code count}.
+     *
+     * @param count Количество фильмов.
+     * @return Не больше {@code count} фильмов.
+     */
+    public List<Film> findPopular(final int count) {
+        final List<Film> films = new ArrayList<>(count);
+        for (final long filmId : likeStorage.findMostLiked(count)) {
+            storage.findById(filmId).ifPresent(films::add);
+        }
+
+        // все фильмы с лайками уже в списке, дополняем фильмами без лайков
+        final Iterator<Film> iterator = storage.findAll().iterator();
+        while (films.size() < count && iterator.hasNext()) {
+            final Film film = iterator.next();
+            if (likeStorage.count(film.getId()) == 0) {
+                films.add(film);
+            }
+        }
+
+        return films;
+    }
+
+    private Film doAdd(final Film film, final List<CompletableFuture<Void>> pendingWrites) {
+        // временная проверка: передача идентификатора при создании новой сущности не подразумевается
+        if (film.getId() < 0) {
+            throw new ValidationException("Идентификатор фильма не может быть меньше 0.");
+        }
+
+        if (film.getId() == Film.NO_ID) {
+            return addWithGeneratedId(film, pendingWrites);
+        }
+
+        // временная проверка: передача идентификатора при создании новой сущности не подразумевается
+        final Film addedFilm = write(film, ChangeType.CREATED, storage::add, pendingWrites);
+        if (addedFilm == null) {
+            throw new ValidationException("Фильм с таким идентификатором уже существует.");
+        }
+
+        return addedFilm;
+    }
+
+    private Film doUpdate(final Film film, final List<CompletableFuture<Void>> pendingWrites) {
+        final long expectedVersion = film.getVersion();
+        final Film updatedFilm = expectedVersion == Film.NO_VERSION
+                ? write(film, ChangeType.UPDATED, storage::update, pendingWrites)
+                : write(film, ChangeType.UPDATED, candidate -> storage.compareAndSet(expectedVersion, candidate),
+                pendingWrites);
+        if (updatedFilm != null) {
+            return updatedFilm;
+        }
+
+        if (expectedVersion != Film.NO_VERSION && storage.findById(film.getId()).isPresent()) {
+            throw new VersionConflictException("Фильм изменен другим запросом, получите его заново.");
+        }
+
+        throw new IdentifierDoesNotExistException("Фильма с переданным идентификатором не существует в базе.");
+    }
+
+    /**
+     * Применить патч к текущему состоянию фильма и записать результат.
+     * <p>
+     * Чтение, применение и запись выполняются под блокировкой идентификатора, которую берет и
+     * {@link #write(Film, ChangeType, Predicate, List)}: между чтением и записью
+     * фильм не может изменить никто другой, поэтому ожидаемая версия проверяется один раз, при чтении.
+     */
+    private Film doPatch(final long id,
+                         final FilmPatch patch,
+                         final long expectedVersion,
+                         final List<CompletableFuture<Void>> pendingWrites) {
+        synchronized (locks.lockFor(id)) {
+            final Film film = storage.findById(id).orElseThrow(() ->
+                    new IdentifierDoesNotExistException("Фильма с переданным идентификатором не существует в базе."));
+            if (expectedVersion != Film.NO_VERSION && film.getVersion() != expectedVersion) {
+                throw new VersionConflictException("Фильм изменен другим запросом, получите его заново.");
+            }
+
+            final Film patchedFilm = Patches.apply(validator, id, film, patch);
+            if (patchedFilm == film) {
+                return film;
+            }
+
+            return write(patchedFilm, ChangeType.UPDATED, storage::update, pendingWrites);
+        }
+    }
+
+    /**
+     * Выдать фильму новый идентификатор и добавить его.
+     * <p>
+     * Идентификатор запрашивается только после успешной валидации. Если он уже занят фильмом, добавленным
+     * с явно переданным идентификатором, запрашивается следующий.
+     */
+    private Film addWithGeneratedId(final Film film, final List<CompletableFuture<Void>> pendingWrites) {
+        Film addedFilm;
+        do {
+            addedFilm = write(film.withId(idGenerator.nextId()), ChangeType.CREATED, storage::add,
+                    pendingWrites);
+        } while (addedFilm == null);
+
+        return addedFilm;
+    }
+
+    /**
+     * Атомарно записать фильм в хранилище и поставить изменение в журнал.
+     * <p>
+     * Выполняется под блокировкой идентификатора, поэтому изменения одного фильма попадают в журнал в том же
+     * порядке, что и в хранилище. Публикация в поток изменений привязывается к записи в журнал тоже под
+     * блокировкой: записи журнала завершаются в порядке постановки, поэтому подписчики получают изменения
+     * фильма в порядке версий, даже если ответы одновременным запросам уходят в другом порядке. Ожидание
+     * записи на диск выполняется уже без блокировки.
+     *
+     * @param type  Тип изменения для потока изменений.
+     * @param write Запись в хранилище; возвращает {@code false}, если запись не выполнена.
+     * @return Записанный фильм с назначенной хранилищем версией или {@code null}, если запись не выполнена.
+     */
+    @Nullable
+    private Film write(final Film film,
+                       final ChangeType type,
+                       final Predicate<Film> write,
+                       final List<CompletableFuture<Void>> pendingWrites) {
+        synchronized (locks.lockFor(film.getId())) {
+            final Film previous = storage.findById(film.getId()).orElse(null);
+            if (!write.test(film)) {
+                return null;
+            }
+
+            // под блокировкой фильм не может измениться: это ровно записанное состояние
+            final Film savedFilm = storage.findById(film.getId()).orElseThrow();
+            final CompletableFuture<Void> pendingWrite = writeAheadLog.append(savedFilm);
+            rollback.track(savedFilm.getId(), previous, savedFilm.getVersion(), pendingWrite);
+            pendingWrites.add(pendingWrite.thenRun(() -> changeStream.publish(type, savedFilm)));
+
+            return savedFilm;
+        }
+    }
+
+    /**
+     * Вернуть фильм к состоянию до изменения, которое не удалось записать в журнал.
+     *
+     * @see WriteRollback
+     */
+    private void restore(final long id, final @Nullable Film previous) {
+        if (previous == null) {
+            storage.remove(id);
+        } else {
+            storage.update(previous);
+        }
+    }
+
+    private void recordChanges(final AuditAction action, final List<BatchItemResult<Film>> results) {
+        for (final BatchItemResult<Film> result : results) {
+            if (result.isSuccess()) {
+                auditLog.record(AuditEvent.entity(action, result.getEntity().getId(), result.getEntity()));
+            }
+        }
+    }
+
+    /**
+     * Результат, завершающийся после сохранения изменений на диск.
+     */
+    private static CompletableFuture<Void> whenDurable(final List<CompletableFuture<Void>> pendingWrites) {
+        return CompletableFuture.allOf(pendingWrites.toArray(CompletableFuture[]::new));
+    }
+}
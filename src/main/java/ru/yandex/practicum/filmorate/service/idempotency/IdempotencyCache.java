@@ -0,0 +1,205 @@
+package ru.yandex.practicum.filmorate.service.idempotency;
+
+import ru.yandex.practicum.filmorate.exceptions.IdempotencyKeyMismatchException;
+import ru.yandex.practicum.filmorate.exceptions.ValidationException;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Результаты запросов с ключом идемпотентности ({@code Idempotency-Key}) для повтора без повторного выполнения.
+ * <p>
+ * Первый запрос с ключом выполняется, его результат хранится {@code ttl}; повтор с тем же ключом и тем же телом
+ * получает тот же результат, а с другим телом отклоняется. Одновременные повторы не ждут в очереди на выполнение:
+ * они получают результат еще выполняющегося первого запроса, поэтому операция выполняется один раз. Ошибка
+ * не сохраняется: повтор после нее выполняется заново.
+ * <p>
+ * Ключей хранится не больше {@code maxKeys}. Время жизни у всех записей одинаковое, поэтому порядок добавления
+ * совпадает с порядком истечения: записи вытесняются из головы очереди добавления – истекшие и самые старые, если
+ * ключей больше предела. Вытеснение выполняет добавляющий поток, без фонового потока и без обхода всех записей;
+ * при одновременном добавлении предел может ненадолго превыситься на число добавляющих потоков. Поток уникальных
+ * ключей вытесняет старые записи, но не увеличивает память.
+ *
+ * @param <T> Тип результата.
+ */
+public final class IdempotencyCache<T> {
+
+    /**
+     * Заголовок запроса с ключом идемпотентности.
+     */
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+    /**
+     * Максимальная длина ключа: длинные ключи увеличивали бы память на запись без ограничения.
+     */
+    public static final int MAX_KEY_LENGTH = 255;
+
+    private final ConcurrentMap<String, Entry<T>> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Записи в порядке добавления; запись, замененная или удаленная из {@link #entries}, остается здесь до
+     * вытеснения.
+     */
+    private final Queue<Entry<T>> insertionOrder = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger queued = new AtomicInteger();
+
+    private final LongAdder replays = new LongAdder();
+
+    private final int maxKeys;
+
+    private final long ttlNanos;
+
+    /**
+     * Источник времени в наносекундах.
+     */
+    private final LongSupplier clock;
+
+    /**
+     * @param maxKeys Максимальное количество хранимых ключей.
+     * @param ttl     Время хранения результата.
+     */
+    public IdempotencyCache(final int maxKeys, final Duration ttl) {
+        this(maxKeys, ttl, System::nanoTime);
+    }
+
+    /**
+     * @param maxKeys Максимальное количество хранимых ключей.
+     * @param ttl     Время хранения результата.
+     * @param clock   Источник времени в наносекундах.
+     */
+    public IdempotencyCache(final int maxKeys, final Duration ttl, final LongSupplier clock) {
+        if (maxKeys < 1) {
+            throw new IllegalArgumentException("Количество ключей должно быть положительным: " + maxKeys);
+        }
+
+        this.maxKeys = maxKeys;
+        this.ttlNanos = ttl.toNanos();
+        this.clock = clock;
+    }
+
+    /**
+     * Выполнить операцию один раз для ключа или вернуть результат ее выполнения.
+     *
+     * @param key       Ключ идемпотентности.
+     * @param request   Тело запроса: повтор с тем же ключом должен передать равное ему.
+     * @param operation Операция; ошибки данных выбрасывает сразу, результат завершается после выполнения.
+     * @return Результат первого выполнения операции с этим ключом.
+     * @throws ValidationException             Пустой или слишком длинный ключ.
+     * @throws IdempotencyKeyMismatchException Ключ уже использован с другим телом запроса.
+     */
+    public CompletableFuture<T> execute(final String key,
+                                        final Object request,
+                                        final Supplier<CompletableFuture<T>> operation) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new ValidationException(String.format("Ключ идемпотентности должен содержать от 1 до %d символов.",
+                    MAX_KEY_LENGTH));
+        }
+
+        final long now = clock.getAsLong();
+        final Entry<T> entry = new Entry<>(key, request, now + ttlNanos);
+        Entry<T> existing = entries.putIfAbsent(key, entry);
+        while (existing != null) {
+            if (!existing.isExpired(now)) {
+                if (!existing.request.equals(request)) {
+                    throw new IdempotencyKeyMismatchException();
+                }
+
+                replays.increment();
+                // копия: вызывающий не может завершить общий результат
+                return existing.result.copy();
+            }
+
+            existing = entries.replace(key, existing, entry) ? null : entries.putIfAbsent(key, entry);
+        }
+
+        insertionOrder.add(entry);
+        queued.incrementAndGet();
+        evict(now);
+
+        final CompletableFuture<T> result;
+        try {
+            result = operation.get();
+        } catch (RuntimeException e) {
+            fail(entry, e);
+            throw e;
+        }
+
+        result.whenComplete((value, error) -> {
+            if (error != null) {
+                fail(entry, error);
+            } else {
+                entry.result.complete(value);
+            }
+        });
+
+        return entry.result.copy();
+    }
+
+    /**
+     * Количество хранимых ключей, включая истекшие, но еще не вытесненные.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Количество запросов, получивших сохраненный или еще выполняющийся результат.
+     */
+    public long replays() {
+        return replays.sum();
+    }
+
+    /**
+     * Вытеснить истекшие записи и самые старые записи сверх предела.
+     */
+    private void evict(final long now) {
+        Entry<T> eldest;
+        while ((eldest = insertionOrder.peek()) != null && (queued.get() > maxKeys || eldest.isExpired(now))) {
+            if (insertionOrder.remove(eldest)) {
+                queued.decrementAndGet();
+                entries.remove(eldest.key, eldest);
+            }
+        }
+    }
+
+    /**
+     * Передать ошибку ожидающим повторам и забыть ключ.
+     */
+    private void fail(final Entry<T> entry, final Throwable error) {
+        entries.remove(entry.key, entry);
+        entry.result.completeExceptionally(error);
+    }
+
+    /**
+     * Ключ, тело первого запроса и его результат.
+     */
+    private static final class Entry<T> {
+
+        private final String key;
+
+        private final Object request;
+
+        private final long expiresAt;
+
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+
+        private Entry(final String key, final Object request, final long expiresAt) {
+            this.key = key;
+            this.request = request;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired(final long now) {
+            return now - expiresAt >= 0;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package ru.yandex.practicum.filmorate.service.idempotency;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.time.Duration;
+
+/**
+ * Результаты создания фильмов и пользователей по ключу идемпотентности.
+ * <p>
+ * Настройки:
+ * <ul>
+ *     <li>{@code filmorate.idempotency.max-keys} – сколько ключей хранится для каждого типа сущности;</li>
+ *     <li>{@code filmorate.idempotency.ttl} – сколько хранится результат запроса.</li>
+ * </ul>
+ * <p>
+ * Метрики (с тегом {@code entity}): {@code filmorate.idempotency.keys} – хранимые ключи,
+ * {@code filmorate.idempotency.replays} – повторы, получившие результат без выполнения.
+ */
+@Configuration
+public class IdempotencyConfiguration {
+
+    @Value("${filmorate.idempotency.max-keys:10000}")
+    private int maxKeys;
+
+    @Value("${filmorate.idempotency.ttl:24h}")
+    private Duration ttl;
+
+    @Bean
+    public IdempotencyCache<Film> filmIdempotencyCache(final MeterRegistry meterRegistry) {
+        return register(new IdempotencyCache<>(maxKeys, ttl), "film", meterRegistry);
+    }
+
+    @Bean
+    public IdempotencyCache<User> userIdempotencyCache(final MeterRegistry meterRegistry) {
+        return register(new IdempotencyCache<>(maxKeys, ttl), "user", meterRegistry);
+    }
+
+    private static <T> IdempotencyCache<T> register(final IdempotencyCache<T> cache,
+                                                    final String entity,
+                                                    final MeterRegistry meterRegistry) {
+        Gauge.builder("filmorate.idempotency.keys", cache, IdempotencyCache::size)
+                .description("Хранимые ключи идемпотентности")
+                .tag("entity", entity)
+                .register(meterRegistry);
+        FunctionCounter.builder("filmorate.idempotency.replays", cache, IdempotencyCache::replays)
+                .description("Повторы запросов, получившие сохраненный результат")
+                .tag("entity", entity)
+                .register(meterRegistry);
+
+        return cache;
+    }
+}
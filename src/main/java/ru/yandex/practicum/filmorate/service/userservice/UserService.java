@@ -0,0 +1,658 @@
+package ru.yandex.practicum.filmorate.service.userservice;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import ru.yandex.practicum.filmorate.audit.AuditAction;
+import ru.yandex.practicum.filmorate.audit.AuditEvent;
+import ru.yandex.practicum.filmorate.audit.AuditLog;
+import ru.yandex.practicum.filmorate.exceptions.DuplicateValueException;
+import ru.yandex.practicum.filmorate.exceptions.IdempotencyKeyMismatchException;
+import ru.yandex.practicum.filmorate.exceptions.IdentifierDoesNotExistException;
+import ru.yandex.practicum.filmorate.exceptions.InvalidPatchException;
+import ru.yandex.practicum.filmorate.exceptions.ValidationException;
+import ru.yandex.practicum.filmorate.exceptions.VersionConflictException;
+import ru.yandex.practicum.filmorate.model.BatchItemResult;
+import ru.yandex.practicum.filmorate.model.Delta;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.model.UserPatch;
+import ru.yandex.practicum.filmorate.service.Batches;
+import ru.yandex.practicum.filmorate.service.Futures;
+import ru.yandex.practicum.filmorate.service.KeyLocks;
+import ru.yandex.practicum.filmorate.service.Patches;
+import ru.yandex.practicum.filmorate.service.WriteRollback;
+import ru.yandex.practicum.filmorate.service.changes.ChangeEvent;
+import ru.yandex.practicum.filmorate.service.changes.ChangeStream;
+import ru.yandex.practicum.filmorate.service.changes.ChangeType;
+import ru.yandex.practicum.filmorate.service.idempotency.IdempotencyCache;
+import ru.yandex.practicum.filmorate.storage.ChangeIndex;
+import ru.yandex.practicum.filmorate.storage.friendstorage.FriendStorage;
+import ru.yandex.practicum.filmorate.storage.friendstorage.FriendshipChange;
+import ru.yandex.practicum.filmorate.storage.idgenerator.IdGenerator;
+import ru.yandex.practicum.filmorate.storage.idgenerator.IdGeneratorConfiguration;
+import ru.yandex.practicum.filmorate.storage.wal.WriteAheadLog;
+import ru.yandex.practicum.filmorate.storage.userstorage.UserStorage;
+
+import javax.validation.Validator;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Predicate;
+
+/**
+ * Операции с пользователями.
+ * <p>
+ * Изменения пользователей видны чтениям до записи на диск и откатываются в памяти, если запись в журнал
+ * не удалась, – так же, как изменения фильмов в {@link ru.yandex.practicum.filmorate.service.filmservice.FilmService}.
+ * Изменения дружбы в памяти не откатываются: клиент, получивший ошибку, должен повторить запрос.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UserService {
+
+    private final UserStorage storage;
+
+    @Qualifier(IdGeneratorConfiguration.USER_ID_GENERATOR)
+    private final IdGenerator idGenerator;
+
+    /**
+     * Валидатор для элементов пакетных запросов (одиночные запросы валидируются через {@code @Valid}).
+     */
+    private final Validator validator;
+
+    /**
+     * Журнал изменений: запрос завершается только после того, как изменение сохранено на диск.
+     */
+    private final WriteAheadLog<User> writeAheadLog;
+
+    /**
+     * Упорядочивают изменение пользователя в хранилище и его запись в журнал.
+     */
+    private final KeyLocks locks = new KeyLocks();
+
+    /**
+     * Откат изменений, которые не удалось записать в журнал.
+     *
+     * @see ru.yandex.practicum.filmorate.service.filmservice.FilmService
+     */
+    private final WriteRollback<User> rollback = new WriteRollback<>("User", locks, this::versionOf, this::restore);
+
+    /**
+     * Хранилище дружбы пользователей.
+     */
+    private final FriendStorage friendStorage;
+
+    /**
+     * Журнал изменений дружбы.
+     */
+    private final WriteAheadLog<FriendshipChange> friendWriteAheadLog;
+
+    /**
+     * Журнал аудита: событие кладется в буфер в потоке запроса, как только изменение применено, а пишется
+     * в фоновом потоке. Поток журнала изменений, завершающий запись на диск, журнал аудита не ждет.
+     */
+    private final AuditLog auditLog;
+
+    /**
+     * Поток изменений для подписчиков: изменения публикуются после сохранения на диск, в порядке версий
+     * каждого пользователя.
+     */
+    private final ChangeStream<User> changeStream;
+
+    /**
+     * Результаты создания по ключу идемпотентности.
+     */
+    private final IdempotencyCache<User> idempotencyCache;
+
+    /**
+     * Упорядочивают изменение дружбы пары пользователей и его запись в журнал.
+     */
+    private final KeyLocks friendLocks = new KeyLocks();
+
+    /**
+     * Получить всех пользователей.
+     *
+     * @return Слабо согласованное представление всех пользователей.
+     */
+    public Collection<User> findAll() {
+        return storage.findAll();
+    }
+
+    /**
+     * Получить страницу пользователей в порядке возрастания идентификатора.
+     *
+     * @see UserStorage#findPage(long, int)
+     */
+    public List<User> findPage(final long afterId, final int limit) {
+        return storage.findPage(afterId, limit);
+    }
+
+    /**
+     * Найти пользователя по идентификатору.
+     *
+     * @throws IdentifierDoesNotExistException Пользователя с таким идентификатором нет.
+     */
+    public User findById(final long id) {
+        return storage.findById(id).orElseThrow(() ->
+                new IdentifierDoesNotExistException("Пользователя с указанным идентификатором не существует."));
+    }
+
+    /**
+     * Версия хранилища пользователей.
+     *
+     * @see UserStorage#version()
+     */
+    public long version() {
+        return storage.version();
+    }
+
+    /**
+     * Версия пользователя.
+     *
+     * @see UserStorage#versionOf(long)
+     */
+    public long versionOf(final long id) {
+        return storage.versionOf(id);
+    }
+
+    /**
+     * Подписаться на добавление и обновление пользователей.
+     *
+     * @see ChangeStream#subscribe()
+     */
+    public Flux<ChangeEvent<User>> streamChanges() {
+        return changeStream.subscribe();
+    }
+
+    /**
+     * Получить пользователей, добавленных или измененных после версии журнала изменений.
+     * <p>
+     * Сущности возвращаются в текущем состоянии: пользователь, измененный уже после версии ответа, попадет и в следующий ответ.
+     *
+     * @see UserStorage#changesSince(long, int)
+     */
+    public Delta<User> findChangedSince(final long version, final int limit) {
+        final ChangeIndex.Changes changes = storage.changesSince(version, limit);
+        final List<User> users = new ArrayList<>(changes.getIds().length);
+        for (final long id : changes.getIds()) {
+            storage.findById(id).ifPresent(users::add);
+        }
+
+        return new Delta<>(changes.getVersion(), changes.isResyncRequired(), users);
+    }
+
+    /**
+     * Найти пользователя по логину без учета регистра.
+     *
+     * @param login Логин.
+     * @return Пользователь.
+     * @throws IdentifierDoesNotExistException Пользователя с таким логином нет.
+     */
+    public User findByLogin(final String login) {
+        return storage.findByLogin(login).orElseThrow(() ->
+                new IdentifierDoesNotExistException("Пользователя с указанным логином не существует."));
+    }
+
+    /**
+     * Подобрать пользователей по началу логина.
+     *
+     * @throws ValidationException Пустой префикс.
+     * @see UserStorage#findByLoginPrefix(String, int)
+     */
+    public List<User> autocompleteLogin(final String prefix, final int limit) {
+        if (prefix.isBlank()) {
+            throw new ValidationException("Начало логина не может быть пустым.");
+        }
+
+        return storage.findByLoginPrefix(prefix, limit);
+    }
+
+    /**
+     * Создать нового пользователя.
+     *
+     * @param user Валидный пользователь.
+     * @return Созданный пользователь с идентификатором и версией.
+     * @throws ValidationException     Некорректный или уже занятый идентификатор.
+     * @throws DuplicateValueException Электронная почта или логин заняты другим пользователем.
+     */
+    public User add(final User user) {
+        return Futures.join(addAsync(user));
+    }
+
+    /**
+     * Создать нового пользователя, не дожидаясь записи изменения на диск в вызывающем потоке.
+     * <p>
+     * Пользователь попадает в хранилище до возврата из метода, ошибки данных выбрасываются сразу; результат
+     * завершается, когда изменение сохранено в журнал.
+     *
+     * @param user Валидный пользователь.
+     * @return Созданный пользователь с идентификатором.
+     * @throws ValidationException     Некорректный или уже занятый идентификатор.
+     * @throws DuplicateValueException Электронная почта или логин заняты другим пользователем.
+     */
+    public CompletableFuture<User> addAsync(final User user) {
+        final List<CompletableFuture<Void>> pendingWrites = new ArrayList<>(1);
+        final User addedUser = doAdd(user, pendingWrites);
+
+        auditLog.record(AuditEvent.entity(AuditAction.USER_ADDED, addedUser.getId(), addedUser));
+
+        return whenDurable(pendingWrites).thenApply(ignored -> addedUser);
+    }
+
+    /**
+     * Создать нового пользователя один раз для ключа идемпотентности.
+     *
+     * @param user           Валидный пользователь.
+     * @param idempotencyKey Ключ идемпотентности или {@code null}, если клиент его не передал.
+     * @return Пользователь, созданный по этому ключу.
+     * @throws ValidationException             Некорректный или уже занятый идентификатор, некорректный ключ.
+     * @throws DuplicateValueException         Электронная почта или логин заняты другим пользователем.
+     * @throws IdempotencyKeyMismatchException Ключ уже использован с другим пользователем.
+     * @see IdempotencyCache
+     */
+    public User add(final User user, final @Nullable String idempotencyKey) {
+        return Futures.join(addAsync(user, idempotencyKey));
+    }
+
+    /**
+     * Создать нового пользователя один раз для ключа идемпотентности, не дожидаясь записи изменения на диск
+     * в вызывающем потоке.
+     *
+     * @see #add(User, String)
+     * @see #addAsync(User)
+     */
+    public CompletableFuture<User> addAsync(final User user, final @Nullable String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return addAsync(user);
+        }
+
+        return idempotencyCache.execute(idempotencyKey, user, () -> addAsync(user));
+    }
+
+    /**
+     * Обновить (полностью перезаписать) данные о существующем пользователе.
+     * <p>
+     * Версия пользователя, если задана, проверяется так же, как версия фильма в
+     * {@link ru.yandex.practicum.filmorate.service.filmservice.FilmService}.
+     *
+     * @param user Валидный пользователь.
+     * @return Обновленный пользователь с новой версией.
+     * @throws IdentifierDoesNotExistException Пользователя с таким идентификатором нет.
+     * @throws DuplicateValueException         Электронная почта или логин заняты другим пользователем.
+     * @throws VersionConflictException        Пользователь изменен после чтения версии.
+     */
+    public User update(final User user) {
+        return Futures.join(updateAsync(user));
+    }
+
+    /**
+     * Обновить данные пользователя, не дожидаясь записи изменения на диск в вызывающем потоке.
+     *
+     * @param user Валидный пользователь.
+     * @return Обновленный пользователь с новой версией.
+     * @throws IdentifierDoesNotExistException Пользователя с таким идентификатором нет.
+     * @throws DuplicateValueException         Электронная почта или логин заняты другим пользователем.
+     * @throws VersionConflictException        Пользователь изменен после чтения версии.
+     * @see #addAsync(User)
+     */
+    public CompletableFuture<User> updateAsync(final User user) {
+        final List<CompletableFuture<Void>> pendingWrites = new ArrayList<>(1);
+        final User updatedUser = doUpdate(user, pendingWrites);
+
+        auditLog.record(AuditEvent.entity(AuditAction.USER_UPDATED, updatedUser.getId(), updatedUser));
+
+        return whenDurable(pendingWrites).thenApply(ignored -> updatedUser);
+    }
+
+    /**
+     * Частично обновить данные пользователя.
+     * <p>
+     * Патч применяется к текущему состоянию под той же блокировкой, что и любое изменение пользователя, поэтому
+     * одновременные изменения не теряются; проверяются только измененные поля.
+     *
+     * @param id              Идентификатор пользователя.
+     * @param patch           Изменения.
+     * @param expectedVersion Версия, к которой клиент применяет патч, или {@link User#NO_VERSION} – к текущей.
+     * @return Обновленный пользователь.
+     * @throws IdentifierDoesNotExistException Пользователя с таким идентификатором нет.
+     * @throws InvalidPatchException           Измененные поля не валидны или патч меняет идентификатор.
+     * @throws DuplicateValueException         Электронная почта или логин заняты другим пользователем.
+     * @throws VersionConflictException        Версия пользователя не совпадает с ожидаемой.
+     */
+    public User patch(final long id, final UserPatch patch, final long expectedVersion) {
+        return Futures.join(patchAsync(id, patch, expectedVersion));
+    }
+
+    /**
+     * Частично обновить данные пользователя, не дожидаясь записи изменения на диск в вызывающем потоке.
+     *
+     * @see #patch(long, UserPatch, long)
+     * @see #addAsync(User)
+     */
+    public CompletableFuture<User> patchAsync(final long id, final UserPatch patch, final long expectedVersion) {
+        final List<CompletableFuture<Void>> pendingWrites = new ArrayList<>(1);
+        final User patchedUser = doPatch(id, patch, expectedVersion, pendingWrites);
+        if (pendingWrites.isEmpty()) {
+            // патч ничего не изменил
+            return CompletableFuture.completedFuture(patchedUser);
+        }
+
+        auditLog.record(AuditEvent.entity(AuditAction.USER_UPDATED, patchedUser.getId(), patchedUser));
+
+        return whenDurable(pendingWrites).thenApply(ignored -> patchedUser);
+    }
+
+    /**
+     * Создать пакет пользователей.
+     *
+     * @param users Пользователи (не больше {@link Batches#MAX_BATCH_SIZE}).
+     * @return Результаты по каждому элементу в порядке пакета.
+     * @see Batches#apply(Validator, List, java.util.function.UnaryOperator)
+     */
+    public List<BatchItemResult<User>> addAll(final List<User> users) {
+        return Futures.join(addAllAsync(users));
+    }
+
+    /**
+     * Создать пакет пользователей, не дожидаясь записи изменений на диск в вызывающем потоке.
+     *
+     * @see #addAll(List)
+     * @see #addAsync(User)
+     */
+    public CompletableFuture<List<BatchItemResult<User>>> addAllAsync(final List<User> users) {
+        final List<CompletableFuture<Void>> pendingWrites = new ArrayList<>(users.size());
+        final List<BatchItemResult<User>> results = Batches.apply(validator, users,
+                user -> doAdd(user, pendingWrites));
+
+        recordChanges(AuditAction.USER_ADDED, results);
+
+        return whenDurable(pendingWrites).thenApply(ignored -> {
+            log.info("Добавлено пользователей пакетом: {} из {}.", Batches.countSuccessful(results), users.size());
+            return results;
+        });
+    }
+
+    /**
+     * Обновить пакет пользователей.
+     *
+     * @param users Пользователи (не больше {@link Batches#MAX_BATCH_SIZE}).
+     * @return Результаты по каждому элементу в порядке пакета.
+     * @see Batches#apply(Validator, List, java.util.function.UnaryOperator)
+     */
+    public List<BatchItemResult<User>> updateAll(final List<User> users) {
+        return Futures.join(updateAllAsync(users));
+    }
+
+    /**
+     * Обновить пакет пользователей, не дожидаясь записи изменений на диск в вызывающем потоке.
+     *
+     * @see #updateAll(List)
+     * @see #addAsync(User)
+     */
+    public CompletableFuture<List<BatchItemResult<User>>> updateAllAsync(final List<User> users) {
+        final List<CompletableFuture<Void>> pendingWrites = new ArrayList<>(users.size());
+        final List<BatchItemResult<User>> results = Batches.apply(validator, users,
+                user -> doUpdate(user, pendingWrites));
+
+        recordChanges(AuditAction.USER_UPDATED, results);
+
+        return whenDurable(pendingWrites).thenApply(ignored -> {
+            log.info("Обновлено пользователей пакетом: {} из {}.", Batches.countSuccessful(results), users.size());
+            return results;
+        });
+    }
+
+    /**
+     * Сделать пользователей друзьями (дружба взаимна). Повторное добавление ничего не меняет.
+     *
+     * @throws IdentifierDoesNotExistException Пользователя с таким идентификатором нет.
+     * @throws ValidationException             Пользователь добавляет в друзья самого себя.
+     */
+    public void addFriend(final long userId, final long friendId) {
+        Futures.join(addFriendAsync(userId, friendId));
+    }
+
+    /**
+     * Сделать пользователей друзьями, не дожидаясь записи изменения на диск в вызывающем потоке.
+     *
+     * @see #addFriend(long, long)
+     * @see #addAsync(User)
+     */
+    public CompletableFuture<Void> addFriendAsync(final long userId, final long friendId) {
+        if (userId == friendId) {
+            throw new ValidationException("Пользователь не может добавить в друзья самого себя.");
+        }
+        requireExists(userId);
+        requireExists(friendId);
+
+        return changeFriendship(new FriendshipChange(userId, friendId, true), AuditAction.FRIEND_ADDED);
+    }
+
+    /**
+     * Удалить дружбу пользователей. Удаление несуществующей дружбы ничего не меняет.
+     *
+     * @throws IdentifierDoesNotExistException Пользователя с таким идентификатором нет.
+     */
+    public void removeFriend(final long userId, final long friendId) {
+        Futures.join(removeFriendAsync(userId, friendId));
+    }
+
+    /**
+     * Удалить дружбу пользователей, не дожидаясь записи изменения на диск в вызывающем потоке.
+     *
+     * @see #removeFriend(long, long)
+     * @see #addAsync(User)
+     */
+    public CompletableFuture<Void> removeFriendAsync(final long userId, final long friendId) {
+        requireExists(userId);
+        requireExists(friendId);
+
+        return changeFriendship(new FriendshipChange(userId, friendId, false), AuditAction.FRIEND_REMOVED);
+    }
+
+    /**
+     * Получить друзей пользователя.
+     *
+     * @return Друзья в порядке возрастания идентификатора.
+     * @throws IdentifierDoesNotExistException Пользователя с таким идентификатором нет.
+     */
+    public List<User> findFriends(final long userId) {
+        requireExists(userId);
+
+        return toUsers(friendStorage.findFriends(userId));
+    }
+
+    /**
+     * Получить общих друзей двух пользователей.
+     *
+     * @return Общие друзья в порядке возрастания идентификатора.
+     * @throws IdentifierDoesNotExistException Пользователя с таким идентификатором нет.
+     */
+    public List<User> findCommonFriends(final long userId, final long otherId) {
+        requireExists(userId);
+        requireExists(otherId);
+
+        return toUsers(friendStorage.findCommonFriends(userId, otherId));
+    }
+
+    private void requireExists(final long userId) {
+        if (storage.findById(userId).isEmpty()) {
+            throw new IdentifierDoesNotExistException("Пользователя с указанным идентификатором не существует.");
+        }
+    }
+
+    private List<User> toUsers(final long[] ids) {
+        final List<User> users = new ArrayList<>(ids.length);
+        for (final long id : ids) {
+            storage.findById(id).ifPresent(users::add);
+        }
+
+        return users;
+    }
+
+    /**
+     * Применить изменение дружбы, поставить его в журнал и, если дружба изменилась, записать событие аудита.
+     * <p>
+     * Изменения одной пары пользователей попадают в журнал в том же порядке, что и в хранилище.
+     *
+     * @return Результат, завершающийся после записи изменения на диск.
+     */
+    private CompletableFuture<Void> changeFriendship(final FriendshipChange change, final AuditAction action) {
+        final long pairKey = Math.min(change.getUserId(), change.getFriendId()) * 31
+                + Math.max(change.getUserId(), change.getFriendId());
+        final CompletableFuture<Void> pendingWrite;
+
+        synchronized (friendLocks.lockFor(pairKey)) {
+            final boolean changed = change.isAdded()
+                    ? friendStorage.add(change.getUserId(), change.getFriendId())
+                    : friendStorage.remove(change.getUserId(), change.getFriendId());
+            if (!changed) {
+                return CompletableFuture.completedFuture(null);
+            }
+
+            pendingWrite = friendWriteAheadLog.append(change);
+        }
+        auditLog.record(AuditEvent.relation(action, change.getUserId(), change.getFriendId()));
+
+        return pendingWrite;
+    }
+
+    private User doAdd(final User user, final List<CompletableFuture<Void>> pendingWrites) {
+        // временная проверка: передача идентификатора при создании новой сущности не подразумевается
+        if (user.getId() < 0) {
+            throw new ValidationException("Идентификатор пользователя не может быть меньше нуля.");
+        }
+
+        if (user.getId() == User.NO_ID) {
+            return addWithGeneratedId(user, pendingWrites);
+        }
+
+        // временная проверка: передача идентификатора при создании новой сущности не подразумевается
+        final User addedUser = write(user, ChangeType.CREATED, storage::add, pendingWrites);
+        if (addedUser == null) {
+            throw new ValidationException("Пользователь с указанным идентификатором уже существует.");
+        }
+
+        return addedUser;
+    }
+
+    private User doUpdate(final User user, final List<CompletableFuture<Void>> pendingWrites) {
+        final long expectedVersion = user.getVersion();
+        final User updatedUser = expectedVersion == User.NO_VERSION
+                ? write(user, ChangeType.UPDATED, storage::update, pendingWrites)
+                : write(user, ChangeType.UPDATED, candidate -> storage.compareAndSet(expectedVersion, candidate),
+                pendingWrites);
+        if (updatedUser != null) {
+            return updatedUser;
+        }
+
+        if (expectedVersion != User.NO_VERSION && storage.findById(user.getId()).isPresent()) {
+            throw new VersionConflictException("Пользователь изменен другим запросом, получите его заново.");
+        }
+
+        throw new IdentifierDoesNotExistException("Пользователя с указанным идентификатором не существует.");
+    }
+
+    /**
+     * Применить патч к текущему состоянию пользователя и записать результат.
+     * <p>
+     * Чтение, применение и запись выполняются под блокировкой идентификатора, которую берет и
+     * {@link #write(User, ChangeType, Predicate, List)}: между чтением и записью
+     * пользователя не может изменить никто другой, поэтому ожидаемая версия проверяется один раз, при чтении.
+     */
+    private User doPatch(final long id,
+                         final UserPatch patch,
+                         final long expectedVersion,
+                         final List<CompletableFuture<Void>> pendingWrites) {
+        synchronized (locks.lockFor(id)) {
+            final User user = storage.findById(id).orElseThrow(() ->
+                    new IdentifierDoesNotExistException("Пользователя с указанным идентификатором не существует."));
+            if (expectedVersion != User.NO_VERSION && user.getVersion() != expectedVersion) {
+                throw new VersionConflictException("Пользователь изменен другим запросом, получите его заново.");
+            }
+
+            final User patchedUser = Patches.apply(validator, id, user, patch);
+            if (patchedUser == user) {
+                return user;
+            }
+
+            return write(patchedUser, ChangeType.UPDATED, storage::update, pendingWrites);
+        }
+    }
+
+    /**
+     * Выдать пользователю новый идентификатор и добавить его.
+     *
+     * @see ru.yandex.practicum.filmorate.service.filmservice.FilmService
+     */
+    private User addWithGeneratedId(final User user, final List<CompletableFuture<Void>> pendingWrites) {
+        User addedUser;
+        do {
+            addedUser = write(user.withId(idGenerator.nextId()), ChangeType.CREATED, storage::add,
+                    pendingWrites);
+        } while (addedUser == null);
+
+        return addedUser;
+    }
+
+    /**
+     * Атомарно записать пользователя в хранилище, поставить изменение в журнал и привязать к записи
+     * публикацию в поток изменений.
+     *
+     * @param type Тип изменения для потока изменений.
+     * @return Записанный пользователь с назначенной хранилищем версией или {@code null}, если запись не выполнена.
+     * @see ru.yandex.practicum.filmorate.service.filmservice.FilmService
+     */
+    @Nullable
+    private User write(final User user,
+                       final ChangeType type,
+                       final Predicate<User> write,
+                       final List<CompletableFuture<Void>> pendingWrites) {
+        synchronized (locks.lockFor(user.getId())) {
+            final User previous = storage.findById(user.getId()).orElse(null);
+            if (!write.test(user)) {
+                return null;
+            }
+
+            final User savedUser = storage.findById(user.getId()).orElseThrow();
+            final CompletableFuture<Void> pendingWrite = writeAheadLog.append(savedUser);
+            rollback.track(savedUser.getId(), previous, savedUser.getVersion(), pendingWrite);
+            pendingWrites.add(pendingWrite.thenRun(() -> changeStream.publish(type, savedUser)));
+
+            return savedUser;
+        }
+    }
+
+    /**
+     * Вернуть пользователя к состоянию до изменения, которое не удалось записать в журнал.
+     *
+     * @see WriteRollback
+     */
+    private void restore(final long id, final @Nullable User previous) {
+        if (previous == null) {
+            storage.remove(id);
+        } else {
+            storage.update(previous);
+        }
+    }
+
+    private void recordChanges(final AuditAction action, final List<BatchItemResult<User>> results) {
+        for (final BatchItemResult<User> result : results) {
+            if (result.isSuccess()) {
+                auditLog.record(AuditEvent.entity(action, result.getEntity().getId(), result.getEntity()));
+            }
+        }
+    }
+
+    /**
+     * Результат, завершающийся после сохранения изменений на диск.
+     */
+    private static CompletableFuture<Void> whenDurable(final List<CompletableFuture<Void>> pendingWrites) {
+        return CompletableFuture.allOf(pendingWrites.toArray(CompletableFuture[]::new));
+    }
+}
@@ -0,0 +1,210 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Value;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Ограниченный журнал изменений хранилища: какая сущность изменена каждой версией хранилища.
+ * <p>
+ * Хранит идентификаторы последних {@code capacity} версий в кольцевом буфере, поэтому ответ на вопрос «что
+ * изменилось после версии N» стоит O(количество изменений), а не O(размер хранилища). Более старые версии
+ * вытесняются; клиенту, отставшему сильнее, нужна полная загрузка.
+ * <p>
+ * Журнал же выдает версии изменениям ({@link #nextVersion()}): хранилище берет версию под блокировкой сущности
+ * перед записью и записывает изменение в журнал после того, как оно видно читателям, поэтому изменения
+ * записываются не строго по порядку. Журнал отдает изменения и текущую версию ({@link #version()}) только до
+ * версии, до которой записаны все предыдущие: изменение, записанное позже версии с большим номером, не будет
+ * пропущено клиентом, уже получившим эту версию. Чтение не блокируется: версия ячейки проверяется после чтения
+ * идентификатора, и перезаписанная ячейка означает, что нужная версия уже вытеснена.
+ * <p>
+ * Версии смещены на метку запуска ({@link #EPOCH}): они живут в памяти и после перезапуска начинаются заново,
+ * а версия, полученная клиентом до перезапуска, оказывается меньше метки и распознается как неизвестная.
+ */
+public final class ChangeIndex {
+
+    /**
+     * Емкость журнала по умолчанию.
+     */
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+
+    /**
+     * Метка запуска приложения: время запуска в микросекундах (больше любой версии предыдущего запуска, если
+     * он не записывал больше тысячи изменений в миллисекунду) и меньше 2<sup>53</sup> – версии остаются точными
+     * числами в JavaScript.
+     */
+    static final long EPOCH = System.currentTimeMillis() * 1_000;
+
+    private final int mask;
+
+    /**
+     * Признак ячейки, в которую сейчас записывается изменение.
+     */
+    private static final long WRITING = -1;
+
+    /**
+     * Версия, записанная в ячейке: 0 – ячейка пуста, {@link #WRITING} – перезаписывается. Версия ячейки только
+     * растет (через {@link #WRITING}).
+     */
+    private final AtomicLongArray versions;
+
+    private final AtomicLongArray ids;
+
+    /**
+     * Количество выданных версий.
+     */
+    private final AtomicLong issued = new AtomicLong();
+
+    /**
+     * Версия (без смещения), до которой (включительно) все изменения записаны.
+     */
+    private final AtomicLong complete = new AtomicLong();
+
+    public ChangeIndex() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity Количество последних версий, которые хранит журнал (округляется вверх до степени двойки).
+     */
+    public ChangeIndex(final int capacity) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Емкость журнала изменений должна быть от 1 до 2^30: " + capacity);
+        }
+
+        final int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.mask = size - 1;
+        this.versions = new AtomicLongArray(size);
+        this.ids = new AtomicLongArray(size);
+    }
+
+    /**
+     * Выдать версию следующему изменению.
+     * <p>
+     * Каждую выданную версию нужно записать через {@link #record(long, long)}: пока она не записана, текущая
+     * версия журнала не растет. Поэтому версию берут только для изменения, которое точно будет выполнено.
+     *
+     * @return Версия больше всех выданных ранее, в том числе до перезапуска.
+     */
+    public long nextVersion() {
+        return EPOCH + issued.incrementAndGet();
+    }
+
+    /**
+     * Записать изменение. Вызывается хранилищем после того, как изменение видно читателям.
+     *
+     * @param changeVersion Версия, выданная изменению {@link #nextVersion()}.
+     * @param id            Идентификатор измененной сущности.
+     */
+    public void record(final long changeVersion, final long id) {
+        final long version = changeVersion - EPOCH;
+        final int slot = slot(version);
+        // ячейку могла занять версия на круг новее, если эта запись задержалась: тогда эта версия уже вытеснена
+        long current = versions.get(slot);
+        while (current < version) {
+            if (current != WRITING && versions.compareAndSet(slot, current, WRITING)) {
+                ids.set(slot, id);
+                versions.set(slot, version);
+                break;
+            }
+            Thread.onSpinWait();
+            current = versions.get(slot);
+        }
+
+        long completed = complete.get();
+        while (versions.get(slot(completed + 1)) >= completed + 1) {
+            if (complete.compareAndSet(completed, completed + 1)) {
+                completed++;
+            } else {
+                completed = complete.get();
+            }
+        }
+    }
+
+    /**
+     * Текущая версия: все изменения до нее включительно записаны и видны читателям.
+     */
+    public long version() {
+        return EPOCH + complete.get();
+    }
+
+    /**
+     * Идентификаторы сущностей, измененных после версии.
+     *
+     * @param since Версия, полученная клиентом ранее ({@link Changes#getVersion()}).
+     * @param limit Максимальное количество идентификаторов; если изменений больше, возвращаются первые, а версия
+     *              ответа указывает на последнее включенное изменение.
+     * @return Изменения или признак того, что версия неизвестна либо уже вытеснена из журнала.
+     */
+    public Changes since(final long since, final int limit) {
+        final long completed = complete.get();
+        final long from = since - EPOCH;
+        if (from < 0 || from > completed || completed - from > mask + 1) {
+            return Changes.resync(EPOCH + completed);
+        }
+
+        final Set<Long> changed = new LinkedHashSet<>();
+        long version = from;
+        while (version < completed) {
+            final long next = version + 1;
+            final int slot = slot(next);
+            final long id = ids.get(slot);
+            // версия ячейки только растет, поэтому совпадение после чтения означает, что идентификатор
+            // относится к этой версии
+            if (versions.get(slot) != next) {
+                return Changes.resync(EPOCH + completed);
+            }
+
+            if (!changed.contains(id)) {
+                if (changed.size() == limit) {
+                    break;
+                }
+                changed.add(id);
+            }
+            version = next;
+        }
+
+        return Changes.of(EPOCH + version, changed.stream().mapToLong(Long::longValue).toArray());
+    }
+
+    private int slot(final long version) {
+        return (int) (version & mask);
+    }
+
+    /**
+     * Ответ журнала изменений.
+     */
+    @Value
+    @AllArgsConstructor(access = AccessLevel.PRIVATE)
+    public static class Changes {
+
+        /**
+         * Версия, по которую включены изменения.
+         */
+        long version;
+
+        /**
+         * Версия клиента неизвестна или уже вытеснена: нужна полная загрузка, после которой следующий запрос
+         * передает {@link #version}.
+         */
+        boolean resyncRequired;
+
+        /**
+         * Идентификаторы измененных сущностей без повторов (пусто при {@link #resyncRequired}).
+         */
+        long[] ids;
+
+        static Changes of(final long version, final long[] ids) {
+            return new Changes(version, false, ids);
+        }
+
+        static Changes resync(final long version) {
+            return new Changes(version, true, SortedLongArrays.EMPTY);
+        }
+    }
+}
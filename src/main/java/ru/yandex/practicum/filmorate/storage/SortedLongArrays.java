@@ -0,0 +1,136 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import java.util.Arrays;
+
+/**
+ * Операции над множествами идентификаторов, хранящимися как отсортированные массивы {@code long[]}
+ * без повторов.
+ * <p>
+ * Массив занимает 8 байт на элемент против ~60 байт на элемент у {@code HashSet<Long>}. Массивы не изменяются:
+ * вставка и удаление возвращают новый массив, поэтому их можно читать без блокировок.
+ */
+public final class SortedLongArrays {
+
+    public static final long[] EMPTY = new long[0];
+
+    /**
+     * Во сколько раз один массив должен быть больше другого, чтобы пересекать их галопирующим поиском,
+     * а не слиянием.
+     */
+    private static final int GALLOP_RATIO = 16;
+
+    private SortedLongArrays() {
+    }
+
+    /**
+     * Массив с добавленным значением.
+     *
+     * @return Тот же массив, если значение уже есть.
+     */
+    public static long[] insert(final long[] set, final long value) {
+        final int index = Arrays.binarySearch(set, value);
+        if (index >= 0) {
+            return set;
+        }
+
+        final int position = -index - 1;
+        final long[] result = new long[set.length + 1];
+        System.arraycopy(set, 0, result, 0, position);
+        result[position] = value;
+        System.arraycopy(set, position, result, position + 1, set.length - position);
+
+        return result;
+    }
+
+    /**
+     * Массив без значения.
+     *
+     * @return Тот же массив, если значения нет.
+     */
+    public static long[] remove(final long[] set, final long value) {
+        final int position = Arrays.binarySearch(set, value);
+        if (position < 0) {
+            return set;
+        }
+
+        final long[] result = new long[set.length - 1];
+        System.arraycopy(set, 0, result, 0, position);
+        System.arraycopy(set, position + 1, result, position, set.length - position - 1);
+
+        return result;
+    }
+
+    /**
+     * Пересечение двух множеств.
+     * <p>
+     * Массивы близкого размера сливаются за O(n + m). Если один массив намного меньше, каждый его элемент
+     * ищется в большем галопирующим (экспоненциальным) поиском за O(n log(m / n)).
+     */
+    public static long[] intersect(final long[] a, final long[] b) {
+        final long[] small = a.length <= b.length ? a : b;
+        final long[] large = small == a ? b : a;
+
+        if (small.length == 0) {
+            return EMPTY;
+        }
+
+        return (long) small.length * GALLOP_RATIO < large.length ? gallop(small, large) : merge(small, large);
+    }
+
+    /**
+     * Пересечение слиянием.
+     */
+    static long[] merge(final long[] a, final long[] b) {
+        final long[] result = new long[Math.min(a.length, b.length)];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+
+        while (i < a.length && j < b.length) {
+            final long x = a[i];
+            final long y = b[j];
+            if (x < y) {
+                i++;
+            } else if (x > y) {
+                j++;
+            } else {
+                result[size++] = x;
+                i++;
+                j++;
+            }
+        }
+
+        return size == result.length ? result : Arrays.copyOf(result, size);
+    }
+
+    /**
+     * Пересечение галопирующим поиском элементов {@code small} в {@code large}.
+     */
+    static long[] gallop(final long[] small, final long[] large) {
+        final long[] result = new long[small.length];
+        int size = 0;
+        int from = 0;
+
+        for (final long value : small) {
+            // экспоненциально расширяем окно от предыдущей позиции, затем бинарный поиск в нем
+            int bound = 1;
+            while (from + bound < large.length && large[from + bound] < value) {
+                bound <<= 1;
+            }
+            final int to = Math.min(from + bound + 1, large.length);
+            final int index = Arrays.binarySearch(large, from, to, value);
+
+            if (index >= 0) {
+                result[size++] = value;
+                from = index + 1;
+            } else {
+                from = -index - 1;
+            }
+            if (from >= large.length) {
+                break;
+            }
+        }
+
+        return size == result.length ? result : Arrays.copyOf(result, size);
+    }
+}
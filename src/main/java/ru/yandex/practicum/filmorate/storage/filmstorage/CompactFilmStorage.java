@@ -0,0 +1,489 @@
+package ru.yandex.practicum.filmorate.storage.filmstorage;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.ChangeIndex;
+import ru.yandex.practicum.filmorate.storage.SortedLongArrays;
+
+import java.time.LocalDate;
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
+
+/**
+ * Компактное хранилище фильмов: колонки примитивных массивов вместо объекта {@link Film} на каждый фильм.
+ * <p>
+ * Включается настройкой {@code filmorate.storage.film-engine=compact}. Поля фильма хранятся в отдельных массивах
+ * по номеру строки (в порядке добавления), строки – в UTF-8 в общей {@link StringArena}. Объект {@link Film}
+ * собирается только при чтении и не сохраняется. Поиск по идентификатору – двоичный поиск в паре массивов
+ * (идентификаторы по возрастанию и номера их строк); новые идентификаторы почти всегда больше уже выданных,
+ * поэтому вставка обычно дописывает их в конец без сдвига.
+ * <p>
+ * Изменение фильма записывает его поля на место прежних, а новые строки – в конец арены; когда байты прежних
+ * строк занимают больше половины арены, живые строки переписываются в новую арену.
+ * <p>
+ * Записи выполняются под одной {@link StampedLock}: в этом хранилище память важнее параллельности записи.
+ * Поиск по идентификатору и страницы читаются оптимистично, без блокировки; если во время чтения была запись,
+ * чтение повторяется под блокировкой чтения. Индексы по дате выпуска и поисковый индекс такие же, как
+ * в {@link InMemoryFilmStorage}, но индекс по дате хранит идентификаторы, а не фильмы.
+ */
+@Component
+@ConditionalOnProperty(name = "filmorate.storage.film-engine", havingValue = "compact")
+public final class CompactFilmStorage implements FilmStorage {
+
+    /**
+     * Значение {@link #releaseDays} для фильма без даты выпуска.
+     */
+    private static final long NO_RELEASE_DATE = Long.MIN_VALUE;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private static final int FIND_ALL_PAGE_SIZE = 1024;
+
+    private final StampedLock lock = new StampedLock();
+
+    // колонки по номеру строки
+
+    private long[] ids = new long[INITIAL_CAPACITY];
+
+    private int[] durations = new int[INITIAL_CAPACITY];
+
+    /**
+     * День выпуска ({@link LocalDate#toEpochDay()}); номер дня крайних дат {@link LocalDate} не помещается в
+     * {@code int}.
+     */
+    private long[] releaseDays = new long[INITIAL_CAPACITY];
+
+    private long[] names = new long[INITIAL_CAPACITY];
+
+    private long[] descriptions = new long[INITIAL_CAPACITY];
+
+    private long[] versions = new long[INITIAL_CAPACITY];
+
+    private int rows;
+
+    // идентификаторы по возрастанию и номера их строк
+
+    private long[] sortedIds = new long[INITIAL_CAPACITY];
+
+    private int[] sortedRows = new int[INITIAL_CAPACITY];
+
+    private StringArena strings = new StringArena();
+
+    /**
+     * Байтов арены, занятых прежними версиями строк.
+     */
+    private long garbageBytes;
+
+    /**
+     * Идентификаторы фильмов по дню выпуска ({@link LocalDate#toEpochDay()}).
+     */
+    private final NavigableMap<Long, long[]> releaseDateIndex = new TreeMap<>();
+
+    private final FilmSearchIndex searchIndex = new FilmSearchIndex();
+
+    /**
+     * Последние изменения по версиям; выдает версии изменениям.
+     */
+    private final ChangeIndex changeIndex = new ChangeIndex();
+
+    @Override
+    public Collection<Film> findAll() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<Film> iterator() {
+                return new PageIterator();
+            }
+
+            @Override
+            public int size() {
+                return CompactFilmStorage.this.size();
+            }
+        };
+    }
+
+    @Override
+    public List<Film> findPage(final long afterId, final int limit) {
+        return read(() -> {
+            final List<Film> page = new ArrayList<>(Math.min(limit, rows));
+            for (int i = firstAfter(afterId); i < rows && page.size() < limit; i++) {
+                page.add(film(sortedRows[i]));
+            }
+
+            return page;
+        });
+    }
+
+    @Override
+    public List<Film> findByReleaseDate(final @Nullable LocalDate from, final @Nullable LocalDate to, final int limit) {
+        final List<Film> films = new ArrayList<>(Math.min(limit, 1024));
+        if (from != null && to != null && from.isAfter(to)) {
+            return films;
+        }
+
+        final long fromDay = from == null ? Long.MIN_VALUE : from.toEpochDay();
+        final long toDay = to == null ? Long.MAX_VALUE : to.toEpochDay();
+        final long stamp = lock.readLock();
+        try {
+            for (final long[] dayIds : releaseDateIndex.subMap(fromDay, true, toDay, true).values()) {
+                for (int i = 0; i < dayIds.length && films.size() < limit; i++) {
+                    films.add(film(sortedRows[indexOf(dayIds[i])]));
+                }
+                if (films.size() == limit) {
+                    break;
+                }
+            }
+        } finally {
+            lock.unlockRead(stamp);
+        }
+
+        return films;
+    }
+
+    @Override
+    public List<Film> search(final String query, final int limit) {
+        final List<Long> ids = searchIndex.search(query, limit);
+        final List<Film> films = new ArrayList<>(ids.size());
+        for (final long id : ids) {
+            findById(id).ifPresent(films::add);
+        }
+
+        return films;
+    }
+
+    @Override
+    public Optional<Film> findById(final long id) {
+        return read(() -> {
+            final int index = indexOf(id);
+
+            return index < 0 ? Optional.empty() : Optional.of(film(sortedRows[index]));
+        });
+    }
+
+    @Override
+    public boolean add(final Film film) {
+        final long stamp = lock.writeLock();
+        try {
+            final int index = indexOf(film.getId());
+            if (index >= 0) {
+                return false;
+            }
+
+            if (rows == ids.length) {
+                grow();
+            }
+
+            // выданная версия записывается в журнал изменений и при ошибке, иначе его граница остановится
+            final long changeVersion = changeIndex.nextVersion();
+            try {
+                final int row = rows;
+                ids[row] = film.getId();
+                versions[row] = changeVersion;
+                write(row, film);
+                insertSorted(-index - 1, film.getId(), row);
+                rows++;
+
+                reindex(null, film);
+            } finally {
+                changeIndex.record(changeVersion, film.getId());
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+
+        return true;
+    }
+
+    @Override
+    public boolean update(final Film film) {
+        final long stamp = lock.writeLock();
+        try {
+            final int index = indexOf(film.getId());
+            if (index < 0) {
+                return false;
+            }
+
+            overwrite(sortedRows[index], film);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+
+        return true;
+    }
+
+    @Override
+    public boolean compareAndSet(final long expectedVersion, final Film film) {
+        final long stamp = lock.writeLock();
+        try {
+            final int index = indexOf(film.getId());
+            if (index < 0 || versions[sortedRows[index]] != expectedVersion) {
+                return false;
+            }
+
+            overwrite(sortedRows[index], film);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+
+        return true;
+    }
+
+    /**
+     * Строка удаленного фильма занимается последней строкой, поэтому колонки остаются без пропусков.
+     */
+    @Override
+    public boolean remove(final long id) {
+        final long stamp = lock.writeLock();
+        try {
+            final int index = indexOf(id);
+            if (index < 0) {
+                return false;
+            }
+
+            final int row = sortedRows[index];
+            final Film previous = film(row);
+            final long changeVersion = changeIndex.nextVersion();
+            try {
+                garbageBytes += strings.sizeOf(names[row]) + strings.sizeOf(descriptions[row]);
+
+                final int last = rows - 1;
+                System.arraycopy(sortedIds, index + 1, sortedIds, index, last - index);
+                System.arraycopy(sortedRows, index + 1, sortedRows, index, last - index);
+                if (row != last) {
+                    moveRow(last, row);
+                    sortedRows[Arrays.binarySearch(sortedIds, 0, last, ids[row])] = row;
+                }
+                rows = last;
+
+                searchIndex.remove(previous);
+                if (previous.getReleaseDate() != null) {
+                    removeFromReleaseDateIndex(previous.getReleaseDate().toEpochDay(), id);
+                }
+            } finally {
+                changeIndex.record(changeVersion, id);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+
+        return true;
+    }
+
+    @Override
+    public int size() {
+        return read(() -> rows);
+    }
+
+    @Override
+    public long version() {
+        return changeIndex.version();
+    }
+
+    @Override
+    public long versionOf(final long id) {
+        return read(() -> {
+            final int index = indexOf(id);
+
+            return index < 0 ? Film.NO_VERSION : versions[sortedRows[index]];
+        });
+    }
+
+    @Override
+    public ChangeIndex.Changes changesSince(final long version, final int limit) {
+        return changeIndex.since(version, limit);
+    }
+
+    /**
+     * Выполнить чтение оптимистично, а если во время него была запись, – повторить под блокировкой чтения.
+     * <p>
+     * Оптимистичное чтение может увидеть несогласованные массивы и упасть; такое исключение отбрасывается,
+     * если запись действительно была.
+     */
+    private <T> T read(final Supplier<T> reader) {
+        final long optimisticStamp = lock.tryOptimisticRead();
+        if (optimisticStamp != 0) {
+            try {
+                final T result = reader.get();
+                if (lock.validate(optimisticStamp)) {
+                    return result;
+                }
+            } catch (RuntimeException e) {
+                if (lock.validate(optimisticStamp)) {
+                    throw e;
+                }
+            }
+        }
+
+        final long stamp = lock.readLock();
+        try {
+            return reader.get();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Собрать фильм из колонок строки.
+     */
+    private Film film(final int row) {
+        final long releaseDay = releaseDays[row];
+
+        return new Film(ids[row], strings.get(names[row]), strings.get(descriptions[row]),
+                releaseDay == NO_RELEASE_DATE ? null : LocalDate.ofEpochDay(releaseDay), durations[row], versions[row]);
+    }
+
+    /**
+     * Записать новые поля фильма на место прежних. Вызывается под блокировкой записи.
+     */
+    private void overwrite(final int row, final Film film) {
+        final Film previous = film(row);
+        final long changeVersion = changeIndex.nextVersion();
+        try {
+            garbageBytes += strings.sizeOf(names[row]) + strings.sizeOf(descriptions[row]);
+            write(row, film);
+            versions[row] = changeVersion;
+
+            reindex(previous, film);
+        } finally {
+            changeIndex.record(changeVersion, film.getId());
+        }
+
+        if (garbageBytes > strings.size() / 2) {
+            compactStrings();
+        }
+    }
+
+    private void write(final int row, final Film film) {
+        durations[row] = film.getDuration();
+        releaseDays[row] = film.getReleaseDate() == null ? NO_RELEASE_DATE : film.getReleaseDate().toEpochDay();
+        names[row] = strings.add(film.getName());
+        descriptions[row] = strings.add(film.getDescription());
+    }
+
+    /**
+     * Обновить индексы после записи фильма.
+     */
+    private void reindex(final @Nullable Film previous, final Film film) {
+        searchIndex.update(previous, film);
+
+        final LocalDate previousDate = previous == null ? null : previous.getReleaseDate();
+        if (previousDate != null && !previousDate.equals(film.getReleaseDate())) {
+            removeFromReleaseDateIndex(previousDate.toEpochDay(), film.getId());
+        }
+        if (film.getReleaseDate() != null && !film.getReleaseDate().equals(previousDate)) {
+            releaseDateIndex.merge(film.getReleaseDate().toEpochDay(), new long[]{film.getId()},
+                    (dayIds, added) -> SortedLongArrays.insert(dayIds, added[0]));
+        }
+    }
+
+    private void removeFromReleaseDateIndex(final long day, final long id) {
+        final long[] dayIds = SortedLongArrays.remove(releaseDateIndex.get(day), id);
+        if (dayIds.length == 0) {
+            releaseDateIndex.remove(day);
+        } else {
+            releaseDateIndex.put(day, dayIds);
+        }
+    }
+
+    private void moveRow(final int from, final int to) {
+        ids[to] = ids[from];
+        durations[to] = durations[from];
+        releaseDays[to] = releaseDays[from];
+        names[to] = names[from];
+        descriptions[to] = descriptions[from];
+        versions[to] = versions[from];
+    }
+
+    /**
+     * Позиция идентификатора в {@link #sortedIds} или {@code -(точка вставки) - 1}, если его нет.
+     */
+    private int indexOf(final long id) {
+        return Arrays.binarySearch(sortedIds, 0, rows, id);
+    }
+
+    /**
+     * Позиция первого идентификатора больше переданного.
+     */
+    private int firstAfter(final long id) {
+        final int index = indexOf(id);
+
+        return index >= 0 ? index + 1 : -index - 1;
+    }
+
+    private void insertSorted(final int position, final long id, final int row) {
+        // идентификаторы почти всегда растут: сдвигается лишь короткий хвост
+        System.arraycopy(sortedIds, position, sortedIds, position + 1, rows - position);
+        System.arraycopy(sortedRows, position, sortedRows, position + 1, rows - position);
+        sortedIds[position] = id;
+        sortedRows[position] = row;
+    }
+
+    private void grow() {
+        final int capacity = ids.length + (ids.length >> 1);
+        ids = Arrays.copyOf(ids, capacity);
+        durations = Arrays.copyOf(durations, capacity);
+        releaseDays = Arrays.copyOf(releaseDays, capacity);
+        names = Arrays.copyOf(names, capacity);
+        descriptions = Arrays.copyOf(descriptions, capacity);
+        versions = Arrays.copyOf(versions, capacity);
+        sortedIds = Arrays.copyOf(sortedIds, capacity);
+        sortedRows = Arrays.copyOf(sortedRows, capacity);
+    }
+
+    /**
+     * Переписать живые строки в новую арену. Старая арена не изменяется: оптимистичный читатель со старой
+     * ссылкой дочитает прежние байты и повторит чтение.
+     */
+    private void compactStrings() {
+        final StringArena compacted = new StringArena();
+        for (int row = 0; row < rows; row++) {
+            names[row] = compacted.copy(strings, names[row]);
+            descriptions[row] = compacted.copy(strings, descriptions[row]);
+        }
+
+        strings = compacted;
+        garbageBytes = 0;
+    }
+
+    /**
+     * Обход всех фильмов страницами по возрастанию идентификатора; каждая страница читается согласованно.
+     */
+    private final class PageIterator implements Iterator<Film> {
+
+        private Iterator<Film> page = findPage(0, FIND_ALL_PAGE_SIZE).iterator();
+
+        private long lastId;
+
+        @Override
+        public boolean hasNext() {
+            if (!page.hasNext()) {
+                page = findPage(lastId, FIND_ALL_PAGE_SIZE).iterator();
+            }
+
+            return page.hasNext();
+        }
+
+        @Override
+        public Film next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            final Film film = page.next();
+            lastId = film.getId();
+
+            return film;
+        }
+    }
+}
@@ -0,0 +1,395 @@
+package ru.yandex.practicum.filmorate.storage.filmstorage;
+
+import org.springframework.lang.Nullable;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Инвертированный индекс по названию и описанию фильмов.
+ * <p>
+ * Словарь слов упорядочен, поэтому слова с префиксом запроса находятся одним проходом по диапазону. Для
+ * поиска с опечатками слова словаря дополнительно проиндексированы по триграммам: слово запроса сравнивается
+ * со словами, у которых много общих триграмм (коэффициент Дайса). Словарь только растет: слово, исчезнувшее из
+ * всех фильмов, остается в нем с пустыми списками.
+ * <p>
+ * Релевантность – сумма по словам запроса лучшей оценки среди вариантов слова (точное совпадение, префикс,
+ * похожее слово). Оценка варианта – его вес, умноженный на idf слова; совпадение в названии весит вдвое больше,
+ * чем в описании. Чтобы время запроса не зависело от частоты слов, слова запроса обрабатываются от редких
+ * к частым, а списки частых слов не обходятся целиком: для уже найденных фильмов проверяется, содержат ли они
+ * такое слово.
+ * <p>
+ * Изменение индекса для одного фильма вызывающий код выполняет под блокировкой идентификатора фильма.
+ */
+public final class FilmSearchIndex {
+
+    private static final double NAME_WEIGHT = 2.0;
+
+    private static final double FUZZY_WEIGHT = 0.8;
+
+    private static final double MIN_SIMILARITY = 0.5;
+
+    private static final int MIN_FUZZY_LENGTH = 4;
+
+    private static final int MAX_FUZZY_LENGTH_DIFFERENCE = 2;
+
+    private static final int MAX_PREFIX_TERMS = 16;
+
+    private static final int MAX_FUZZY_TERMS = 8;
+
+    private static final int MAX_QUERY_TOKENS = 8;
+
+    /**
+     * Сколько идентификаторов из списков слов обходится для одного слова запроса.
+     */
+    private static final int MAX_SCANNED_POSTINGS = 20_000;
+
+    private static final char TRIGRAM_PADDING = '$';
+
+    private final ConcurrentNavigableMap<String, Term> terms = new ConcurrentSkipListMap<>();
+
+    private final ConcurrentMap<String, Set<String>> trigrams = new ConcurrentHashMap<>();
+
+    private final AtomicInteger documents = new AtomicInteger();
+
+    /**
+     * Обновить индекс после добавления или изменения фильма.
+     *
+     * @param previous Предыдущая версия фильма или {@code null}, если фильм добавлен.
+     * @param film     Текущая версия фильма.
+     */
+    public void update(final @Nullable Film previous, final Film film) {
+        if (previous == null) {
+            documents.incrementAndGet();
+        }
+
+        final long id = film.getId();
+        final Set<String> previousName = previous == null ? Collections.emptySet() : tokens(previous.getName());
+        final Set<String> previousDescription = previous == null
+                ? Collections.emptySet()
+                : tokens(previous.getDescription());
+        final Set<String> name = tokens(film.getName());
+        final Set<String> description = tokens(film.getDescription());
+
+        for (final String token : previousName) {
+            if (!name.contains(token)) {
+                terms.get(token).name.remove(id);
+            }
+        }
+        for (final String token : name) {
+            if (!previousName.contains(token)) {
+                term(token).name.add(id);
+            }
+        }
+        for (final String token : previousDescription) {
+            if (!description.contains(token)) {
+                terms.get(token).description.remove(id);
+            }
+        }
+        for (final String token : description) {
+            if (!previousDescription.contains(token)) {
+                term(token).description.add(id);
+            }
+        }
+    }
+
+    /**
+     * Убрать фильм из индекса.
+     *
+     * @param film Последняя проиндексированная версия фильма.
+     */
+    public void remove(final Film film) {
+        documents.decrementAndGet();
+
+        final long id = film.getId();
+        for (final String token : tokens(film.getName())) {
+            terms.get(token).name.remove(id);
+        }
+        for (final String token : tokens(film.getDescription())) {
+            terms.get(token).description.remove(id);
+        }
+    }
+
+    /**
+     * Найти фильмы по запросу.
+     *
+     * @param query Запрос: слова через пробел; последнее слово может быть неполным.
+     * @param limit Максимальное количество фильмов.
+     * @return Идентификаторы фильмов по убыванию релевантности, при равенстве – по возрастанию.
+     */
+    public List<Long> search(final String query, final int limit) {
+        final List<List<Variant>> variantsByToken = new ArrayList<>();
+        for (final String token : tokens(query)) {
+            if (variantsByToken.size() == MAX_QUERY_TOKENS) {
+                break;
+            }
+
+            final List<Variant> variants = variants(token);
+            if (!variants.isEmpty()) {
+                variantsByToken.add(variants);
+            }
+        }
+        variantsByToken.sort(Comparator.comparingLong(FilmSearchIndex::postings));
+
+        final ScoreTable scores = new ScoreTable();
+        final int documentCount = Math.max(1, documents.get());
+        for (final List<Variant> variants : variantsByToken) {
+            score(variants, documentCount, scores);
+        }
+
+        return top(scores, limit);
+    }
+
+    /**
+     * Добавить к оценкам фильмов оценку по одному слову запроса.
+     */
+    private static void score(final List<Variant> variants, final int documentCount, final ScoreTable scores) {
+        final ScoreTable tokenScores = new ScoreTable();
+        int budget = MAX_SCANNED_POSTINGS;
+
+        for (final Variant variant : variants) {
+            final Term term = variant.term;
+            final double idf = Math.log(1 + (double) documentCount / (1 + term.size()));
+            final double nameScore = variant.weight * idf * NAME_WEIGHT;
+            final double descriptionScore = variant.weight * idf;
+
+            if (term.size() <= budget || scores.isEmpty()) {
+                budget -= term.name.forEach(budget, id -> tokenScores.max(id, nameScore));
+                budget -= term.description.forEach(budget, id -> tokenScores.max(id, descriptionScore));
+            } else {
+                // частое слово: проверяем только уже найденные фильмы
+                scores.forEach((id, score) -> {
+                    if (term.name.contains(id)) {
+                        tokenScores.max(id, nameScore);
+                    } else if (term.description.contains(id)) {
+                        tokenScores.max(id, descriptionScore);
+                    }
+                });
+            }
+        }
+
+        scores.addAll(tokenScores);
+    }
+
+    /**
+     * Варианты слова запроса: точное совпадение, слова с таким префиксом и похожие слова, от редких к частым.
+     */
+    private List<Variant> variants(final String token) {
+        final Map<String, Variant> variants = new HashMap<>();
+
+        final Term exact = terms.get(token);
+        if (exact != null && exact.size() > 0) {
+            variants.put(token, new Variant(exact, 1.0));
+        }
+
+        int prefixTerms = 0;
+        for (final Map.Entry<String, Term> entry
+                : terms.subMap(token, false, token + Character.MAX_VALUE, false).entrySet()) {
+            if (prefixTerms == MAX_PREFIX_TERMS) {
+                break;
+            }
+            if (entry.getValue().size() > 0) {
+                final double weight = 0.5 + 0.4 * token.length() / entry.getKey().length();
+                variants.put(entry.getKey(), new Variant(entry.getValue(), weight));
+                prefixTerms++;
+            }
+        }
+
+        if (token.length() >= MIN_FUZZY_LENGTH) {
+            fuzzyVariants(token, variants);
+        }
+
+        final List<Variant> sorted = new ArrayList<>(variants.values());
+        sorted.sort(Comparator.comparingInt(variant -> variant.term.size()));
+
+        return sorted;
+    }
+
+    /**
+     * Добавить слова словаря, похожие на слово запроса по триграммам.
+     */
+    private void fuzzyVariants(final String token, final Map<String, Variant> variants) {
+        final Set<String> tokenTrigrams = trigrams(token);
+        final Map<String, Integer> common = new HashMap<>();
+        for (final String trigram : tokenTrigrams) {
+            for (final String candidate : trigrams.getOrDefault(trigram, Collections.emptySet())) {
+                if (Math.abs(candidate.length() - token.length()) <= MAX_FUZZY_LENGTH_DIFFERENCE) {
+                    common.merge(candidate, 1, Integer::sum);
+                }
+            }
+        }
+
+        final PriorityQueue<Map.Entry<String, Double>> best =
+                new PriorityQueue<>(Map.Entry.comparingByValue());
+        for (final Map.Entry<String, Integer> entry : common.entrySet()) {
+            final String candidate = entry.getKey();
+            final int candidateTrigrams = candidate.length();
+            final double similarity = 2.0 * entry.getValue() / (tokenTrigrams.size() + candidateTrigrams);
+            if (similarity >= MIN_SIMILARITY && !variants.containsKey(candidate)) {
+                best.add(Map.entry(candidate, similarity));
+                if (best.size() > MAX_FUZZY_TERMS) {
+                    best.poll();
+                }
+            }
+        }
+
+        for (final Map.Entry<String, Double> entry : best) {
+            final Term term = terms.get(entry.getKey());
+            if (term.size() > 0) {
+                variants.put(entry.getKey(), new Variant(term, FUZZY_WEIGHT * entry.getValue()));
+            }
+        }
+    }
+
+    private Term term(final String token) {
+        final Term existing = terms.get(token);
+        if (existing != null) {
+            return existing;
+        }
+
+        final Term created = new Term();
+        final Term previous = terms.putIfAbsent(token, created);
+        if (previous != null) {
+            return previous;
+        }
+
+        for (final String trigram : trigrams(token)) {
+            trigrams.computeIfAbsent(trigram, key -> ConcurrentHashMap.newKeySet()).add(token);
+        }
+
+        return created;
+    }
+
+    private static long postings(final List<Variant> variants) {
+        long postings = 0;
+        for (final Variant variant : variants) {
+            postings += variant.term.size();
+        }
+
+        return postings;
+    }
+
+    private static List<Long> top(final ScoreTable scores, final int limit) {
+        final Comparator<Candidate> byRelevance = Comparator.comparingDouble((Candidate candidate) -> candidate.score)
+                .reversed()
+                .thenComparingLong(candidate -> candidate.id);
+        // в куче наверху худший из лучших
+        final PriorityQueue<Candidate> best = new PriorityQueue<>(byRelevance.reversed());
+
+        scores.forEach((id, score) -> {
+            if (best.size() < limit) {
+                best.add(new Candidate(id, score));
+            } else if (limit > 0 && (score > best.peek().score || score == best.peek().score && id < best.peek().id)) {
+                best.poll();
+                best.add(new Candidate(id, score));
+            }
+        });
+
+        final List<Candidate> sorted = new ArrayList<>(best);
+        sorted.sort(byRelevance);
+
+        final List<Long> ids = new ArrayList<>(sorted.size());
+        for (final Candidate candidate : sorted) {
+            ids.add(candidate.id);
+        }
+
+        return ids;
+    }
+
+    /**
+     * Различные слова текста в нижнем регистре; буква «ё» приравнивается к «е».
+     */
+    static Set<String> tokens(final @Nullable String text) {
+        if (text == null || text.isEmpty()) {
+            return Collections.emptySet();
+        }
+
+        final Set<String> tokens = new LinkedHashSet<>();
+        final String normalized = text.toLowerCase(Locale.ROOT).replace('ё', 'е');
+        int start = -1;
+
+        for (int i = 0; i <= normalized.length(); i++) {
+            final boolean letterOrDigit = i < normalized.length() && Character.isLetterOrDigit(normalized.charAt(i));
+            if (letterOrDigit && start < 0) {
+                start = i;
+            } else if (!letterOrDigit && start >= 0) {
+                tokens.add(normalized.substring(start, i));
+                start = -1;
+            }
+        }
+
+        return tokens;
+    }
+
+    /**
+     * Триграммы слова, дополненного с обеих сторон: у слова длины n их n.
+     */
+    private static Set<String> trigrams(final String token) {
+        final String padded = TRIGRAM_PADDING + token + TRIGRAM_PADDING;
+        final Set<String> result = new HashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            result.add(padded.substring(i, i + 3));
+        }
+
+        return result;
+    }
+
+    /**
+     * Фильмы, содержащие слово в названии и в описании.
+     */
+    private static final class Term {
+
+        private final PostingList name = new PostingList();
+
+        private final PostingList description = new PostingList();
+
+        private int size() {
+            return name.size() + description.size();
+        }
+    }
+
+    /**
+     * Слово словаря, подходящее под слово запроса, и вес совпадения.
+     */
+    private static final class Variant {
+
+        private final Term term;
+
+        private final double weight;
+
+        private Variant(final Term term, final double weight) {
+            this.term = term;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * Фильм-кандидат в результат поиска и его оценка.
+     */
+    private static final class Candidate {
+
+        private final long id;
+
+        private final double score;
+
+        private Candidate(final long id, final double score) {
+            this.id = id;
+            this.score = score;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package ru.yandex.practicum.filmorate.storage.filmstorage;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.wal.BinarySnapshot;
+import ru.yandex.practicum.filmorate.storage.wal.SnapshotCodec;
+
+import java.time.LocalDate;
+
+/**
+ * Формат фильма в снимке: {@code [id][releaseDate][duration][name][description]}.
+ */
+public final class FilmSnapshotCodec implements SnapshotCodec<Film> {
+
+    private static final int RECORD_SIZE = Long.BYTES + BinarySnapshot.DATE_SIZE + Integer.BYTES
+            + 2 * BinarySnapshot.STRING_SIZE;
+
+    @Override
+    public int recordSize() {
+        return RECORD_SIZE;
+    }
+
+    @Override
+    public void write(final Film film, final BinarySnapshot.RecordWriter out) {
+        out.putLong(film.getId())
+                .putDate(film.getReleaseDate())
+                .putInt(film.getDuration())
+                .putString(film.getName())
+                .putString(film.getDescription());
+    }
+
+    @Override
+    public Film read(final BinarySnapshot.RecordReader in) {
+        final long id = in.getLong();
+        final LocalDate releaseDate = in.getDate();
+        final int duration = in.getInt();
+        final String name = in.getString();
+        final String description = in.getString();
+
+        return new Film(id, name, description, releaseDate, duration);
+    }
+}
@@ -0,0 +1,140 @@
+package ru.yandex.practicum.filmorate.storage.filmstorage;
+
+import org.springframework.lang.Nullable;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.ChangeIndex;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Хранилище фильмов.
+ * <p>
+ * Реализации должны быть потокобезопасными: контроллеры вызываются из пула потоков сервера одновременно.
+ */
+public interface FilmStorage {
+
+    /**
+     * Получить все фильмы.
+     *
+     * @return Слабо согласованное (weakly consistent) представление всех фильмов.
+     */
+    Collection<Film> findAll();
+
+    /**
+     * Получить страницу фильмов в порядке возрастания идентификатора.
+     * <p>
+     * Стоимость пропорциональна размеру страницы, а не количеству фильмов в хранилище.
+     *
+     * @param afterId Курсор: возвращаются только фильмы с идентификатором больше него.
+     * @param limit   Максимальный размер страницы.
+     * @return Страница фильмов.
+     */
+    List<Film> findPage(long afterId, int limit);
+
+    /**
+     * Получить фильмы, выпущенные в прокат в заданный период, в порядке даты выпуска (при равенстве –
+     * идентификатора). Фильмы без даты выпуска не возвращаются.
+     * <p>
+     * Стоимость – O(log n + размер результата).
+     *
+     * @param from  Начало периода включительно или {@code null}, если период не ограничен снизу.
+     * @param to    Конец периода включительно или {@code null}, если период не ограничен сверху.
+     * @param limit Максимальное количество фильмов.
+     * @return Фильмы периода.
+     */
+    List<Film> findByReleaseDate(@Nullable LocalDate from, @Nullable LocalDate to, int limit);
+
+    /**
+     * Найти фильмы по словам из названия и описания.
+     * <p>
+     * Слово запроса совпадает со словом фильма целиком, как префикс или с небольшой опечаткой.
+     *
+     * @param query Поисковый запрос.
+     * @param limit Максимальное количество фильмов.
+     * @return Фильмы по убыванию релевантности.
+     */
+    List<Film> search(String query, int limit);
+
+    /**
+     * Найти фильм по идентификатору.
+     *
+     * @param id Идентификатор фильма.
+     * @return Фильм или {@link Optional#empty()}, если фильма с таким идентификатором нет.
+     */
+    Optional<Film> findById(long id);
+
+    /**
+     * Атомарно добавить фильм, если фильма с таким идентификатором еще нет.
+     * <p>
+     * Здесь и при замене версию назначает хранилище: {@link Film#getVersion()} переданного объекта не учитывается.
+     *
+     * @param film Новый фильм.
+     * @return {@code true}, если фильм добавлен; {@code false}, если идентификатор уже занят.
+     */
+    boolean add(Film film);
+
+    /**
+     * Атомарно заменить фильм, если фильм с таким идентификатором существует.
+     *
+     * @param film Новая версия фильма.
+     * @return {@code true}, если фильм заменен; {@code false}, если фильма с таким идентификатором нет.
+     */
+    boolean update(Film film);
+
+    /**
+     * Атомарно заменить фильм, если его текущая версия равна ожидаемой (compare-and-set).
+     *
+     * @param expectedVersion Версия, которую видел клиент ({@link Film#getVersion()}).
+     * @param film            Новая версия фильма.
+     * @return {@code true}, если фильм заменен; {@code false}, если фильма с таким идентификатором нет или его
+     *         версия другая.
+     */
+    boolean compareAndSet(long expectedVersion, Film film);
+
+    /**
+     * Атомарно удалить фильм. Удаление, как и запись, получает версию в журнале изменений.
+     * <p>
+     * Используется для отката добавления, которое не удалось сохранить в журнал упреждающей записи.
+     *
+     * @param id Идентификатор фильма.
+     * @return {@code true}, если фильм удален; {@code false}, если фильма с таким идентификатором нет.
+     */
+    boolean remove(long id);
+
+    /**
+     * Количество фильмов в хранилище.
+     *
+     * @return Количество фильмов.
+     */
+    int size();
+
+    /**
+     * Версия хранилища: все изменения с версиями до нее включительно видны читателям.
+     * <p>
+     * Версию нужно читать до данных: тогда данные не старше прочитанной версии, а любое изменение после ее
+     * чтения увеличит версию.
+     *
+     * @return Текущая версия.
+     */
+    long version();
+
+    /**
+     * Версия фильма ({@link Film#getVersion()}): версия хранилища, назначенная его последнему изменению.
+     *
+     * @param id Идентификатор фильма.
+     * @return Версия или {@code 0}, если фильма с таким идентификатором нет.
+     */
+    long versionOf(long id);
+
+    /**
+     * Идентификаторы фильмов, добавленных или измененных после версии журнала изменений.
+     * <p>
+     * Стоимость пропорциональна количеству изменений, а не размеру хранилища.
+     *
+     * @see ChangeIndex#since(long, int)
+     */
+    ChangeIndex.Changes changesSince(long version, int limit);
+}
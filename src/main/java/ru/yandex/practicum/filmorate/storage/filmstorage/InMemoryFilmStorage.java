@@ -0,0 +1,269 @@
+package ru.yandex.practicum.filmorate.storage.filmstorage;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.service.KeyLocks;
+import ru.yandex.practicum.filmorate.storage.ChangeIndex;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Хранилище фильмов в памяти.
+ * <p>
+ * Построено на {@link ConcurrentSkipListMap}: чтение не блокируется, а проверка существования или версии и запись
+ * выполняются под блокировкой идентификатора фильма, так что записи разных фильмов не конкурируют. Фильмы
+ * упорядочены по идентификатору, поэтому страница по курсору находится за O(log n + размер страницы).
+ * <p>
+ * Индекс по дате выпуска – упорядоченное отображение пар (дата, идентификатор) на сам фильм, поэтому поиск
+ * по периоду не обращается к основному хранилищу. Запись фильма и изменение индекса выполняются под блокировкой
+ * идентификатора, поэтому при смене даты запись индекса переносится ровно один раз. Новая запись индекса
+ * добавляется раньше, чем удаляется старая: читатель не теряет фильм при переносе, а повтор фильма отбрасывается.
+ * <p>
+ * Под той же блокировкой обновляется поисковый индекс {@link FilmSearchIndex}.
+ * <p>
+ * Версию изменения выдает журнал изменений ({@link ChangeIndex}) под блокировкой идентификатора, и она
+ * сохраняется в самом фильме, поэтому замена по версии (compare-and-set) – сравнение версии сохраненного фильма
+ * под той же блокировкой. Версия хранилища – граница журнала, до которой все изменения записаны: читатель,
+ * прочитавший версию до данных, никогда не получит версию новее данных.
+ * <p>
+ * Используется по умолчанию ({@code filmorate.storage.film-engine=heap}); для больших каталогов, где важнее память,
+ * есть {@link CompactFilmStorage}.
+ */
+@Component
+@ConditionalOnProperty(name = "filmorate.storage.film-engine", havingValue = "heap", matchIfMissing = true)
+public final class InMemoryFilmStorage implements FilmStorage {
+
+    /**
+     * Данные о фильмах.
+     */
+    private final ConcurrentNavigableMap<Long, Film> data = new ConcurrentSkipListMap<>();
+
+    /**
+     * Индекс по дате выпуска. Фильмы без даты выпуска в индекс не попадают.
+     */
+    private final ConcurrentNavigableMap<ReleaseKey, Film> releaseDateIndex =
+            new ConcurrentSkipListMap<>(ReleaseKey.ORDER);
+
+    /**
+     * Поисковый индекс по названию и описанию.
+     */
+    private final FilmSearchIndex searchIndex = new FilmSearchIndex();
+
+    /**
+     * Упорядочивают запись фильма и изменение индексов.
+     */
+    private final KeyLocks locks = new KeyLocks();
+
+    /**
+     * Последние изменения по версиям; выдает версии изменениям.
+     */
+    private final ChangeIndex changeIndex = new ChangeIndex();
+
+    @Override
+    public Collection<Film> findAll() {
+        return Collections.unmodifiableCollection(data.values());
+    }
+
+    @Override
+    public List<Film> findPage(final long afterId, final int limit) {
+        // limit может быть намного больше коллекции, а размер ConcurrentSkipListMap считается обходом
+        final List<Film> page = new ArrayList<>(Math.min(limit, 1024));
+        final Iterator<Film> iterator = data.tailMap(afterId, false).values().iterator();
+
+        while (page.size() < limit && iterator.hasNext()) {
+            page.add(iterator.next());
+        }
+
+        return page;
+    }
+
+    @Override
+    public List<Film> findByReleaseDate(final @Nullable LocalDate from, final @Nullable LocalDate to, final int limit) {
+        final List<Film> films = new ArrayList<>(Math.min(limit, 1024));
+        if (from != null && to != null && from.isAfter(to)) {
+            return films;
+        }
+
+        final ReleaseKey lower = new ReleaseKey(from == null ? Long.MIN_VALUE : from.toEpochDay(), Long.MIN_VALUE);
+        final ReleaseKey upper = new ReleaseKey(to == null ? Long.MAX_VALUE : to.toEpochDay(), Long.MAX_VALUE);
+        final Iterator<Film> iterator = releaseDateIndex.subMap(lower, true, upper, true).values().iterator();
+        // во время переноса фильм может ненадолго встречаться в индексе дважды
+        final Set<Long> seen = new HashSet<>();
+
+        while (films.size() < limit && iterator.hasNext()) {
+            final Film film = iterator.next();
+            if (seen.add(film.getId())) {
+                films.add(film);
+            }
+        }
+
+        return films;
+    }
+
+    @Override
+    public List<Film> search(final String query, final int limit) {
+        final List<Long> ids = searchIndex.search(query, limit);
+        final List<Film> films = new ArrayList<>(ids.size());
+        for (final long id : ids) {
+            final Film film = data.get(id);
+            if (film != null) {
+                films.add(film);
+            }
+        }
+
+        return films;
+    }
+
+    @Override
+    public Optional<Film> findById(final long id) {
+        return Optional.ofNullable(data.get(id));
+    }
+
+    @Override
+    public boolean add(final Film film) {
+        synchronized (locks.lockFor(film.getId())) {
+            if (data.containsKey(film.getId())) {
+                return false;
+            }
+
+            save(null, film);
+        }
+
+        return true;
+    }
+
+    @Override
+    public boolean update(final Film film) {
+        synchronized (locks.lockFor(film.getId())) {
+            final Film previous = data.get(film.getId());
+            if (previous == null) {
+                return false;
+            }
+
+            save(previous, film);
+        }
+
+        return true;
+    }
+
+    @Override
+    public boolean compareAndSet(final long expectedVersion, final Film film) {
+        synchronized (locks.lockFor(film.getId())) {
+            final Film previous = data.get(film.getId());
+            if (previous == null || previous.getVersion() != expectedVersion) {
+                return false;
+            }
+
+            save(previous, film);
+        }
+
+        return true;
+    }
+
+    @Override
+    public boolean remove(final long id) {
+        synchronized (locks.lockFor(id)) {
+            final Film previous = data.get(id);
+            if (previous == null) {
+                return false;
+            }
+
+            final long changeVersion = changeIndex.nextVersion();
+            try {
+                data.remove(id);
+                searchIndex.remove(previous);
+                if (previous.getReleaseDate() != null) {
+                    releaseDateIndex.remove(new ReleaseKey(previous.getReleaseDate().toEpochDay(), id));
+                }
+            } finally {
+                changeIndex.record(changeVersion, id);
+            }
+        }
+
+        return true;
+    }
+
+    @Override
+    public int size() {
+        return data.size();
+    }
+
+    @Override
+    public long version() {
+        return changeIndex.version();
+    }
+
+    @Override
+    public long versionOf(final long id) {
+        final Film film = data.get(id);
+
+        return film == null ? Film.NO_VERSION : film.getVersion();
+    }
+
+    @Override
+    public ChangeIndex.Changes changesSince(final long version, final int limit) {
+        return changeIndex.since(version, limit);
+    }
+
+    /**
+     * Записать фильм с новой версией. Выполняется под блокировкой идентификатора фильма после всех проверок:
+     * выданная версия записывается в журнал изменений и при ошибке, иначе его граница остановится.
+     */
+    private void save(final @Nullable Film previous, final Film film) {
+        final long changeVersion = changeIndex.nextVersion();
+        try {
+            final Film savedFilm = film.withVersion(changeVersion);
+            data.put(savedFilm.getId(), savedFilm);
+            reindex(previous, savedFilm);
+        } finally {
+            changeIndex.record(changeVersion, film.getId());
+        }
+    }
+
+    /**
+     * Обновить или перенести фильм в индексах. Выполняется под блокировкой идентификатора фильма.
+     */
+    private void reindex(final @Nullable Film previous, final Film film) {
+        searchIndex.update(previous, film);
+
+        final LocalDate previousDate = previous == null ? null : previous.getReleaseDate();
+
+        if (film.getReleaseDate() != null) {
+            releaseDateIndex.put(new ReleaseKey(film.getReleaseDate().toEpochDay(), film.getId()), film);
+        }
+        if (previousDate != null && !previousDate.equals(film.getReleaseDate())) {
+            releaseDateIndex.remove(new ReleaseKey(previousDate.toEpochDay(), film.getId()));
+        }
+    }
+
+    /**
+     * Запись индекса по дате выпуска.
+     */
+    private static final class ReleaseKey {
+
+        private static final Comparator<ReleaseKey> ORDER = Comparator.comparingLong((ReleaseKey key) -> key.epochDay)
+                .thenComparingLong(key -> key.filmId);
+
+        private final long epochDay;
+
+        private final long filmId;
+
+        private ReleaseKey(final long epochDay, final long filmId) {
+            this.epochDay = epochDay;
+            this.filmId = filmId;
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package ru.yandex.practicum.filmorate.storage.filmstorage;
+
+import ru.yandex.practicum.filmorate.storage.SortedLongArrays;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * Список идентификаторов фильмов, содержащих слово (posting list) поискового индекса.
+ * <p>
+ * Состояние – неизменяемый снимок из трех отсортированных массивов {@code long[]}: основного, удаленных из него
+ * и добавленных после последнего слияния. Чтение берет текущий снимок и не блокируется. Изменения выполняются
+ * под монитором списка; когда добавленных и удаленных накапливается больше {@link #MIN_PENDING} и больше
+ * восьмой части основного массива, все три сливаются в новый основной массив. Так стоимость изменения
+ * в среднем не зависит от длины списка даже у самых частых слов.
+ * <p>
+ * Новые фильмы получают растущие идентификаторы и почти всегда дописываются в конец добавленных: такой
+ * идентификатор записывается в свободную ячейку текущего массива без копирования. Это безопасно, потому что
+ * ни один опубликованный снимок не читает ячейки за своей длиной.
+ */
+final class PostingList {
+
+    private static final int MIN_PENDING = 64;
+
+    private volatile State state = State.EMPTY;
+
+    /**
+     * Количество идентификаторов.
+     */
+    int size() {
+        return state.size();
+    }
+
+    boolean contains(final long id) {
+        return state.contains(id);
+    }
+
+    /**
+     * Обойти не больше {@code limit} идентификаторов в произвольном порядке.
+     *
+     * @return Количество обойденных идентификаторов.
+     */
+    int forEach(final int limit, final LongConsumer consumer) {
+        final State current = state;
+        int visited = 0;
+        int removedIndex = 0;
+
+        for (int i = 0; i < current.base.length && visited < limit; i++) {
+            final long id = current.base[i];
+            while (removedIndex < current.removed.length && current.removed[removedIndex] < id) {
+                removedIndex++;
+            }
+            if (removedIndex < current.removed.length && current.removed[removedIndex] == id) {
+                continue;
+            }
+
+            consumer.accept(id);
+            visited++;
+        }
+
+        for (int i = 0; i < current.addedSize && visited < limit; i++) {
+            consumer.accept(current.added[i]);
+            visited++;
+        }
+
+        return visited;
+    }
+
+    synchronized void add(final long id) {
+        final State current = state;
+
+        if (Arrays.binarySearch(current.base, id) >= 0) {
+            if (Arrays.binarySearch(current.removed, id) >= 0) {
+                publish(new State(current.base, SortedLongArrays.remove(current.removed, id),
+                        current.added, current.addedSize));
+            }
+            return;
+        }
+
+        final int index = Arrays.binarySearch(current.added, 0, current.addedSize, id);
+        if (index >= 0) {
+            return;
+        }
+
+        final int position = -index - 1;
+        final long[] added;
+        if (position == current.addedSize && current.addedSize < current.added.length) {
+            added = current.added;
+            added[position] = id;
+        } else {
+            added = new long[Math.max(8, (current.addedSize + 1) * 2)];
+            System.arraycopy(current.added, 0, added, 0, position);
+            added[position] = id;
+            System.arraycopy(current.added, position, added, position + 1, current.addedSize - position);
+        }
+
+        publish(new State(current.base, current.removed, added, current.addedSize + 1));
+    }
+
+    synchronized void remove(final long id) {
+        final State current = state;
+
+        final int index = Arrays.binarySearch(current.added, 0, current.addedSize, id);
+        if (index >= 0) {
+            final long[] added = new long[current.added.length];
+            System.arraycopy(current.added, 0, added, 0, index);
+            System.arraycopy(current.added, index + 1, added, index, current.addedSize - index - 1);
+            publish(new State(current.base, current.removed, added, current.addedSize - 1));
+            return;
+        }
+
+        if (Arrays.binarySearch(current.base, id) >= 0 && Arrays.binarySearch(current.removed, id) < 0) {
+            publish(new State(current.base, SortedLongArrays.insert(current.removed, id),
+                    current.added, current.addedSize));
+        }
+    }
+
+    /**
+     * Опубликовать новый снимок, при необходимости слив изменения в основной массив.
+     */
+    private void publish(final State next) {
+        final int pending = next.removed.length + next.addedSize;
+        state = pending > MIN_PENDING && pending > next.base.length >> 3 ? next.compact() : next;
+    }
+
+    private static final class State {
+
+        private static final State EMPTY = new State(SortedLongArrays.EMPTY, SortedLongArrays.EMPTY,
+                SortedLongArrays.EMPTY, 0);
+
+        private final long[] base;
+
+        /**
+         * Удаленные из {@link #base}.
+         */
+        private final long[] removed;
+
+        /**
+         * Добавленные; значимы первые {@link #addedSize} элементов, остальные – запас для дописывания.
+         */
+        private final long[] added;
+
+        private final int addedSize;
+
+        private State(final long[] base, final long[] removed, final long[] added, final int addedSize) {
+            this.base = base;
+            this.removed = removed;
+            this.added = added;
+            this.addedSize = addedSize;
+        }
+
+        private int size() {
+            return base.length - removed.length + addedSize;
+        }
+
+        private boolean contains(final long id) {
+            if (Arrays.binarySearch(added, 0, addedSize, id) >= 0) {
+                return true;
+            }
+
+            return Arrays.binarySearch(base, id) >= 0 && Arrays.binarySearch(removed, id) < 0;
+        }
+
+        /**
+         * Слить основной массив без удаленных с добавленными.
+         */
+        private State compact() {
+            final long[] merged = new long[size()];
+            int size = 0;
+            int baseIndex = 0;
+            int removedIndex = 0;
+            int addedIndex = 0;
+
+            while (baseIndex < base.length || addedIndex < addedSize) {
+                if (addedIndex == addedSize || baseIndex < base.length && base[baseIndex] < added[addedIndex]) {
+                    final long id = base[baseIndex++];
+                    while (removedIndex < removed.length && removed[removedIndex] < id) {
+                        removedIndex++;
+                    }
+                    if (removedIndex == removed.length || removed[removedIndex] != id) {
+                        merged[size++] = id;
+                    }
+                } else {
+                    merged[size++] = added[addedIndex++];
+                }
+            }
+
+            return new State(merged, SortedLongArrays.EMPTY, SortedLongArrays.EMPTY, 0);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package ru.yandex.practicum.filmorate.storage.filmstorage;
+
+/**
+ * Оценки фильмов при поиске: хеш-таблица с открытой адресацией из идентификатора в оценку.
+ * <p>
+ * Хранит ключи и значения в примитивных массивах, без объектов {@link Long} и {@link Double} на каждый
+ * найденный фильм. Идентификатор {@code 0} ({@link ru.yandex.practicum.filmorate.model.Film#NO_ID}) означает
+ * пустую ячейку: у сохраненного фильма такого идентификатора не бывает.
+ */
+final class ScoreTable {
+
+    private static final long EMPTY = 0;
+
+    private long[] keys;
+
+    private double[] values;
+
+    private int size;
+
+    ScoreTable() {
+        this(1024);
+    }
+
+    ScoreTable(final int expectedSize) {
+        final int capacity = Integer.highestOneBit(Math.max(16, expectedSize * 2 - 1)) << 1;
+        keys = new long[capacity];
+        values = new double[capacity];
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Оставить большую из текущей и переданной оценок.
+     */
+    void max(final long id, final double score) {
+        final int slot = slot(id);
+        if (keys[slot] == EMPTY) {
+            insert(slot, id, score);
+        } else if (values[slot] < score) {
+            values[slot] = score;
+        }
+    }
+
+    /**
+     * Прибавить оценку к текущей.
+     */
+    void add(final long id, final double score) {
+        final int slot = slot(id);
+        if (keys[slot] == EMPTY) {
+            insert(slot, id, score);
+        } else {
+            values[slot] += score;
+        }
+    }
+
+    /**
+     * Прибавить к оценкам этой таблицы все оценки другой.
+     */
+    void addAll(final ScoreTable other) {
+        for (int i = 0; i < other.keys.length; i++) {
+            if (other.keys[i] != EMPTY) {
+                add(other.keys[i], other.values[i]);
+            }
+        }
+    }
+
+    /**
+     * Обойти все пары (идентификатор, оценка).
+     */
+    void forEach(final Consumer consumer) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                consumer.accept(keys[i], values[i]);
+            }
+        }
+    }
+
+    private void insert(final int slot, final long id, final double score) {
+        keys[slot] = id;
+        values[slot] = score;
+        size++;
+
+        if (size * 2 > keys.length) {
+            resize();
+        }
+    }
+
+    private int slot(final long id) {
+        final int mask = keys.length - 1;
+        int slot = hash(id) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != id) {
+            slot = (slot + 1) & mask;
+        }
+
+        return slot;
+    }
+
+    private void resize() {
+        final long[] oldKeys = keys;
+        final double[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new double[oldValues.length * 2];
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                final int slot = slot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private static int hash(final long id) {
+        final long hash = id * 0x9E3779B97F4A7C15L;
+
+        return (int) (hash >>> 32);
+    }
+
+    /**
+     * Получатель пар (идентификатор, оценка).
+     */
+    @FunctionalInterface
+    interface Consumer {
+        void accept(long id, double score);
+    }
+}
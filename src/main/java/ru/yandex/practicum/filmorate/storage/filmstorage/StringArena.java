@@ -0,0 +1,145 @@
+package ru.yandex.practicum.filmorate.storage.filmstorage;
+
+import org.springframework.lang.Nullable;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Строки в UTF-8, записанные подряд в общие блоки {@code byte[]}.
+ * <p>
+ * Строка занимает свои байты и 4 байта длины перед ними; ссылка на строку – номер блока в старших 32 битах
+ * и смещение в младших. Запись только дописывает байты в конец: записанные строки не изменяются, поэтому
+ * читатель, получивший ссылку, читает согласованные байты. Освободить место можно только перезаписью живых
+ * строк в новую арену ({@link #copy(StringArena, long)}).
+ * <p>
+ * Блоки хранятся в куче: сборщик мусора не обходит содержимое примитивных массивов, поэтому миллион строк
+ * в арене стоит ему столько же, сколько один блок.
+ * <p>
+ * Класс не потокобезопасен: запись выполняется под внешней блокировкой.
+ */
+final class StringArena {
+
+    /**
+     * Ссылка на {@code null}.
+     */
+    static final long NULL = -1;
+
+    private static final int CHUNK_SIZE = 1 << 20;
+
+    private static final int LENGTH_SIZE = Integer.BYTES;
+
+    private byte[][] chunks = new byte[16][];
+
+    private int chunkCount;
+
+    /**
+     * Занято байтов в последнем блоке.
+     */
+    private int position;
+
+    /**
+     * Занято байтов во всех блоках.
+     */
+    private long size;
+
+    /**
+     * Записать строку.
+     *
+     * @return Ссылка на строку или {@link #NULL}.
+     */
+    long add(final @Nullable String value) {
+        if (value == null) {
+            return NULL;
+        }
+
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+
+        return append(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Переписать строку из другой арены без декодирования.
+     *
+     * @return Ссылка на строку в этой арене или {@link #NULL}.
+     */
+    long copy(final StringArena source, final long ref) {
+        if (ref == NULL) {
+            return NULL;
+        }
+
+        final byte[] chunk = source.chunks[chunkOf(ref)];
+        final int offset = offsetOf(ref);
+
+        return append(chunk, offset + LENGTH_SIZE, length(chunk, offset));
+    }
+
+    @Nullable
+    String get(final long ref) {
+        if (ref == NULL) {
+            return null;
+        }
+
+        final byte[] chunk = chunks[chunkOf(ref)];
+        final int offset = offsetOf(ref);
+
+        return new String(chunk, offset + LENGTH_SIZE, length(chunk, offset), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Сколько байтов арены занимает строка вместе с длиной.
+     */
+    int sizeOf(final long ref) {
+        if (ref == NULL) {
+            return 0;
+        }
+
+        return LENGTH_SIZE + length(chunks[chunkOf(ref)], offsetOf(ref));
+    }
+
+    /**
+     * Занято байтов во всех блоках.
+     */
+    long size() {
+        return size;
+    }
+
+    private long append(final byte[] bytes, final int from, final int length) {
+        final int required = LENGTH_SIZE + length;
+        if (chunkCount == 0 || position + required > chunks[chunkCount - 1].length) {
+            if (chunkCount == chunks.length) {
+                chunks = Arrays.copyOf(chunks, chunks.length * 2);
+            }
+            // строка длиннее блока получает отдельный блок своего размера
+            chunks[chunkCount++] = new byte[Math.max(CHUNK_SIZE, required)];
+            position = 0;
+        }
+
+        final byte[] chunk = chunks[chunkCount - 1];
+        final int offset = position;
+        chunk[offset] = (byte) (length >>> 24);
+        chunk[offset + 1] = (byte) (length >>> 16);
+        chunk[offset + 2] = (byte) (length >>> 8);
+        chunk[offset + 3] = (byte) length;
+        System.arraycopy(bytes, from, chunk, offset + LENGTH_SIZE, length);
+        position += required;
+        size += required;
+
+        return (long) (chunkCount - 1) << 32 | offset;
+    }
+
+    private static int length(final byte[] chunk, final int offset) {
+        return (chunk[offset] & 0xFF) << 24
+                | (chunk[offset + 1] & 0xFF) << 16
+                | (chunk[offset + 2] & 0xFF) << 8
+                | chunk[offset + 3] & 0xFF;
+    }
+
+    private static int chunkOf(final long ref) {
+        return (int) (ref >>> 32);
+    }
+
+    private static int offsetOf(final long ref) {
+        return (int) ref;
+    }
+}
@@ -0,0 +1,46 @@
+package ru.yandex.practicum.filmorate.storage.friendstorage;
+
+/**
+ * Хранилище дружбы пользователей.
+ * <p>
+ * Дружба взаимна: добавление и удаление меняют списки друзей обоих пользователей. Реализации должны быть
+ * потокобезопасными. Наличие пользователей хранилище не проверяет.
+ */
+public interface FriendStorage {
+
+    /**
+     * Сделать пользователей друзьями.
+     *
+     * @return {@code true}, если они еще не были друзьями.
+     */
+    boolean add(long userId, long friendId);
+
+    /**
+     * Удалить дружбу пользователей.
+     *
+     * @return {@code true}, если они были друзьями.
+     */
+    boolean remove(long userId, long friendId);
+
+    /**
+     * Друзья пользователя.
+     *
+     * @param userId Идентификатор пользователя.
+     * @return Отсортированные по возрастанию идентификаторы друзей; массив нельзя изменять.
+     */
+    long[] findFriends(long userId);
+
+    /**
+     * Общие друзья двух пользователей.
+     *
+     * @return Отсортированные по возрастанию идентификаторы общих друзей.
+     */
+    long[] findCommonFriends(long userId, long otherId);
+
+    /**
+     * Получить все дружбы, каждую один раз.
+     *
+     * @return Слабо согласованный обход дружб в виде изменений {@link FriendshipChange#isAdded()}.
+     */
+    Iterable<FriendshipChange> findAll();
+}
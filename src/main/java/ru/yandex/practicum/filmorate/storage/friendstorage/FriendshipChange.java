@@ -0,0 +1,43 @@
+package ru.yandex.practicum.filmorate.storage.friendstorage;
+
+import lombok.Data;
+
+/**
+ * Изменение дружбы двух пользователей: запись журнала и снимка.
+ */
+@Data
+public final class FriendshipChange {
+
+    private final long userId;
+
+    private final long friendId;
+
+    /**
+     * {@code true} – пользователи стали друзьями, {@code false} – дружба удалена.
+     */
+    private final boolean added;
+
+    /**
+     * No args constructor for jackson.
+     */
+    public FriendshipChange() {
+        this(0, 0, true);
+    }
+
+    public FriendshipChange(final long userId, final long friendId, final boolean added) {
+        this.userId = userId;
+        this.friendId = friendId;
+        this.added = added;
+    }
+
+    /**
+     * Применить изменение к хранилищу.
+     */
+    public void applyTo(final FriendStorage storage) {
+        if (added) {
+            storage.add(userId, friendId);
+        } else {
+            storage.remove(userId, friendId);
+        }
+    }
+}
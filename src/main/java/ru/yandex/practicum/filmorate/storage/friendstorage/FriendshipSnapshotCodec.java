@@ -0,0 +1,32 @@
+package ru.yandex.practicum.filmorate.storage.friendstorage;
+
+import ru.yandex.practicum.filmorate.storage.wal.BinarySnapshot;
+import ru.yandex.practicum.filmorate.storage.wal.SnapshotCodec;
+
+/**
+ * Формат дружбы в снимке: {@code [userId][friendId]}.
+ * <p>
+ * Снимок содержит только действующие дружбы, поэтому признак {@link FriendshipChange#isAdded()} не хранится.
+ */
+public final class FriendshipSnapshotCodec implements SnapshotCodec<FriendshipChange> {
+
+    private static final int RECORD_SIZE = 2 * Long.BYTES;
+
+    @Override
+    public int recordSize() {
+        return RECORD_SIZE;
+    }
+
+    @Override
+    public void write(final FriendshipChange friendship, final BinarySnapshot.RecordWriter out) {
+        out.putLong(friendship.getUserId()).putLong(friendship.getFriendId());
+    }
+
+    @Override
+    public FriendshipChange read(final BinarySnapshot.RecordReader in) {
+        final long userId = in.getLong();
+        final long friendId = in.getLong();
+
+        return new FriendshipChange(userId, friendId, true);
+    }
+}
@@ -0,0 +1,76 @@
+package ru.yandex.practicum.filmorate.storage.friendstorage;
+
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.SortedLongArrays;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.UnaryOperator;
+
+/**
+ * Хранилище дружбы в памяти.
+ * <p>
+ * Друзья пользователя хранятся отсортированным массивом {@code long[]} ({@link SortedLongArrays}): 8 байт на
+ * связь вместо объекта {@link Long} и узла хеш-таблицы. Массив заменяется целиком атомарной операцией
+ * {@link ConcurrentMap#compute}, поэтому чтение списка друзей и поиск общих друзей не блокируются и видят
+ * согласованный список каждого пользователя.
+ */
+@Component
+public final class InMemoryFriendStorage implements FriendStorage {
+
+    private final ConcurrentMap<Long, long[]> friends = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean add(final long userId, final long friendId) {
+        final boolean added = update(userId, set -> SortedLongArrays.insert(set, friendId));
+        update(friendId, set -> SortedLongArrays.insert(set, userId));
+
+        return added;
+    }
+
+    @Override
+    public boolean remove(final long userId, final long friendId) {
+        final boolean removed = update(userId, set -> SortedLongArrays.remove(set, friendId));
+        update(friendId, set -> SortedLongArrays.remove(set, userId));
+
+        return removed;
+    }
+
+    @Override
+    public long[] findFriends(final long userId) {
+        return friends.getOrDefault(userId, SortedLongArrays.EMPTY);
+    }
+
+    @Override
+    public long[] findCommonFriends(final long userId, final long otherId) {
+        return SortedLongArrays.intersect(findFriends(userId), findFriends(otherId));
+    }
+
+    @Override
+    public Iterable<FriendshipChange> findAll() {
+        return () -> friends.entrySet().stream()
+                .flatMap(entry -> Arrays.stream(entry.getValue())
+                        .filter(friendId -> entry.getKey() < friendId)
+                        .mapToObj(friendId -> new FriendshipChange(entry.getKey(), friendId, true)))
+                .iterator();
+    }
+
+    /**
+     * Атомарно заменить список друзей пользователя.
+     *
+     * @return {@code true}, если список изменился.
+     */
+    private boolean update(final long userId, final UnaryOperator<long[]> change) {
+        final boolean[] changed = new boolean[1];
+        friends.compute(userId, (id, set) -> {
+            final long[] current = set == null ? SortedLongArrays.EMPTY : set;
+            final long[] next = change.apply(current);
+            changed[0] = next != current;
+
+            return next.length == 0 ? null : next;
+        });
+
+        return changed[0];
+    }
+}
@@ -0,0 +1,177 @@
+package ru.yandex.practicum.filmorate.storage.idgenerator;
+
+import org.springframework.lang.Nullable;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Генератор идентификаторов, выдающий каждому потоку собственный блок идентификаторов.
+ * <p>
+ * Общий счетчик затрагивается один раз на {@code blockSize} идентификаторов, поэтому потоки почти не
+ * конкурируют за одну кэш-линию. Платой за это является то, что идентификаторы, выданные разными потоками,
+ * не идут подряд, а неиспользованный остаток блока теряется при остановке приложения.
+ * <p>
+ * Если передан файл верхней границы (high-water mark), генератор перед выдачей блока сохраняет в него
+ * границу зарезервированных идентификаторов и после перезапуска продолжает с нее. Граница резервируется
+ * с запасом ({@code reservationSize}), поэтому запись на диск происходит редко. Граница пишется во временный
+ * файл, который сбрасывается на диск ({@code fsync}) до переименования, а после переименования сбрасывается
+ * каталог: после сбоя файл содержит либо старую, либо новую границу, но не пустое значение.
+ */
+public final class BlockIdGenerator implements IdGenerator {
+
+    /**
+     * Первый идентификатор, если сохраненной границы нет.
+     */
+    private static final long FIRST_ID = 1;
+
+    private final int blockSize;
+
+    private final long reservationSize;
+
+    @Nullable
+    private final Path highWaterMarkFile;
+
+    /**
+     * Первый идентификатор после запуска.
+     */
+    private final long start;
+
+    /**
+     * Первый идентификатор, еще не отданный ни одному потоку.
+     */
+    private final AtomicLong nextFree;
+
+    /**
+     * Граница, сохраненная на диске: все идентификаторы меньше нее могли быть выданы.
+     */
+    private volatile long reserved;
+
+    private final Object reserveLock = new Object();
+
+    private final ThreadLocal<Block> blocks = ThreadLocal.withInitial(Block::new);
+
+    /**
+     * @param blockSize         Количество идентификаторов, выдаваемых потоку за одно обращение к общему счетчику.
+     * @param reservationSize   Минимальный шаг, с которым граница сохраняется на диск.
+     * @param highWaterMarkFile Файл для сохранения границы или {@code null}, если сохранять не нужно.
+     */
+    public BlockIdGenerator(final int blockSize, final long reservationSize, final @Nullable Path highWaterMarkFile) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("Размер блока должен быть положительным.");
+        }
+
+        this.blockSize = blockSize;
+        this.reservationSize = Math.max(reservationSize, blockSize);
+        this.highWaterMarkFile = highWaterMarkFile;
+
+        this.start = highWaterMarkFile == null ? FIRST_ID : readHighWaterMark(highWaterMarkFile);
+        this.nextFree = new AtomicLong(start);
+        this.reserved = highWaterMarkFile == null ? Long.MAX_VALUE : start;
+    }
+
+    /**
+     * Генератор без сохранения границы на диск.
+     *
+     * @param blockSize Количество идентификаторов, выдаваемых потоку за одно обращение к общему счетчику.
+     */
+    public BlockIdGenerator(final int blockSize) {
+        this(blockSize, blockSize, null);
+    }
+
+    @Override
+    public long nextId() {
+        final Block block = blocks.get();
+
+        if (block.next == block.limit) {
+            final long start = nextFree.getAndAdd(blockSize);
+            final long limit = start + blockSize;
+
+            if (limit > reserved) {
+                reserve(limit);
+            }
+
+            block.next = start;
+            block.limit = limit;
+        }
+
+        return block.next++;
+    }
+
+    /**
+     * Количество идентификаторов, отданных потокам после запуска, включая неиспользованные остатки их блоков.
+     * <p>
+     * Читает общий счетчик и не влияет на выдачу, поэтому подходит для метрик: точность – до одного блока
+     * на поток.
+     *
+     * @return Количество выделенных идентификаторов.
+     */
+    public long allocated() {
+        return nextFree.get() - start;
+    }
+
+    /**
+     * Сохранить на диск границу не меньше {@code limit}.
+     */
+    private void reserve(final long limit) {
+        synchronized (reserveLock) {
+            if (limit <= reserved) {
+                return;
+            }
+
+            final long newReserved = Math.max(limit, reserved + reservationSize);
+            writeHighWaterMark(newReserved);
+            reserved = newReserved;
+        }
+    }
+
+    private void writeHighWaterMark(final long value) {
+        try {
+            final Path directory = highWaterMarkFile.toAbsolutePath().getParent();
+            final Path tmp = highWaterMarkFile.resolveSibling(highWaterMarkFile.getFileName() + ".tmp");
+            Files.createDirectories(directory);
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                final ByteBuffer buffer = ByteBuffer.wrap(Long.toString(value).getBytes(StandardCharsets.US_ASCII));
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+            Files.move(tmp, highWaterMarkFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+                channel.force(true);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось сохранить границу идентификаторов.", e);
+        }
+    }
+
+    private static long readHighWaterMark(final Path file) {
+        if (!Files.exists(file)) {
+            return FIRST_ID;
+        }
+
+        try {
+            return Math.max(FIRST_ID, Long.parseLong(Files.readString(file, StandardCharsets.US_ASCII).trim()));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось прочитать границу идентификаторов.", e);
+        }
+    }
+
+    /**
+     * Блок идентификаторов потока: [{@link #next}, {@link #limit}).
+     */
+    private static final class Block {
+        private long next;
+        private long limit;
+    }
+}
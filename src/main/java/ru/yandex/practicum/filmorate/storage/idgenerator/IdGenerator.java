@@ -0,0 +1,19 @@
+package ru.yandex.practicum.filmorate.storage.idgenerator;
+
+/**
+ * Источник уникальных идентификаторов сущностей.
+ * <p>
+ * Реализации должны быть потокобезопасными.
+ */
+@FunctionalInterface
+public interface IdGenerator {
+
+    /**
+     * Выделить новый идентификатор.
+     * <p>
+     * Идентификаторы уникальны и положительны, но не обязаны идти подряд.
+     *
+     * @return Новый идентификатор.
+     */
+    long nextId();
+}
@@ -0,0 +1,62 @@
+package ru.yandex.practicum.filmorate.storage.idgenerator;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+
+/**
+ * Генераторы идентификаторов фильмов и пользователей.
+ * <p>
+ * Настройки:
+ * <ul>
+ *     <li>{@code filmorate.id.block-size} – размер блока идентификаторов потока;</li>
+ *     <li>{@code filmorate.id.reservation-size} – шаг сохранения верхней границы на диск;</li>
+ *     <li>{@code filmorate.storage.directory} – каталог для файлов границ; если пуст, граница не сохраняется.</li>
+ * </ul>
+ * <p>
+ * Количество выделенных идентификаторов публикуется счетчиком {@code filmorate.ids.allocated} с тегом
+ * {@code entity}; скорость выделения – его производная ({@code rate()} в Prometheus). Счетчик читается
+ * при сборе метрик и ничего не добавляет к выдаче идентификатора.
+ */
+@Configuration
+public class IdGeneratorConfiguration {
+
+    public static final String FILM_ID_GENERATOR = "filmIdGenerator";
+
+    public static final String USER_ID_GENERATOR = "userIdGenerator";
+
+    @Value("${filmorate.id.block-size:64}")
+    private int blockSize;
+
+    @Value("${filmorate.id.reservation-size:10000}")
+    private long reservationSize;
+
+    @Value("${filmorate.storage.directory:}")
+    private String directory;
+
+    @Bean(FILM_ID_GENERATOR)
+    public IdGenerator filmIdGenerator(final MeterRegistry meterRegistry) {
+        return create("film.id", "film", meterRegistry);
+    }
+
+    @Bean(USER_ID_GENERATOR)
+    public IdGenerator userIdGenerator(final MeterRegistry meterRegistry) {
+        return create("user.id", "user", meterRegistry);
+    }
+
+    private IdGenerator create(final String fileName, final String entity, final MeterRegistry meterRegistry) {
+        final Path file = directory.isBlank() ? null : Path.of(directory, fileName);
+        final BlockIdGenerator generator = new BlockIdGenerator(blockSize, reservationSize, file);
+        FunctionCounter.builder("filmorate.ids.allocated", generator, BlockIdGenerator::allocated)
+                .description("Выделенные идентификаторы")
+                .baseUnit("ids")
+                .tag("entity", entity)
+                .register(meterRegistry);
+
+        return generator;
+    }
+}
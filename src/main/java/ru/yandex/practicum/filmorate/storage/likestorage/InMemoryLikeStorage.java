@@ -0,0 +1,145 @@
+package ru.yandex.practicum.filmorate.storage.likestorage;
+
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Like;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Хранилище лайков в памяти.
+ * <p>
+ * Для каждого фильма хранятся множество пользователей (повторный лайк отсекается одной операцией
+ * {@link Set#add(Object)}) и счетчик {@link LongAdder}, который не создает конкуренции между потоками,
+ * лайкающими один и тот же фильм.
+ * <p>
+ * Рейтинг – упорядоченное множество пар (количество лайков, фильм), которое обновляется при каждом лайке.
+ * Поэтому топ-N читается обходом первых N элементов без сортировки всех фильмов.
+ */
+@Component
+public final class InMemoryLikeStorage implements LikeStorage {
+
+    private static final Comparator<Rank> BY_POPULARITY = Comparator.comparingLong((Rank rank) -> rank.likes)
+            .reversed()
+            .thenComparingLong(rank -> rank.filmId);
+
+    private final ConcurrentMap<Long, FilmLikes> likes = new ConcurrentHashMap<>();
+
+    private final ConcurrentSkipListSet<Rank> ranking = new ConcurrentSkipListSet<>(BY_POPULARITY);
+
+    @Override
+    public boolean add(final long filmId, final long userId) {
+        final FilmLikes filmLikes = likes.computeIfAbsent(filmId, id -> new FilmLikes());
+
+        if (!filmLikes.users.add(userId)) {
+            return false;
+        }
+
+        filmLikes.count.increment();
+        updateRank(filmId, filmLikes);
+
+        return true;
+    }
+
+    @Override
+    public long count(final long filmId) {
+        final FilmLikes filmLikes = likes.get(filmId);
+
+        return filmLikes == null ? 0 : filmLikes.count.sum();
+    }
+
+    @Override
+    public List<Long> findMostLiked(final int limit) {
+        final List<Long> filmIds = new ArrayList<>(Math.min(limit, 1024));
+        // во время обновления рейтинга фильм может ненадолго встречаться дважды
+        final Set<Long> seen = new HashSet<>();
+        final Iterator<Rank> iterator = ranking.iterator();
+
+        while (filmIds.size() < limit && iterator.hasNext()) {
+            final long filmId = iterator.next().filmId;
+            if (seen.add(filmId)) {
+                filmIds.add(filmId);
+            }
+        }
+
+        return filmIds;
+    }
+
+    @Override
+    public Iterable<Like> findAll() {
+        return () -> likes.entrySet().stream()
+                .flatMap(entry -> entry.getValue().users.stream().map(userId -> new Like(entry.getKey(), userId)))
+                .iterator();
+    }
+
+    /**
+     * Привести позицию фильма в рейтинге к текущему значению счетчика.
+     * <p>
+     * Рейтинг фильма обновляет один поток за раз. Поток, не получивший право на обновление, не ждет: текущий
+     * владелец после обновления перечитает счетчик и учтет его лайк. Новая позиция добавляется раньше, чем
+     * удаляется старая, чтобы читатели рейтинга не пропустили фильм.
+     */
+    private void updateRank(final long filmId, final FilmLikes filmLikes) {
+        do {
+            if (!filmLikes.updating.compareAndSet(false, true)) {
+                return;
+            }
+
+            try {
+                final long current = filmLikes.count.sum();
+                final Rank previous = filmLikes.rank;
+                if (previous == null || previous.likes != current) {
+                    final Rank next = new Rank(current, filmId);
+                    ranking.add(next);
+                    if (previous != null) {
+                        ranking.remove(previous);
+                    }
+                    filmLikes.rank = next;
+                }
+            } finally {
+                filmLikes.updating.set(false);
+            }
+        } while (filmLikes.rank.likes != filmLikes.count.sum());
+    }
+
+    /**
+     * Лайки одного фильма.
+     */
+    private static final class FilmLikes {
+
+        private final Set<Long> users = ConcurrentHashMap.newKeySet();
+
+        private final LongAdder count = new LongAdder();
+
+        private final AtomicBoolean updating = new AtomicBoolean();
+
+        /**
+         * Текущая позиция в рейтинге. Изменяется только потоком, установившим {@link #updating}.
+         */
+        private volatile Rank rank;
+    }
+
+    /**
+     * Позиция фильма в рейтинге.
+     */
+    private static final class Rank {
+
+        private final long likes;
+
+        private final long filmId;
+
+        private Rank(final long likes, final long filmId) {
+            this.likes = likes;
+            this.filmId = filmId;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package ru.yandex.practicum.filmorate.storage.likestorage;
+
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.storage.wal.BinarySnapshot;
+import ru.yandex.practicum.filmorate.storage.wal.SnapshotCodec;
+
+/**
+ * Формат лайка в снимке: {@code [filmId][userId]}.
+ */
+public final class LikeSnapshotCodec implements SnapshotCodec<Like> {
+
+    private static final int RECORD_SIZE = 2 * Long.BYTES;
+
+    @Override
+    public int recordSize() {
+        return RECORD_SIZE;
+    }
+
+    @Override
+    public void write(final Like like, final BinarySnapshot.RecordWriter out) {
+        out.putLong(like.getFilmId()).putLong(like.getUserId());
+    }
+
+    @Override
+    public Like read(final BinarySnapshot.RecordReader in) {
+        final long filmId = in.getLong();
+        final long userId = in.getLong();
+
+        return new Like(filmId, userId);
+    }
+}
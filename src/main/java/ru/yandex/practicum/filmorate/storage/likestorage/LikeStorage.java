@@ -0,0 +1,48 @@
+package ru.yandex.practicum.filmorate.storage.likestorage;
+
+import ru.yandex.practicum.filmorate.model.Like;
+
+import java.util.List;
+
+/**
+ * Хранилище лайков фильмов и рейтинга популярности.
+ * <p>
+ * Реализации должны быть потокобезопасными. Наличие фильма и пользователя хранилище не проверяет.
+ */
+public interface LikeStorage {
+
+    /**
+     * Атомарно добавить лайк, если пользователь еще не ставил лайк этому фильму.
+     *
+     * @param filmId Идентификатор фильма.
+     * @param userId Идентификатор пользователя.
+     * @return {@code true}, если лайк добавлен; {@code false}, если он уже был.
+     */
+    boolean add(long filmId, long userId);
+
+    /**
+     * Количество лайков фильма.
+     *
+     * @param filmId Идентификатор фильма.
+     * @return Количество лайков (0, если лайков нет).
+     */
+    long count(long filmId);
+
+    /**
+     * Идентификаторы самых популярных фильмов.
+     * <p>
+     * Фильмы упорядочены по убыванию количества лайков, при равенстве – по возрастанию идентификатора.
+     * Стоимость пропорциональна {@code limit}, а не количеству фильмов.
+     *
+     * @param limit Максимальное количество фильмов.
+     * @return Идентификаторы фильмов, у которых есть хотя бы один лайк.
+     */
+    List<Long> findMostLiked(int limit);
+
+    /**
+     * Получить все лайки.
+     *
+     * @return Слабо согласованный обход всех лайков.
+     */
+    Iterable<Like> findAll();
+}
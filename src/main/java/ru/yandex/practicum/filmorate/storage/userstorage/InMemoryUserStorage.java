@@ -0,0 +1,292 @@
+package ru.yandex.practicum.filmorate.storage.userstorage;
+
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exceptions.DuplicateValueException;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.KeyLocks;
+import ru.yandex.practicum.filmorate.storage.ChangeIndex;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Хранилище пользователей в памяти.
+ * <p>
+ * Уникальность электронной почты и логина обеспечивают индексы {@link ConcurrentHashMap}: значение занимается
+ * атомарным {@link ConcurrentMap#putIfAbsent(Object, Object)} за O(1), поэтому из двух пользователей,
+ * одновременно претендующих на одно значение, его получает ровно один. Значение занимается до записи
+ * пользователя и освобождается после нее; если второе значение занять не удалось, первое освобождается.
+ * Запись пользователя и изменение индексов выполняются под блокировкой идентификатора.
+ * <p>
+ * Для автодополнения логины дополнительно упорядочены в {@link ConcurrentSkipListMap}: пользователи с общим
+ * префиксом логина находятся одним проходом по диапазону.
+ * <p>
+ * Версии назначаются и сравниваются при замене по версии под той же блокировкой, как в
+ * {@link ru.yandex.practicum.filmorate.storage.filmstorage.InMemoryFilmStorage}.
+ *
+ * @see ru.yandex.practicum.filmorate.storage.filmstorage.InMemoryFilmStorage
+ */
+@Component
+public final class InMemoryUserStorage implements UserStorage {
+
+    /**
+     * Данные о пользователях.
+     */
+    private final ConcurrentNavigableMap<Long, User> data = new ConcurrentSkipListMap<>();
+
+    /**
+     * Идентификаторы пользователей по электронной почте в нижнем регистре.
+     */
+    private final ConcurrentMap<String, Long> emails = new ConcurrentHashMap<>();
+
+    /**
+     * Пользователи по логину в нижнем регистре.
+     */
+    private final ConcurrentMap<String, User> logins = new ConcurrentHashMap<>();
+
+    /**
+     * Те же пользователи по логину в нижнем регистре, упорядоченные для поиска по префиксу.
+     */
+    private final ConcurrentNavigableMap<String, User> sortedLogins = new ConcurrentSkipListMap<>();
+
+    /**
+     * Упорядочивают запись пользователя и изменение индексов.
+     */
+    private final KeyLocks locks = new KeyLocks();
+
+    /**
+     * Последние изменения по версиям; выдает версии изменениям.
+     */
+    private final ChangeIndex changeIndex = new ChangeIndex();
+
+    @Override
+    public Collection<User> findAll() {
+        return Collections.unmodifiableCollection(data.values());
+    }
+
+    @Override
+    public List<User> findPage(final long afterId, final int limit) {
+        // limit может быть намного больше коллекции, а размер ConcurrentSkipListMap считается обходом
+        final List<User> page = new ArrayList<>(Math.min(limit, 1024));
+        final Iterator<User> iterator = data.tailMap(afterId, false).values().iterator();
+
+        while (page.size() < limit && iterator.hasNext()) {
+            page.add(iterator.next());
+        }
+
+        return page;
+    }
+
+    @Override
+    public Optional<User> findById(final long id) {
+        return Optional.ofNullable(data.get(id));
+    }
+
+    @Override
+    public Optional<User> findByLogin(final String login) {
+        return Optional.ofNullable(logins.get(normalize(login)));
+    }
+
+    @Override
+    public List<User> findByLoginPrefix(final String prefix, final int limit) {
+        final String from = normalize(prefix);
+        final List<User> users = new ArrayList<>(Math.min(limit, 1024));
+        final Iterator<User> iterator = sortedLogins.subMap(from, true, from + Character.MAX_VALUE, false)
+                .values()
+                .iterator();
+
+        while (users.size() < limit && iterator.hasNext()) {
+            users.add(iterator.next());
+        }
+
+        return users;
+    }
+
+    @Override
+    public boolean add(final User user) {
+        synchronized (locks.lockFor(user.getId())) {
+            if (data.containsKey(user.getId())) {
+                return false;
+            }
+
+            save(null, user);
+        }
+
+        return true;
+    }
+
+    @Override
+    public boolean update(final User user) {
+        synchronized (locks.lockFor(user.getId())) {
+            final User previous = data.get(user.getId());
+            if (previous == null) {
+                return false;
+            }
+
+            save(previous, user);
+        }
+
+        return true;
+    }
+
+    @Override
+    public boolean compareAndSet(final long expectedVersion, final User user) {
+        synchronized (locks.lockFor(user.getId())) {
+            final User previous = data.get(user.getId());
+            if (previous == null || previous.getVersion() != expectedVersion) {
+                return false;
+            }
+
+            save(previous, user);
+        }
+
+        return true;
+    }
+
+    @Override
+    public boolean remove(final long id) {
+        synchronized (locks.lockFor(id)) {
+            final User previous = data.get(id);
+            if (previous == null) {
+                return false;
+            }
+
+            final long changeVersion = changeIndex.nextVersion();
+            try {
+                data.remove(id);
+
+                final String email = emailKey(previous);
+                if (email != null) {
+                    emails.remove(email, id);
+                }
+                final String login = normalize(previous.getLogin());
+                sortedLogins.remove(login, previous);
+                logins.remove(login, previous);
+            } finally {
+                changeIndex.record(changeVersion, id);
+            }
+        }
+
+        return true;
+    }
+
+    @Override
+    public int size() {
+        return data.size();
+    }
+
+    @Override
+    public long version() {
+        return changeIndex.version();
+    }
+
+    @Override
+    public long versionOf(final long id) {
+        final User user = data.get(id);
+
+        return user == null ? User.NO_VERSION : user.getVersion();
+    }
+
+    @Override
+    public ChangeIndex.Changes changesSince(final long version, final int limit) {
+        return changeIndex.since(version, limit);
+    }
+
+    /**
+     * Записать пользователя с новой версией. Выполняется под блокировкой идентификатора пользователя: версия
+     * выдается после занятия почты и логина, чтобы отказ не оставил в журнале изменений пропуск, и записывается в
+     * журнал и при ошибке, иначе его граница остановится.
+     *
+     * @throws DuplicateValueException Электронная почта или логин заняты другим пользователем.
+     */
+    private void save(final @Nullable User previous, final User user) {
+        claim(previous, user);
+        final long changeVersion = changeIndex.nextVersion();
+        try {
+            final User savedUser = user.withVersion(changeVersion);
+            data.put(savedUser.getId(), savedUser);
+            reindex(previous, savedUser);
+        } finally {
+            changeIndex.record(changeVersion, user.getId());
+        }
+    }
+
+    /**
+     * Занять электронную почту и логин пользователя.
+     *
+     * @throws DuplicateValueException Значение занято другим пользователем; занятое этим вызовом освобождено.
+     */
+    private void claim(final @Nullable User previous, final User user) {
+        final String email = emailKey(user);
+        final boolean emailClaimed = email != null && !email.equals(emailKey(previous));
+        if (emailClaimed && !claim(emails, email, user.getId())) {
+            throw new DuplicateValueException("Пользователь с указанной электронной почтой уже существует.");
+        }
+
+        final String login = normalize(user.getLogin());
+        final User loginOwner = logins.putIfAbsent(login, user);
+        if (loginOwner != null && loginOwner.getId() != user.getId()) {
+            if (emailClaimed) {
+                emails.remove(email, user.getId());
+            }
+            throw new DuplicateValueException("Пользователь с указанным логином уже существует.");
+        }
+    }
+
+    /**
+     * Обновить индексы после записи пользователя и освободить значения, которые он больше не использует.
+     */
+    private void reindex(final @Nullable User previous, final User user) {
+        final String login = normalize(user.getLogin());
+        logins.put(login, user);
+        sortedLogins.put(login, user);
+
+        if (previous == null) {
+            return;
+        }
+
+        final String previousEmail = emailKey(previous);
+        if (previousEmail != null && !previousEmail.equals(emailKey(user))) {
+            emails.remove(previousEmail, user.getId());
+        }
+
+        final String previousLogin = normalize(previous.getLogin());
+        if (!previousLogin.equals(login)) {
+            sortedLogins.remove(previousLogin, previous);
+            logins.remove(previousLogin, previous);
+        }
+    }
+
+    private static boolean claim(final ConcurrentMap<String, Long> index, final String key, final long id) {
+        final Long owner = index.putIfAbsent(key, id);
+
+        return owner == null || owner == id;
+    }
+
+    /**
+     * @return Электронная почта в нижнем регистре или {@code null}, если она не задана.
+     */
+    @Nullable
+    private static String emailKey(final @Nullable User user) {
+        if (user == null || user.getEmail() == null || user.getEmail().isBlank()) {
+            return null;
+        }
+
+        return normalize(user.getEmail());
+    }
+
+    private static String normalize(final String value) {
+        return Objects.requireNonNull(value).toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,42 @@
+package ru.yandex.practicum.filmorate.storage.userstorage;
+
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.wal.BinarySnapshot;
+import ru.yandex.practicum.filmorate.storage.wal.SnapshotCodec;
+
+import java.time.LocalDate;
+
+/**
+ * Формат пользователя в снимке: {@code [id][birthday][email][login][name]}.
+ * <p>
+ * Сохраняется имя для отображения ({@link User#getName()}), как и в JSON.
+ */
+public final class UserSnapshotCodec implements SnapshotCodec<User> {
+
+    private static final int RECORD_SIZE = Long.BYTES + BinarySnapshot.DATE_SIZE + 3 * BinarySnapshot.STRING_SIZE;
+
+    @Override
+    public int recordSize() {
+        return RECORD_SIZE;
+    }
+
+    @Override
+    public void write(final User user, final BinarySnapshot.RecordWriter out) {
+        out.putLong(user.getId())
+                .putDate(user.getBirthday())
+                .putString(user.getEmail())
+                .putString(user.getLogin())
+                .putString(user.getName());
+    }
+
+    @Override
+    public User read(final BinarySnapshot.RecordReader in) {
+        final long id = in.getLong();
+        final LocalDate birthday = in.getDate();
+        final String email = in.getString();
+        final String login = in.getString();
+        final String name = in.getString();
+
+        return new User(id, email, login, name, birthday);
+    }
+}
@@ -0,0 +1,138 @@
+package ru.yandex.practicum.filmorate.storage.userstorage;
+
+import ru.yandex.practicum.filmorate.exceptions.DuplicateValueException;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.ChangeIndex;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Хранилище пользователей.
+ * <p>
+ * Реализации должны быть потокобезопасными: контроллеры вызываются из пула потоков сервера одновременно.
+ * <p>
+ * Электронная почта и логин уникальны без учета регистра; пустая электронная почта не проверяется.
+ */
+public interface UserStorage {
+
+    /**
+     * Получить всех пользователей.
+     *
+     * @return Слабо согласованное (weakly consistent) представление всех пользователей.
+     */
+    Collection<User> findAll();
+
+    /**
+     * Получить страницу пользователей в порядке возрастания идентификатора.
+     * <p>
+     * Стоимость пропорциональна размеру страницы, а не количеству пользователей в хранилище.
+     *
+     * @param afterId Курсор: возвращаются только пользователи с идентификатором больше него.
+     * @param limit   Максимальный размер страницы.
+     * @return Страница пользователей.
+     */
+    List<User> findPage(long afterId, int limit);
+
+    /**
+     * Найти пользователя по идентификатору.
+     *
+     * @param id Идентификатор пользователя.
+     * @return Пользователь или {@link Optional#empty()}, если пользователя с таким идентификатором нет.
+     */
+    Optional<User> findById(long id);
+
+    /**
+     * Найти пользователя по логину без учета регистра.
+     *
+     * @param login Логин.
+     * @return Пользователь или {@link Optional#empty()}, если пользователя с таким логином нет.
+     */
+    Optional<User> findByLogin(String login);
+
+    /**
+     * Получить пользователей, логин которых начинается с префикса (без учета регистра), для автодополнения.
+     * <p>
+     * Стоимость пропорциональна размеру результата, а не количеству пользователей в хранилище.
+     *
+     * @param prefix Начало логина.
+     * @param limit  Максимальное количество пользователей.
+     * @return Пользователи в порядке логинов.
+     */
+    List<User> findByLoginPrefix(String prefix, int limit);
+
+    /**
+     * Атомарно добавить пользователя, если пользователя с таким идентификатором еще нет.
+     * <p>
+     * Здесь и при замене версию назначает хранилище: {@link User#getVersion()} переданного объекта не учитывается.
+     *
+     * @param user Новый пользователь.
+     * @return {@code true}, если пользователь добавлен; {@code false}, если идентификатор уже занят.
+     * @throws DuplicateValueException Электронная почта или логин заняты другим пользователем.
+     */
+    boolean add(User user);
+
+    /**
+     * Атомарно заменить пользователя, если пользователь с таким идентификатором существует.
+     *
+     * @param user Новые данные пользователя.
+     * @return {@code true}, если данные заменены; {@code false}, если пользователя с таким идентификатором нет.
+     * @throws DuplicateValueException Электронная почта или логин заняты другим пользователем.
+     */
+    boolean update(User user);
+
+    /**
+     * Атомарно заменить пользователя, если его текущая версия равна ожидаемой (compare-and-set).
+     *
+     * @param expectedVersion Версия, которую видел клиент ({@link User#getVersion()}).
+     * @param user            Новые данные пользователя.
+     * @return {@code true}, если данные заменены; {@code false}, если пользователя с таким идентификатором нет
+     *         или его версия другая.
+     * @throws DuplicateValueException Электронная почта или логин заняты другим пользователем.
+     */
+    boolean compareAndSet(long expectedVersion, User user);
+
+    /**
+     * Атомарно удалить пользователя и освободить его электронную почту и логин.
+     *
+     * @param id Идентификатор пользователя.
+     * @return {@code true}, если пользователь удален; {@code false}, если пользователя с таким идентификатором нет.
+     * @see ru.yandex.practicum.filmorate.storage.filmstorage.FilmStorage#remove(long)
+     */
+    boolean remove(long id);
+
+    /**
+     * Количество пользователей в хранилище.
+     *
+     * @return Количество пользователей.
+     */
+    int size();
+
+    /**
+     * Версия хранилища: все изменения с версиями до нее включительно видны читателям.
+     * <p>
+     * Версию нужно читать до данных: тогда данные не старше прочитанной версии, а любое изменение после ее
+     * чтения увеличит версию.
+     *
+     * @return Текущая версия.
+     */
+    long version();
+
+    /**
+     * Версия пользователя ({@link User#getVersion()}): версия хранилища, назначенная его последнему изменению.
+     *
+     * @param id Идентификатор пользователя.
+     * @return Версия или {@code 0}, если пользователя с таким идентификатором нет.
+     */
+    long versionOf(long id);
+
+    /**
+     * Идентификаторы пользователей, добавленных или измененных после версии журнала изменений.
+     * <p>
+     * Стоимость пропорциональна количеству изменений, а не размеру хранилища.
+     *
+     * @see ChangeIndex#since(long, int)
+     */
+    ChangeIndex.Changes changesSince(long version, int limit);
+}
@@ -0,0 +1,389 @@
+package ru.yandex.practicum.filmorate.storage.wal;
+
+import org.springframework.lang.Nullable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.function.Consumer;
+
+/**
+ * Двоичный формат снимка хранилища.
+ * <p>
+ * Файл состоит из заголовка, области записей фиксированного размера и области строк в UTF-8:
+ * <pre>
+ * [magic:int][version:int][recordSize:int][reserved:int][count:long][stringsOffset:long]
+ * [запись 0][запись 1]...[запись count-1]
+ * [строки]
+ * </pre>
+ * Снимок читается через {@link FileChannel#map}: записи разбираются прямо из отображенной памяти без
+ * промежуточного JSON и без копирования файла в кучу, поэтому восстановление ограничено в основном скоростью
+ * создания самих объектов.
+ */
+public final class BinarySnapshot {
+
+    private static final int MAGIC = 0x46534E50; // "FSNP"
+
+    private static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = 32;
+
+    /**
+     * Размер ссылки на строку в записи: смещение в области строк и длина.
+     */
+    public static final int STRING_SIZE = Long.BYTES + Integer.BYTES;
+
+    /**
+     * Размер даты в записи: номер дня от эпохи. Номер дня крайних дат {@link LocalDate} не помещается в {@code int}.
+     */
+    public static final int DATE_SIZE = Long.BYTES;
+
+    /**
+     * Размер окна отображения области строк. Окна перекрываются, чтобы строка почти всегда целиком
+     * попадала в одно окно; строки на стыке окон читаются из файла напрямую.
+     */
+    private static final long STRINGS_WINDOW = 1L << 30;
+
+    private static final int STRINGS_WINDOW_OVERLAP = 1 << 16;
+
+    private static final int NULL_LENGTH = -1;
+
+    private static final long NULL_DATE = Long.MIN_VALUE;
+
+    private BinarySnapshot() {
+    }
+
+    /**
+     * Записать снимок.
+     *
+     * @param file     Файл снимка (перезаписывается).
+     * @param codec    Формат записи.
+     * @param entities Сущности.
+     * @return Количество записанных сущностей.
+     * @throws IOException Ошибка записи.
+     */
+    public static <T> long write(final Path file, final SnapshotCodec<T> codec, final Iterable<T> entities)
+            throws IOException {
+        final Path stringsFile = file.resolveSibling(file.getFileName() + ".strings");
+
+        try (FileChannel out = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+             FileChannel strings = FileChannel.open(stringsFile, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                     StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.DELETE_ON_CLOSE)) {
+            out.position(HEADER_SIZE);
+
+            final RecordWriter writer = new RecordWriter(out, strings, codec.recordSize());
+            for (final T entity : entities) {
+                writer.begin();
+                codec.write(entity, writer);
+                writer.end();
+            }
+            writer.flush();
+
+            final long stringsOffset = HEADER_SIZE + writer.count * codec.recordSize();
+            final long stringsSize = strings.size();
+            long transferred = 0;
+            while (transferred < stringsSize) {
+                transferred += strings.transferTo(transferred, stringsSize - transferred, out);
+            }
+
+            final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+                    .putInt(MAGIC).putInt(VERSION).putInt(codec.recordSize()).putInt(0)
+                    .putLong(writer.count).putLong(stringsOffset)
+                    .flip();
+            while (header.hasRemaining()) {
+                out.write(header, header.position());
+            }
+            out.force(true);
+
+            return writer.count;
+        }
+    }
+
+    /**
+     * Прочитать снимок.
+     *
+     * @param file     Файл снимка.
+     * @param codec    Формат записи.
+     * @param consumer Получатель сущностей в порядке записи.
+     * @return Количество прочитанных сущностей.
+     * @throws IOException Ошибка чтения или файл не является снимком этого формата.
+     */
+    public static <T> long read(final Path file, final SnapshotCodec<T> codec, final Consumer<T> consumer)
+            throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining() && channel.read(header, header.position()) >= 0) {
+                // позиционное чтение сдвигает позицию буфера, но не канала
+            }
+            header.flip();
+
+            if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new IOException("Файл " + file + " не является снимком поддерживаемого формата.");
+            }
+            final int recordSize = header.getInt();
+            header.getInt();
+            final long count = header.getLong();
+            final long stringsOffset = header.getLong();
+
+            if (recordSize != codec.recordSize() || HEADER_SIZE + count * recordSize != stringsOffset
+                    || stringsOffset > channel.size()) {
+                throw new IOException("Снимок " + file + " поврежден или записан в другом формате.");
+            }
+
+            final RecordReader reader = new RecordReader(channel, stringsOffset, channel.size() - stringsOffset);
+            final long recordsPerWindow = Integer.MAX_VALUE / recordSize;
+
+            for (long first = 0; first < count; first += recordsPerWindow) {
+                final long inWindow = Math.min(recordsPerWindow, count - first);
+                final MappedByteBuffer records = channel.map(FileChannel.MapMode.READ_ONLY,
+                        HEADER_SIZE + first * recordSize, inWindow * recordSize);
+
+                for (int i = 0; i < inWindow; i++) {
+                    reader.at(records, i * recordSize);
+                    consumer.accept(codec.read(reader));
+                }
+            }
+
+            return count;
+        }
+    }
+
+    /**
+     * Запись полей сущности: примитивы – в запись, строки – в область строк.
+     */
+    public static final class RecordWriter {
+
+        private final FileChannel out;
+
+        private final FileChannel strings;
+
+        private final int recordSize;
+
+        private final ByteBuffer records = ByteBuffer.allocate(1 << 16);
+
+        private final ByteBuffer stringBuffer = ByteBuffer.allocate(1 << 16);
+
+        private long stringsPosition;
+
+        private long count;
+
+        private int recordStart;
+
+        private RecordWriter(final FileChannel out, final FileChannel strings, final int recordSize) {
+            this.out = out;
+            this.strings = strings;
+            this.recordSize = recordSize;
+        }
+
+        public RecordWriter putLong(final long value) {
+            records.putLong(value);
+            return this;
+        }
+
+        public RecordWriter putInt(final int value) {
+            records.putInt(value);
+            return this;
+        }
+
+        /**
+         * Записать дату, в том числе {@code null}. Занимает {@link #DATE_SIZE} байт.
+         */
+        public RecordWriter putDate(final @Nullable LocalDate value) {
+            records.putLong(value == null ? NULL_DATE : value.toEpochDay());
+            return this;
+        }
+
+        /**
+         * Записать строку, в том числе {@code null}. Занимает {@link #STRING_SIZE} байт записи.
+         */
+        public RecordWriter putString(final @Nullable String value) {
+            if (value == null) {
+                records.putLong(0).putInt(NULL_LENGTH);
+                return this;
+            }
+
+            final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            records.putLong(stringsPosition).putInt(bytes.length);
+            stringsPosition += bytes.length;
+
+            try {
+                if (bytes.length > stringBuffer.remaining()) {
+                    flushStrings();
+                }
+                if (bytes.length > stringBuffer.capacity()) {
+                    writeFully(strings, ByteBuffer.wrap(bytes));
+                } else {
+                    stringBuffer.put(bytes);
+                }
+            } catch (IOException e) {
+                throw new SnapshotWriteException(e);
+            }
+
+            return this;
+        }
+
+        private void begin() throws IOException {
+            if (records.remaining() < recordSize) {
+                flushRecords();
+            }
+            recordStart = records.position();
+        }
+
+        private void end() {
+            if (records.position() - recordStart != recordSize) {
+                throw new IllegalStateException("Размер записи не совпадает с SnapshotCodec.recordSize().");
+            }
+            count++;
+        }
+
+        private void flush() throws IOException {
+            flushRecords();
+            flushStrings();
+        }
+
+        private void flushRecords() throws IOException {
+            records.flip();
+            writeFully(out, records);
+            records.clear();
+        }
+
+        private void flushStrings() throws IOException {
+            stringBuffer.flip();
+            writeFully(strings, stringBuffer);
+            stringBuffer.clear();
+        }
+
+        private static void writeFully(final FileChannel channel, final ByteBuffer buffer) throws IOException {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+
+    /**
+     * Чтение полей сущности из отображенной памяти.
+     */
+    public static final class RecordReader {
+
+        private final FileChannel channel;
+
+        private final long stringsOffset;
+
+        private final long stringsSize;
+
+        private final MappedByteBuffer[] stringWindows;
+
+        private ByteBuffer records;
+
+        private int position;
+
+        private byte[] scratch = new byte[256];
+
+        private RecordReader(final FileChannel channel, final long stringsOffset, final long stringsSize) {
+            this.channel = channel;
+            this.stringsOffset = stringsOffset;
+            this.stringsSize = stringsSize;
+            this.stringWindows = new MappedByteBuffer[(int) ((stringsSize + STRINGS_WINDOW - 1) / STRINGS_WINDOW)];
+        }
+
+        private void at(final ByteBuffer records, final int position) {
+            this.records = records;
+            this.position = position;
+        }
+
+        public long getLong() {
+            final long value = records.getLong(position);
+            position += Long.BYTES;
+            return value;
+        }
+
+        public int getInt() {
+            final int value = records.getInt(position);
+            position += Integer.BYTES;
+            return value;
+        }
+
+        @Nullable
+        public LocalDate getDate() {
+            final long value = getLong();
+            return value == NULL_DATE ? null : LocalDate.ofEpochDay(value);
+        }
+
+        @Nullable
+        public String getString() {
+            final long offset = getLong();
+            final int length = getInt();
+
+            if (length == NULL_LENGTH) {
+                return null;
+            }
+            if (length == 0) {
+                return "";
+            }
+            if (scratch.length < length) {
+                scratch = new byte[Math.max(length, scratch.length * 2)];
+            }
+
+            try {
+                readString(offset, length);
+            } catch (IOException e) {
+                throw new SnapshotReadException(e);
+            }
+
+            return new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+
+        private void readString(final long offset, final int length) throws IOException {
+            final int windowIndex = (int) (offset / STRINGS_WINDOW);
+            final long windowStart = windowIndex * STRINGS_WINDOW;
+            final MappedByteBuffer window = window(windowIndex);
+
+            if (offset + length <= windowStart + window.capacity()) {
+                window.get((int) (offset - windowStart), scratch, 0, length);
+                return;
+            }
+
+            // строка на стыке окон длиннее перекрытия: читаем из файла напрямую
+            final ByteBuffer target = ByteBuffer.wrap(scratch, 0, length);
+            while (target.hasRemaining()) {
+                if (channel.read(target, stringsOffset + offset + target.position()) < 0) {
+                    throw new IOException("Снимок обрывается в области строк.");
+                }
+            }
+        }
+
+        private MappedByteBuffer window(final int index) throws IOException {
+            if (stringWindows[index] == null) {
+                final long start = index * STRINGS_WINDOW;
+                final long size = Math.min(STRINGS_WINDOW + STRINGS_WINDOW_OVERLAP, stringsSize - start);
+                stringWindows[index] = channel.map(FileChannel.MapMode.READ_ONLY, stringsOffset + start, size);
+            }
+
+            return stringWindows[index];
+        }
+    }
+
+    /**
+     * Ошибка записи строки снимка, пробрасываемая через {@link SnapshotCodec#write}.
+     */
+    public static final class SnapshotWriteException extends RuntimeException {
+        private SnapshotWriteException(final IOException cause) {
+            super(cause);
+        }
+    }
+
+    /**
+     * Ошибка чтения строки снимка, пробрасываемая через {@link SnapshotCodec#read}.
+     */
+    public static final class SnapshotReadException extends RuntimeException {
+        private SnapshotReadException(final IOException cause) {
+            super(cause);
+        }
+    }
+}
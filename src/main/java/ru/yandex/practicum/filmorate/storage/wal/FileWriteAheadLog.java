@@ -0,0 +1,641 @@
+package ru.yandex.practicum.filmorate.storage.wal;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.Nullable;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Журнал упреждающей записи в файлах с групповой фиксацией (group commit) и периодическими снимками.
+ * <p>
+ * Запросы сериализуют сущности в своих потоках и ставят записи в очередь. Единственный поток записи забирает
+ * из очереди все накопившиеся записи, пишет их одним вызовом и один раз вызывает {@code fsync}, после чего
+ * завершает future всех писателей группы. Чем больше одновременных писателей, тем больше записей приходится
+ * на один {@code fsync}.
+ * <p>
+ * Если запись группы не удалась, ее недописанная часть отрезается от сегмента, а если не удалось и это, журнал
+ * переключается на новый сегмент: иначе следующие группы легли бы после оборванных байтов, и восстановление,
+ * остановившись на них, потеряло бы уже подтвержденные записи. Очередь записей ограничена: когда диск
+ * не успевает, писатели ждут места в очереди, а не накапливают записи в памяти.
+ * <p>
+ * Журнал разбит на сегменты {@code wal-N.log}. Снимок {@code snapshot-N.dat} содержит состояние хранилища,
+ * включающее все записи сегментов с номерами меньше N. При создании снимка поток записи сначала переключается
+ * на новый сегмент N, затем обходится хранилище, и после надежного сохранения снимка удаляются старые сегменты
+ * и снимки. Поэтому восстановление читает последний снимок и короткий хвост журнала, а не всю историю.
+ * <p>
+ * Записи журнала хранятся в JSON, а снимок – в двоичном формате {@link BinarySnapshot}, который при старте
+ * читается из отображенного в память файла без разбора JSON.
+ *
+ * @param <T> Тип сущности.
+ */
+@Slf4j
+public final class FileWriteAheadLog<T> implements WriteAheadLog<T> {
+
+    private static final Pattern SEGMENT_FILE = Pattern.compile("wal-(\\d+)\\.log");
+
+    private static final Pattern SNAPSHOT_FILE = Pattern.compile("snapshot-(\\d+)\\.dat");
+
+    /**
+     * Максимальное количество команд, обрабатываемых потоком записи за один {@code fsync}.
+     */
+    private static final int MAX_GROUP_SIZE = 4096;
+
+    /**
+     * Максимальное количество команд в очереди потока записи.
+     */
+    private static final int MAX_QUEUED_COMMANDS = 16 * MAX_GROUP_SIZE;
+
+    /**
+     * Период, с которым писатель, ожидающий места в очереди, проверяет, не остановлен ли поток записи.
+     */
+    private static final long ENQUEUE_WAIT_MILLIS = 100;
+
+    private final Path directory;
+
+    private final ObjectWriter writer;
+
+    private final SnapshotCodec<T> snapshotCodec;
+
+    private final Supplier<? extends Iterable<T>> snapshotSource;
+
+    private final long snapshotThreshold;
+
+    private final SegmentOpener segmentOpener;
+
+    private final BlockingQueue<Command> queue = new LinkedBlockingQueue<>(MAX_QUEUED_COMMANDS);
+
+    private final AtomicLong recordsSinceSnapshot = new AtomicLong();
+
+    private final AtomicLong flushCount = new AtomicLong();
+
+    private final Thread writerThread;
+
+    private final ScheduledExecutorService snapshotScheduler;
+
+    private volatile boolean closed;
+
+    /**
+     * Поток записи остановлен и больше не забирает команды из очереди.
+     */
+    private volatile boolean stopped;
+
+    /**
+     * Ошибка, после которой журнал не может продолжать запись (не удалось ни отрезать недописанную группу,
+     * ни переключиться на новый сегмент).
+     */
+    @Nullable
+    private volatile IOException failure;
+
+    /**
+     * Номер текущего сегмента. Меняется только потоком записи.
+     */
+    private volatile long segment;
+
+    private final Object snapshotLock = new Object();
+
+    /**
+     * Текущий сегмент. Используется только потоком записи.
+     */
+    private FileChannel channel;
+
+    private FileWriteAheadLog(final Path directory,
+                              final ObjectWriter writer,
+                              final SnapshotCodec<T> snapshotCodec,
+                              final Supplier<? extends Iterable<T>> snapshotSource,
+                              final long snapshotThreshold,
+                              final Duration snapshotCheckInterval,
+                              final SegmentOpener segmentOpener,
+                              final long segment) throws IOException {
+        this.directory = directory;
+        this.writer = writer;
+        this.snapshotCodec = snapshotCodec;
+        this.snapshotSource = snapshotSource;
+        this.snapshotThreshold = snapshotThreshold;
+        this.segmentOpener = segmentOpener;
+        this.segment = segment;
+        this.channel = openSegment(segment);
+
+        final String name = "wal-" + directory.getFileName();
+        this.writerThread = new Thread(this::writeLoop, name + "-writer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+
+        this.snapshotScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, name + "-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        final long intervalMillis = snapshotCheckInterval.toMillis();
+        this.snapshotScheduler.scheduleWithFixedDelay(this::snapshotIfNeeded, intervalMillis, intervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Восстановить состояние из каталога и открыть журнал для записи.
+     *
+     * @param directory             Каталог журнала и снимков.
+     * @param type                  Тип сущности.
+     * @param objectMapper          Сериализатор сущностей для записей журнала.
+     * @param snapshotCodec         Формат сущностей в снимке.
+     * @param snapshotSource        Источник текущего состояния хранилища для снимков.
+     * @param snapshotThreshold     Количество записей в журнале, после которого создается снимок.
+     * @param snapshotCheckInterval Период проверки, не пора ли создать снимок.
+     * @param recovered             Получатель восстановленных сущностей (в порядке записи).
+     * @return Открытый журнал.
+     */
+    public static <T> FileWriteAheadLog<T> open(final Path directory,
+                                                final Class<T> type,
+                                                final ObjectMapper objectMapper,
+                                                final SnapshotCodec<T> snapshotCodec,
+                                                final Supplier<? extends Iterable<T>> snapshotSource,
+                                                final long snapshotThreshold,
+                                                final Duration snapshotCheckInterval,
+                                                final Consumer<T> recovered) {
+        return open(directory, type, objectMapper, snapshotCodec, snapshotSource, snapshotThreshold,
+                snapshotCheckInterval, recovered, FileWriteAheadLog::openSegmentFile);
+    }
+
+    /**
+     * @param segmentOpener Открытие сегмента для записи (в тестах – канал, имитирующий ошибки диска).
+     * @see #open(Path, Class, ObjectMapper, SnapshotCodec, Supplier, long, Duration, Consumer)
+     */
+    static <T> FileWriteAheadLog<T> open(final Path directory,
+                                         final Class<T> type,
+                                         final ObjectMapper objectMapper,
+                                         final SnapshotCodec<T> snapshotCodec,
+                                         final Supplier<? extends Iterable<T>> snapshotSource,
+                                         final long snapshotThreshold,
+                                         final Duration snapshotCheckInterval,
+                                         final Consumer<T> recovered,
+                                         final SegmentOpener segmentOpener) {
+        try {
+            Files.createDirectories(directory);
+
+            final ObjectReader reader = objectMapper.readerFor(type);
+            final Consumer<byte[]> decoder = payload -> {
+                try {
+                    recovered.accept(reader.readValue(payload));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            };
+
+            final OptionalLong snapshot = latest(directory, SNAPSHOT_FILE);
+            final long firstSegment = snapshot.orElse(0);
+            if (snapshot.isPresent()) {
+                readSnapshot(snapshotFile(directory, firstSegment), snapshotCodec, recovered);
+            }
+
+            long count = 0;
+            final List<Long> segments = numbers(directory, SEGMENT_FILE);
+            for (final long number : segments) {
+                if (number >= firstSegment) {
+                    RecordFiles.readAndRepair(segmentFile(directory, number), decoder);
+                    count++;
+                }
+            }
+
+            final long lastSegment = segments.isEmpty() ? firstSegment : Math.max(firstSegment, segments.get(segments.size() - 1));
+            log.info("Журнал {} восстановлен: снимок {}, сегментов журнала {}.", directory,
+                    snapshot.isPresent() ? firstSegment : "отсутствует", count);
+
+            return new FileWriteAheadLog<>(directory, objectMapper.writer(), snapshotCodec, snapshotSource, snapshotThreshold,
+                    snapshotCheckInterval, segmentOpener, lastSegment + 1);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось открыть журнал " + directory, e);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> append(final List<T> entities) {
+        if (closed) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Журнал закрыт."));
+        }
+        if (failure != null) {
+            return CompletableFuture.failedFuture(failedException());
+        }
+
+        final List<byte[]> payloads = new ArrayList<>(entities.size());
+        try {
+            for (final T entity : entities) {
+                payloads.add(writer.writeValueAsBytes(entity));
+            }
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+        try {
+            enqueue(new Command(Command.Type.APPEND, payloads, future));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(e);
+        }
+
+        return future;
+    }
+
+    /**
+     * Поставить команду в очередь, дождавшись в ней места.
+     * <p>
+     * Если поток записи уже остановлен, команда завершается ошибкой: иначе ее future никто бы не завершил.
+     */
+    private void enqueue(final Command command) throws InterruptedException {
+        while (!queue.offer(command, ENQUEUE_WAIT_MILLIS, TimeUnit.MILLISECONDS)) {
+            if (stopped) {
+                command.future.completeExceptionally(new IllegalStateException("Журнал закрыт."));
+                return;
+            }
+        }
+
+        if (stopped) {
+            failPending(new ArrayList<>());
+        }
+    }
+
+    /**
+     * Создать снимок и удалить ставшие ненужными сегменты журнала.
+     */
+    public void snapshot() {
+        synchronized (snapshotLock) {
+            writeSnapshot();
+        }
+    }
+
+    /**
+     * Ошибка снимка, в том числе неожиданная ошибка кодека или источника, только записывается в лог: задача снимков
+     * по расписанию, завершившись исключением, больше не запускалась бы.
+     */
+    private void writeSnapshot() {
+        final long recordsBefore = recordsSinceSnapshot.get();
+        Path tmp = null;
+
+        try {
+            final CompletableFuture<Void> rotated = new CompletableFuture<>();
+            enqueue(new Command(Command.Type.ROTATE, List.of(), rotated));
+            rotated.join();
+
+            // после переключения все записи старых сегментов уже применены к хранилищу, обход их увидит
+            final long snapshotSegment = segment;
+            final Path snapshot = snapshotFile(directory, snapshotSegment);
+            tmp = snapshot.resolveSibling(snapshot.getFileName() + ".tmp");
+
+            final long written;
+            try {
+                written = BinarySnapshot.write(tmp, snapshotCodec, snapshotSource.get());
+            } catch (BinarySnapshot.SnapshotWriteException e) {
+                throw (IOException) e.getCause();
+            }
+
+            Files.move(tmp, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            // иначе после сбоя могло бы сохраниться удаление сегментов, но не новый снимок
+            RecordFiles.forceDirectory(directory);
+            deleteOlderThan(snapshotSegment);
+            recordsSinceSnapshot.addAndGet(-recordsBefore);
+
+            log.info("Создан снимок {}: {} записей.", snapshot, written);
+        } catch (IOException | RuntimeException e) {
+            log.error("Не удалось создать снимок в {}.", directory, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            deleteTemporary(tmp);
+        }
+    }
+
+    /**
+     * Удалить недописанный временный файл снимка, если он остался после ошибки.
+     */
+    private static void deleteTemporary(final @Nullable Path tmp) {
+        if (tmp == null) {
+            return;
+        }
+
+        try {
+            Files.deleteIfExists(tmp);
+        } catch (IOException e) {
+            log.warn("Не удалось удалить временный файл снимка {}.", tmp, e);
+        }
+    }
+
+    private static <T> void readSnapshot(final Path file, final SnapshotCodec<T> codec, final Consumer<T> recovered)
+            throws IOException {
+        try {
+            BinarySnapshot.read(file, codec, recovered);
+        } catch (BinarySnapshot.SnapshotReadException e) {
+            throw (IOException) e.getCause();
+        }
+    }
+
+    /**
+     * Количество выполненных {@code fsync} журнала.
+     */
+    public long getFlushCount() {
+        return flushCount.get();
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        snapshotScheduler.shutdownNow();
+        try {
+            enqueue(new Command(Command.Type.STOP, List.of(), new CompletableFuture<>()));
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void snapshotIfNeeded() {
+        if (recordsSinceSnapshot.get() >= snapshotThreshold) {
+            snapshot();
+        }
+    }
+
+    private void writeLoop() {
+        final List<Command> group = new ArrayList<>();
+
+        // после остановки в группе остаются необработанные команды, они завершаются ошибкой
+        try {
+            boolean running = true;
+            while (running) {
+                group.add(queue.take());
+                queue.drainTo(group, MAX_GROUP_SIZE - 1);
+                running = process(group);
+                if (running) {
+                    group.clear();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            stopped = true;
+            failPending(group);
+            closeChannel();
+        }
+    }
+
+    /**
+     * Записать группу команд: все записи до переключения сегмента фиксируются одним {@code fsync}.
+     *
+     * @return {@code false}, если получена команда остановки.
+     */
+    private boolean process(final List<Command> group) {
+        final List<byte[]> payloads = new ArrayList<>();
+        final List<CompletableFuture<Void>> waiting = new ArrayList<>();
+
+        for (int i = 0; i < group.size(); i++) {
+            final Command command = group.get(i);
+            switch (command.type) {
+                case APPEND:
+                    payloads.addAll(command.payloads);
+                    waiting.add(command.future);
+                    break;
+                case ROTATE:
+                    flush(payloads, waiting);
+                    rotate(command.future);
+                    break;
+                case STOP:
+                    flush(payloads, waiting);
+                    group.subList(0, i + 1).clear();
+                    return false;
+            }
+        }
+
+        flush(payloads, waiting);
+
+        return true;
+    }
+
+    private void flush(final List<byte[]> payloads, final List<CompletableFuture<Void>> waiting) {
+        if (waiting.isEmpty()) {
+            return;
+        }
+
+        if (failure != null) {
+            final IllegalStateException failedException = failedException();
+            waiting.forEach(future -> future.completeExceptionally(failedException));
+        } else {
+            write(payloads, waiting);
+        }
+
+        payloads.clear();
+        waiting.clear();
+    }
+
+    private void write(final List<byte[]> payloads, final List<CompletableFuture<Void>> waiting) {
+        long start = -1;
+        try {
+            start = channel.size();
+            final ByteBuffer buffer = RecordFiles.encode(payloads);
+            RecordFiles.writeFully(channel, buffer);
+            channel.force(false);
+            flushCount.incrementAndGet();
+            recordsSinceSnapshot.addAndGet(payloads.size());
+
+            waiting.forEach(future -> future.complete(null));
+        } catch (IOException e) {
+            log.error("Не удалось записать журнал {}.", directory, e);
+            if (start >= 0) {
+                rollBack(start);
+            }
+            waiting.forEach(future -> future.completeExceptionally(e));
+        }
+    }
+
+    /**
+     * Убрать из сегмента недописанную группу, начинающуюся со смещения {@code start}.
+     * <p>
+     * Если сегмент не удается обрезать, запись продолжается в новом сегменте: оборванный хвост старого
+     * отрежет восстановление, не задев следующих сегментов. Если не удается и это, журнал отклоняет
+     * все следующие записи.
+     */
+    private void rollBack(final long start) {
+        try {
+            channel.truncate(start);
+            channel.position(start);
+            return;
+        } catch (IOException e) {
+            log.error("Не удалось отрезать недописанную группу от сегмента журнала {}.", segment, e);
+        }
+
+        try {
+            switchSegment();
+        } catch (IOException e) {
+            log.error("Не удалось переключить журнал {} на новый сегмент, запись остановлена.", directory, e);
+            failure = e;
+        }
+    }
+
+    private void rotate(final CompletableFuture<Void> rotated) {
+        try {
+            switchSegment();
+            rotated.complete(null);
+        } catch (IOException e) {
+            rotated.completeExceptionally(e);
+        }
+    }
+
+    private void switchSegment() throws IOException {
+        final FileChannel next = openSegment(segment + 1);
+        closeChannel();
+        channel = next;
+        segment++;
+    }
+
+    private IllegalStateException failedException() {
+        return new IllegalStateException("Журнал " + directory + " остановлен после ошибки записи.", failure);
+    }
+
+    private void failPending(final List<Command> group) {
+        queue.drainTo(group);
+        final IllegalStateException closedException = new IllegalStateException("Журнал закрыт.");
+        group.forEach(command -> command.future.completeExceptionally(closedException));
+    }
+
+    private void closeChannel() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.warn("Не удалось закрыть сегмент журнала {}.", segment, e);
+        }
+    }
+
+    /**
+     * Открыть новый сегмент. Каталог сбрасывается на диск, чтобы файл сегмента пережил сбой вместе
+     * с записями, которые в него будут подтверждены.
+     */
+    private FileChannel openSegment(final long number) throws IOException {
+        final FileChannel segmentChannel = segmentOpener.open(segmentFile(directory, number));
+        try {
+            RecordFiles.forceDirectory(directory);
+        } catch (IOException e) {
+            segmentChannel.close();
+            throw e;
+        }
+
+        return segmentChannel;
+    }
+
+    private static FileChannel openSegmentFile(final Path file) throws IOException {
+        return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private void deleteOlderThan(final long snapshotSegment) throws IOException {
+        for (final long number : numbers(directory, SEGMENT_FILE)) {
+            if (number < snapshotSegment) {
+                Files.deleteIfExists(segmentFile(directory, number));
+            }
+        }
+        for (final long number : numbers(directory, SNAPSHOT_FILE)) {
+            if (number < snapshotSegment) {
+                Files.deleteIfExists(snapshotFile(directory, number));
+            }
+        }
+    }
+
+    private static Path segmentFile(final Path directory, final long number) {
+        return directory.resolve(String.format("wal-%020d.log", number));
+    }
+
+    private static Path snapshotFile(final Path directory, final long number) {
+        return directory.resolve(String.format("snapshot-%020d.dat", number));
+    }
+
+    private static OptionalLong latest(final Path directory, final Pattern pattern) throws IOException {
+        final List<Long> numbers = numbers(directory, pattern);
+
+        return numbers.isEmpty() ? OptionalLong.empty() : OptionalLong.of(numbers.get(numbers.size() - 1));
+    }
+
+    /**
+     * Номера файлов каталога, подходящих под шаблон, по возрастанию.
+     */
+    private static List<Long> numbers(final Path directory, final Pattern pattern) throws IOException {
+        final List<Long> numbers = new ArrayList<>();
+
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(file -> {
+                final Matcher matcher = pattern.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    numbers.add(Long.parseLong(matcher.group(1)));
+                }
+            });
+        }
+        numbers.sort(null);
+
+        return numbers;
+    }
+
+    /**
+     * Открытие файла сегмента для дописывания.
+     */
+    @FunctionalInterface
+    interface SegmentOpener {
+
+        FileChannel open(Path file) throws IOException;
+    }
+
+    /**
+     * Команда потоку записи.
+     */
+    private static final class Command {
+
+        private enum Type {
+            /**
+             * Записать {@link #payloads}.
+             */
+            APPEND,
+            /**
+             * Переключиться на новый сегмент.
+             */
+            ROTATE,
+            /**
+             * Записать все предыдущие команды и остановиться.
+             */
+            STOP
+        }
+
+        private final Type type;
+
+        private final List<byte[]> payloads;
+
+        private final CompletableFuture<Void> future;
+
+        private Command(final Type type, final List<byte[]> payloads, final CompletableFuture<Void> future) {
+            this.type = type;
+            this.payloads = payloads;
+            this.future = future;
+        }
+    }
+}
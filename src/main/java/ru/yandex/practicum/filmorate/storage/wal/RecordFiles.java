@@ -0,0 +1,130 @@
+package ru.yandex.practicum.filmorate.storage.wal;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Формат файлов журнала и снимков: последовательность записей {@code [длина:int][crc32:int][данные]}.
+ * <p>
+ * Контрольная сумма позволяет отличить запись, оборванную падением процесса, от целой: чтение останавливается
+ * на первой поврежденной записи.
+ */
+@Slf4j
+final class RecordFiles {
+
+    /**
+     * Размер заголовка записи: длина и контрольная сумма.
+     */
+    static final int HEADER_SIZE = Integer.BYTES * 2;
+
+    private RecordFiles() {
+    }
+
+    /**
+     * Сложить записи в один буфер для записи одним системным вызовом.
+     */
+    static ByteBuffer encode(final List<byte[]> payloads) {
+        int size = 0;
+        for (final byte[] payload : payloads) {
+            size += HEADER_SIZE + payload.length;
+        }
+
+        final ByteBuffer buffer = ByteBuffer.allocate(size);
+        final CRC32 crc = new CRC32();
+        for (final byte[] payload : payloads) {
+            crc.reset();
+            crc.update(payload);
+            buffer.putInt(payload.length).putInt((int) crc.getValue()).put(payload);
+        }
+
+        return buffer.flip();
+    }
+
+    /**
+     * Записать буфер целиком.
+     */
+    static void writeFully(final FileChannel channel, final ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Сбросить на диск каталог: после этого созданные, переименованные и удаленные в нем файлы переживают сбой.
+     */
+    static void forceDirectory(final Path directory) throws IOException {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Прочитать все целые записи файла.
+     *
+     * @param file     Файл.
+     * @param consumer Получатель данных записей.
+     * @return Смещение конца последней целой записи.
+     */
+    static long read(final Path file, final Consumer<byte[]> consumer) throws IOException {
+        long position = 0;
+        final CRC32 crc = new CRC32();
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            while (true) {
+                final int length;
+                final int checksum;
+                final byte[] payload;
+                try {
+                    length = in.readInt();
+                    checksum = in.readInt();
+                    if (length < 0) {
+                        break;
+                    }
+                    payload = in.readNBytes(length);
+                } catch (EOFException e) {
+                    break;
+                }
+
+                crc.reset();
+                crc.update(payload);
+                if (payload.length != length || (int) crc.getValue() != checksum) {
+                    break;
+                }
+
+                consumer.accept(payload);
+                position += HEADER_SIZE + length;
+            }
+        }
+
+        return position;
+    }
+
+    /**
+     * Прочитать журнал и отрезать оборванный хвост, если он есть.
+     *
+     * @see #read(Path, Consumer)
+     */
+    static void readAndRepair(final Path file, final Consumer<byte[]> consumer) throws IOException {
+        final long validLength = read(file, consumer);
+
+        if (validLength < Files.size(file)) {
+            log.warn("Журнал {} поврежден после смещения {}, хвост отброшен.", file, validLength);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.truncate(validLength);
+                channel.force(true);
+            }
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package ru.yandex.practicum.filmorate.storage.wal;
+
+/**
+ * Двоичное представление сущности в снимке {@link BinarySnapshot}.
+ * <p>
+ * Поля записываются и читаются в одном и том же порядке. Размер записи фиксирован: примитивные поля лежат
+ * в самой записи, строки – в отдельной области снимка, а в записи хранится только ссылка на них.
+ *
+ * @param <T> Тип сущности.
+ */
+public interface SnapshotCodec<T> {
+
+    /**
+     * Размер записи в байтах.
+     *
+     * @return Сумма размеров полей, записываемых {@link #write(Object, BinarySnapshot.RecordWriter)}.
+     * @see BinarySnapshot.RecordWriter
+     */
+    int recordSize();
+
+    /**
+     * Записать поля сущности.
+     */
+    void write(T entity, BinarySnapshot.RecordWriter out);
+
+    /**
+     * Прочитать поля сущности в том же порядке, в каком они записаны.
+     */
+    T read(BinarySnapshot.RecordReader in);
+}
@@ -0,0 +1,68 @@
+package ru.yandex.practicum.filmorate.storage.wal;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Журнал упреждающей записи (write-ahead log) для хранилищ в памяти.
+ * <p>
+ * Каждая запись – полная версия сущности после изменения, поэтому восстановление сводится к повторной
+ * записи сущностей в хранилище в порядке журнала.
+ *
+ * @param <T> Тип сущности.
+ */
+public interface WriteAheadLog<T> extends AutoCloseable {
+
+    /**
+     * Поставить сущности в очередь на запись в журнал.
+     * <p>
+     * Порядок записей в журнале совпадает с порядком вызовов. Вызывающий должен гарантировать, что изменения
+     * одной сущности попадают в журнал в том же порядке, что и в хранилище.
+     *
+     * @param entities Новые версии сущностей.
+     * @return Future, завершающееся после того, как записи надежно сохранены на диск.
+     */
+    CompletableFuture<Void> append(List<T> entities);
+
+    /**
+     * Поставить сущность в очередь на запись в журнал.
+     *
+     * @see #append(List)
+     */
+    default CompletableFuture<Void> append(T entity) {
+        return append(List.of(entity));
+    }
+
+    @Override
+    void close();
+
+    /**
+     * Журнал, который ничего не сохраняет (хранилище только в памяти).
+     */
+    @SuppressWarnings("unchecked")
+    static <T> WriteAheadLog<T> disabled() {
+        return (WriteAheadLog<T>) DisabledWriteAheadLog.INSTANCE;
+    }
+
+    /**
+     * @see #disabled()
+     */
+    final class DisabledWriteAheadLog implements WriteAheadLog<Object> {
+
+        private static final DisabledWriteAheadLog INSTANCE = new DisabledWriteAheadLog();
+
+        private static final CompletableFuture<Void> DONE = CompletableFuture.completedFuture(null);
+
+        private DisabledWriteAheadLog() {
+        }
+
+        @Override
+        public CompletableFuture<Void> append(final List<Object> entities) {
+            return DONE;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package ru.yandex.practicum.filmorate.storage.wal;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.yandex.practicum.filmorate.exceptions.DuplicateValueException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Like;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.filmstorage.FilmSnapshotCodec;
+import ru.yandex.practicum.filmorate.storage.filmstorage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.friendstorage.FriendStorage;
+import ru.yandex.practicum.filmorate.storage.friendstorage.FriendshipChange;
+import ru.yandex.practicum.filmorate.storage.friendstorage.FriendshipSnapshotCodec;
+import ru.yandex.practicum.filmorate.storage.likestorage.LikeSnapshotCodec;
+import ru.yandex.practicum.filmorate.storage.likestorage.LikeStorage;
+import ru.yandex.practicum.filmorate.storage.userstorage.UserSnapshotCodec;
+import ru.yandex.practicum.filmorate.storage.userstorage.UserStorage;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Журналы фильмов и пользователей.
+ * <p>
+ * Если {@code filmorate.storage.directory} задан, при создании журнала хранилище восстанавливается из снимка
+ * и журнала в подкаталогах {@code films}, {@code users}, {@code likes}
+ * и {@code friends}. Иначе данные хранятся только в памяти.
+ * <p>
+ * Настройки:
+ * <ul>
+ *     <li>{@code filmorate.wal.snapshot-threshold} – количество записей в журнале, после которого создается снимок;</li>
+ *     <li>{@code filmorate.wal.snapshot-check-interval} – период проверки, не пора ли создать снимок.</li>
+ * </ul>
+ * <p>
+ * Журнал пользователей, записанный до появления уникальных индексов, может содержать пользователей с одинаковой
+ * электронной почтой или логином: при восстановлении такие записи пропускаются с предупреждением.
+ */
+@Slf4j
+@Configuration
+public class WriteAheadLogConfiguration {
+
+    @Value("${filmorate.storage.directory:}")
+    private String directory;
+
+    @Value("${filmorate.wal.snapshot-threshold:100000}")
+    private long snapshotThreshold;
+
+    @Value("${filmorate.wal.snapshot-check-interval:1m}")
+    private Duration snapshotCheckInterval;
+
+    @Bean
+    public WriteAheadLog<Film> filmWriteAheadLog(final FilmStorage storage, final ObjectMapper objectMapper) {
+        if (directory.isBlank()) {
+            return WriteAheadLog.disabled();
+        }
+
+        return FileWriteAheadLog.open(Path.of(directory, "films"), Film.class, objectMapper,
+                new FilmSnapshotCodec(), storage::findAll,
+                snapshotThreshold, snapshotCheckInterval, film -> {
+                    if (!storage.add(film)) {
+                        storage.update(film);
+                    }
+                });
+    }
+
+    @Bean
+    public WriteAheadLog<User> userWriteAheadLog(final UserStorage storage, final ObjectMapper objectMapper) {
+        if (directory.isBlank()) {
+            return WriteAheadLog.disabled();
+        }
+
+        return FileWriteAheadLog.open(Path.of(directory, "users"), User.class, objectMapper,
+                new UserSnapshotCodec(), storage::findAll,
+                snapshotThreshold, snapshotCheckInterval, user -> {
+                    try {
+                        if (!storage.add(user)) {
+                            storage.update(user);
+                        }
+                    } catch (DuplicateValueException e) {
+                        log.warn("Пользователь {} из журнала пропущен: {}", user, e.getMessage());
+                    }
+                });
+    }
+
+    @Bean
+    public WriteAheadLog<Like> likeWriteAheadLog(final LikeStorage storage, final ObjectMapper objectMapper) {
+        if (directory.isBlank()) {
+            return WriteAheadLog.disabled();
+        }
+
+        return FileWriteAheadLog.open(Path.of(directory, "likes"), Like.class, objectMapper,
+                new LikeSnapshotCodec(), storage::findAll,
+                snapshotThreshold, snapshotCheckInterval, like -> storage.add(like.getFilmId(), like.getUserId()));
+    }
+
+    @Bean
+    public WriteAheadLog<FriendshipChange> friendWriteAheadLog(final FriendStorage storage,
+                                                               final ObjectMapper objectMapper) {
+        if (directory.isBlank()) {
+            return WriteAheadLog.disabled();
+        }
+
+        return FileWriteAheadLog.open(Path.of(directory, "friends"), FriendshipChange.class, objectMapper,
+                new FriendshipSnapshotCodec(), storage::findAll,
+                snapshotThreshold, snapshotCheckInterval, change -> change.applyTo(storage));
+    }
+}
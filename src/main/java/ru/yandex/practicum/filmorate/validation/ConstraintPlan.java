@@ -0,0 +1,24 @@
+package ru.yandex.practicum.filmorate.validation;
+
+/**
+ * Заранее собранная проверка ограничений одной модели без рефлексии и без создания объектов.
+ * <p>
+ * План отвечает только на вопрос «объект точно валиден?»: {@code true} допустимо лишь для объекта, который
+ * Bean Validation тоже признает валидным. При {@code false} объект проверяется исходным валидатором, поэтому
+ * план может быть строже, чем ограничения, – это замедлит проверку, но не изменит ее результат и сообщения.
+ *
+ * @param <T> Проверяемая модель.
+ */
+interface ConstraintPlan<T> {
+
+    /**
+     * @return Класс проверяемой модели.
+     */
+    Class<T> type();
+
+    /**
+     * @param object Проверяемый объект.
+     * @return {@code true}, если объект точно удовлетворяет всем ограничениям группы по умолчанию.
+     */
+    boolean isValid(T object);
+}
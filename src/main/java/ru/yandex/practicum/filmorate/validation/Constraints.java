@@ -0,0 +1,78 @@
+package ru.yandex.practicum.filmorate.validation;
+
+import javax.validation.Validator;
+import javax.validation.groups.Default;
+import javax.validation.metadata.BeanDescriptor;
+import javax.validation.metadata.ConstraintDescriptor;
+import javax.validation.metadata.PropertyDescriptor;
+import java.lang.annotation.Annotation;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Ограничения полей класса, как их видит Bean Validation, для сборки {@link ConstraintPlan}.
+ * <p>
+ * План забирает каждое поддерживаемое ограничение через {@link #take(String, Class)} и в конце вызывает
+ * {@link #requireAllTaken()}. Так план, отставший от аннотаций модели (ограничение добавлено, удалено или
+ * перенесено в другую группу), не соберется, и приложение не запустится вместо того, чтобы молча пропускать
+ * проверку.
+ */
+final class Constraints {
+
+    private final Class<?> type;
+
+    /**
+     * Не забранные планом ограничения по ключу {@code свойство@Аннотация}.
+     */
+    private final Map<String, Annotation> annotations = new HashMap<>();
+
+    Constraints(final Validator validator, final Class<?> type) {
+        this.type = type;
+
+        final BeanDescriptor bean = validator.getConstraintsForClass(type);
+        if (!bean.getConstraintDescriptors().isEmpty()) {
+            throw new IllegalStateException("Ограничения уровня класса " + type.getSimpleName() + " не поддерживаются.");
+        }
+
+        for (final PropertyDescriptor property : bean.getConstrainedProperties()) {
+            for (final ConstraintDescriptor<?> constraint : property.getConstraintDescriptors()) {
+                if (!constraint.getGroups().equals(Set.of(Default.class))) {
+                    throw new IllegalStateException("Ограничение " + constraint.getAnnotation() + " поля "
+                            + property.getPropertyName() + " вне группы по умолчанию не поддерживается.");
+                }
+                annotations.put(key(property.getPropertyName(), constraint.getAnnotation().annotationType()),
+                        constraint.getAnnotation());
+            }
+        }
+    }
+
+    /**
+     * Забрать ограничение поля.
+     *
+     * @throws IllegalStateException Поле не имеет такого ограничения.
+     */
+    <A extends Annotation> A take(final String property, final Class<A> annotationType) {
+        final Annotation annotation = annotations.remove(key(property, annotationType));
+        if (annotation == null) {
+            throw new IllegalStateException("Поле " + type.getSimpleName() + "." + property + " не имеет ограничения "
+                    + annotationType.getSimpleName() + ".");
+        }
+
+        return annotationType.cast(annotation);
+    }
+
+    /**
+     * @throws IllegalStateException Остались ограничения, которые план не проверяет.
+     */
+    void requireAllTaken() {
+        if (!annotations.isEmpty()) {
+            throw new IllegalStateException("Ограничения " + annotations.keySet() + " класса " + type.getSimpleName()
+                    + " не поддерживаются заранее собранной проверкой.");
+        }
+    }
+
+    private static String key(final String property, final Class<? extends Annotation> annotationType) {
+        return property + '@' + annotationType.getSimpleName();
+    }
+}
@@ -0,0 +1,53 @@
+package ru.yandex.practicum.filmorate.validation;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import util.validators.isafter.IsAfter;
+import util.validators.isafter.IsAfterValidator;
+
+import javax.validation.Validator;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.Size;
+
+/**
+ * Ограничения {@link Film}: границы берутся из аннотаций модели один раз при создании.
+ */
+final class FilmConstraintPlan implements ConstraintPlan<Film> {
+
+    private final int descriptionMinLength;
+
+    private final int descriptionMaxLength;
+
+    private final IsAfterValidator releaseDate = new IsAfterValidator();
+
+    private final long minDuration;
+
+    FilmConstraintPlan(final Validator validator) {
+        final Constraints constraints = new Constraints(validator, Film.class);
+
+        constraints.take("name", NotBlank.class);
+        final Size description = constraints.take("description", Size.class);
+        descriptionMinLength = description.min();
+        descriptionMaxLength = description.max();
+        releaseDate.initialize(constraints.take("releaseDate", IsAfter.class));
+        minDuration = constraints.take("duration", Min.class).value();
+
+        constraints.requireAllTaken();
+    }
+
+    @Override
+    public Class<Film> type() {
+        return Film.class;
+    }
+
+    @Override
+    public boolean isValid(final Film film) {
+        final String description = film.getDescription();
+
+        return Strings.isNotBlank(film.getName())
+                && (description == null
+                || description.length() >= descriptionMinLength && description.length() <= descriptionMaxLength)
+                && releaseDate.isValid(film.getReleaseDate(), null)
+                && film.getDuration() >= minDuration;
+    }
+}
@@ -0,0 +1,87 @@
+package ru.yandex.practicum.filmorate.validation;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import javax.validation.executable.ExecutableValidator;
+import javax.validation.metadata.BeanDescriptor;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Валидатор с быстрой проверкой {@link ru.yandex.practicum.filmorate.model.Film} и
+ * {@link ru.yandex.practicum.filmorate.model.User}.
+ * <p>
+ * Для моделей с заранее собранным планом ({@link ConstraintPlan}) проверка группы по умолчанию выполняется
+ * планом: без рефлексии, метаданных Hibernate Validator и создания объектов, а результат – общее неизменяемое
+ * пустое множество. Если план не может подтвердить валидность, объект проверяется исходным валидатором, поэтому
+ * нарушения и сообщения об ошибках такие же, как без быстрой проверки. Остальные классы, группы и методы
+ * передаются исходному валидатору без изменений.
+ * <p>
+ * Планы собираются из метаданных исходного валидатора при создании; если аннотации модели разошлись с планом,
+ * конструктор выбрасывает {@link IllegalStateException}.
+ */
+public final class PrecompiledValidator implements Validator {
+
+    private final Validator delegate;
+
+    private final Map<Class<?>, ConstraintPlan<?>> plans = new IdentityHashMap<>();
+
+    /**
+     * @param delegate Исходный валидатор Bean Validation.
+     */
+    public PrecompiledValidator(final Validator delegate) {
+        this.delegate = delegate;
+        for (final ConstraintPlan<?> plan : List.of(new FilmConstraintPlan(delegate), new UserConstraintPlan(delegate))) {
+            plans.put(plan.type(), plan);
+        }
+    }
+
+    @Override
+    public <T> Set<ConstraintViolation<T>> validate(final T object, final Class<?>... groups) {
+        if (groups.length == 0 && isValid(object)) {
+            return Collections.emptySet();
+        }
+
+        return delegate.validate(object, groups);
+    }
+
+    @Override
+    public <T> Set<ConstraintViolation<T>> validateProperty(final T object,
+                                                            final String propertyName,
+                                                            final Class<?>... groups) {
+        return delegate.validateProperty(object, propertyName, groups);
+    }
+
+    @Override
+    public <T> Set<ConstraintViolation<T>> validateValue(final Class<T> beanType,
+                                                         final String propertyName,
+                                                         final Object value,
+                                                         final Class<?>... groups) {
+        return delegate.validateValue(beanType, propertyName, value, groups);
+    }
+
+    @Override
+    public BeanDescriptor getConstraintsForClass(final Class<?> clazz) {
+        return delegate.getConstraintsForClass(clazz);
+    }
+
+    @Override
+    public <T> T unwrap(final Class<T> type) {
+        return delegate.unwrap(type);
+    }
+
+    @Override
+    public ExecutableValidator forExecutables() {
+        return delegate.forExecutables();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> boolean isValid(final T object) {
+        final ConstraintPlan<T> plan = (ConstraintPlan<T>) plans.get(object.getClass());
+
+        return plan != null && plan.isValid(object);
+    }
+}
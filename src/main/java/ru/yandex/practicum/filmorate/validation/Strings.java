@@ -0,0 +1,126 @@
+package ru.yandex.practicum.filmorate.validation;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * Проверки строк для {@link ConstraintPlan} без регулярных выражений и без создания объектов.
+ */
+final class Strings {
+
+    /**
+     * Наибольшая длина локальной части адреса в Hibernate Validator.
+     */
+    private static final int MAX_EMAIL_LOCAL_PART_LENGTH = 64;
+
+    /**
+     * Наибольшая длина домена адреса в Hibernate Validator.
+     */
+    private static final int MAX_EMAIL_DOMAIN_LENGTH = 255;
+
+    /**
+     * Наибольшая длина метки домена ({@link java.net.IDN#toASCII(String)}).
+     */
+    private static final int MAX_DOMAIN_LABEL_LENGTH = 63;
+
+    private Strings() {
+    }
+
+    /**
+     * То же, что {@code @NotBlank}: после {@link String#trim()} остается хотя бы один символ.
+     */
+    static boolean isNotBlank(final @Nullable String value) {
+        if (value == null) {
+            return false;
+        }
+
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > ' ') {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * То же, что {@code @Pattern(regexp = "^\\w+$")} без флагов: непустая строка из {@code [a-zA-Z_0-9]}.
+     */
+    static boolean isWord(final String value) {
+        if (value.isEmpty()) {
+            return false;
+        }
+
+        for (int i = 0; i < value.length(); i++) {
+            if (!isAsciiLetterOrDigit(value.charAt(i)) && value.charAt(i) != '_') {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Адрес электронной почты в простой форме {@code atom(.atom)*@label(.label)*} из латиницы, цифр и
+     * {@code _+-} в локальной части и латиницы, цифр и внутренних дефисов в метках домена.
+     * <p>
+     * Каждый такой адрес Hibernate Validator ({@code @Email}) признает валидным, обратное неверно: кавычки,
+     * IP-адреса, национальные символы и редкие знаки не распознаются, и такие адреса проверяются исходным
+     * валидатором.
+     */
+    static boolean isSimpleEmail(final String value) {
+        final int at = value.lastIndexOf('@');
+        if (at <= 0 || at > MAX_EMAIL_LOCAL_PART_LENGTH || value.length() - at - 1 > MAX_EMAIL_DOMAIN_LENGTH) {
+            return false;
+        }
+
+        return isDotAtoms(value, 0, at) && isDomain(value, at + 1, value.length());
+    }
+
+    /**
+     * Непустые атомы из {@code [a-zA-Z0-9_+-]}, разделенные одной точкой.
+     */
+    private static boolean isDotAtoms(final String value, final int from, final int to) {
+        boolean atomStart = true;
+        for (int i = from; i < to; i++) {
+            final char c = value.charAt(i);
+            if (c == '.') {
+                if (atomStart) {
+                    return false;
+                }
+                atomStart = true;
+            } else if (isAsciiLetterOrDigit(c) || c == '_' || c == '+' || c == '-') {
+                atomStart = false;
+            } else {
+                return false;
+            }
+        }
+
+        return !atomStart;
+    }
+
+    /**
+     * Метки из {@code [a-zA-Z0-9-]} длиной до 63 символов, не начинающиеся и не заканчивающиеся дефисом,
+     * разделенные одной точкой.
+     */
+    private static boolean isDomain(final String value, final int from, final int to) {
+        int labelStart = from;
+        for (int i = from; i <= to; i++) {
+            if (i == to || value.charAt(i) == '.') {
+                final int length = i - labelStart;
+                if (length == 0 || length > MAX_DOMAIN_LABEL_LENGTH
+                        || value.charAt(labelStart) == '-' || value.charAt(i - 1) == '-') {
+                    return false;
+                }
+                labelStart = i + 1;
+            } else if (!isAsciiLetterOrDigit(value.charAt(i)) && value.charAt(i) != '-') {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static boolean isAsciiLetterOrDigit(final char c) {
+        return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9';
+    }
+}
@@ -0,0 +1,73 @@
+package ru.yandex.practicum.filmorate.validation;
+
+import ru.yandex.practicum.filmorate.model.User;
+
+import javax.validation.Validator;
+import javax.validation.constraints.Email;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.PastOrPresent;
+import javax.validation.constraints.Pattern;
+import java.time.LocalDate;
+
+/**
+ * Ограничения {@link User}.
+ * <p>
+ * Сегодняшняя дата для {@code @PastOrPresent} запоминается и обновляется, только когда дата рождения оказывается
+ * позже запомненной: запомненная дата не бывает позже настоящей, поэтому устаревшее значение лишь отправляет
+ * проверку к исходному валидатору.
+ */
+final class UserConstraintPlan implements ConstraintPlan<User> {
+
+    /**
+     * Выражение {@code @Pattern} логина, которое проверяет {@link Strings#isWord(String)}.
+     */
+    private static final String LOGIN_PATTERN = "^\\w+$";
+
+    /**
+     * Выражение {@code @Email} по умолчанию: дополнительной проверки нет.
+     */
+    private static final String ANY_EMAIL_PATTERN = ".*";
+
+    private volatile long today = LocalDate.now().toEpochDay();
+
+    UserConstraintPlan(final Validator validator) {
+        final Constraints constraints = new Constraints(validator, User.class);
+
+        final Email email = constraints.take("email", Email.class);
+        if (!email.regexp().equals(ANY_EMAIL_PATTERN) || email.flags().length > 0) {
+            throw new IllegalStateException("Выражение @Email электронной почты не поддерживается: " + email.regexp());
+        }
+        constraints.take("login", NotBlank.class);
+        final Pattern login = constraints.take("login", Pattern.class);
+        if (!login.regexp().equals(LOGIN_PATTERN) || login.flags().length > 0) {
+            throw new IllegalStateException("Выражение @Pattern логина не поддерживается: " + login.regexp());
+        }
+        constraints.take("birthday", PastOrPresent.class);
+
+        constraints.requireAllTaken();
+    }
+
+    @Override
+    public Class<User> type() {
+        return User.class;
+    }
+
+    @Override
+    public boolean isValid(final User user) {
+        final String email = user.getEmail();
+
+        return (email == null || email.isEmpty() || Strings.isSimpleEmail(email))
+                && user.getLogin() != null && Strings.isWord(user.getLogin())
+                && (user.getBirthday() == null || isPastOrPresent(user.getBirthday()));
+    }
+
+    private boolean isPastOrPresent(final LocalDate date) {
+        if (date.toEpochDay() <= today) {
+            return true;
+        }
+
+        today = LocalDate.now().toEpochDay();
+
+        return date.toEpochDay() <= today;
+    }
+}
@@ -0,0 +1,37 @@
+package ru.yandex.practicum.filmorate.validation;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.validation.MessageInterpolatorFactory;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
+import ru.yandex.practicum.filmorate.metrics.CountingValidator;
+
+import javax.validation.Validator;
+
+/**
+ * Валидатор для сервисов и {@code @Valid} в контроллерах: быстрая проверка моделей
+ * ({@link PrecompiledValidator}) поверх Bean Validation со счетчиками нарушений ({@link CountingValidator}).
+ */
+@Configuration
+public class ValidationConfiguration {
+
+    /**
+     * Валидатор Bean Validation, настроенный так же, как валидатор Spring Boot по умолчанию.
+     */
+    @Bean
+    public LocalValidatorFactoryBean beanValidator(final ApplicationContext applicationContext) {
+        final LocalValidatorFactoryBean validator = new LocalValidatorFactoryBean();
+        validator.setMessageInterpolator(new MessageInterpolatorFactory(applicationContext).getObject());
+
+        return validator;
+    }
+
+    @Bean
+    @Primary
+    public Validator validator(final LocalValidatorFactoryBean beanValidator, final MeterRegistry meterRegistry) {
+        return new CountingValidator(new PrecompiledValidator(beanValidator), meterRegistry);
+    }
+}
@@ -10,6 +10,8 @@ import java.time.format.DateTimeFormatter;
 
 /**
  * Валидатор для {@link IsAfter} constraint.
+ * <p>
+ * Дата из аннотации разбирается один раз при инициализации, проверка значения ничего не создает.
  *
  * @see <a href="https://docs.jboss.org/hibernate/stable/validator/reference/en-US/html_single/#validator-customconstraints">
  * DOCS. Hibernate Validator. Creating Custom Constraints
@@ -17,20 +19,22 @@ import java.time.format.DateTimeFormatter;
  */
 public final class IsAfterValidator implements ConstraintValidator<IsAfter, LocalDate> {
 
-    private IsAfter isAfter;
+    /**
+     * Дата, с которой сравнивается значение.
+     */
+    private LocalDate dateToCompareWith;
 
     @Override
     public void initialize(final @NonNull IsAfter constraintAnnotation) {
-        this.isAfter = constraintAnnotation;
+        final DateTimeFormatter dateToCompareWithDateTimeFormatter =
+                DateTimeFormatter.ofPattern(constraintAnnotation.format());
+        this.dateToCompareWith = LocalDate.parse(constraintAnnotation.value(), dateToCompareWithDateTimeFormatter);
     }
 
     @Override
     public boolean isValid(final @Nullable LocalDate localDate, final ConstraintValidatorContext constraintValidatorContext) {
         if (localDate == null) return false;
 
-        final DateTimeFormatter dateToCompareWithDateTimeFormatter = DateTimeFormatter.ofPattern(isAfter.format());
-        final LocalDate dateToCompareWith = LocalDate.parse(isAfter.value(), dateToCompareWithDateTimeFormatter);
-
         return !localDate.isBefore(dateToCompareWith);
     }
 }
@@ -0,0 +1,51 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Нумерация сущностей в приложении с теми настройками, с которыми его запускают тесты Postman в ci
+ * ({@code .github/workflows/api-tests.yml}): идентификаторы выдаются генераторами из контекста Spring
+ * и должны идти подряд.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+		properties = "filmorate.id.block-size=1")
+class FilmorateApplicationIdsTests {
+
+	@Autowired
+	private WebTestClient webClient;
+
+	@Test
+	void shouldIssueSequentialIdsThroughApi() {
+		for (long expectedId = 1; expectedId <= 3; expectedId++) {
+			final Film film = webClient.post()
+					.uri("/films")
+					.bodyValue(Map.of("name", "Film " + expectedId, "description", "Description",
+							"releaseDate", "2000-01-01", "duration", 90))
+					.exchange()
+					.expectStatus().isOk()
+					.expectBody(Film.class)
+					.returnResult().getResponseBody();
+			assertEquals(expectedId, film.getId());
+
+			final User user = webClient.post()
+					.uri("/users")
+					.bodyValue(Map.of("email", "user" + expectedId + "@mail.ru", "login", "user" + expectedId,
+							"name", "User", "birthday", "2000-01-01"))
+					.exchange()
+					.expectStatus().isOk()
+					.expectBody(User.class)
+					.returnResult().getResponseBody();
+			assertEquals(expectedId, user.getId());
+		}
+	}
+
+}
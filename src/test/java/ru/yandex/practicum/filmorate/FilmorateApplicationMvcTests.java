@@ -0,0 +1,156 @@
+package ru.yandex.practicum.filmorate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.context.WebApplicationContext;
+import ru.yandex.practicum.filmorate.controller.NdjsonExporter;
+import ru.yandex.practicum.filmorate.controller.filmcontroller.FilmController;
+import ru.yandex.practicum.filmorate.controller.filmcontroller.ReactiveFilmController;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Приложение в режиме по умолчанию: контроллеры Spring MVC за {@code DispatcherServlet}, с конвертерами сообщений,
+ * асинхронными ответами и обработкой исключений, настроенными Spring Boot (тесты контроллеров в
+ * {@code controller} привязываются к контроллерам напрямую и этот путь не проходят).
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class FilmorateApplicationMvcTests {
+
+	@Autowired
+	private ApplicationContext context;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	/**
+	 * Фильм отдается байтами JSON из кэша с ETag версии; повтор с этим тегом получает {@code 304} без тела,
+	 * список фильмов – тоже JSON из кэша.
+	 */
+	@Test
+	void shouldServeCachedJsonWithEntityTag() throws Exception {
+		assertInstanceOf(WebApplicationContext.class, context);
+		assertEquals(1, context.getBeanNamesForType(FilmController.class).length);
+		assertEquals(0, context.getBeanNamesForType(ReactiveFilmController.class).length);
+
+		final Film film = addFilm("Solaris");
+
+		final String etag = mockMvc.perform(get("/films/{id}", film.getId()))
+				.andExpect(status().isOk())
+				.andExpect(content().contentType(MediaType.APPLICATION_JSON))
+				.andExpect(jsonPath("$.id").value(film.getId()))
+				.andExpect(jsonPath("$.name").value("Solaris"))
+				.andExpect(jsonPath("$.releaseDate").value("1972-03-20"))
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		assertNotNull(etag);
+
+		mockMvc.perform(get("/films/{id}", film.getId()).header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isNotModified())
+				.andExpect(header().string(HttpHeaders.ETAG, etag))
+				.andExpect(content().bytes(new byte[0]));
+
+		final String listTag = mockMvc.perform(get("/films"))
+				.andExpect(status().isOk())
+				.andExpect(content().contentType(MediaType.APPLICATION_JSON))
+				.andExpect(jsonPath("$[?(@.id == %d)].name", film.getId()).value("Solaris"))
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		assertNotNull(listTag);
+		mockMvc.perform(get("/films").header(HttpHeaders.IF_NONE_MATCH, listTag))
+				.andExpect(status().isNotModified());
+	}
+
+	/**
+	 * Выгрузка NDJSON выполняется асинхронно через {@code StreamingResponseBody}: каждый фильм – отдельная строка.
+	 */
+	@Test
+	void shouldStreamNdjsonAsynchronously() throws Exception {
+		final Film film = addFilm("Mirror");
+
+		final MvcResult started = mockMvc.perform(get("/films").accept(NdjsonExporter.APPLICATION_NDJSON))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		final String body = mockMvc.perform(asyncDispatch(started))
+				.andExpect(status().isOk())
+				.andExpect(content().contentTypeCompatibleWith(NdjsonExporter.APPLICATION_NDJSON))
+				.andReturn().getResponse().getContentAsString();
+
+		assertTrue(body.endsWith("\n"), body);
+		assertTrue(body.lines().anyMatch(line -> line.startsWith("{\"id\":" + film.getId() + ",\"name\":\"Mirror\"")),
+				body);
+		for (final String line : body.split("\n")) {
+			assertNotNull(objectMapper.readValue(line, Film.class));
+		}
+	}
+
+	/**
+	 * Ошибки получают те же коды ответа, что и в тестах Postman: невалидное тело – {@code 400}, неизвестный
+	 * идентификатор – {@code 500}, устаревший {@code If-Match} – {@code 412}.
+	 */
+	@Test
+	void shouldMapErrorsToStatuses() throws Exception {
+		mockMvc.perform(post("/films")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(objectMapper.writeValueAsString(Map.of("name", "", "description", "Description",
+								"releaseDate", "2000-01-01", "duration", 90))))
+				.andExpect(status().isBadRequest());
+
+		mockMvc.perform(get("/films/{id}", Long.MAX_VALUE))
+				.andExpect(status().isInternalServerError());
+
+		final Film film = addFilm("Stalker");
+		final String staleTag = mockMvc.perform(get("/films/{id}", film.getId()))
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		mockMvc.perform(put("/films")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(objectMapper.writeValueAsString(film.withDescription("Changed"))))
+				.andExpect(status().isOk());
+
+		mockMvc.perform(put("/films")
+						.header(HttpHeaders.IF_MATCH, staleTag)
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(objectMapper.writeValueAsString(film.withDescription("Lost"))))
+				.andExpect(status().isPreconditionFailed());
+		mockMvc.perform(get("/films/{id}", film.getId()))
+				.andExpect(jsonPath("$.description").value("Changed"));
+	}
+
+	private Film addFilm(final String name) throws Exception {
+		final String json = mockMvc.perform(post("/films")
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(objectMapper.writeValueAsString(Map.of("name", name, "description", "Description",
+								"releaseDate", "1972-03-20", "duration", 90))))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+
+		return objectMapper.readValue(json, Film.class);
+	}
+
+}
@@ -0,0 +1,58 @@
+package ru.yandex.practicum.filmorate;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.reactive.context.ReactiveWebServerApplicationContext;
+import org.springframework.context.ApplicationContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import ru.yandex.practicum.filmorate.controller.NdjsonExporter;
+import ru.yandex.practicum.filmorate.controller.filmcontroller.FilmController;
+import ru.yandex.practicum.filmorate.controller.filmcontroller.ReactiveFilmController;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Приложение в реактивном режиме (профиль {@code reactive}) на Netty.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("reactive")
+class FilmorateReactiveApplicationTests {
+
+	@Autowired
+	private ApplicationContext context;
+
+	@Autowired
+	private WebTestClient webClient;
+
+	@Test
+	void shouldServeApiWithReactiveControllers() {
+		assertInstanceOf(ReactiveWebServerApplicationContext.class, context);
+		assertEquals("NettyWebServer",
+				((ReactiveWebServerApplicationContext) context).getWebServer().getClass().getSimpleName());
+		assertEquals(1, context.getBeanNamesForType(ReactiveFilmController.class).length);
+		assertEquals(0, context.getBeanNamesForType(FilmController.class).length);
+
+		webClient.post()
+				.uri("/films")
+				.bodyValue(new Film(Film.NO_ID, "Film", "Description", LocalDate.of(2000, 1, 1), 90))
+				.exchange()
+				.expectStatus().isOk();
+
+		webClient.get()
+				.uri("/films")
+				.accept(NdjsonExporter.APPLICATION_NDJSON)
+				.exchange()
+				.expectStatus().isOk()
+				.expectBody(String.class)
+				.value(body -> assertTrue(body.matches("\\{\"id\":1,\"name\":\"Film\",\"description\":\"Description\","
+						+ "\"releaseDate\":\"2000-01-01\",\"duration\":90,\"version\":\\d+}\n"), body));
+	}
+
+}
@@ -0,0 +1,224 @@
+package ru.yandex.practicum.filmorate.audit;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import ru.yandex.practicum.filmorate.model.Film;
+import util.ControllerTestHelper;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Тесты для {@link AsyncAuditLog} и {@link AuditRingBuffer}.
+ */
+final class AsyncAuditLogTest {
+
+    private final Logger logger = ((LoggerContext) LoggerFactory.getILoggerFactory())
+            .getLogger("filmorate.audit.test");
+
+    private final BlockingAppender appender = new BlockingAppender();
+
+    @BeforeEach
+    void beforeEach() {
+        logger.setLevel(Level.INFO);
+        logger.setAdditive(false);
+        logger.addAppender(appender);
+        appender.start();
+    }
+
+    @AfterEach
+    void afterEach() {
+        logger.detachAppender(appender);
+        appender.release();
+    }
+
+    /**
+     * События записываются в порядке поступления, по одной строке JSON на событие.
+     */
+    @Test
+    void shouldWriteEventsAsJsonLines() {
+        appender.release();
+        final Film film = new Film(1L, "Film", "Description", LocalDate.of(2000, 1, 1), 90);
+
+        try (AsyncAuditLog auditLog = newAuditLog(16, AuditOverflowPolicy.DROP)) {
+            auditLog.record(AuditEvent.entity(AuditAction.FILM_ADDED, 1, film));
+            auditLog.record(AuditEvent.relation(AuditAction.LIKE_ADDED, 1, 2));
+        }
+
+        final List<String> lines = appender.list.stream()
+                .map(ILoggingEvent::getFormattedMessage)
+                .collect(Collectors.toList());
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(0).matches("\\{\"time\":\"[^\"]+Z\",\"action\":\"FILM_ADDED\",\"id\":1,"
+                + "\"entity\":\\{\"id\":1,\"name\":\"Film\",\"description\":\"Description\","
+                + "\"releaseDate\":\"2000-01-01\",\"duration\":90,\"version\":0}}"), lines.get(0));
+        assertTrue(lines.get(1).matches("\\{\"time\":\"[^\"]+Z\",\"action\":\"LIKE_ADDED\",\"id\":1,\"otherId\":2}"),
+                lines.get(1));
+    }
+
+    /**
+     * При политике {@link AuditOverflowPolicy#DROP} запрос не ждет остановившийся поток записи, а лишние события
+     * отбрасываются и считаются.
+     */
+    @Test
+    void shouldDropEventsWhenBufferIsFull() throws InterruptedException {
+        try (AsyncAuditLog auditLog = newAuditLog(4, AuditOverflowPolicy.DROP)) {
+            auditLog.record(event(0));
+            appender.awaitBlocked();
+
+            for (int i = 1; i <= 10; i++) {
+                auditLog.record(event(i));
+            }
+            assertEquals(6, auditLog.dropped());
+
+            appender.release();
+        }
+
+        assertEquals(5, appender.list.size());
+    }
+
+    /**
+     * При политике {@link AuditOverflowPolicy#BLOCK} запрос ждет места в буфере, и ни одно событие не теряется.
+     */
+    @Test
+    void shouldBlockWhenBufferIsFull() throws InterruptedException {
+        try (AsyncAuditLog auditLog = newAuditLog(4, AuditOverflowPolicy.BLOCK)) {
+            auditLog.record(event(0));
+            appender.awaitBlocked();
+
+            final Thread producer = new Thread(() -> {
+                for (int i = 1; i <= 10; i++) {
+                    auditLog.record(event(i));
+                }
+            });
+            producer.start();
+            producer.join(200);
+            assertTrue(producer.isAlive(), "писатель должен ждать места в буфере");
+
+            appender.release();
+            producer.join();
+            assertEquals(0, auditLog.dropped());
+        }
+
+        assertEquals(11, appender.list.size());
+    }
+
+    /**
+     * Если уровень логгера не включает INFO, события не попадают в буфер.
+     */
+    @Test
+    void shouldSkipEventsWhenLoggerIsDisabled() {
+        appender.release();
+        logger.setLevel(Level.WARN);
+
+        try (AsyncAuditLog auditLog = newAuditLog(4, AuditOverflowPolicy.DROP)) {
+            for (int i = 0; i < 10; i++) {
+                auditLog.record(event(i));
+            }
+            assertEquals(0, auditLog.pending());
+            assertEquals(0, auditLog.dropped());
+        }
+
+        assertTrue(appender.list.isEmpty());
+    }
+
+    /**
+     * Несколько писателей без блокировок: читатель получает каждый элемент ровно один раз и в порядке
+     * добавления каждым писателем.
+     */
+    @Test
+    void shouldPassAllElementsFromConcurrentProducers() throws InterruptedException {
+        final int producers = 4;
+        final int perProducer = 10_000;
+        final AuditRingBuffer<long[]> buffer = new AuditRingBuffer<>(1024);
+
+        final List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            final int producer = p;
+            final Thread thread = new Thread(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    final long[] element = {producer, i};
+                    while (!buffer.offer(element)) {
+                        // уступить процессор читателю: на машине с малым числом ядер ожидание в цикле его вытесняет
+                        Thread.yield();
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+
+        final long[] next = new long[producers];
+        long received = 0;
+        while (received < (long) producers * perProducer) {
+            final int drained = buffer.drain(element -> {
+                final int producer = (int) element[0];
+                assertEquals(next[producer], element[1]);
+                next[producer]++;
+            }, 256);
+            if (drained == 0) {
+                Thread.yield();
+            }
+            received += drained;
+        }
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(0, buffer.size());
+        assertFalse(buffer.drain(element -> {
+        }, 16) > 0);
+    }
+
+    private AsyncAuditLog newAuditLog(final int capacity, final AuditOverflowPolicy overflowPolicy) {
+        return new AsyncAuditLog(logger, ControllerTestHelper.getObjectMapper(), capacity, 2, overflowPolicy);
+    }
+
+    private static AuditEvent event(final long id) {
+        return AuditEvent.relation(AuditAction.FRIEND_ADDED, id, id + 1);
+    }
+
+    /**
+     * Хранит события и, пока не вызван {@link #release()}, задерживает поток записи на первом событии.
+     */
+    private static final class BlockingAppender extends ListAppender<ILoggingEvent> {
+
+        private final CountDownLatch blocked = new CountDownLatch(1);
+
+        private final CountDownLatch released = new CountDownLatch(1);
+
+        @Override
+        protected void append(final ILoggingEvent event) {
+            blocked.countDown();
+            try {
+                released.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            super.append(event);
+        }
+
+        void awaitBlocked() throws InterruptedException {
+            assertTrue(blocked.await(5, TimeUnit.SECONDS));
+        }
+
+        void release() {
+            released.countDown();
+        }
+    }
+}
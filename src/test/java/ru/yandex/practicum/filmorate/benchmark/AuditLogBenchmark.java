@@ -0,0 +1,107 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.OutputStreamAppender;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.LoggerFactory;
+import ru.yandex.practicum.filmorate.audit.AsyncAuditLog;
+import ru.yandex.practicum.filmorate.audit.AuditAction;
+import ru.yandex.practicum.filmorate.audit.AuditEvent;
+import ru.yandex.practicum.filmorate.audit.AuditOverflowPolicy;
+import ru.yandex.practicum.filmorate.model.Film;
+import util.ControllerTestHelper;
+
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Цена журналирования изменения для потока запроса: прежняя запись {@code log.info(String.format(...))}
+ * и {@link AsyncAuditLog}, который только кладет событие в буфер.
+ * <p>
+ * Оба варианта пишут через logback в поток без вывода, чтобы учитывались форматирование и кодирование записи,
+ * но не диск. Запуск: {@link #main(String[])}, {@code mvn -Pbenchmark test} или
+ * {@code org.openjdk.jmh.Main AuditLogBenchmark -prof gc} с тестовым classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AuditLogBenchmark {
+
+    private final Film film = new Film(1L, "Film", "Description of the film", LocalDate.of(2000, 1, 1), 120);
+
+    private Logger syncLogger;
+
+    private AsyncAuditLog auditLog;
+
+    @Setup
+    public void setup() {
+        syncLogger = newLogger("benchmark.sync");
+        auditLog = new AsyncAuditLog(newLogger("benchmark.audit"), ControllerTestHelper.getObjectMapper(),
+                8192, 256, AuditOverflowPolicy.DROP);
+    }
+
+    @TearDown
+    public void tearDown() {
+        auditLog.close();
+    }
+
+    @Benchmark
+    public void stringFormat() {
+        syncLogger.info(String.format("Добавлен новый фильм: %s.", film));
+    }
+
+    @Benchmark
+    public void asyncAudit() {
+        auditLog.record(AuditEvent.entity(AuditAction.FILM_ADDED, film.getId(), film));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(AuditLogBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build())
+                .run();
+    }
+
+    private static Logger newLogger(final String name) {
+        final LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        final PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern("%d %-5level [%thread] %logger : %msg%n");
+        encoder.start();
+
+        final OutputStreamAppender<ILoggingEvent> appender = new OutputStreamAppender<>();
+        appender.setContext(context);
+        appender.setEncoder(encoder);
+        appender.setOutputStream(OutputStream.nullOutputStream());
+        appender.start();
+
+        final Logger logger = context.getLogger(name);
+        logger.setLevel(Level.INFO);
+        logger.setAdditive(false);
+        logger.addAppender(appender);
+        return logger;
+    }
+}
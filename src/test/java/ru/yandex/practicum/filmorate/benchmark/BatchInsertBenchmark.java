@@ -0,0 +1,122 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+import ru.yandex.practicum.filmorate.model.Film;
+import util.ControllerTestHelper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сравнение добавления фильмов по одному ({@code POST /films}) и пакетом ({@code POST /films/batch})
+ * через HTTP на запущенном приложении.
+ * <p>
+ * Результат – количество добавленных фильмов в секунду.
+ * Запуск: {@link #main(String[])} или {@code org.openjdk.jmh.Main BatchInsertBenchmark} с тестовым classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BatchInsertBenchmark {
+
+    private static final int BATCH_SIZE = 100;
+
+    private static final ObjectMapper objectMapper = ControllerTestHelper.getObjectMapper();
+
+    private ConfigurableApplicationContext context;
+
+    private HttpClient client;
+
+    private URI filmsUri;
+
+    private URI batchUri;
+
+    private List<String> singleBodies;
+
+    private String batchBody;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        context = SpringApplication.run(FilmorateApplication.class,
+                "--server.port=0", "--logging.level.ru.yandex.practicum=WARN");
+        final int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+
+        client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        filmsUri = URI.create("http://localhost:" + port + "/films");
+        batchUri = URI.create("http://localhost:" + port + "/films/batch");
+
+        final List<Film> films = new ArrayList<>(BATCH_SIZE);
+        singleBodies = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            final Film film = new Film(null, "Film " + i, "Description of film " + i, LocalDate.of(2000, 1, 1), 90);
+            films.add(film);
+            singleBodies.add(objectMapper.writeValueAsString(film));
+        }
+        batchBody = objectMapper.writeValueAsString(films);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void singleRequests() throws IOException, InterruptedException {
+        for (final String body : singleBodies) {
+            post(filmsUri, body);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void batchRequest() throws IOException, InterruptedException {
+        post(batchUri, batchBody);
+    }
+
+    private void post(final URI uri, final String body) throws IOException, InterruptedException {
+        final HttpResponse<Void> response = client.send(HttpRequest.newBuilder(uri)
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(body))
+                        .build(),
+                HttpResponse.BodyHandlers.discarding());
+
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Неожиданный статус ответа: " + response.statusCode());
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(BatchInsertBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,138 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import org.HdrHistogram.Histogram;
+import org.slf4j.LoggerFactory;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.netty.ByteBufFlux;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Запись при большом числе подписчиков потока изменений ({@code GET /films/changes/stream}).
+ * <p>
+ * Открывает заданное число подписок и ждет первого события каждой, затем последовательно добавляет фильмы
+ * и измеряет время ответа на добавление, а после – время, за которое все подписчики получили все изменения.
+ * Время ответа на запись не должно зависеть от числа подписчиков: рассылка выполняется после ответа.
+ * <p>
+ * Запуск: приложение ({@code java -jar target/filmorate-*.jar}, для реактивного режима
+ * с {@code --spring.profiles.active=reactive}), затем {@link #main(String[])} с тестовым classpath; аргументы –
+ * адрес приложения (по умолчанию {@code http://localhost:8080}), число подписчиков (5 000) и число добавляемых
+ * фильмов (1 000). Числу подписчиков нужен такой же лимит открытых файлов ({@code ulimit -n}) у обоих процессов.
+ */
+public final class ChangeStreamLoadTest {
+
+    private static final String CREATED = "event:created";
+
+    private ChangeStreamLoadTest() {
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        final String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080";
+        final int subscribers = args.length > 1 ? Integer.parseInt(args[1]) : 5_000;
+        final int films = args.length > 2 ? Integer.parseInt(args[2]) : 1_000;
+        ((Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+
+        final ConnectionProvider connectionProvider = ConnectionProvider.builder("subscribers")
+                .maxConnections(subscribers + 1)
+                .pendingAcquireMaxCount(-1)
+                .build();
+        final HttpClient client = HttpClient.create(connectionProvider).baseUrl(baseUrl);
+
+        final AtomicInteger connected = new AtomicInteger();
+        final AtomicLong received = new AtomicLong();
+        final long openStart = System.nanoTime();
+        final List<Disposable> subscriptions = IntStream.range(0, subscribers)
+                .mapToObj(i -> subscribe(client, connected, received))
+                .collect(Collectors.toList());
+        while (connected.get() < subscribers) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        System.out.printf("%s, подписчиков: %,d, открыты за %.1f с%n",
+                baseUrl, subscribers, (System.nanoTime() - openStart) / 1e9);
+
+        final Histogram latencies = new Histogram(TimeUnit.MINUTES.toNanos(1), 3);
+        final long writeStart = System.nanoTime();
+        for (int i = 1; i <= films; i++) {
+            final long start = System.nanoTime();
+            addFilm(client, i);
+            latencies.recordValue(System.nanoTime() - start);
+        }
+        final long expected = (long) subscribers * films;
+        while (received.get() < expected && System.nanoTime() - writeStart < TimeUnit.MINUTES.toNanos(1)) {
+            TimeUnit.MILLISECONDS.sleep(1);
+        }
+        final double deliveredIn = (System.nanoTime() - writeStart) / 1e9;
+
+        System.out.printf("добавлено фильмов: %,d, время ответа, мс: p50 %.2f, p99 %.2f, max %.2f%n", films,
+                latencies.getValueAtPercentile(50) / 1e6, latencies.getValueAtPercentile(99) / 1e6,
+                latencies.getMaxValue() / 1e6);
+        System.out.printf("доставлено событий: %,d из %,d за %.1f с с начала записи%n",
+                received.get(), expected, deliveredIn);
+
+        subscriptions.forEach(Disposable::dispose);
+        connectionProvider.dispose();
+    }
+
+    private static Disposable subscribe(final HttpClient client,
+                                        final AtomicInteger connected,
+                                        final AtomicLong received) {
+        final AtomicInteger chunks = new AtomicInteger();
+        // конец предыдущего фрагмента: строка события может прийти по частям
+        final StringBuilder tail = new StringBuilder();
+        return client.headers(headers -> headers.set(HttpHeaderNames.ACCEPT, "text/event-stream"))
+                .get()
+                .uri("/films/changes/stream")
+                .responseContent()
+                .asString(StandardCharsets.UTF_8)
+                .doOnNext(chunk -> {
+                    if (chunks.getAndIncrement() == 0) {
+                        connected.incrementAndGet();
+                    }
+                    tail.append(chunk);
+                    received.addAndGet(count(tail));
+                    tail.delete(0, Math.max(0, tail.length() - CREATED.length() + 1));
+                })
+                .subscribe(chunk -> {
+                }, e -> System.err.println("подписка завершилась ошибкой: " + e.getMessage()));
+    }
+
+    private static int count(final CharSequence text) {
+        final String chunk = text.toString();
+        int count = 0;
+        for (int i = chunk.indexOf(CREATED); i >= 0; i = chunk.indexOf(CREATED, i + CREATED.length())) {
+            count++;
+        }
+        return count;
+    }
+
+    private static void addFilm(final HttpClient client, final int i) {
+        final String body = "{\"name\":\"Film " + i + "\",\"description\":\"Description\","
+                + "\"releaseDate\":\"2000-01-01\",\"duration\":90}";
+        client.headers(headers -> headers.set(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.APPLICATION_JSON))
+                .post()
+                .uri("/films")
+                .send(ByteBufFlux.fromString(Mono.just(body)))
+                .responseSingle((response, responseBody) -> responseBody.then(Mono.just(response.status().code())))
+                .timeout(Duration.ofSeconds(30))
+                .doOnNext(status -> {
+                    if (status != 200) {
+                        throw new IllegalStateException("Не удалось добавить фильм: " + status);
+                    }
+                })
+                .block();
+    }
+}
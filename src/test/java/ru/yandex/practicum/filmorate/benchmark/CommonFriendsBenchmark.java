@@ -0,0 +1,98 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import ru.yandex.practicum.filmorate.storage.friendstorage.InMemoryFriendStorage;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Поиск общих друзей: пересечение отсортированных {@code long[]} ({@link InMemoryFriendStorage})
+ * против {@code HashSet<Long>.retainAll} для пользователей с десятками тысяч друзей.
+ * <p>
+ * {@code otherFriends} меньше {@code friends} в сотни раз – выбирается галопирующий поиск, сопоставимы – слияние.
+ * Запуск: {@link #main(String[])} или {@code org.openjdk.jmh.Main CommonFriendsBenchmark} с тестовым classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CommonFriendsBenchmark {
+
+    private static final long USER = 0;
+
+    private static final long OTHER = 1;
+
+    @Param({"10000", "100000"})
+    private int friends;
+
+    @Param({"100", "10000"})
+    private int otherFriends;
+
+    private InMemoryFriendStorage storage;
+
+    private Set<Long> userSet;
+
+    private Set<Long> otherSet;
+
+    @Setup
+    public void setup() {
+        final Random random = new Random(42);
+        // друзья выбираются из пространства в 10 раз больше, пересечение – около 10%
+        final long[] userFriends = randomIds(random, friends, friends * 10L);
+        final long[] otherUserFriends = randomIds(random, otherFriends, friends * 10L);
+
+        storage = new InMemoryFriendStorage();
+        for (final long friend : userFriends) {
+            storage.add(USER, friend);
+        }
+        for (final long friend : otherUserFriends) {
+            storage.add(OTHER, friend);
+        }
+
+        userSet = new HashSet<>();
+        Arrays.stream(userFriends).forEach(userSet::add);
+        otherSet = new HashSet<>();
+        Arrays.stream(otherUserFriends).forEach(otherSet::add);
+    }
+
+    @Benchmark
+    public long[] sortedArrays() {
+        return storage.findCommonFriends(USER, OTHER);
+    }
+
+    @Benchmark
+    public Set<Long> hashSet() {
+        final Set<Long> common = new HashSet<>(otherSet);
+        common.retainAll(userSet);
+
+        return common;
+    }
+
+    private static long[] randomIds(final Random random, final int size, final long bound) {
+        // идентификаторы 0 и 1 заняты пользователями бенчмарка
+        return random.longs(size * 2L, 2, bound).distinct().limit(size).sorted().toArray();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(CommonFriendsBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,88 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.http.ResponseEntity;
+import ru.yandex.practicum.filmorate.controller.filmcontroller.FilmController;
+import ru.yandex.practicum.filmorate.model.Film;
+import util.ControllerTestHelper;
+
+import java.time.LocalDate;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Путь запроса через {@link FilmController} без HTTP: добавление фильма (проверка, выдача идентификатора, запись
+ * в хранилище и индексы) и чтение первой страницы каталога вместе с сериализацией в JSON.
+ * <p>
+ * Добавление начинается с пустого каталога на каждой итерации, чтобы размер каталога не зависел от длительности
+ * замера; чтение идет по каталогу из {@code films} фильмов. Запуск: {@link #main(String[])},
+ * {@code mvn -Pbenchmark test} или {@code org.openjdk.jmh.Main FilmControllerBenchmark} с тестовым classpath.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class FilmControllerBenchmark {
+
+    @Benchmark
+    public Film addFilm(final EmptyCatalog catalog) {
+        return catalog.controller.addFilm(film(ThreadLocalRandom.current().nextInt()), null);
+    }
+
+    @Benchmark
+    public ResponseEntity<byte[]> getAllFilms(final FilledCatalog catalog) {
+        return catalog.controller.getAllFilms(null, 0, null, null, null);
+    }
+
+    private static Film film(final int index) {
+        return new Film(Film.NO_ID, "Film " + index, "Description of film number " + index,
+                LocalDate.of(1900, 1, 1).plusDays(Math.floorMod(index, 40_000)), 90);
+    }
+
+    @State(Scope.Benchmark)
+    public static class EmptyCatalog {
+
+        private FilmController controller;
+
+        @Setup(Level.Iteration)
+        public void setup() {
+            controller = ControllerTestHelper.newFilmController();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class FilledCatalog {
+
+        @Param({"100000"})
+        private int films;
+
+        private FilmController controller;
+
+        @Setup
+        public void setup() {
+            controller = ControllerTestHelper.newFilmController();
+            for (int i = 0; i < films; i++) {
+                controller.addFilm(film(i), null);
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(FilmControllerBenchmark.class.getSimpleName()).build()).run();
+    }
+}
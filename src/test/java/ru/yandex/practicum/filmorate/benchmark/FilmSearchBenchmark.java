@@ -0,0 +1,128 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.filmstorage.InMemoryFilmStorage;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Задержка поиска фильмов ({@link InMemoryFilmStorage#search}) на миллионе фильмов.
+ * <p>
+ * Названия и описания составлены из словаря в 30 000 случайных слов с неравномерной частотой: есть и очень
+ * частые, и редкие слова. Запросы – точные слова, пары слов, префиксы и слова с опечаткой. Режим
+ * {@link Mode#SampleTime} показывает перцентили, в том числе p99. Запуск: {@link #main(String[])} или
+ * {@code org.openjdk.jmh.Main FilmSearchBenchmark} с тестовым classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class FilmSearchBenchmark {
+
+    private static final int VOCABULARY = 30_000;
+
+    private static final int QUERIES = 4_096;
+
+    @Param({"1000000"})
+    private int films;
+
+    private InMemoryFilmStorage storage;
+
+    private String[] words;
+
+    private String[] queries;
+
+    private int next;
+
+    @Setup
+    public void setup() {
+        final Random random = new Random(42);
+        words = new String[VOCABULARY];
+        for (int i = 0; i < VOCABULARY; i++) {
+            words[i] = randomWord(random);
+        }
+
+        storage = new InMemoryFilmStorage();
+        for (int i = 0; i < films; i++) {
+            storage.add(new Film(i + 1L, text(random, 2 + random.nextInt(3)), text(random, 8 + random.nextInt(8)),
+                    LocalDate.of(2000, 1, 1), 90));
+        }
+
+        queries = new String[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            final String word = word(random);
+            switch (i % 4) {
+                case 0:
+                    queries[i] = word;
+                    break;
+                case 1:
+                    queries[i] = word + " " + word(random);
+                    break;
+                case 2:
+                    queries[i] = word.substring(0, Math.min(word.length(), 3));
+                    break;
+                default:
+                    final char[] typo = word.toCharArray();
+                    typo[typo.length / 2] = (char) ('a' + random.nextInt(26));
+                    queries[i] = new String(typo);
+            }
+        }
+    }
+
+    @Benchmark
+    public List<Film> search() {
+        final String query = queries[next++ & (QUERIES - 1)];
+
+        return storage.search(query, 10);
+    }
+
+    /**
+     * Слово из словаря: чем меньше номер, тем чаще слово встречается.
+     */
+    private String word(final Random random) {
+        final double skewed = Math.pow(random.nextDouble(), 3);
+
+        return words[(int) (skewed * VOCABULARY)];
+    }
+
+    private String text(final Random random, final int length) {
+        final StringBuilder text = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            text.append(i == 0 ? "" : " ").append(word(random));
+        }
+
+        return text.toString();
+    }
+
+    private static String randomWord(final Random random) {
+        final char[] word = new char[4 + random.nextInt(7)];
+        for (int i = 0; i < word.length; i++) {
+            word[i] = (char) ('a' + random.nextInt(26));
+        }
+
+        return new String(word);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(FilmSearchBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,94 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import ru.yandex.practicum.filmorate.controller.JsonCache;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.filmstorage.CompactFilmStorage;
+import ru.yandex.practicum.filmorate.storage.filmstorage.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.storage.filmstorage.InMemoryFilmStorage;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Память на фильм в разных хранилищах: занятая куча после сборки мусора, поделенная на число фильмов.
+ * <p>
+ * Память не измеряется средствами JMH, поэтому это обычная программа. Сравниваются {@code HashMap<Long, Film>}
+ * (нижняя граница для хранения объектов), {@link InMemoryFilmStorage}, {@link CompactFilmStorage} и отдельно
+ * поисковый индекс {@link FilmSearchIndex}, который входит в оба хранилища, и {@link JsonCache} без предела вместе
+ * с объектами фильмов, которые он удерживает (кэш добавляется к heap-хранилищу). Запуск: {@link #main(String[])}
+ * с тестовым classpath и кучей не меньше 3 ГБ ({@code -Xmx3g}); первый аргумент – число фильмов
+ * (по умолчанию 1 000 000).
+ */
+public final class FilmStorageFootprint {
+
+    private FilmStorageFootprint() {
+    }
+
+    public static void main(String[] args) {
+        final int films = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        measure("HashMap<Long, Film>", films, HashMap<Long, Film>::new,
+                (Map<Long, Film> map, Film film) -> map.put(film.getId(), film));
+        measure("InMemoryFilmStorage", films, InMemoryFilmStorage::new, InMemoryFilmStorage::add);
+        measure("CompactFilmStorage", films, CompactFilmStorage::new, CompactFilmStorage::add);
+        measure("FilmSearchIndex", films, FilmSearchIndex::new,
+                (FilmSearchIndex index, Film film) -> index.update(null, film));
+        measure("JsonCache", films,
+                () -> new JsonCache<Film>(new ObjectMapper().registerModule(new JavaTimeModule())
+                        .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS), Film::getId, Long.MAX_VALUE,
+                        new SimpleMeterRegistry(), "film"),
+                JsonCache::toJson);
+    }
+
+    private static <S> void measure(final String name, final int films, final Supplier<S> factory,
+                                    final Adder<S> adder) {
+        final long before = usedHeap();
+        final S storage = factory.get();
+        for (int i = 0; i < films; i++) {
+            adder.add(storage, film(i));
+        }
+        final long after = usedHeap();
+
+        System.out.printf("%-20s %,d фильмов: %,d байт на фильм%n", name, films, (after - before) / films);
+        // хранилище должно оставаться достижимым до замера
+        keepAlive(storage);
+    }
+
+    /**
+     * Фильм с уникальными строками длиной, близкой к реальным названиям и описаниям.
+     */
+    private static Film film(final int index) {
+        return new Film(index + 1L, "Film " + index, "Description of film number " + index + ", a story told twice",
+                LocalDate.of(1900, 1, 1).plusDays(index % 40_000), 60 + index % 120);
+    }
+
+    private static long usedHeap() {
+        final Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        // несколько сборок подряд, чтобы освободить и объекты с финализацией, и остатки предыдущего замера
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+        }
+
+        return used;
+    }
+
+    private static volatile Object sink;
+
+    private static void keepAlive(final Object storage) {
+        sink = storage;
+        sink = null;
+    }
+
+    @FunctionalInterface
+    private interface Adder<S> {
+        void add(S storage, Film film);
+    }
+}
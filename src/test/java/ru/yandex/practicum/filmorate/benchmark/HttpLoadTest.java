@@ -0,0 +1,150 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.ByteBufFlux;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import ru.yandex.practicum.filmorate.model.Film;
+import util.ControllerTestHelper;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+/**
+ * Нагрузка на запущенное приложение большим числом одновременных соединений – для сравнения режима Spring MVC
+ * (Tomcat, поток на запрос) и реактивного режима (Netty, профиль {@code reactive}).
+ * <p>
+ * Соединения не измеряются средствами JMH, поэтому это обычная программа. Каждое соединение в цикле отправляет
+ * запрос и ждет ответа (закрытая модель): 90% запросов – фильм по случайному идентификатору, 10% – страница
+ * из 20 фильмов. Перед замером в каталог добавляется {@link #FILMS} фильмов, первые {@link #WARMUP} секунд
+ * результаты не учитываются. Ответ с кодом не 2xx и ошибка соединения считаются ошибками.
+ * <p>
+ * Запуск: приложение ({@code java -jar target/filmorate-*.jar}, для реактивного режима
+ * с {@code --spring.profiles.active=reactive}), затем {@link #main(String[])} с тестовым classpath; аргументы –
+ * адрес приложения (по умолчанию {@code http://localhost:8080}), число соединений (10 000) и длительность замера
+ * в секундах (30). Числу соединений нужен такой же лимит открытых файлов ({@code ulimit -n}) у обоих процессов.
+ */
+public final class HttpLoadTest {
+
+    private static final int FILMS = 1_000;
+
+    private static final int WARMUP = 10;
+
+    private HttpLoadTest() {
+    }
+
+    public static void main(String[] args) throws JsonProcessingException {
+        final String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080";
+        final int connections = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+        final int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+        // без настройки logback пишет журнал клиента на уровне DEBUG, и нагрузку ограничивает сам журнал
+        ((Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+
+        final ConnectionProvider connectionProvider = ConnectionProvider.builder("load")
+                .maxConnections(connections)
+                .pendingAcquireMaxCount(-1)
+                .pendingAcquireTimeout(Duration.ofMinutes(1))
+                .build();
+        final AtomicInteger opened = new AtomicInteger();
+        final HttpClient client = HttpClient.create(connectionProvider)
+                .baseUrl(baseUrl)
+                .responseTimeout(Duration.ofSeconds(30))
+                .doOnChannelInit((observer, channel, address) -> opened.incrementAndGet());
+
+        seed(client);
+
+        final Recorder latencies = new Recorder(TimeUnit.MINUTES.toNanos(1), 3);
+        final AtomicLong errors = new AtomicLong();
+        final long measureFrom = System.nanoTime() + TimeUnit.SECONDS.toNanos(WARMUP);
+        final long measureTo = measureFrom + TimeUnit.SECONDS.toNanos(seconds);
+
+        final Mono<Void> request = Mono.defer(() -> {
+            final long start = System.nanoTime();
+            return client.get()
+                    .uri(nextUri())
+                    .responseSingle((response, body) -> body.then(Mono.just(response.status().code())))
+                    .doOnNext(status -> {
+                        if (start >= measureFrom) {
+                            if (status >= 200 && status < 300) {
+                                latencies.recordValue(Math.min(System.nanoTime() - start, TimeUnit.MINUTES.toNanos(1)));
+                            } else {
+                                errors.incrementAndGet();
+                            }
+                        }
+                    })
+                    .onErrorResume(e -> {
+                        if (start >= measureFrom) {
+                            errors.incrementAndGet();
+                        }
+                        return Mono.empty();
+                    })
+                    .then();
+        });
+
+        latencies.reset();
+        Flux.range(0, connections)
+                .flatMap(i -> request.repeat(() -> System.nanoTime() < measureTo), connections)
+                .blockLast();
+
+        final Histogram histogram = latencies.getIntervalHistogram();
+        System.out.printf("%s, соединений: %,d (подключений за тест %,d), замер %d с%n",
+                baseUrl, connections, opened.get(), seconds);
+        System.out.printf("запросов: %,d (%,.0f в секунду), ошибок: %,d%n",
+                histogram.getTotalCount(), (double) histogram.getTotalCount() / seconds, errors.get());
+        System.out.printf("задержка, мс: p50 %.1f, p90 %.1f, p99 %.1f, p99.9 %.1f, max %.1f%n",
+                millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(90)),
+                millis(histogram.getValueAtPercentile(99)), millis(histogram.getValueAtPercentile(99.9)),
+                millis(histogram.getMaxValue()));
+
+        connectionProvider.dispose();
+    }
+
+    private static String nextUri() {
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (random.nextInt(10) == 0) {
+            return "/films?limit=20&cursor=" + random.nextInt(FILMS - 20);
+        }
+
+        return "/films/" + (random.nextInt(FILMS) + 1);
+    }
+
+    private static void seed(final HttpClient client) throws JsonProcessingException {
+        final List<Film> films = LongStream.rangeClosed(1, FILMS)
+                .mapToObj(id -> new Film(Film.NO_ID, "Film " + id, "Description of film " + id,
+                        LocalDate.of(1900, 1, 1).plusDays(id), 90))
+                .collect(Collectors.toList());
+        final String body = ControllerTestHelper.getObjectMapper().writeValueAsString(films);
+
+        client.headers(headers -> headers.set(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.APPLICATION_JSON))
+                .post()
+                .uri("/films/batch")
+                .send(ByteBufFlux.fromString(Mono.just(body)))
+                .responseSingle((response, responseBody) -> responseBody.then(Mono.just(response.status().code())))
+                .doOnNext(status -> {
+                    if (status != 200) {
+                        throw new IllegalStateException("Не удалось добавить фильмы: " + status);
+                    }
+                })
+                .block();
+    }
+
+    private static double millis(final long nanos) {
+        return nanos / 1e6;
+    }
+}
@@ -0,0 +1,67 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import ru.yandex.practicum.filmorate.storage.idgenerator.BlockIdGenerator;
+import ru.yandex.practicum.filmorate.storage.idgenerator.IdGenerator;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Сравнение {@link BlockIdGenerator} с общим {@link AtomicLong} при выдаче идентификаторов из многих потоков.
+ * <p>
+ * Запуск: {@link #main(String[])} или {@code org.openjdk.jmh.Main IdGeneratorBenchmark} с тестовым classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(Threads.MAX)
+public class IdGeneratorBenchmark {
+
+    /**
+     * Размер блока {@link BlockIdGenerator}; 1 соответствует сквозной нумерации.
+     */
+    @Param({"1", "1024"})
+    private int blockSize;
+
+    private IdGenerator blockIdGenerator;
+
+    private AtomicLong atomicLong;
+
+    @Setup
+    public void setup() {
+        blockIdGenerator = new BlockIdGenerator(blockSize);
+        atomicLong = new AtomicLong(1);
+    }
+
+    @Benchmark
+    public long blockIdGenerator() {
+        return blockIdGenerator.nextId();
+    }
+
+    @Benchmark
+    public long atomicLong() {
+        return atomicLong.getAndIncrement();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(IdGeneratorBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,82 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import ru.yandex.practicum.filmorate.controller.JsonCache;
+import ru.yandex.practicum.filmorate.model.Film;
+import util.ControllerTestHelper;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сериализация страницы фильмов: сборка из {@link JsonCache} против сериализации списка Jackson.
+ * <p>
+ * Кэш прогрет, как при повторных запросах неизменившихся фильмов. Запуск: {@link #main(String[])}
+ * или {@code org.openjdk.jmh.Main JsonCacheBenchmark} с тестовым classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class JsonCacheBenchmark {
+
+    /**
+     * Размер страницы: по умолчанию и максимальный без {@code limit}.
+     */
+    @Param({"1000", "10000"})
+    private int films;
+
+    private List<Film> page;
+
+    private ObjectWriter writer;
+
+    private JsonCache<Film> cache;
+
+    @Setup
+    public void setup() {
+        page = new ArrayList<>(films);
+        for (int i = 0; i < films; i++) {
+            page.add(new Film(i + 1L, "Film " + i, "Description of the film number " + i,
+                    LocalDate.of(1900, 1, 1).plusDays(i), 90 + i % 60));
+        }
+
+        writer = ControllerTestHelper.getObjectMapper().writer();
+        cache = new JsonCache<>(ControllerTestHelper.getObjectMapper(), Film::getId, Long.MAX_VALUE,
+                new SimpleMeterRegistry(), "film");
+        cache.toJsonArray(page);
+    }
+
+    @Benchmark
+    public byte[] jackson() throws JsonProcessingException {
+        return writer.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public byte[] cached() {
+        return cache.toJsonArray(page);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(JsonCacheBenchmark.class.getSimpleName()).build()).run();
+    }
+}
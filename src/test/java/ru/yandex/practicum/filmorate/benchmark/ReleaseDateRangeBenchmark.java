@@ -0,0 +1,88 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.filmstorage.InMemoryFilmStorage;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Поиск фильмов за период выпуска: индекс {@link InMemoryFilmStorage#findByReleaseDate} против полного обхода
+ * хранилища с фильтрацией и сортировкой.
+ * <p>
+ * Даты выпуска равномерно распределены по ~110 годам, период {@code days} дней. Запуск: {@link #main(String[])}
+ * или {@code org.openjdk.jmh.Main ReleaseDateRangeBenchmark} с тестовым classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ReleaseDateRangeBenchmark {
+
+    private static final LocalDate FIRST_DATE = LocalDate.of(1900, 1, 1);
+
+    private static final int DATES = 40_000;
+
+    @Param({"1000000"})
+    private int films;
+
+    /**
+     * Длина периода в днях: 1 день – около 25 фильмов на миллион, 30 дней – около 750.
+     */
+    @Param({"1", "30"})
+    private int days;
+
+    private InMemoryFilmStorage storage;
+
+    private LocalDate from;
+
+    private LocalDate to;
+
+    @Setup
+    public void setup() {
+        storage = new InMemoryFilmStorage();
+        for (int i = 0; i < films; i++) {
+            final LocalDate releaseDate = FIRST_DATE.plusDays((i * 7919L) % DATES);
+            storage.add(new Film(i + 1L, "Film " + i, "Description", releaseDate, 90));
+        }
+
+        from = FIRST_DATE.plusDays(DATES / 2);
+        to = from.plusDays(days - 1);
+    }
+
+    @Benchmark
+    public List<Film> index() {
+        return storage.findByReleaseDate(from, to, Integer.MAX_VALUE);
+    }
+
+    @Benchmark
+    public List<Film> scan() {
+        return storage.findAll().stream()
+                .filter(film -> !film.getReleaseDate().isBefore(from) && !film.getReleaseDate().isAfter(to))
+                .sorted(Comparator.comparing(Film::getReleaseDate).thenComparingLong(Film::getId))
+                .collect(Collectors.toList());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ReleaseDateRangeBenchmark.class.getSimpleName()).build()).run();
+    }
+}
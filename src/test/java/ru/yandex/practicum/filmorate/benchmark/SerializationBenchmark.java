@@ -0,0 +1,86 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import util.ControllerTestHelper;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сериализация и десериализация моделей Jackson с настройками, как в ответах приложения.
+ * <p>
+ * Запуск: {@link #main(String[])}, {@code mvn -Pbenchmark test} или
+ * {@code org.openjdk.jmh.Main SerializationBenchmark} с тестовым classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    private final Film film = new Film(1L, "Film", "Description of the film", LocalDate.of(2000, 1, 1), 120);
+
+    private final User user = new User(1L, "user@mail.ru", "user", "User", LocalDate.of(2000, 1, 1));
+
+    private ObjectWriter writer;
+
+    private ObjectReader filmReader;
+
+    private ObjectReader userReader;
+
+    private byte[] filmJson;
+
+    private byte[] userJson;
+
+    @Setup
+    public void setup() throws IOException {
+        writer = ControllerTestHelper.getObjectMapper().writer();
+        filmReader = ControllerTestHelper.getObjectMapper().readerFor(Film.class);
+        userReader = ControllerTestHelper.getObjectMapper().readerFor(User.class);
+        filmJson = writer.writeValueAsBytes(film);
+        userJson = writer.writeValueAsBytes(user);
+    }
+
+    @Benchmark
+    public byte[] writeFilm() throws IOException {
+        return writer.writeValueAsBytes(film);
+    }
+
+    @Benchmark
+    public Film readFilm() throws IOException {
+        return filmReader.readValue(filmJson);
+    }
+
+    @Benchmark
+    public byte[] writeUser() throws IOException {
+        return writer.writeValueAsBytes(user);
+    }
+
+    @Benchmark
+    public User readUser() throws IOException {
+        return userReader.readValue(userJson);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(SerializationBenchmark.class.getSimpleName()).build()).run();
+    }
+}
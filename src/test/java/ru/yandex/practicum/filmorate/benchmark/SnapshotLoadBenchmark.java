@@ -0,0 +1,148 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.util.FileSystemUtils;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.filmstorage.FilmSnapshotCodec;
+import ru.yandex.practicum.filmorate.storage.filmstorage.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.wal.BinarySnapshot;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Время холодного старта: загрузка хранилища фильмов из двоичного снимка {@link BinarySnapshot}
+ * и из JSON (по сущности в строке, как в прежнем формате снимка).
+ * <p>
+ * Замеры {@code binarySnapshot} и {@code json} заново заполняют пустое {@link InMemoryFilmStorage},
+ * {@code *DecodeOnly} – только создают объекты, без вставки в хранилище. Для 5 млн записей нужна куча не меньше
+ * 4 ГБ: {@code -jvmArgs -Xmx4g}. Запуск: {@link #main(String[])} или
+ * {@code org.openjdk.jmh.Main SnapshotLoadBenchmark -p records=5000000} с тестовым classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class SnapshotLoadBenchmark {
+
+    @Param({"5000000"})
+    private int records;
+
+    private Path directory;
+
+    private Path binaryFile;
+
+    private Path jsonFile;
+
+    private ObjectReader jsonReader;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("snapshot-benchmark");
+        binaryFile = directory.resolve("films.dat");
+        jsonFile = directory.resolve("films.json");
+
+        final List<Film> films = new AbstractList<>() {
+            @Override
+            public Film get(final int index) {
+                return new Film(index + 1L, "Film " + index, "Description of film number " + index,
+                        LocalDate.of(1900, 1, 1).plusDays(index % 40_000), 60 + index % 120);
+            }
+
+            @Override
+            public int size() {
+                return records;
+            }
+        };
+
+        final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        jsonReader = objectMapper.readerFor(Film.class);
+
+        BinarySnapshot.write(binaryFile, new FilmSnapshotCodec(), films);
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(jsonFile));
+             SequenceWriter writer = objectMapper.writer().withRootValueSeparator("\n").writeValues(out)) {
+            writer.writeAll(films);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public InMemoryFilmStorage binarySnapshot() throws IOException {
+        final InMemoryFilmStorage storage = new InMemoryFilmStorage();
+        BinarySnapshot.read(binaryFile, new FilmSnapshotCodec(), storage::add);
+
+        return storage;
+    }
+
+    @Benchmark
+    public InMemoryFilmStorage json() throws IOException {
+        final InMemoryFilmStorage storage = new InMemoryFilmStorage();
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(jsonFile));
+             MappingIterator<Film> films = jsonReader.readValues(in)) {
+            while (films.hasNext()) {
+                storage.add(films.next());
+            }
+        }
+
+        return storage;
+    }
+
+    @Benchmark
+    public long binarySnapshotDecodeOnly(final Blackhole blackhole) throws IOException {
+        return BinarySnapshot.read(binaryFile, new FilmSnapshotCodec(), blackhole::consume);
+    }
+
+    @Benchmark
+    public long jsonDecodeOnly(final Blackhole blackhole) throws IOException {
+        long count = 0;
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(jsonFile));
+             MappingIterator<Film> films = jsonReader.readValues(in)) {
+            while (films.hasNext()) {
+                blackhole.consume(films.next());
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(SnapshotLoadBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,87 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.filmstorage.CompactFilmStorage;
+import ru.yandex.practicum.filmorate.storage.filmstorage.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.filmstorage.InMemoryFilmStorage;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Основные операции хранилища фильмов: чтение по идентификатору, изменение и чтение страницы по курсору.
+ * <p>
+ * Фильмы выбираются случайно и равномерно. Число потоков задается параметром JMH {@code -t}, хранилище –
+ * параметром {@code engine}. Запуск: {@link #main(String[])}, {@code mvn -Pbenchmark test} или
+ * {@code org.openjdk.jmh.Main StorageBenchmark} с тестовым classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class StorageBenchmark {
+
+    private static final int PAGE_SIZE = 100;
+
+    @Param({"100000"})
+    private int films;
+
+    @Param({"heap", "compact"})
+    private String engine;
+
+    private FilmStorage storage;
+
+    @Setup
+    public void setup() {
+        storage = engine.equals("compact") ? new CompactFilmStorage() : new InMemoryFilmStorage();
+        for (int i = 0; i < films; i++) {
+            storage.add(film(i + 1L, 0));
+        }
+    }
+
+    @Benchmark
+    public Film get() {
+        return storage.findById(randomId()).orElseThrow();
+    }
+
+    @Benchmark
+    public boolean put() {
+        return storage.update(film(randomId(), ThreadLocalRandom.current().nextInt(1000)));
+    }
+
+    @Benchmark
+    public List<Film> scan() {
+        return storage.findPage(randomId(), PAGE_SIZE);
+    }
+
+    private long randomId() {
+        return ThreadLocalRandom.current().nextLong(films) + 1;
+    }
+
+    private static Film film(final long id, final int revision) {
+        return new Film(id, "Film " + id, "Description of film number " + id + ", revision " + revision,
+                LocalDate.of(1900, 1, 1).plusDays(id % 40_000), 60 + (int) (id % 120));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(StorageBenchmark.class.getSimpleName()).build()).run();
+    }
+}
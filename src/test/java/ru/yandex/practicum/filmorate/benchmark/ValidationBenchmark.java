@@ -0,0 +1,97 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.validation.PrecompiledValidator;
+import util.validators.isafter.IsAfter;
+import util.validators.isafter.IsAfterValidator;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validation;
+import javax.validation.Validator;
+import java.time.LocalDate;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Проверка моделей: отдельный {@link IsAfterValidator} и полный проход Bean Validation по {@link Film}
+ * и {@link User}, как при каждом добавлении и изменении, – через Hibernate Validator и через
+ * {@link PrecompiledValidator}.
+ * <p>
+ * Выделение памяти на операцию показывает профилировщик {@code -prof gc}. Запуск: {@link #main(String[])},
+ * {@code mvn -Pbenchmark test} или {@code org.openjdk.jmh.Main ValidationBenchmark -prof gc} с тестовым classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidationBenchmark {
+
+    private final Film film = new Film(Film.NO_ID, "Film", "Description of the film", LocalDate.of(2000, 1, 1), 120);
+
+    private final User user = new User(null, "user@mail.ru", "user", "User", LocalDate.of(2000, 1, 1));
+
+    private final LocalDate releaseDate = film.getReleaseDate();
+
+    private IsAfterValidator isAfterValidator;
+
+    private Validator validator;
+
+    private Validator precompiledValidator;
+
+    @Setup
+    public void setup() throws NoSuchFieldException {
+        isAfterValidator = new IsAfterValidator();
+        isAfterValidator.initialize(Film.class.getDeclaredField("releaseDate").getAnnotation(IsAfter.class));
+        validator = Validation.buildDefaultValidatorFactory().getValidator();
+        precompiledValidator = new PrecompiledValidator(validator);
+    }
+
+    @Benchmark
+    public boolean isAfter() {
+        return isAfterValidator.isValid(releaseDate, null);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<Film>> film() {
+        return validator.validate(film);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<User>> user() {
+        return validator.validate(user);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<Film>> filmPrecompiled() {
+        return precompiledValidator.validate(film);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<User>> userPrecompiled() {
+        return precompiledValidator.validate(user);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ValidationBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
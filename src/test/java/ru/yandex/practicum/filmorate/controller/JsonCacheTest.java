@@ -0,0 +1,88 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import util.ControllerTestHelper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Тесты для {@link JsonCache}.
+ */
+final class JsonCacheTest {
+
+    private static final ObjectMapper objectMapper = ControllerTestHelper.getObjectMapper();
+
+    /**
+     * Массив из кэша совпадает побайтно с сериализацией Jackson, в том числе пустой.
+     */
+    @Test
+    void shouldBuildSameArrayAsJackson() throws IOException {
+        final JsonCache<Film> cache = newCache(64L << 20);
+        final List<Film> films = List.of(
+                new Film(1L, "Фильм", "Описание \"в кавычках\"", LocalDate.of(2000, 1, 1), 90),
+                new Film(2L, "Film", null, null, 100));
+
+        assertArrayEquals(objectMapper.writeValueAsBytes(films), cache.toJsonArray(films));
+        // второй раз – из кэша
+        assertArrayEquals(objectMapper.writeValueAsBytes(films), cache.toJsonArray(films));
+        assertEquals("[]", new String(cache.toJsonArray(List.of()), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Новая версия сущности сериализуется заново, старые байты больше не отдаются.
+     */
+    @Test
+    void shouldReserializeReplacedEntity() throws IOException {
+        final JsonCache<Film> cache = newCache(64L << 20);
+        final Film film = new Film(1L, "Old", "", LocalDate.of(2000, 1, 1), 90);
+        final Film updated = new Film(1L, "New", "", LocalDate.of(2000, 1, 1), 90);
+
+        final byte[] json = cache.toJson(film);
+        assertSame(json, cache.toJson(film));
+        assertArrayEquals(objectMapper.writeValueAsBytes(updated), cache.toJson(updated));
+    }
+
+    /**
+     * Записи сверх предела памяти вытесняются начиная с самой старой; вытесненная сущность сериализуется заново.
+     */
+    @Test
+    void shouldEvictOldestEntriesOverLimit() {
+        final Film first = new Film(1L, "First", "", LocalDate.of(2000, 1, 1), 90);
+        final Film second = new Film(2L, "Second", "", LocalDate.of(2000, 1, 1), 90);
+        final Film third = new Film(3L, "Third", "", LocalDate.of(2000, 1, 1), 90);
+        // помещаются ровно две записи
+        final long entrySize = cachedSize(first);
+        final JsonCache<Film> cache = newCache(entrySize + cachedSize(second));
+
+        final byte[] firstJson = cache.toJson(first);
+        final byte[] secondJson = cache.toJson(second);
+        cache.toJson(third);
+
+        assertTrue(cache.cachedBytes() <= entrySize + cachedSize(second));
+        assertSame(secondJson, cache.toJson(second));
+        assertNotSame(firstJson, cache.toJson(first));
+    }
+
+    private static long cachedSize(final Film film) {
+        final JsonCache<Film> cache = newCache(Long.MAX_VALUE);
+        cache.toJson(film);
+
+        return cache.cachedBytes();
+    }
+
+    private static JsonCache<Film> newCache(final long maxBytes) {
+        return new JsonCache<>(objectMapper, Film::getId, maxBytes, new SimpleMeterRegistry(), "film");
+    }
+}
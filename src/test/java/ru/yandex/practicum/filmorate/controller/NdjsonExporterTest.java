@@ -0,0 +1,196 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import ru.yandex.practicum.filmorate.controller.filmcontroller.FilmController;
+import reactor.core.publisher.BaseSubscriber;
+import ru.yandex.practicum.filmorate.model.Film;
+import util.ControllerTestHelper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
+
+import static org.hamcrest.Matchers.matchesPattern;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Тесты для {@link NdjsonExporter} и выгрузки фильмов в формате NDJSON.
+ */
+final class NdjsonExporterTest {
+
+    private static final ObjectMapper objectMapper = ControllerTestHelper.getObjectMapper();
+
+    private static final int FILMS_COUNT = 1_000_000;
+
+    /**
+     * Запрос с {@code Accept: application/x-ndjson} получает фильмы построчно, остальные запросы – JSON-массив.
+     *
+     * @see FilmController#exportFilms()
+     */
+    @Test
+    void shouldExportFilmsAsNdjson() throws Exception {
+        final MockMvc mockMvc = MockMvcBuilders.standaloneSetup(ControllerTestHelper.newFilmController()).build();
+
+        for (final String name : new String[]{"first", "second"}) {
+            final Film film = new Film(null, name, "description", LocalDate.of(2000, 1, 1), 90);
+            mockMvc.perform(post("/films")
+                            .contentType("application/json")
+                            .content(objectMapper.writeValueAsString(film)))
+                    .andExpect(status().isOk());
+        }
+
+        final MvcResult result = mockMvc.perform(get("/films").header("Accept", NdjsonExporter.APPLICATION_NDJSON_VALUE))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(NdjsonExporter.APPLICATION_NDJSON_VALUE))
+                .andExpect(content().string(matchesPattern(
+                        "\\{\"id\":1,\"name\":\"first\",\"description\":\"description\",\"releaseDate\":\"2000-01-01\",\"duration\":90,\"version\":\\d+}\n"
+                                + "\\{\"id\":2,\"name\":\"second\",\"description\":\"description\",\"releaseDate\":\"2000-01-01\",\"duration\":90,\"version\":\\d+}\n")));
+
+        mockMvc.perform(get("/films").header("Accept", "*/*"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/json"));
+    }
+
+    /**
+     * При выгрузке 1 000 000 фильмов занятая память не растет: данные уходят в поток по мере сериализации,
+     * а не собираются целиком.
+     */
+    @Test
+    void shouldKeepHeapFlatWhileExportingMillionFilms() throws IOException {
+        final NdjsonExporter exporter = new NdjsonExporter(objectMapper);
+        final Iterable<Film> films = () -> LongStream.rangeClosed(1, FILMS_COUNT)
+                .mapToObj(id -> new Film(id, "Film " + id, "Description of film " + id, LocalDate.of(2000, 1, 1), 90))
+                .iterator();
+
+        final HeapSamplingOutputStream out = new HeapSamplingOutputStream();
+        exporter.write(films, out);
+
+        assertEquals(FILMS_COUNT, out.lines);
+        assertTrue(out.firstWriteAtLine <= 1, "первая сущность должна быть отправлена сразу");
+        assertTrue(out.maxWrite <= 64 * 1024, "данные должны уходить частями размером с буфер, а не целиком");
+        assertTrue(out.maxHeapGrowth < 32L * 1024 * 1024,
+                "занятая память выросла на " + out.maxHeapGrowth / 1024 / 1024 + " MiB");
+    }
+
+    /**
+     * Реактивная выгрузка дает те же байты, что и запись в поток, буферами примерно по
+     * {@link NdjsonExporter#CHUNK_SIZE}, и обходит коллекцию только по запросу подписчика.
+     */
+    @Test
+    void shouldGenerateChunksOnDemand() throws IOException {
+        final NdjsonExporter exporter = new NdjsonExporter(objectMapper);
+        final AtomicInteger iterated = new AtomicInteger();
+        final Iterable<Film> films = () -> LongStream.rangeClosed(1, 10_000)
+                .peek(id -> iterated.incrementAndGet())
+                .mapToObj(id -> new Film(id, "Film " + id, "Description of film " + id, LocalDate.of(2000, 1, 1), 90))
+                .iterator();
+
+        final List<DataBuffer> firstChunk = new ArrayList<>();
+        exporter.toFlux(films, DefaultDataBufferFactory.sharedInstance).subscribe(new BaseSubscriber<>() {
+            @Override
+            protected void hookOnSubscribe(final Subscription subscription) {
+                request(1);
+            }
+
+            @Override
+            protected void hookOnNext(final DataBuffer buffer) {
+                firstChunk.add(buffer);
+            }
+        });
+        assertEquals(1, firstChunk.size());
+        assertTrue(iterated.get() < 1_000, "обойдено фильмов для одного буфера: " + iterated.get());
+
+        final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        exporter.write(films, expected);
+        final List<DataBuffer> chunks = exporter.toFlux(films, DefaultDataBufferFactory.sharedInstance)
+                .collectList()
+                .block();
+        assertNotNull(chunks);
+        assertTrue(chunks.size() > 1);
+
+        final ByteArrayOutputStream actual = new ByteArrayOutputStream();
+        for (final DataBuffer chunk : chunks) {
+            assertTrue(chunk.readableByteCount() < NdjsonExporter.CHUNK_SIZE + 1024);
+            final byte[] bytes = new byte[chunk.readableByteCount()];
+            chunk.read(bytes);
+            actual.write(bytes);
+        }
+        assertEquals(expected.toString(StandardCharsets.UTF_8), actual.toString(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Поток, считающий строки и периодически замеряющий занятую после сборки мусора память.
+     */
+    private static final class HeapSamplingOutputStream extends OutputStream {
+
+        private static final long SAMPLE_EVERY_LINES = FILMS_COUNT / 10;
+
+        private final long baseline = usedHeapAfterGc();
+
+        private long lines;
+
+        private long firstWriteAtLine = -1;
+
+        private long nextSampleAt = SAMPLE_EVERY_LINES;
+
+        private int maxWrite;
+
+        private long maxHeapGrowth;
+
+        @Override
+        public void write(final int b) {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(final byte[] bytes, final int offset, final int length) {
+            if (firstWriteAtLine < 0) {
+                firstWriteAtLine = lines;
+            }
+
+            maxWrite = Math.max(maxWrite, length);
+            for (int i = offset; i < offset + length; i++) {
+                if (bytes[i] == '\n') {
+                    lines++;
+                }
+            }
+
+            if (lines >= nextSampleAt) {
+                nextSampleAt += SAMPLE_EVERY_LINES;
+                maxHeapGrowth = Math.max(maxHeapGrowth, usedHeapAfterGc() - baseline);
+            }
+        }
+
+        private static long usedHeapAfterGc() {
+            System.gc();
+            final Runtime runtime = Runtime.getRuntime();
+            return runtime.totalMemory() - runtime.freeMemory();
+        }
+    }
+
+}
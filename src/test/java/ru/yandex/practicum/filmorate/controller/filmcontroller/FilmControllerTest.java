@@ -1,6 +1,8 @@
 package ru.yandex.practicum.filmorate.controller.filmcontroller;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -8,22 +10,46 @@ import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
 import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import ru.yandex.practicum.filmorate.controller.EntityTags;
+import ru.yandex.practicum.filmorate.controller.Pagination;
 import ru.yandex.practicum.filmorate.controller.filmcontroller.model.FilmModelNoId;
 import ru.yandex.practicum.filmorate.controller.filmcontroller.model.FilmModelNoIdWFloatPointDuration;
 import ru.yandex.practicum.filmorate.controller.filmcontroller.model.FilmModelWId;
+import ru.yandex.practicum.filmorate.exceptions.VersionConflictException;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmPatch;
+import ru.yandex.practicum.filmorate.model.MergePatch;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.idempotency.IdempotencyCache;
+import ru.yandex.practicum.filmorate.storage.userstorage.InMemoryUserStorage;
 import util.ControllerTestHelper;
 
 import java.io.IOException;
 
 import org.springframework.http.HttpHeaders;
 
+import java.time.Duration;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * Тесты для {@link FilmController} и валидации данных в {@link Film}.
@@ -36,11 +62,13 @@ final class FilmControllerTest {
 
     private static final ObjectMapper objectMapper = ControllerTestHelper.getObjectMapper();
 
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
     private static WebTestClient webClient;
 
     @BeforeEach
     void beforeEach() {
-        webClient = WebTestClient.bindToController(FilmController.class)
+        webClient = WebTestClient.bindToController(ControllerTestHelper.newFilmController())
                 .configureClient()
                 .baseUrl("/films")
                 .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
@@ -74,7 +102,7 @@ final class FilmControllerTest {
     /**
      * Корректно возвращаются несколько фильмов.
      *
-     * @see FilmController#getAllFilms()
+     * @see FilmController#getAllFilms(Integer, long, LocalDate, LocalDate, String)
      */
     @Test
     void shouldCorrectlyRetrieveFilms() throws IOException {
@@ -343,4 +371,667 @@ final class FilmControllerTest {
                 .isEqualTo(expectedFilm);
     }
 
+    /**
+     * Постраничное получение фильмов: страницы идут по возрастанию идентификатора, курсор следующей страницы
+     * передается в заголовке, у последней страницы курсора нет.
+     *
+     * @see FilmController#getAllFilms(Integer, long, LocalDate, LocalDate, String)
+     */
+    @Test
+    void shouldReturnFilmsPageByPage() throws IOException {
+        final List<FilmModelNoId> films = List.of(
+                new FilmModelNoId("Film 1", "Description 1", LocalDate.of(2001, 1, 1), 101),
+                new FilmModelNoId("Film 2", "Description 2", LocalDate.of(2002, 2, 2), 102),
+                new FilmModelNoId("Film 3", "Description 3", LocalDate.of(2003, 3, 3), 103));
+
+        for (final FilmModelNoId film : films) {
+            webClient.post()
+                    .bodyValue(objectMapper.writeValueAsString(film))
+                    .exchange()
+                    .expectStatus().isOk();
+        }
+
+        final String nextCursor = webClient.get()
+                .uri("?limit=2")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().exists(Pagination.NEXT_CURSOR_HEADER)
+                .expectBody(new ParameterizedTypeReference<List<FilmModelNoId>>() {
+                })
+                .isEqualTo(films.subList(0, 2))
+                .returnResult().getResponseHeaders().getFirst(Pagination.NEXT_CURSOR_HEADER);
+
+        webClient.get()
+                .uri("?limit=2&cursor=" + nextCursor)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().doesNotExist(Pagination.NEXT_CURSOR_HEADER)
+                .expectBody(new ParameterizedTypeReference<List<FilmModelNoId>>() {
+                })
+                .isEqualTo(films.subList(2, 3));
+    }
+
+    /**
+     * Фильмы за период выпуска возвращаются в порядке даты выпуска, границы периода включаются.
+     *
+     * @see FilmController#getAllFilms(Integer, long, LocalDate, LocalDate, String)
+     */
+    @Test
+    void shouldReturnFilmsReleasedInPeriod() throws IOException {
+        final List<FilmModelNoId> films = List.of(
+                new FilmModelNoId("Film 1", "Description 1", LocalDate.of(2003, 3, 3), 101),
+                new FilmModelNoId("Film 2", "Description 2", LocalDate.of(2001, 1, 1), 102),
+                new FilmModelNoId("Film 3", "Description 3", LocalDate.of(2002, 2, 2), 103));
+        for (final FilmModelNoId film : films) {
+            webClient.post()
+                    .bodyValue(objectMapper.writeValueAsString(film))
+                    .exchange()
+                    .expectStatus().isOk();
+        }
+
+        webClient.get()
+                .uri("?releasedFrom=2001-01-01&releasedTo=2002-02-02")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(new ParameterizedTypeReference<List<FilmModelNoId>>() {
+                })
+                .isEqualTo(List.of(films.get(1), films.get(2)));
+
+        webClient.get()
+                .uri("?releasedFrom=2002-01-01")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(new ParameterizedTypeReference<List<FilmModelNoId>>() {
+                })
+                .isEqualTo(List.of(films.get(2), films.get(0)));
+    }
+
+    /**
+     * Поиск находит фильмы по словам названия и описания, в том числе по префиксу; пустой запрос отклоняется.
+     *
+     * @see FilmController#searchFilms(String, int)
+     */
+    @Test
+    void shouldSearchFilmsByNameAndDescription() throws IOException {
+        final List<FilmModelNoId> films = List.of(
+                new FilmModelNoId("Brother", "Danila returns from the army.", LocalDate.of(1997, 12, 12), 99),
+                new FilmModelNoId("Brother 2", "Danila goes to America.", LocalDate.of(2000, 5, 11), 127),
+                new FilmModelNoId("Stalker", "A guide leads two men through the Zone.", LocalDate.of(1979, 5, 25), 161));
+        for (final FilmModelNoId film : films) {
+            webClient.post()
+                    .bodyValue(objectMapper.writeValueAsString(film))
+                    .exchange()
+                    .expectStatus().isOk();
+        }
+
+        webClient.get()
+                .uri("/search?q=brother america")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(new ParameterizedTypeReference<List<FilmModelNoId>>() {
+                })
+                .isEqualTo(List.of(films.get(1), films.get(0)));
+
+        webClient.get()
+                .uri("/search?q=stalk&limit=1")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(new ParameterizedTypeReference<List<FilmModelNoId>>() {
+                })
+                .isEqualTo(List.of(films.get(2)));
+
+        webClient.get()
+                .uri("/search?q= ")
+                .exchange()
+                .expectStatus().is5xxServerError();
+    }
+
+    /**
+     * Пакетное добавление: валидные фильмы добавляются, невалидные возвращают ошибку, не мешая остальным.
+     *
+     * @see FilmController#addFilms(List)
+     */
+    @Test
+    void shouldAddValidFilmsFromBatchAndReportInvalid() throws IOException {
+        final List<FilmModelNoId> films = List.of(
+                new FilmModelNoId("Valid 1", "Description", LocalDate.of(2001, 1, 1), 90),
+                new FilmModelNoId("  ", "Blank name", LocalDate.of(2001, 1, 1), 90),
+                new FilmModelNoId("Valid 2", "Description", LocalDate.of(2002, 2, 2), 100));
+
+        webClient.post()
+                .uri("/batch")
+                .bodyValue(objectMapper.writeValueAsString(films))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(3)
+                .jsonPath("$[0].success").isEqualTo(true)
+                .jsonPath("$[0].entity.name").isEqualTo("Valid 1")
+                .jsonPath("$[1].success").isEqualTo(false)
+                .jsonPath("$[1].error").isNotEmpty()
+                .jsonPath("$[1].entity").doesNotExist()
+                .jsonPath("$[2].success").isEqualTo(true);
+
+        webClient.get()
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(new ParameterizedTypeReference<List<FilmModelNoId>>() {
+                })
+                .isEqualTo(List.of(films.get(0), films.get(2)));
+    }
+
+    /**
+     * Популярные фильмы упорядочены по количеству лайков, фильмы без лайков идут в конце; повторный лайк
+     * и лайк несуществующего пользователя отклоняются.
+     *
+     * @see FilmController#addLike(long, long)
+     * @see FilmController#getPopularFilms(int)
+     */
+    @Test
+    void shouldRankPopularFilmsByLikes() throws IOException {
+        final InMemoryUserStorage userStorage = new InMemoryUserStorage();
+        for (long id = 1; id <= 2; id++) {
+            userStorage.add(new User(id, "user" + id + "@mail.ru", "user" + id, null, LocalDate.of(2000, 1, 1)));
+        }
+        webClient = WebTestClient.bindToController(ControllerTestHelper.newFilmController(userStorage))
+                .configureClient()
+                .baseUrl("/films")
+                .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .build();
+
+        final List<FilmModelNoId> films = List.of(
+                new FilmModelNoId("Film 1", "Description 1", LocalDate.of(2001, 1, 1), 101),
+                new FilmModelNoId("Film 2", "Description 2", LocalDate.of(2002, 2, 2), 102),
+                new FilmModelNoId("Film 3", "Description 3", LocalDate.of(2003, 3, 3), 103));
+        for (final FilmModelNoId film : films) {
+            webClient.post()
+                    .bodyValue(objectMapper.writeValueAsString(film))
+                    .exchange()
+                    .expectStatus().isOk();
+        }
+
+        webClient.put().uri("/3/like/1").exchange().expectStatus().isOk();
+        webClient.put().uri("/3/like/2").exchange().expectStatus().isOk();
+        webClient.put().uri("/2/like/1").exchange().expectStatus().isOk();
+        webClient.put().uri("/3/like/1").exchange().expectStatus().is5xxServerError();
+        webClient.put().uri("/1/like/100").exchange().expectStatus().is5xxServerError();
+
+        webClient.get()
+                .uri("/popular?count=2")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(new ParameterizedTypeReference<List<FilmModelNoId>>() {
+                })
+                .isEqualTo(List.of(films.get(2), films.get(1)));
+
+        webClient.get()
+                .uri("/popular")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(new ParameterizedTypeReference<List<FilmModelNoId>>() {
+                })
+                .isEqualTo(List.of(films.get(2), films.get(1), films.get(0)));
+    }
+
+    /**
+     * Повторный запрос с ETag получает 304 без тела, пока фильмы не изменились; ETag фильма меняется только
+     * при изменении этого фильма.
+     *
+     * @see FilmController#getAllFilms(Integer, long, LocalDate, LocalDate, String)
+     * @see FilmController#getFilm(long, String)
+     */
+    @Test
+    void shouldAnswerNotModifiedWhileFilmsAreUnchanged() throws IOException {
+        for (int i = 1; i <= 2; i++) {
+            webClient.post()
+                    .bodyValue(objectMapper.writeValueAsString(new FilmModelNoId("Film " + i, "Description " + i,
+                            LocalDate.of(2000, 1, i), 100)))
+                    .exchange()
+                    .expectStatus().isOk();
+        }
+
+        final String collectionTag = webClient.get().exchange()
+                .expectStatus().isOk()
+                .returnResult(String.class).getResponseHeaders().getETag();
+        final String filmTag = webClient.get().uri("/1").exchange()
+                .expectStatus().isOk()
+                .returnResult(String.class).getResponseHeaders().getETag();
+        assertNotNull(collectionTag);
+        assertNotNull(filmTag);
+
+        webClient.get().header(HttpHeaders.IF_NONE_MATCH, collectionTag).exchange()
+                .expectStatus().isNotModified()
+                .expectBody().isEmpty();
+        webClient.get().uri("/1").header(HttpHeaders.IF_NONE_MATCH, "W/" + filmTag).exchange()
+                .expectStatus().isNotModified();
+
+        webClient.put()
+                .bodyValue(objectMapper.writeValueAsString(new FilmModelWId(2L, "Film 2", "Changed",
+                        LocalDate.of(2000, 1, 2), 100)))
+                .exchange()
+                .expectStatus().isOk();
+
+        webClient.get().header(HttpHeaders.IF_NONE_MATCH, collectionTag).exchange()
+                .expectStatus().isOk()
+                .expectHeader().value(HttpHeaders.ETAG, tag -> assertNotEquals(collectionTag, tag))
+                .expectBody()
+                .jsonPath("$[1].description").isEqualTo("Changed");
+        webClient.get().uri("/1").header(HttpHeaders.IF_NONE_MATCH, filmTag).exchange()
+                .expectStatus().isNotModified();
+        webClient.get().uri("/2").header(HttpHeaders.IF_NONE_MATCH, filmTag).exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.id").isEqualTo(2);
+    }
+
+    /**
+     * Подписчик потока изменений получает добавление и обновление фильмов, в том числе из пакетного запроса,
+     * по порядку и с номерами изменений.
+     *
+     * @see FilmController#streamChanges()
+     */
+    @Test
+    void shouldStreamFilmChanges() throws IOException {
+        final Flux<ServerSentEvent<Film>> events = webClient.get()
+                .uri("/changes/stream")
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.TEXT_EVENT_STREAM)
+                .returnResult(new ParameterizedTypeReference<ServerSentEvent<Film>>() {
+                })
+                .getResponseBody()
+                .replay()
+                .autoConnect();
+        // первое событие приходит сразу после подписки: дальнейшие изменения не будут пропущены
+        assertNotNull(events.blockFirst(TIMEOUT));
+
+        final FilmModelNoId film = new FilmModelNoId("Film", "Description", LocalDate.of(2000, 1, 1), 100);
+        webClient.post()
+                .bodyValue(objectMapper.writeValueAsString(film))
+                .exchange()
+                .expectStatus().isOk();
+        webClient.put()
+                .bodyValue(objectMapper.writeValueAsString(new FilmModelWId(1L, "Film", "Changed",
+                        LocalDate.of(2000, 1, 1), 100)))
+                .exchange()
+                .expectStatus().isOk();
+        webClient.post()
+                .uri("/batch")
+                .bodyValue(objectMapper.writeValueAsString(List.of(film)))
+                .exchange()
+                .expectStatus().isOk();
+
+        final List<ServerSentEvent<Film>> changes = events.filter(event -> event.event() != null)
+                .take(3)
+                .collectList()
+                .block(TIMEOUT);
+        assertNotNull(changes);
+        assertEquals(List.of("created", "updated", "created"),
+                changes.stream().map(ServerSentEvent::event).collect(Collectors.toList()));
+        assertEquals(List.of("1", "2", "3"),
+                changes.stream().map(ServerSentEvent::id).collect(Collectors.toList()));
+        assertEquals(List.of(new Film(1L, "Film", "Description", LocalDate.of(2000, 1, 1), 100),
+                        new Film(1L, "Film", "Changed", LocalDate.of(2000, 1, 1), 100),
+                        new Film(2L, "Film", "Description", LocalDate.of(2000, 1, 1), 100)),
+                changes.stream().map(ServerSentEvent::data).collect(Collectors.toList()));
+    }
+
+    /**
+     * Частичное обновление меняет только переданные поля, {@code null} сбрасывает поле; невалидное значение,
+     * неизвестное поле и чужой идентификатор отклоняются с {@code 400}, а фильм не меняется.
+     *
+     * @see FilmController#patchFilm(long, FilmPatch, String)
+     */
+    @Test
+    void shouldPatchOnlyPassedFields() throws IOException {
+        webClient.post()
+                .bodyValue(objectMapper.writeValueAsString(new FilmModelNoId("Film", "Description",
+                        LocalDate.of(2000, 1, 1), 100)))
+                .exchange()
+                .expectStatus().isOk();
+
+        webClient.patch()
+                .uri("/1")
+                .contentType(MediaType.valueOf(MergePatch.APPLICATION_MERGE_PATCH_JSON_VALUE))
+                .bodyValue("{\"name\":\"Changed\",\"description\":null}")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(Film.class)
+                .isEqualTo(new Film(1L, "Changed", null, LocalDate.of(2000, 1, 1), 100));
+
+        for (final String patch : List.of("{\"duration\":0}", "{\"name\":\" \"}", "{\"title\":\"Changed\"}",
+                "{\"id\":2,\"duration\":90}")) {
+            webClient.patch()
+                    .uri("/1")
+                    .bodyValue(patch)
+                    .exchange()
+                    .expectStatus().isBadRequest();
+        }
+
+        webClient.get()
+                .uri("/1")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(Film.class)
+                .isEqualTo(new Film(1L, "Changed", null, LocalDate.of(2000, 1, 1), 100));
+    }
+
+    /**
+     * Одновременные частичные обновления разных полей одного фильма не теряют друг друга.
+     *
+     * @see FilmController#patchFilm(long, FilmPatch, String)
+     */
+    @Test
+    void shouldNotLoseConcurrentPatches() throws Exception {
+        final FilmController controller = ControllerTestHelper.newFilmController();
+        final FilmPatch description = objectMapper.readValue("{\"description\":\"Changed\"}", FilmPatch.class);
+        final FilmPatch duration = objectMapper.readValue("{\"duration\":90}", FilmPatch.class);
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (int i = 0; i < 500; i++) {
+                final long id = controller.addFilm(new Film(null, "Film", "Description",
+                        LocalDate.of(2000, 1, 1), 100), null).getId();
+                final CyclicBarrier start = new CyclicBarrier(2);
+                final Future<Film> first = executor.submit(() -> {
+                    start.await();
+                    return controller.patchFilm(id, description, null);
+                });
+                final Future<Film> second = executor.submit(() -> {
+                    start.await();
+                    return controller.patchFilm(id, duration, null);
+                });
+                first.get(TIMEOUT.toSeconds(), TimeUnit.SECONDS);
+                second.get(TIMEOUT.toSeconds(), TimeUnit.SECONDS);
+
+                assertEquals(new Film(id, "Film", "Changed", LocalDate.of(2000, 1, 1), 90),
+                        objectMapper.readValue(controller.getFilm(id, null).getBody(), Film.class));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * По неизвестной версии требуется полная загрузка; после нее возвращаются только фильмы, измененные
+     * после полученной версии, по одному разу и в текущем состоянии.
+     *
+     * @see FilmController#getChangedFilms(long, Integer)
+     */
+    @Test
+    void shouldReturnFilmsChangedSinceVersion() throws IOException {
+        final FilmModelNoId film = new FilmModelNoId("Film", "Description", LocalDate.of(2000, 1, 1), 100);
+        webClient.post()
+                .bodyValue(objectMapper.writeValueAsString(film))
+                .exchange()
+                .expectStatus().isOk();
+
+        final JsonNode resync = changedSince(0);
+        assertTrue(resync.get("resyncRequired").asBoolean());
+        assertEquals(0, resync.get("changed").size());
+
+        webClient.post()
+                .bodyValue(objectMapper.writeValueAsString(film))
+                .exchange()
+                .expectStatus().isOk();
+        webClient.put()
+                .bodyValue(objectMapper.writeValueAsString(new FilmModelWId(2L, "Film", "Changed",
+                        LocalDate.of(2000, 1, 1), 100)))
+                .exchange()
+                .expectStatus().isOk();
+
+        final JsonNode delta = changedSince(resync.get("version").asLong());
+        assertFalse(delta.get("resyncRequired").asBoolean());
+        assertEquals(List.of(new Film(2L, "Film", "Changed", LocalDate.of(2000, 1, 1), 100)),
+                objectMapper.readValue(delta.get("changed").traverse(objectMapper),
+                        new TypeReference<List<Film>>() {
+                        }));
+
+        final JsonNode unchanged = changedSince(delta.get("version").asLong());
+        assertFalse(unchanged.get("resyncRequired").asBoolean());
+        assertEquals(delta.get("version").asLong(), unchanged.get("version").asLong());
+        assertEquals(0, unchanged.get("changed").size());
+    }
+
+    /**
+     * Изменение с {@code If-Match} или версией в теле записывается, только пока фильм не изменился после чтения;
+     * устаревшая, слабая или чужая версия отклоняется с {@code 412}, и фильм не меняется. Без версии последняя
+     * запись побеждает.
+     *
+     * @see FilmController#updateFilm(Film, String)
+     * @see FilmController#patchFilm(long, FilmPatch, String)
+     */
+    @Test
+    void shouldRejectStaleVersionWithPreconditionFailed() throws IOException {
+        webClient.post()
+                .bodyValue(objectMapper.writeValueAsString(new FilmModelNoId("Film", "Description",
+                        LocalDate.of(2000, 1, 1), 100)))
+                .exchange()
+                .expectStatus().isOk();
+        final String staleTag = webClient.get().uri("/1").exchange()
+                .expectStatus().isOk()
+                .returnResult(String.class).getResponseHeaders().getETag();
+        assertNotNull(staleTag);
+
+        final Film updated = webClient.put()
+                .header(HttpHeaders.IF_MATCH, staleTag)
+                .bodyValue(objectMapper.writeValueAsString(new FilmModelWId(1L, "Film", "Changed",
+                        LocalDate.of(2000, 1, 1), 100)))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(Film.class)
+                .returnResult().getResponseBody();
+        assertNotNull(updated);
+        webClient.get().uri("/1").exchange()
+                .expectHeader().value(HttpHeaders.ETAG, tag -> assertNotEquals(staleTag, tag));
+
+        for (final String ifMatch : List.of(staleTag, "W/" + staleTag, "\"1\"")) {
+            webClient.put()
+                    .header(HttpHeaders.IF_MATCH, ifMatch)
+                    .bodyValue(objectMapper.writeValueAsString(new FilmModelWId(1L, "Film", "Lost",
+                            LocalDate.of(2000, 1, 1), 100)))
+                    .exchange()
+                    .expectStatus().isEqualTo(HttpStatus.PRECONDITION_FAILED);
+        }
+        webClient.patch()
+                .uri("/1")
+                .header(HttpHeaders.IF_MATCH, staleTag)
+                .bodyValue("{\"description\":\"Lost\"}")
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.PRECONDITION_FAILED);
+        webClient.put()
+                .bodyValue(objectMapper.writeValueAsString(updated.withDescription("Lost")
+                        .withVersion(updated.getVersion() - 1)))
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.PRECONDITION_FAILED);
+
+        webClient.patch()
+                .uri("/1")
+                .bodyValue("{\"description\":\"Patched\",\"version\":" + updated.getVersion() + "}")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.description").isEqualTo("Patched");
+        webClient.put()
+                .bodyValue(objectMapper.writeValueAsString(new FilmModelWId(1L, "Film", "Unconditional",
+                        LocalDate.of(2000, 1, 1), 100)))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.description").isEqualTo("Unconditional");
+    }
+
+    /**
+     * Если в {@code If-Match} несколько тегов, запись разрешена, когда текущей версии фильма соответствует любой
+     * из них, а не только первый; если не совпадает ни один, ответ {@code 412}.
+     *
+     * @see EntityTags#expectedVersion(String, long, java.util.function.LongSupplier)
+     */
+    @Test
+    void shouldMatchAnyTagFromIfMatchList() throws IOException {
+        webClient.post()
+                .bodyValue(objectMapper.writeValueAsString(new FilmModelNoId("Film", "Description",
+                        LocalDate.of(2000, 1, 1), 100)))
+                .exchange()
+                .expectStatus().isOk();
+        final String staleTag = webClient.get().uri("/1").exchange()
+                .returnResult(String.class).getResponseHeaders().getETag();
+        webClient.patch()
+                .uri("/1")
+                .bodyValue("{\"description\":\"Changed\"}")
+                .exchange()
+                .expectStatus().isOk();
+        final String currentTag = webClient.get().uri("/1").exchange()
+                .returnResult(String.class).getResponseHeaders().getETag();
+        assertNotNull(staleTag);
+        assertNotNull(currentTag);
+
+        webClient.patch()
+                .uri("/1")
+                .header(HttpHeaders.IF_MATCH, staleTag + ", " + currentTag)
+                .bodyValue("{\"description\":\"Matched\"}")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.description").isEqualTo("Matched");
+
+        webClient.put()
+                .header(HttpHeaders.IF_MATCH, staleTag + ", " + currentTag + ", \"1\"")
+                .bodyValue(objectMapper.writeValueAsString(new FilmModelWId(1L, "Film", "Lost",
+                        LocalDate.of(2000, 1, 1), 100)))
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.PRECONDITION_FAILED);
+        webClient.get().uri("/1").exchange()
+                .expectBody()
+                .jsonPath("$.description").isEqualTo("Matched");
+    }
+
+    /**
+     * Клиенты, одновременно увеличивающие длительность нескольких фильмов циклом «прочитать – записать
+     * с {@code If-Match} – при {@code 412} повторить», не теряют ни одного увеличения; все клиенты успевают
+     * выполнить свою долю записей: фильмы не блокируются целиком и на время ожидания записи на диск.
+     *
+     * @see FilmController#updateFilm(Film, String)
+     */
+    @Test
+    void shouldNotLoseConcurrentVersionedUpdates() throws Exception {
+        final FilmController controller = ControllerTestHelper.newFilmController();
+        final int films = 4;
+        final int clients = 8;
+        final int incrementsPerClient = 200;
+        for (int i = 0; i < films; i++) {
+            controller.addFilm(new Film(null, "Film", "Description", LocalDate.of(2000, 1, 1), 1), null);
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(clients);
+        try {
+            final CyclicBarrier start = new CyclicBarrier(clients);
+            final List<Future<Integer>> conflicts = new ArrayList<>(clients);
+            for (int client = 0; client < clients; client++) {
+                final int firstFilm = client;
+                conflicts.add(executor.submit(() -> {
+                    start.await();
+                    int clientConflicts = 0;
+                    for (int i = 0; i < incrementsPerClient; i++) {
+                        final long id = (firstFilm + i) % films + 1;
+                        while (true) {
+                            final ResponseEntity<byte[]> response = controller.getFilm(id, null);
+                            final Film film = objectMapper.readValue(response.getBody(), Film.class);
+                            try {
+                                controller.updateFilm(film.withDuration(film.getDuration() + 1),
+                                        response.getHeaders().getETag());
+                                break;
+                            } catch (VersionConflictException e) {
+                                clientConflicts++;
+                            }
+                        }
+                    }
+                    return clientConflicts;
+                }));
+            }
+
+            int totalConflicts = 0;
+            for (final Future<Integer> clientConflicts : conflicts) {
+                totalConflicts += clientConflicts.get(TIMEOUT.toSeconds() * 6, TimeUnit.SECONDS);
+            }
+
+            int totalDuration = 0;
+            for (long id = 1; id <= films; id++) {
+                totalDuration += objectMapper.readValue(controller.getFilm(id, null).getBody(), Film.class)
+                        .getDuration();
+            }
+            assertEquals(films + clients * incrementsPerClient, totalDuration,
+                    "Потеряны обновления; повторов после конфликта версий: " + totalConflicts);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Повтор добавления с тем же {@code Idempotency-Key}, в том числе одновременный, возвращает уже добавленный
+     * фильм и не создает новый; тот же ключ с другим фильмом отклоняется с {@code 422}.
+     *
+     * @see FilmController#addFilm(Film, String)
+     */
+    @Test
+    void shouldNotDuplicateFilmOnRetryWithIdempotencyKey() throws Exception {
+        final String film = objectMapper.writeValueAsString(new FilmModelNoId("Film", "Description",
+                LocalDate.of(2000, 1, 1), 100));
+        for (int i = 0; i < 2; i++) {
+            webClient.post()
+                    .header(IdempotencyCache.IDEMPOTENCY_KEY_HEADER, "retried")
+                    .bodyValue(film)
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectBody()
+                    .jsonPath("$.id").isEqualTo(1);
+        }
+        webClient.post()
+                .header(IdempotencyCache.IDEMPOTENCY_KEY_HEADER, "retried")
+                .bodyValue(objectMapper.writeValueAsString(new FilmModelNoId("Other", "Description",
+                        LocalDate.of(2000, 1, 1), 100)))
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY);
+        webClient.get()
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(1);
+
+        final FilmController controller = ControllerTestHelper.newFilmController();
+        final int clients = 8;
+        final ExecutorService executor = Executors.newFixedThreadPool(clients);
+        try {
+            final CyclicBarrier start = new CyclicBarrier(clients);
+            final List<Future<Film>> added = new ArrayList<>(clients);
+            for (int client = 0; client < clients; client++) {
+                added.add(executor.submit(() -> {
+                    start.await();
+                    return controller.addFilm(new Film(null, "Film", "Description", LocalDate.of(2000, 1, 1), 100),
+                            "concurrent");
+                }));
+            }
+
+            for (final Future<Film> addedFilm : added) {
+                assertEquals(1, addedFilm.get(TIMEOUT.toSeconds(), TimeUnit.SECONDS).getId());
+            }
+            assertEquals(1, objectMapper.readValue(controller.getAllFilms(null, 0, null, null, null).getBody(),
+                    new TypeReference<List<Film>>() {
+                    }).size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static JsonNode changedSince(final long version) throws IOException {
+        final byte[] body = webClient.get()
+                .uri(uriBuilder -> uriBuilder.queryParam("sinceVersion", version).build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .returnResult()
+                .getResponseBody();
+        assertNotNull(body);
+        return objectMapper.readTree(body);
+    }
 }
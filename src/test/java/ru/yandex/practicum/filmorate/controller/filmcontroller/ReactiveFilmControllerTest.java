@@ -0,0 +1,129 @@
+package ru.yandex.practicum.filmorate.controller.filmcontroller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import ru.yandex.practicum.filmorate.controller.NdjsonExporter;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.service.Batches;
+import util.ControllerTestHelper;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Тесты для {@link ReactiveFilmController}: ответы совпадают с {@link FilmController}.
+ */
+final class ReactiveFilmControllerTest {
+
+    private WebTestClient webClient;
+
+    @BeforeEach
+    void beforeEach() {
+        webClient = WebTestClient.bindToController(ControllerTestHelper.newReactiveFilmController())
+                .configureClient()
+                .baseUrl("/films")
+                .build();
+    }
+
+    /**
+     * Фильмы добавляются, обновляются и читаются; невалидный фильм и лайк несуществующему фильму отклоняются,
+     * а неизмененный фильм возвращается как {@code 304 Not Modified}.
+     */
+    @Test
+    void shouldAddUpdateAndGetFilms() {
+        webClient.post()
+                .bodyValue(film(Film.NO_ID, "Film"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(Film.class).isEqualTo(film(1, "Film"));
+
+        webClient.post()
+                .bodyValue(film(Film.NO_ID, " "))
+                .exchange()
+                .expectStatus().isBadRequest();
+
+        webClient.put()
+                .bodyValue(film(1, "Updated"))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(Film.class).isEqualTo(film(1, "Updated"));
+
+        final String etag = webClient.get()
+                .uri("/1")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(Film.class).isEqualTo(film(1, "Updated"))
+                .returnResult()
+                .getResponseHeaders()
+                .getETag();
+        assertNotNull(etag);
+
+        webClient.get()
+                .uri("/1")
+                .header(HttpHeaders.IF_NONE_MATCH, etag)
+                .exchange()
+                .expectStatus().isNotModified();
+
+        webClient.get()
+                .uri("/search?q=updated")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(Film.class).isEqualTo(List.of(film(1, "Updated")));
+
+        webClient.put()
+                .uri("/2/like/1")
+                .exchange()
+                .expectStatus().is5xxServerError();
+    }
+
+    /**
+     * Все фильмы выгружаются в формате NDJSON несколькими буферами, страницы – JSON-массивом с курсором.
+     */
+    @Test
+    void shouldStreamAllFilmsAsNdjson() {
+        final int count = 2 * Batches.MAX_BATCH_SIZE;
+        for (int batch = 0; batch < 2; batch++) {
+            final long firstId = batch * Batches.MAX_BATCH_SIZE + 1L;
+            webClient.post()
+                    .uri("/batch")
+                    .bodyValue(LongStream.range(firstId, firstId + Batches.MAX_BATCH_SIZE)
+                            .mapToObj(id -> film(Film.NO_ID, "Film " + id))
+                            .collect(Collectors.toList()))
+                    .exchange()
+                    .expectStatus().isOk();
+        }
+
+        final List<Film> exported = webClient.get()
+                .accept(NdjsonExporter.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(NdjsonExporter.APPLICATION_NDJSON)
+                .returnResult(Film.class)
+                .getResponseBody()
+                .collectList()
+                .block();
+        assertNotNull(exported);
+        assertEquals(count, exported.size());
+        assertEquals(film(count, "Film " + count), exported.get(count - 1));
+
+        webClient.get()
+                .uri("?limit=10")
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals("X-Next-Cursor", "10")
+                .expectBodyList(Film.class).hasSize(10);
+    }
+
+    private static Film film(final long id, final String name) {
+        return new Film(id, name, "Description", LocalDate.of(2000, 1, 1), 90);
+    }
+}
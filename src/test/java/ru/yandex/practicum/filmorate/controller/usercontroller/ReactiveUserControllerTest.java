@@ -0,0 +1,72 @@
+package ru.yandex.practicum.filmorate.controller.usercontroller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import ru.yandex.practicum.filmorate.model.User;
+import util.ControllerTestHelper;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Тесты для {@link ReactiveUserController}: ответы совпадают с {@link UserController}.
+ */
+final class ReactiveUserControllerTest {
+
+    private WebTestClient webClient;
+
+    @BeforeEach
+    void beforeEach() {
+        webClient = WebTestClient.bindToController(ControllerTestHelper.newReactiveUserController())
+                .configureClient()
+                .baseUrl("/users")
+                .build();
+    }
+
+    /**
+     * Пользователи создаются и находятся по логину; дружба добавляется, читается и удаляется.
+     */
+    @Test
+    void shouldAddUsersAndManageFriends() {
+        for (final String login : List.of("first", "second", "common")) {
+            webClient.post()
+                    .bodyValue(user(User.NO_ID, login))
+                    .exchange()
+                    .expectStatus().isOk();
+        }
+
+        webClient.post()
+                .bodyValue(user(User.NO_ID, "with space"))
+                .exchange()
+                .expectStatus().isBadRequest();
+
+        webClient.get()
+                .uri("/by-login/SECOND")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(User.class).isEqualTo(user(2, "second"));
+
+        webClient.put().uri("/1/friends/3").exchange().expectStatus().isOk();
+        webClient.put().uri("/2/friends/3").exchange().expectStatus().isOk();
+        webClient.put().uri("/1/friends/1").exchange().expectStatus().is5xxServerError();
+
+        webClient.get()
+                .uri("/1/friends/common/2")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(User.class).isEqualTo(List.of(user(3, "common")));
+
+        webClient.delete().uri("/1/friends/3").exchange().expectStatus().isOk();
+
+        webClient.get()
+                .uri("/1/friends")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(User.class).hasSize(0);
+    }
+
+    private static User user(final long id, final String login) {
+        return new User(id, login + "@mail.ru", login, login, LocalDate.of(2000, 1, 1));
+    }
+}
@@ -9,6 +9,7 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import ru.yandex.practicum.filmorate.controller.usercontroller.model.UserModelNoId;
@@ -19,6 +20,7 @@ import util.ControllerTestHelper;
 import java.io.IOException;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 
@@ -37,7 +39,7 @@ final class UserControllerTest {
 
     @BeforeEach
     void beforeEach() {
-        webClient = WebTestClient.bindToController(UserController.class)
+        webClient = WebTestClient.bindToController(ControllerTestHelper.newUserController())
                 .configureClient()
                 .baseUrl("/users")
                 .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
@@ -71,7 +73,7 @@ final class UserControllerTest {
     /**
      * Корректно возвращается список пользователей.
      *
-     * @see UserController#getAllUsers()
+     * @see UserController#getAllUsers(Integer, long, String)
      */
     @Test
     void shouldCorrectlyAddAndRetrieveMultipleUsers() throws IOException {
@@ -279,4 +281,187 @@ final class UserControllerTest {
                 .expectBody().isEmpty();
     }
 
+    /**
+     * Дружба взаимна, общие друзья возвращаются по возрастанию идентификатора, удаление дружбы
+     * меняет списки обоих пользователей.
+     *
+     * @see UserController#addFriend(long, long)
+     * @see UserController#getCommonFriends(long, long)
+     */
+    @Test
+    void shouldMaintainMutualFriendsAndCommonFriends() throws IOException {
+        for (int i = 1; i <= 4; i++) {
+            webClient.post()
+                    .bodyValue(objectMapper.writeValueAsString(new UserModelNoId("user" + i + "@mail.ru", "User " + i,
+                            "user" + i, LocalDate.of(2000, 1, i))))
+                    .exchange()
+                    .expectStatus().isOk();
+        }
+
+        webClient.put().uri("/1/friends/2").exchange().expectStatus().isOk();
+        webClient.put().uri("/1/friends/3").exchange().expectStatus().isOk();
+        webClient.put().uri("/4/friends/3").exchange().expectStatus().isOk();
+        webClient.put().uri("/4/friends/2").exchange().expectStatus().isOk();
+        webClient.put().uri("/1/friends/100").exchange().expectStatus().is5xxServerError();
+
+        webClient.get().uri("/2/friends").exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(2)
+                .jsonPath("$[0].id").isEqualTo(1)
+                .jsonPath("$[1].id").isEqualTo(4);
+
+        webClient.get().uri("/1/friends/common/4").exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(2)
+                .jsonPath("$[0].id").isEqualTo(2)
+                .jsonPath("$[1].id").isEqualTo(3);
+
+        webClient.delete().uri("/2/friends/1").exchange().expectStatus().isOk();
+
+        webClient.get().uri("/1/friends").exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(1)
+                .jsonPath("$[0].id").isEqualTo(3);
+
+        webClient.get().uri("/1/friends/common/4").exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(1)
+                .jsonPath("$[0].id").isEqualTo(3);
+    }
+
+    /**
+     * Электронная почта и логин уникальны, пользователь находится по логину и по его началу.
+     *
+     * @see UserController#getUserByLogin(String)
+     * @see UserController#autocompleteLogin(String, int)
+     */
+    @Test
+    void shouldKeepEmailAndLoginUniqueAndFindByLogin() throws IOException {
+        final String[] logins = {"anna", "annabel", "Anton", "boris"};
+        for (int i = 0; i < logins.length; i++) {
+            webClient.post()
+                    .bodyValue(objectMapper.writeValueAsString(new UserModelNoId(logins[i] + "@mail.ru", null,
+                            logins[i], LocalDate.of(2000, 1, i + 1))))
+                    .exchange()
+                    .expectStatus().isOk();
+        }
+
+        webClient.post()
+                .bodyValue(objectMapper.writeValueAsString(new UserModelNoId("ANNA@mail.ru", null,
+                        "other", LocalDate.of(2000, 1, 1))))
+                .exchange()
+                .expectStatus().isEqualTo(409);
+        webClient.post()
+                .bodyValue(objectMapper.writeValueAsString(new UserModelNoId("other@mail.ru", null,
+                        "BORIS", LocalDate.of(2000, 1, 1))))
+                .exchange()
+                .expectStatus().isEqualTo(409);
+        webClient.put()
+                .bodyValue(objectMapper.writeValueAsString(new UserModelWId(1L, "boris@mail.ru", null,
+                        "anna", LocalDate.of(2000, 1, 1))))
+                .exchange()
+                .expectStatus().isEqualTo(409);
+
+        // после смены логина старый освобождается
+        webClient.put()
+                .bodyValue(objectMapper.writeValueAsString(new UserModelWId(4L, "boris@mail.ru", null,
+                        "bob", LocalDate.of(2000, 1, 4))))
+                .exchange()
+                .expectStatus().isOk();
+        webClient.get().uri("/by-login/boris").exchange().expectStatus().is5xxServerError();
+        webClient.get().uri("/by-login/BOB").exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.id").isEqualTo(4);
+
+        webClient.get().uri("/autocomplete?prefix=An").exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(3)
+                .jsonPath("$[0].login").isEqualTo("anna")
+                .jsonPath("$[1].login").isEqualTo("annabel")
+                .jsonPath("$[2].login").isEqualTo("Anton");
+
+        webClient.get().uri("/autocomplete?prefix=ann&limit=1").exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(1)
+                .jsonPath("$[0].login").isEqualTo("anna");
+    }
+
+    /**
+     * Частичное обновление меняет только переданные поля: сброшенное имя показывается как новый логин,
+     * занятый логин отклоняется с {@code 409}, невалидная дата рождения – с {@code 400}.
+     *
+     * @see UserController#patchUser(long, ru.yandex.practicum.filmorate.model.UserPatch, String)
+     */
+    @Test
+    void shouldPatchOnlyPassedFields() throws IOException {
+        for (final String login : List.of("anna", "boris")) {
+            webClient.post()
+                    .bodyValue(objectMapper.writeValueAsString(new UserModelNoId(login + "@mail.ru", "Name",
+                            login, LocalDate.of(2000, 1, 1))))
+                    .exchange()
+                    .expectStatus().isOk();
+        }
+
+        final UserModelWId expectedUser = new UserModelWId(1L, "anna@mail.ru", "annie", "annie",
+                LocalDate.of(2000, 1, 1));
+        webClient.patch()
+                .uri("/1")
+                .bodyValue("{\"login\":\"annie\",\"name\":null}")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(UserModelWId.class)
+                .isEqualTo(expectedUser);
+
+        webClient.patch()
+                .uri("/1")
+                .bodyValue("{\"login\":\"boris\"}")
+                .exchange()
+                .expectStatus().isEqualTo(409);
+        webClient.patch()
+                .uri("/1")
+                .bodyValue(objectMapper.writeValueAsString(Map.of("birthday", LocalDate.now().plusDays(1))))
+                .exchange()
+                .expectStatus().isBadRequest();
+
+        webClient.get()
+                .uri("/1")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(UserModelWId.class)
+                .isEqualTo(expectedUser);
+    }
+
+    /**
+     * Изменение пользователя по устаревшему {@code If-Match} отклоняется с {@code 412}, как и у фильмов.
+     *
+     * @see UserController#updateUser(User, String)
+     */
+    @Test
+    void shouldRejectStaleVersionWithPreconditionFailed() throws IOException {
+        webClient.post()
+                .bodyValue(objectMapper.writeValueAsString(new UserModelNoId("anna@mail.ru", "Name", "anna",
+                        LocalDate.of(2000, 1, 1))))
+                .exchange()
+                .expectStatus().isOk();
+        final String tag = webClient.get().uri("/1").exchange()
+                .expectStatus().isOk()
+                .returnResult(String.class).getResponseHeaders().getETag();
+        assertNotNull(tag);
+
+        for (final HttpStatus expectedStatus : List.of(HttpStatus.OK, HttpStatus.PRECONDITION_FAILED)) {
+            webClient.put()
+                    .header(HttpHeaders.IF_MATCH, tag)
+                    .bodyValue(objectMapper.writeValueAsString(new UserModelWId(1L, "anna@mail.ru", "Changed",
+                            "anna", LocalDate.of(2000, 1, 1))))
+                    .exchange()
+                    .expectStatus().isEqualTo(expectedStatus);
+        }
+    }
 }
@@ -0,0 +1,44 @@
+package ru.yandex.practicum.filmorate.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import javax.validation.Validation;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Тесты для {@link CountingValidator}.
+ */
+final class CountingValidatorTest {
+
+    /**
+     * Каждое нарушение увеличивает счетчик своего ограничения, успешная проверка счетчики не создает.
+     */
+    @Test
+    void shouldCountViolationsByConstraint() {
+        final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        final CountingValidator validator =
+                new CountingValidator(Validation.buildDefaultValidatorFactory().getValidator(), meterRegistry);
+
+        validator.validate(new Film(Film.NO_ID, "Film", "", LocalDate.of(2000, 1, 1), 90));
+        assertTrue(meterRegistry.find("filmorate.validation.failures").counters().isEmpty());
+
+        validator.validate(new Film(Film.NO_ID, " ", "", LocalDate.of(1800, 1, 1), 90));
+        validator.validate(new Film(Film.NO_ID, "", "", LocalDate.of(2000, 1, 1), 90));
+
+        assertEquals(2, failures("NotBlank", meterRegistry));
+        assertEquals(1, failures("IsAfter", meterRegistry));
+    }
+
+    private static double failures(final String constraint, final MeterRegistry meterRegistry) {
+        return meterRegistry.get("filmorate.validation.failures")
+                .tags("entity", "Film", "constraint", constraint)
+                .counter()
+                .count();
+    }
+}
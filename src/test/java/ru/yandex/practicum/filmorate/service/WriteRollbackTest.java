@@ -0,0 +1,113 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.filmstorage.InMemoryFilmStorage;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Тесты для {@link WriteRollback}.
+ */
+final class WriteRollbackTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private final InMemoryFilmStorage storage = new InMemoryFilmStorage();
+
+    private final KeyLocks locks = new KeyLocks();
+
+    private final WriteRollback<Film> rollback = new WriteRollback<>("Film", locks,
+            storage::versionOf, (id, previous) -> {
+        if (previous == null) {
+            storage.remove(id);
+        } else {
+            storage.update(previous);
+        }
+    });
+
+    /**
+     * Фильм, добавление которого не записано в журнал, удаляется из хранилища и индексов.
+     */
+    @Test
+    void shouldRemoveFilmWhenAddIsNotWritten() throws InterruptedException {
+        final CompletableFuture<Void> pendingWrite = write(film("Сталкер"));
+
+        pendingWrite.completeExceptionally(new IOException("disk full"));
+
+        awaitUntil(() -> storage.findById(1L).isEmpty());
+        assertTrue(storage.search("Сталкер", 10).isEmpty());
+        assertEquals(0, storage.size());
+    }
+
+    /**
+     * Если не записаны несколько изменений подряд, фильм возвращается к состоянию до первого из них.
+     */
+    @Test
+    void shouldRestoreLastWrittenStateAfterFailedChain() throws InterruptedException {
+        write(film("Сталкер")).complete(null);
+        final CompletableFuture<Void> first = write(film("Солярис"));
+        final CompletableFuture<Void> second = write(film("Зеркало"));
+
+        first.completeExceptionally(new IOException("disk full"));
+        second.completeExceptionally(new IOException("disk full"));
+
+        awaitUntil(() -> "Сталкер".equals(storage.findById(1L).map(Film::getName).orElse(null)));
+        assertEquals(1, storage.search("Сталкер", 10).size());
+        assertTrue(storage.search("Зеркало", 10).isEmpty());
+    }
+
+    /**
+     * Откат не затирает более позднее изменение, записанное в журнал.
+     */
+    @Test
+    void shouldKeepLaterWrittenChange() throws InterruptedException {
+        write(film("Сталкер")).complete(null);
+        final CompletableFuture<Void> failed = write(film("Солярис"));
+        final CompletableFuture<Void> written = write(film("Зеркало"));
+
+        failed.completeExceptionally(new IOException("disk full"));
+        written.complete(null);
+
+        // откат выполняется асинхронно: даем ему время и убеждаемся, что он ничего не изменил
+        final long version = storage.versionOf(1L);
+        Thread.sleep(200);
+        assertEquals(version, storage.versionOf(1L));
+        assertEquals(Optional.of("Зеркало"), storage.findById(1L).map(Film::getName));
+    }
+
+    /**
+     * Записать фильм так же, как сервис: изменение и постановка в журнал под блокировкой идентификатора.
+     */
+    private CompletableFuture<Void> write(final Film film) {
+        synchronized (locks.lockFor(film.getId())) {
+            final Film previous = storage.findById(film.getId()).orElse(null);
+            assertTrue(previous == null ? storage.add(film) : storage.update(film));
+
+            final CompletableFuture<Void> pendingWrite = new CompletableFuture<>();
+            rollback.track(film.getId(), previous, storage.versionOf(film.getId()), pendingWrite);
+
+            return pendingWrite;
+        }
+    }
+
+    private static Film film(final String name) {
+        return new Film(1L, name, "", LocalDate.of(1979, 5, 25), 163);
+    }
+
+    private static void awaitUntil(final BooleanSupplier condition) throws InterruptedException {
+        final long deadline = System.nanoTime() + TIMEOUT.toNanos();
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Откат не выполнен.");
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package ru.yandex.practicum.filmorate.service.changes;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscription;
+import reactor.core.publisher.BaseSubscriber;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Тесты для {@link ChangeStream}.
+ */
+final class ChangeStreamTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private ChangeStream<String> changeStream = new ChangeStream<>(4, Duration.ofHours(1));
+
+    @AfterEach
+    void afterEach() {
+        changeStream.close();
+    }
+
+    /**
+     * Подписчики получают изменения, опубликованные после подписки, по порядку и с последовательными номерами.
+     */
+    @Test
+    void shouldDeliverChangesInOrder() throws InterruptedException, ExecutionException, TimeoutException {
+        final CompletableFuture<List<ChangeEvent<String>>> first = changes(changeStream.subscribe(), 3);
+        final CompletableFuture<List<ChangeEvent<String>>> second = changes(changeStream.subscribe(), 3);
+
+        changeStream.publish(ChangeType.CREATED, "a");
+        changeStream.publish(ChangeType.UPDATED, "a2");
+        changeStream.publish(ChangeType.CREATED, "b");
+
+        for (final CompletableFuture<List<ChangeEvent<String>>> changes : List.of(first, second)) {
+            final List<ChangeEvent<String>> events = changes.get(TIMEOUT.toSeconds(), TimeUnit.SECONDS);
+            assertEquals(List.of(ChangeType.CREATED, ChangeType.UPDATED, ChangeType.CREATED),
+                    events.stream().map(ChangeEvent::getType).collect(Collectors.toList()));
+            assertEquals(List.of("a", "a2", "b"),
+                    events.stream().map(ChangeEvent::getEntity).collect(Collectors.toList()));
+            assertEquals(List.of(1L, 2L, 3L),
+                    events.stream().map(ChangeEvent::getSequence).collect(Collectors.toList()));
+        }
+    }
+
+    /**
+     * Медленный подписчик отключается с событием {@link ChangeType#RESYNC}, не задерживая писателя и остальных
+     * подписчиков.
+     */
+    @Test
+    void shouldResyncSlowSubscriber() throws InterruptedException, ExecutionException, TimeoutException {
+        final SlowSubscriber slow = new SlowSubscriber();
+        changeStream.subscribe().subscribe(slow);
+        final CompletableFuture<List<ChangeEvent<String>>> fast = changes(changeStream.subscribe(), 10);
+
+        for (int i = 0; i < 10; i++) {
+            changeStream.publish(ChangeType.CREATED, Integer.toString(i));
+        }
+
+        assertEquals(10, fast.get(TIMEOUT.toSeconds(), TimeUnit.SECONDS).size());
+        final long deadline = System.nanoTime() + TIMEOUT.toNanos();
+        // быстрый подписчик отписывается уже после того, как получил последнее изменение
+        while ((changeStream.resyncs() == 0 || changeStream.subscribers() > 0) && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertEquals(1, changeStream.resyncs());
+        // быстрый подписчик получил все изменения и отписался, медленный отключен от рассылки
+        assertEquals(0, changeStream.subscribers());
+
+        slow.request(Long.MAX_VALUE);
+        assertTrue(slow.completed.await(TIMEOUT.toSeconds(), TimeUnit.SECONDS));
+        // первое пустое событие, четыре изменения из буфера и RESYNC
+        assertEquals(List.of(ChangeType.HEARTBEAT, ChangeType.CREATED, ChangeType.CREATED, ChangeType.CREATED,
+                ChangeType.CREATED, ChangeType.RESYNC), slow.events.stream()
+                .map(ChangeEvent::getType)
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * Подписка сразу получает пустое событие, а затем – периодические.
+     */
+    @Test
+    void shouldSendHeartbeats() {
+        changeStream.close();
+        changeStream = new ChangeStream<>(4, Duration.ofMillis(10));
+
+        final List<ChangeEvent<String>> heartbeats = changeStream.subscribe()
+                .take(3)
+                .collectList()
+                .block(TIMEOUT);
+
+        assertEquals(3, heartbeats.size());
+        assertTrue(heartbeats.stream().allMatch(event -> event.getType() == ChangeType.HEARTBEAT));
+    }
+
+    /**
+     * После закрытия потоки подписчиков завершаются.
+     */
+    @Test
+    void shouldCompleteSubscribersOnClose() {
+        final CompletableFuture<List<ChangeEvent<String>>> changes = changeStream.subscribe().collectList().toFuture();
+
+        changeStream.publish(ChangeType.CREATED, "a");
+        changeStream.close();
+
+        assertEquals(List.of(ChangeType.HEARTBEAT, ChangeType.CREATED), changes.join().stream()
+                .map(ChangeEvent::getType)
+                .collect(Collectors.toList()));
+        assertEquals(0, changeStream.subscribers());
+    }
+
+    private static CompletableFuture<List<ChangeEvent<String>>> changes(final Flux<ChangeEvent<String>> events,
+                                                                       final int count) {
+        return events.filter(event -> event.getType() != ChangeType.HEARTBEAT)
+                .take(count)
+                .collectList()
+                .toFuture();
+    }
+
+    /**
+     * Запрашивает только первое событие, остальные – по {@link #request(long)} из теста.
+     */
+    private static final class SlowSubscriber extends BaseSubscriber<ChangeEvent<String>> {
+
+        private final List<ChangeEvent<String>> events = new CopyOnWriteArrayList<>();
+
+        private final CountDownLatch completed = new CountDownLatch(1);
+
+        @Override
+        protected void hookOnSubscribe(final Subscription subscription) {
+            request(1);
+        }
+
+        @Override
+        protected void hookOnNext(final ChangeEvent<String> event) {
+            events.add(event);
+        }
+
+        @Override
+        protected void hookOnComplete() {
+            completed.countDown();
+        }
+    }
+}
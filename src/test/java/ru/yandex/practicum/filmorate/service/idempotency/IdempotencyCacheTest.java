@@ -0,0 +1,131 @@
+package ru.yandex.practicum.filmorate.service.idempotency;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exceptions.IdempotencyKeyMismatchException;
+import ru.yandex.practicum.filmorate.exceptions.ValidationException;
+import ru.yandex.practicum.filmorate.service.Futures;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Тесты для {@link IdempotencyCache}.
+ */
+final class IdempotencyCacheTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    private final AtomicInteger executions = new AtomicInteger();
+
+    private final IdempotencyCache<Integer> cache = new IdempotencyCache<>(4, Duration.ofNanos(100), now::get);
+
+    /**
+     * Повтор с тем же ключом и телом получает результат первого выполнения, в том числе еще не завершенного;
+     * повтор с другим телом отклоняется, а после истечения срока операция выполняется заново.
+     */
+    @Test
+    void shouldExecuteOnceAndReplayResult() {
+        final CompletableFuture<Integer> pending = new CompletableFuture<>();
+        final CompletableFuture<Integer> first = cache.execute("key", "body", () -> {
+            executions.incrementAndGet();
+            return pending;
+        });
+        final CompletableFuture<Integer> coalesced = cache.execute("key", "body", this::execute);
+        assertFalse(coalesced.isDone());
+
+        pending.complete(42);
+        assertEquals(42, first.join());
+        assertEquals(42, coalesced.join());
+        assertEquals(42, cache.execute("key", "body", this::execute).join());
+        assertEquals(1, executions.get());
+        assertEquals(2, cache.replays());
+
+        assertThrows(IdempotencyKeyMismatchException.class, () -> cache.execute("key", "other", this::execute));
+        assertThrows(ValidationException.class, () -> cache.execute(" ", "body", this::execute));
+
+        now.addAndGet(100);
+        assertEquals(2, cache.execute("key", "body", this::execute).join());
+    }
+
+    /**
+     * Ошибка передается одновременным повторам, но не сохраняется: следующий повтор выполняет операцию заново.
+     */
+    @Test
+    void shouldNotCacheFailures() {
+        final CompletableFuture<Integer> pending = new CompletableFuture<>();
+        final CompletableFuture<Integer> first = cache.execute("key", "body", () -> pending);
+        final CompletableFuture<Integer> coalesced = cache.execute("key", "body", this::execute);
+
+        pending.completeExceptionally(new IllegalStateException());
+        assertThrows(CompletionException.class, first::join);
+        assertThrows(CompletionException.class, coalesced::join);
+        assertThrows(ValidationException.class, () -> cache.execute("key", "body", () -> {
+            throw new ValidationException();
+        }));
+
+        assertEquals(1, cache.execute("key", "body", this::execute).join());
+    }
+
+    /**
+     * Ошибка данных, выброшенная операцией сразу, передается одновременному повтору как есть, а не
+     * как {@link CompletionException}, и превращается в тот же код ответа.
+     */
+    @Test
+    void shouldPassValidationErrorToConcurrentReplay() throws Exception {
+        final CompletableFuture<Void> started = new CompletableFuture<>();
+        final CompletableFuture<Void> replayed = new CompletableFuture<>();
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final Future<Integer> first = executor.submit(() -> Futures.join(cache.execute("key", "body", () -> {
+                started.complete(null);
+                replayed.join();
+                throw new ValidationException("Некорректный фильм.");
+            })));
+            started.get(10, TimeUnit.SECONDS);
+            final CompletableFuture<Integer> replay = cache.execute("key", "body", this::execute);
+            replayed.complete(null);
+
+            final ExecutionException error = assertThrows(ExecutionException.class,
+                    () -> first.get(10, TimeUnit.SECONDS));
+            assertInstanceOf(ValidationException.class, error.getCause());
+            assertThrows(ValidationException.class, () -> Futures.join(replay));
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, cache.execute("key", "body", this::execute).join());
+    }
+
+    /**
+     * Поток уникальных ключей не увеличивает количество хранимых записей: вытесняются самые старые.
+     */
+    @Test
+    void shouldStayBoundedUnderUniqueKeys() {
+        for (int i = 0; i < 10_000; i++) {
+            cache.execute("key-" + i, "body", this::execute);
+            assertTrue(cache.size() <= 4, "Хранится ключей: " + cache.size());
+        }
+
+        assertEquals(10_001, cache.execute("key-0", "body", this::execute).join());
+        assertEquals(10_001, cache.execute("key-0", "body", this::execute).join());
+        assertEquals(4, cache.size());
+    }
+
+    private CompletableFuture<Integer> execute() {
+        return CompletableFuture.completedFuture(executions.incrementAndGet());
+    }
+}
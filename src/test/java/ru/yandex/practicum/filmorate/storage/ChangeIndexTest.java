@@ -0,0 +1,75 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Тесты для {@link ChangeIndex}.
+ */
+final class ChangeIndexTest {
+
+    private final ChangeIndex changeIndex = new ChangeIndex(4);
+
+    /**
+     * Изменения возвращаются по порядку без повторов; при ограничении версия ответа указывает на последнее
+     * включенное изменение, и следующий запрос продолжает с него.
+     */
+    @Test
+    void shouldReturnDistinctChangesUpToLimit() {
+        changeIndex.record(ChangeIndex.EPOCH + 1, 10);
+        changeIndex.record(ChangeIndex.EPOCH + 2, 20);
+        changeIndex.record(ChangeIndex.EPOCH + 3, 10);
+        changeIndex.record(ChangeIndex.EPOCH + 4, 30);
+
+        final ChangeIndex.Changes all = changeIndex.since(ChangeIndex.EPOCH, 10);
+        assertFalse(all.isResyncRequired());
+        assertArrayEquals(new long[]{10, 20, 30}, all.getIds());
+        assertEquals(changeIndex.version(), all.getVersion());
+
+        final ChangeIndex.Changes first = changeIndex.since(ChangeIndex.EPOCH, 2);
+        assertArrayEquals(new long[]{10, 20}, first.getIds());
+        assertEquals(ChangeIndex.EPOCH + 3, first.getVersion());
+        assertArrayEquals(new long[]{30}, changeIndex.since(first.getVersion(), 2).getIds());
+
+        final ChangeIndex.Changes none = changeIndex.since(all.getVersion(), 10);
+        assertFalse(none.isResyncRequired());
+        assertEquals(0, none.getIds().length);
+    }
+
+    /**
+     * Версия, вытесненная из журнала, неизвестная или из будущего, требует полной загрузки.
+     */
+    @Test
+    void shouldRequireResyncForUnknownVersion() {
+        for (long version = 1; version <= 6; version++) {
+            changeIndex.record(ChangeIndex.EPOCH + version, version);
+        }
+
+        assertTrue(changeIndex.since(ChangeIndex.EPOCH + 1, 10).isResyncRequired());
+        assertArrayEquals(new long[]{3, 4, 5, 6}, changeIndex.since(ChangeIndex.EPOCH + 2, 10).getIds());
+        assertTrue(changeIndex.since(42, 10).isResyncRequired());
+        assertTrue(changeIndex.since(ChangeIndex.EPOCH + 7, 10).isResyncRequired());
+        assertEquals(changeIndex.version(), changeIndex.since(42, 10).getVersion());
+    }
+
+    /**
+     * Изменение, записанное раньше предыдущей версии, не видно, пока не записана предыдущая: иначе клиент,
+     * получивший версию ответа, пропустил бы ее.
+     */
+    @Test
+    void shouldHoldVersionUntilPreviousChangesRecorded() {
+        changeIndex.record(ChangeIndex.EPOCH + 1, 10);
+        changeIndex.record(ChangeIndex.EPOCH + 3, 30);
+
+        final ChangeIndex.Changes partial = changeIndex.since(ChangeIndex.EPOCH, 10);
+        assertArrayEquals(new long[]{10}, partial.getIds());
+        assertEquals(ChangeIndex.EPOCH + 1, partial.getVersion());
+
+        changeIndex.record(ChangeIndex.EPOCH + 2, 20);
+        assertArrayEquals(new long[]{20, 30}, changeIndex.since(partial.getVersion(), 10).getIds());
+    }
+}
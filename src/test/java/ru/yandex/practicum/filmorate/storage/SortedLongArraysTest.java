@@ -0,0 +1,70 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Тесты для {@link SortedLongArrays}.
+ */
+final class SortedLongArraysTest {
+
+    /**
+     * Вставка и удаление сохраняют порядок и не создают повторов.
+     */
+    @Test
+    void shouldInsertAndRemoveKeepingOrder() {
+        long[] set = SortedLongArrays.EMPTY;
+        for (final long value : new long[]{5, 1, 3, 5, 9}) {
+            set = SortedLongArrays.insert(set, value);
+        }
+        assertArrayEquals(new long[]{1, 3, 5, 9}, set);
+
+        assertSame(set, SortedLongArrays.insert(set, 3));
+        assertSame(set, SortedLongArrays.remove(set, 4));
+        assertArrayEquals(new long[]{1, 5, 9}, SortedLongArrays.remove(set, 3));
+        assertArrayEquals(new long[]{1, 3, 5}, SortedLongArrays.remove(set, 9));
+    }
+
+    /**
+     * Слияние и галопирующий поиск дают то же пересечение, что и {@link Set#retainAll}, при любом
+     * соотношении размеров.
+     */
+    @Test
+    void shouldIntersectLikeSetRetainAll() {
+        final Random random = new Random(42);
+
+        for (final int[] sizes : new int[][]{{0, 10}, {1, 1}, {100, 120}, {10, 10_000}, {3, 100_000}, {5_000, 5_000}}) {
+            final long[] a = randomSet(random, sizes[0], 200_000);
+            final long[] b = randomSet(random, sizes[1], 200_000);
+
+            final Set<Long> expected = toSet(a);
+            expected.retainAll(toSet(b));
+            final long[] expectedArray = expected.stream().mapToLong(Long::longValue).toArray();
+
+            assertArrayEquals(expectedArray, SortedLongArrays.intersect(a, b), Arrays.toString(sizes));
+            assertArrayEquals(expectedArray, SortedLongArrays.intersect(b, a), Arrays.toString(sizes));
+            assertArrayEquals(expectedArray, SortedLongArrays.merge(a, b), Arrays.toString(sizes));
+            if (a.length <= b.length) {
+                assertArrayEquals(expectedArray, SortedLongArrays.gallop(a, b), Arrays.toString(sizes));
+            }
+        }
+    }
+
+    private static long[] randomSet(final Random random, final int size, final int bound) {
+        return random.longs(size * 2L, 0, bound).distinct().limit(size).sorted().toArray();
+    }
+
+    private static Set<Long> toSet(final long[] values) {
+        final Set<Long> set = new TreeSet<>();
+        Arrays.stream(values).forEach(set::add);
+
+        return set;
+    }
+}
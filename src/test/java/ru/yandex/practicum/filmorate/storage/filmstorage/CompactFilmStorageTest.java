@@ -0,0 +1,196 @@
+package ru.yandex.practicum.filmorate.storage.filmstorage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Тесты для {@link CompactFilmStorage}.
+ */
+final class CompactFilmStorageTest {
+
+    private CompactFilmStorage storage;
+
+    @BeforeEach
+    void beforeEach() {
+        storage = new CompactFilmStorage();
+    }
+
+    /**
+     * Фильм, собранный из колонок, равен добавленному, включая пустые поля и строки не в ASCII.
+     */
+    @Test
+    void shouldRestoreFilmFromColumns() {
+        final Film film = new Film(1L, "Сталкер", "Зона 🚧", LocalDate.of(1979, 5, 25), 163);
+        final Film empty = new Film(2L, null, "", null, 0);
+
+        assertTrue(storage.add(film));
+        assertTrue(storage.add(empty));
+        assertFalse(storage.add(new Film(1L, "duplicate", "", null, 1)));
+        assertFalse(storage.update(new Film(3L, "missing", "", null, 1)));
+
+        assertEquals(film, storage.findById(1L).orElseThrow());
+        assertEquals(empty, storage.findById(2L).orElseThrow());
+        assertTrue(storage.findById(3L).isEmpty());
+        assertEquals(2, storage.size());
+    }
+
+    /**
+     * Страницы и полный обход упорядочены по идентификатору независимо от порядка добавления.
+     */
+    @Test
+    void shouldReturnPagesOrderedById() {
+        for (long id = 3000; id >= 1; id--) {
+            storage.add(film(id, "film" + id));
+        }
+
+        assertEquals(List.of(2L, 3L), ids(storage.findPage(1, 2)));
+        assertEquals(List.of(3000L), ids(storage.findPage(2999, 2)));
+        assertTrue(storage.findPage(3000, 2).isEmpty());
+
+        long expected = 1;
+        for (final Film film : storage.findAll()) {
+            assertEquals(expected++, film.getId());
+        }
+        assertEquals(3001, expected);
+        assertEquals(3000, storage.findAll().size());
+    }
+
+    /**
+     * Поиск по периоду выпуска и по тексту видит изменения фильма.
+     */
+    @Test
+    void shouldKeepReleaseDateAndSearchIndexesInSync() {
+        storage.add(new Film(1L, "Solaris", "", LocalDate.of(1972, 3, 20), 167));
+        storage.add(new Film(2L, "Mirror", "", LocalDate.of(1975, 3, 7), 108));
+        storage.add(new Film(3L, "Stalker", "", null, 163));
+
+        assertEquals(List.of(1L, 2L), ids(storage.findByReleaseDate(null, null, 10)));
+        assertEquals(List.of(1L), ids(storage.search("solaris", 10)));
+
+        storage.update(new Film(1L, "Ivan's Childhood", "", LocalDate.of(1962, 5, 9), 95));
+        storage.update(new Film(3L, "Stalker", "", LocalDate.of(1979, 5, 25), 163));
+
+        assertEquals(List.of(1L, 2L, 3L), ids(storage.findByReleaseDate(null, null, 10)));
+        assertEquals(List.of(2L, 3L), ids(storage.findByReleaseDate(LocalDate.of(1970, 1, 1), null, 10)));
+        assertTrue(storage.search("solaris", 10).isEmpty());
+        assertEquals(List.of(1L), ids(storage.search("childhood", 10)));
+    }
+
+    /**
+     * Удаленный фильм пропадает из колонок и индексов, строка последнего фильма занимает его место.
+     */
+    @Test
+    void shouldRemoveFilmFromColumnsAndIndexes() {
+        storage.add(new Film(1L, "Solaris", "", LocalDate.of(1972, 3, 20), 167));
+        storage.add(new Film(2L, "Mirror", "", LocalDate.of(1975, 3, 7), 108));
+        storage.add(new Film(3L, "Stalker", "", LocalDate.of(1979, 5, 25), 163));
+
+        assertTrue(storage.remove(1L));
+        assertFalse(storage.remove(1L));
+
+        assertTrue(storage.findById(1L).isEmpty());
+        assertEquals("Stalker", storage.findById(3L).orElseThrow().getName());
+        assertEquals(List.of(2L, 3L), ids(storage.findPage(0, 10)));
+        assertEquals(List.of(2L, 3L), ids(storage.findByReleaseDate(null, null, 10)));
+        assertTrue(storage.search("solaris", 10).isEmpty());
+        assertEquals(2, storage.size());
+
+        assertTrue(storage.add(new Film(1L, "Solaris", "", LocalDate.of(1972, 3, 20), 167)));
+        assertEquals(List.of(1L, 2L, 3L), ids(storage.findPage(0, 10)));
+    }
+
+    /**
+     * Крайние даты {@link LocalDate}, номер дня которых не помещается в {@code int}, хранятся и ищутся без искажения.
+     */
+    @Test
+    void shouldKeepExtremeReleaseDates() {
+        storage.add(new Film(1L, "min", "", LocalDate.MIN, 1));
+        storage.add(new Film(2L, "max", "", LocalDate.MAX, 1));
+        storage.add(new Film(3L, "Solaris", "", LocalDate.of(1972, 3, 20), 167));
+
+        assertEquals(LocalDate.MIN, storage.findById(1L).orElseThrow().getReleaseDate());
+        assertEquals(LocalDate.MAX, storage.findById(2L).orElseThrow().getReleaseDate());
+        assertEquals(List.of(1L, 3L, 2L), ids(storage.findByReleaseDate(null, null, 10)));
+        assertEquals(List.of(2L), ids(storage.findByReleaseDate(LocalDate.of(3000, 1, 1), LocalDate.MAX, 10)));
+        assertEquals(List.of(1L), ids(storage.findByReleaseDate(LocalDate.MIN, LocalDate.of(1000, 1, 1), 10)));
+    }
+
+    /**
+     * Версия хранилища и фильма растет с каждой записью.
+     */
+    @Test
+    void shouldIncreaseVersionsOnWrite() {
+        storage.add(film(1L, "first"));
+        final long added = storage.versionOf(1L);
+        storage.update(film(1L, "second"));
+
+        assertTrue(storage.versionOf(1L) > added);
+        assertEquals(storage.version(), storage.versionOf(1L));
+        assertEquals(0, storage.versionOf(2L));
+    }
+
+    /**
+     * Многократные изменения переписывают арену строк, а читатели в это время видят только целые фильмы.
+     */
+    @Test
+    void shouldReadConsistentFilmsWhileStringsAreCompacted() throws Exception {
+        for (long id = 1; id <= 100; id++) {
+            storage.add(film(id, "film" + id + "-v0"));
+        }
+
+        final AtomicBoolean running = new AtomicBoolean(true);
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        final List<Future<?>> readers = new ArrayList<>();
+        try {
+            for (int thread = 0; thread < 4; thread++) {
+                readers.add(executor.submit(() -> {
+                    while (running.get()) {
+                        for (final Film film : storage.findPage(0, 100)) {
+                            assertTrue(film.getName().startsWith("film" + film.getId() + "-v"), film.getName());
+                            assertEquals("description of " + film.getName(), film.getDescription());
+                        }
+                    }
+                }));
+            }
+
+            for (int version = 1; version <= 200; version++) {
+                for (long id = 1; id <= 100; id++) {
+                    storage.update(film(id, "film" + id + "-v" + version));
+                }
+            }
+        } finally {
+            running.set(false);
+            for (final Future<?> reader : readers) {
+                reader.get(30, TimeUnit.SECONDS);
+            }
+            executor.shutdownNow();
+        }
+
+        for (long id = 1; id <= 100; id++) {
+            assertEquals("film" + id + "-v200", storage.findById(id).orElseThrow().getName());
+        }
+    }
+
+    private static List<Long> ids(final List<Film> films) {
+        return films.stream().map(Film::getId).collect(Collectors.toList());
+    }
+
+    private static Film film(final long id, final String name) {
+        return new Film(id, name, "description of " + name, LocalDate.of(2000, 1, 1), 100);
+    }
+}
@@ -0,0 +1,74 @@
+package ru.yandex.practicum.filmorate.storage.filmstorage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Тесты для {@link FilmSearchIndex}.
+ */
+final class FilmSearchIndexTest {
+
+    private FilmSearchIndex index;
+
+    @BeforeEach
+    void beforeEach() {
+        index = new FilmSearchIndex();
+        index.update(null, film(1, "The Matrix", "A hacker learns the truth about reality."));
+        index.update(null, film(2, "Matrix Reloaded", "Neo continues the fight."));
+        index.update(null, film(3, "Reality Bites", "Graduates in Houston, no matrix involved."));
+        index.update(null, film(4, "Ёлки", "Новогодняя комедия."));
+    }
+
+    /**
+     * Совпадение в названии ранжируется выше совпадения в описании, при равенстве – по идентификатору.
+     */
+    @Test
+    void shouldRankNameMatchesAboveDescriptionMatches() {
+        assertEquals(List.of(1L, 2L, 3L), index.search("matrix", 10));
+        assertEquals(List.of(1L, 2L), index.search("MATRIX", 2));
+    }
+
+    /**
+     * Фильм, совпавший с несколькими словами запроса, выше фильма, совпавшего с одним.
+     */
+    @Test
+    void shouldRankFilmsMatchingMoreQueryWords() {
+        assertEquals(3L, index.search("reality matrix houston", 10).get(0));
+    }
+
+    /**
+     * Неполное последнее слово находится по префиксу, слово с опечаткой – по триграммам.
+     */
+    @Test
+    void shouldMatchPrefixesAndTypos() {
+        assertEquals(List.of(1L, 2L, 3L), index.search("matr", 10));
+        assertEquals(List.of(2L), index.search("reloded", 10));
+        assertEquals(List.of(3L, 1L), index.search("realty", 10));
+        assertEquals(List.of(4L), index.search("елки", 10));
+        assertTrue(index.search("zzzz", 10).isEmpty());
+    }
+
+    /**
+     * После изменения фильма он находится только по новым словам.
+     */
+    @Test
+    void shouldReindexUpdatedFilm() {
+        final Film previous = film(2, "Matrix Reloaded", "Neo continues the fight.");
+        index.update(previous, film(2, "Speed Racer", "Neo continues the fight."));
+
+        assertEquals(List.of(1L, 3L), index.search("matrix", 10));
+        assertEquals(List.of(2L), index.search("racer", 10));
+        assertEquals(List.of(2L), index.search("neo", 10));
+    }
+
+    private static Film film(final long id, final String name, final String description) {
+        return new Film(id, name, description, LocalDate.of(2000, 1, 1), 100);
+    }
+}
@@ -0,0 +1,192 @@
+package ru.yandex.practicum.filmorate.storage.filmstorage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Тесты для {@link InMemoryFilmStorage}, в том числе под конкурентной нагрузкой.
+ */
+final class InMemoryFilmStorageTest {
+
+    private static final int THREADS = 16;
+
+    private static final int FILMS_PER_THREAD = 10_000;
+
+    private InMemoryFilmStorage storage;
+
+    @BeforeEach
+    void beforeEach() {
+        storage = new InMemoryFilmStorage();
+    }
+
+    /**
+     * Добавление существующего и обновление несуществующего фильма не изменяют хранилище.
+     */
+    @Test
+    void shouldRejectDuplicateAddAndMissingUpdate() {
+        assertTrue(storage.add(film(1L, "first")));
+        assertFalse(storage.add(film(1L, "duplicate")));
+        assertFalse(storage.update(film(2L, "missing")));
+
+        assertEquals(1, storage.size());
+        assertEquals("first", storage.findById(1L).orElseThrow().getName());
+        assertTrue(storage.findById(2L).isEmpty());
+    }
+
+    /**
+     * Страница начинается после курсора и упорядочена по идентификатору независимо от порядка добавления.
+     */
+    @Test
+    void shouldReturnPageAfterCursorOrderedById() {
+        for (final long id : new long[]{5, 1, 4, 2, 3}) {
+            storage.add(film(id, "film" + id));
+        }
+
+        assertEquals(List.of(2L, 3L), storage.findPage(1, 2).stream().map(Film::getId).collect(Collectors.toList()));
+        assertEquals(List.of(5L), storage.findPage(4, 2).stream().map(Film::getId).collect(Collectors.toList()));
+        assertTrue(storage.findPage(5, 2).isEmpty());
+    }
+
+    /**
+     * Поиск по периоду выпуска учитывает границы включительно, а при смене даты фильм переносится в индексе.
+     */
+    @Test
+    void shouldFindByReleaseDateAndMoveFilmWhenDateChanges() {
+        storage.add(new Film(1L, "film1", "", LocalDate.of(2000, 1, 1), 90));
+        storage.add(new Film(2L, "film2", "", LocalDate.of(1999, 12, 31), 90));
+        storage.add(new Film(3L, "film3", "", LocalDate.of(2000, 1, 1), 90));
+        storage.add(new Film(4L, "film4", "", null, 90));
+
+        assertEquals(List.of(2L, 1L, 3L), ids(storage.findByReleaseDate(null, null, 10)));
+        assertEquals(List.of(1L, 3L), ids(storage.findByReleaseDate(LocalDate.of(2000, 1, 1), null, 10)));
+        assertEquals(List.of(2L), ids(storage.findByReleaseDate(null, LocalDate.of(1999, 12, 31), 10)));
+        assertEquals(List.of(2L, 1L), ids(storage.findByReleaseDate(null, null, 2)));
+
+        storage.update(new Film(1L, "film1", "", LocalDate.of(1990, 1, 1), 90));
+        storage.update(new Film(4L, "film4", "", LocalDate.of(2010, 1, 1), 90));
+        storage.update(new Film(3L, "film3", "", null, 90));
+
+        assertEquals(List.of(1L, 2L, 4L), ids(storage.findByReleaseDate(null, null, 10)));
+        assertTrue(storage.findByReleaseDate(LocalDate.of(2000, 1, 1), LocalDate.of(2000, 1, 1), 10).isEmpty());
+        assertTrue(storage.findByReleaseDate(LocalDate.of(2011, 1, 1), LocalDate.of(2010, 1, 1), 10).isEmpty());
+    }
+
+    /**
+     * При одновременном добавлении фильмов из разных потоков ни одна запись не теряется.
+     */
+    @Test
+    void shouldNotLoseConcurrentAdds() throws Exception {
+        runConcurrently(thread -> () -> {
+            for (int i = 0; i < FILMS_PER_THREAD; i++) {
+                final long id = (long) thread * FILMS_PER_THREAD + i + 1;
+                assertTrue(storage.add(film(id, "film" + id)));
+            }
+            return null;
+        });
+
+        assertEquals(THREADS * FILMS_PER_THREAD, storage.size());
+        for (long id = 1; id <= THREADS * FILMS_PER_THREAD; id++) {
+            assertEquals("film" + id, storage.findById(id).orElseThrow().getName());
+        }
+    }
+
+    /**
+     * При гонке за один и тот же идентификатор фильм добавляется ровно один раз.
+     */
+    @Test
+    void shouldAddExactlyOnceWhenRacingForSameId() throws Exception {
+        final AtomicInteger added = new AtomicInteger();
+
+        runConcurrently(thread -> () -> {
+            for (long id = 1; id <= FILMS_PER_THREAD; id++) {
+                if (storage.add(film(id, "thread" + thread))) {
+                    added.incrementAndGet();
+                }
+            }
+            return null;
+        });
+
+        assertEquals(FILMS_PER_THREAD, added.get());
+        assertEquals(FILMS_PER_THREAD, storage.size());
+    }
+
+    /**
+     * Одновременные обновления разных фильмов не затирают друг друга, а последнее обновление каждого
+     * фильма сохраняется.
+     */
+    @Test
+    void shouldNotLoseConcurrentUpdates() throws Exception {
+        for (long id = 1; id <= THREADS; id++) {
+            storage.add(film(id, "initial"));
+        }
+
+        runConcurrently(thread -> () -> {
+            final long id = thread + 1;
+            for (int i = 1; i <= FILMS_PER_THREAD; i++) {
+                assertTrue(storage.update(film(id, "v" + i)));
+            }
+            return null;
+        });
+
+        assertEquals(THREADS, storage.size());
+        for (long id = 1; id <= THREADS; id++) {
+            assertEquals("v" + FILMS_PER_THREAD, storage.findById(id).orElseThrow().getName());
+        }
+    }
+
+    private static List<Long> ids(final List<Film> films) {
+        return films.stream().map(Film::getId).collect(Collectors.toList());
+    }
+
+    private static Film film(final long id, final String name) {
+        return new Film(id, name, "description", LocalDate.of(2000, 1, 1), 100);
+    }
+
+    /**
+     * Запускает задачи одновременно в {@link #THREADS} потоках и пробрасывает первую ошибку.
+     */
+    private static void runConcurrently(final TaskFactory factory) throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Future<Void>> futures = new ArrayList<>();
+
+        try {
+            for (int thread = 0; thread < THREADS; thread++) {
+                final Callable<Void> task = factory.create(thread);
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return task.call();
+                }));
+            }
+
+            start.countDown();
+            for (final Future<Void> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @FunctionalInterface
+    private interface TaskFactory {
+        Callable<Void> create(int thread);
+    }
+}
@@ -0,0 +1,53 @@
+package ru.yandex.practicum.filmorate.storage.filmstorage;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Тесты для {@link PostingList}.
+ */
+final class PostingListTest {
+
+    /**
+     * Случайные добавления и удаления, в том числе через слияния, дают то же множество, что и {@link TreeSet}.
+     */
+    @Test
+    void shouldMatchReferenceSetAfterRandomAddsAndRemoves() {
+        final Random random = new Random(7);
+        final PostingList postings = new PostingList();
+        final Set<Long> expected = new TreeSet<>();
+
+        for (int i = 0; i < 50_000; i++) {
+            // в основном растущие идентификаторы, как у новых фильмов, и немного случайных изменений
+            final long id = random.nextInt(10) < 8 ? i : random.nextInt(i + 1);
+            if (random.nextInt(4) == 0) {
+                postings.remove(id);
+                expected.remove(id);
+            } else {
+                postings.add(id);
+                expected.add(id);
+            }
+
+            if (i % 5_000 == 0) {
+                assertContent(expected, postings);
+            }
+        }
+
+        assertContent(expected, postings);
+    }
+
+    private static void assertContent(final Set<Long> expected, final PostingList postings) {
+        final Set<Long> actual = new TreeSet<>();
+        assertEquals(expected.size(), postings.forEach(Integer.MAX_VALUE, actual::add));
+        assertEquals(expected, actual);
+        assertEquals(expected.size(), postings.size());
+        for (long id = 0; id < 100; id++) {
+            assertEquals(expected.contains(id), postings.contains(id));
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package ru.yandex.practicum.filmorate.storage.idgenerator;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Тесты для {@link BlockIdGenerator}.
+ */
+final class BlockIdGeneratorTest {
+
+    /**
+     * С блоком размера 1 идентификаторы идут подряд, начиная с 1.
+     */
+    @Test
+    void shouldGenerateSequentialIdsWithBlockOfOne() {
+        final IdGenerator generator = new BlockIdGenerator(1);
+
+        assertEquals(1, generator.nextId());
+        assertEquals(2, generator.nextId());
+        assertEquals(3, generator.nextId());
+    }
+
+    /**
+     * Идентификаторы, выданные разными потоками, не повторяются.
+     */
+    @Test
+    void shouldGenerateUniqueIdsConcurrently() throws Exception {
+        final int threads = 8;
+        final int idsPerThread = 50_000;
+        final IdGenerator generator = new BlockIdGenerator(64);
+        final Set<Long> ids = ConcurrentHashMap.newKeySet();
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < idsPerThread; j++) {
+                        assertTrue(ids.add(generator.nextId()));
+                    }
+                }));
+            }
+            for (final Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(threads * idsPerThread, ids.size());
+    }
+
+    /**
+     * После перезапуска генератор продолжает выше всех ранее выданных идентификаторов.
+     */
+    @Test
+    void shouldContinueAfterHighWaterMarkOnRestart(final @TempDir Path directory) {
+        final Path file = directory.resolve("film.id");
+
+        final IdGenerator beforeRestart = new BlockIdGenerator(16, 100, file);
+        long maxIssued = 0;
+        for (int i = 0; i < 250; i++) {
+            maxIssued = Math.max(maxIssued, beforeRestart.nextId());
+        }
+
+        final IdGenerator afterRestart = new BlockIdGenerator(16, 100, file);
+
+        assertTrue(afterRestart.nextId() > maxIssued);
+    }
+}
@@ -0,0 +1,88 @@
+package ru.yandex.practicum.filmorate.storage.likestorage;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Тесты для {@link InMemoryLikeStorage}, в том числе под конкурентной нагрузкой.
+ */
+final class InMemoryLikeStorageTest {
+
+    private static final int THREADS = 16;
+
+    private final InMemoryLikeStorage storage = new InMemoryLikeStorage();
+
+    /**
+     * Повторный лайк отклоняется, рейтинг упорядочен по количеству лайков, затем по идентификатору.
+     */
+    @Test
+    void shouldRejectDuplicateLikeAndRankByLikes() {
+        assertTrue(storage.add(2, 1));
+        assertTrue(storage.add(3, 1));
+        assertTrue(storage.add(3, 2));
+        assertTrue(storage.add(1, 1));
+        assertFalse(storage.add(3, 1));
+
+        assertEquals(2, storage.count(3));
+        assertEquals(0, storage.count(4));
+        assertEquals(List.of(3L, 1L, 2L), storage.findMostLiked(10));
+        assertEquals(List.of(3L), storage.findMostLiked(1));
+    }
+
+    /**
+     * При одновременных лайках одних и тех же фильмов из разных потоков счетчики и рейтинг не расходятся,
+     * а каждый пользователь учитывается один раз.
+     */
+    @Test
+    void shouldKeepRankingConsistentUnderConcurrentLikes() throws Exception {
+        final int films = 4;
+        final int usersPerFilm = 2_000;
+        final int users = films * usersPerFilm;
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Future<?>> futures = new ArrayList<>();
+
+        try {
+            for (int thread = 0; thread < THREADS; thread++) {
+                final int offset = thread * users / THREADS;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    // все потоки ставят одни и те же лайки, начиная с разных пользователей:
+                    // фильм f получает лайки пользователей 1..f * usersPerFilm
+                    for (int i = 0; i < users; i++) {
+                        final long userId = (offset + i) % users + 1;
+                        for (long filmId = 1; filmId <= films; filmId++) {
+                            if (userId <= filmId * usersPerFilm) {
+                                storage.add(filmId, userId);
+                            }
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (final Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        for (long filmId = 1; filmId <= films; filmId++) {
+            assertEquals(filmId * usersPerFilm, storage.count(filmId), "фильм " + filmId);
+        }
+        assertEquals(List.of(4L, 3L, 2L, 1L), storage.findMostLiked(films));
+        assertEquals(films, storage.findMostLiked(Integer.MAX_VALUE).size());
+    }
+}
@@ -0,0 +1,105 @@
+package ru.yandex.practicum.filmorate.storage.userstorage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exceptions.DuplicateValueException;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Тесты уникальных индексов {@link InMemoryUserStorage}.
+ */
+final class InMemoryUserStorageTest {
+
+    private static final int THREADS = 16;
+
+    private InMemoryUserStorage storage;
+
+    @BeforeEach
+    void beforeEach() {
+        storage = new InMemoryUserStorage();
+    }
+
+    /**
+     * Отклоненное изменение не занимает значения, а принятое освобождает прежние.
+     */
+    @Test
+    void shouldReleaseValuesOnlyAfterSuccessfulChange() {
+        storage.add(user(1L, "a@mail.ru", "alpha"));
+        storage.add(user(2L, "b@mail.ru", "beta"));
+
+        // почта свободна, логин занят: почта не должна остаться занятой
+        assertThrows(DuplicateValueException.class, () -> storage.add(user(3L, "c@mail.ru", "ALPHA")));
+        assertTrue(storage.add(user(3L, "c@mail.ru", "gamma")));
+
+        assertThrows(DuplicateValueException.class, () -> storage.update(user(1L, "B@mail.ru", "alpha")));
+        assertEquals("a@mail.ru", storage.findById(1L).orElseThrow().getEmail());
+
+        storage.update(user(1L, "d@mail.ru", "delta"));
+        assertTrue(storage.findByLogin("alpha").isEmpty());
+        assertTrue(storage.add(user(4L, "a@mail.ru", "alpha")));
+        assertEquals(List.of("alpha"), logins(storage.findByLoginPrefix("al", 10)));
+        assertEquals(List.of("delta"), logins(storage.findByLoginPrefix("D", 10)));
+    }
+
+    /**
+     * Из пользователей, одновременно претендующих на одну почту и один логин, добавляется ровно один.
+     */
+    @Test
+    void shouldAcceptExactlyOneOfConcurrentDuplicates() throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+        for (int round = 0; round < 100; round++) {
+            final CountDownLatch start = new CountDownLatch(1);
+            final List<Future<Boolean>> results = new ArrayList<>();
+            final int currentRound = round;
+            for (int i = 0; i < THREADS; i++) {
+                final long id = currentRound * THREADS + i + 1L;
+                // половина потоков спорит за почту, другая половина – за логин
+                final User user = i % 2 == 0
+                        ? user(id, "same" + currentRound + "@mail.ru", "login" + id)
+                        : user(id, id + "@mail.ru", "same" + currentRound);
+                results.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        return storage.add(user);
+                    } catch (DuplicateValueException e) {
+                        return false;
+                    }
+                }));
+            }
+            start.countDown();
+
+            int added = 0;
+            for (final Future<Boolean> result : results) {
+                added += result.get() ? 1 : 0;
+            }
+            assertEquals(2, added);
+        }
+
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(200, storage.size());
+    }
+
+    private static User user(final long id, final String email, final String login) {
+        return new User(id, email, login, null, LocalDate.of(2000, 1, 1));
+    }
+
+    private static List<String> logins(final List<User> users) {
+        return users.stream().map(User::getLogin).collect(Collectors.toList());
+    }
+}
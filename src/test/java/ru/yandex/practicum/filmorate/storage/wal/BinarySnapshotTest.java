@@ -0,0 +1,100 @@
+package ru.yandex.practicum.filmorate.storage.wal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.filmstorage.FilmSnapshotCodec;
+import ru.yandex.practicum.filmorate.storage.userstorage.UserSnapshotCodec;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Тесты для {@link BinarySnapshot} и форматов сущностей в снимке.
+ */
+final class BinarySnapshotTest {
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Фильмы читаются из снимка без изменений, включая {@code null}, пустые строки и не-ASCII символы.
+     */
+    @Test
+    void shouldRoundTripFilms() throws IOException {
+        final List<Film> films = List.of(
+                new Film(1L, "Брат", "Фильм Алексея Балабанова", LocalDate.of(1997, 12, 12), 99),
+                new Film(2L, "Без описания", null, null, 1),
+                new Film(3L, "", "", LocalDate.of(1895, 12, 28), 1),
+                new Film(4L, "x".repeat(100_000), "😀", LocalDate.of(2022, 7, 1), Integer.MAX_VALUE));
+        final Path file = directory.resolve("films.dat");
+
+        assertEquals(films.size(), BinarySnapshot.write(file, new FilmSnapshotCodec(), films));
+
+        final List<Film> read = new ArrayList<>();
+        assertEquals(films.size(), BinarySnapshot.read(file, new FilmSnapshotCodec(), read::add));
+        assertEquals(films, read);
+    }
+
+    /**
+     * Пользователи читаются из снимка без изменений.
+     */
+    @Test
+    void shouldRoundTripUsers() throws IOException {
+        final List<User> users = List.of(
+                new User(1L, "mail@mail.ru", "dolore", "Nick Name", LocalDate.of(1946, 8, 20)),
+                new User(2L, "friend@common.ru", "common", null, LocalDate.of(2000, 1, 1)));
+        final Path file = directory.resolve("users.dat");
+
+        BinarySnapshot.write(file, new UserSnapshotCodec(), users);
+
+        final List<User> read = new ArrayList<>();
+        BinarySnapshot.read(file, new UserSnapshotCodec(), read::add);
+        assertEquals(users, read);
+    }
+
+    /**
+     * Крайние даты {@link LocalDate}, номер дня которых не помещается в {@code int}, читаются без изменений.
+     */
+    @Test
+    void shouldRoundTripExtremeDates() throws IOException {
+        final List<Film> films = List.of(
+                new Film(1L, "min", null, LocalDate.MIN, 1),
+                new Film(2L, "max", null, LocalDate.MAX, 1));
+        final List<User> users = List.of(
+                new User(1L, "min@mail.ru", "min", null, LocalDate.MIN),
+                new User(2L, "max@mail.ru", "max", null, LocalDate.MAX));
+        final Path filmsFile = directory.resolve("films.dat");
+        final Path usersFile = directory.resolve("users.dat");
+
+        BinarySnapshot.write(filmsFile, new FilmSnapshotCodec(), films);
+        BinarySnapshot.write(usersFile, new UserSnapshotCodec(), users);
+
+        final List<Film> readFilms = new ArrayList<>();
+        BinarySnapshot.read(filmsFile, new FilmSnapshotCodec(), readFilms::add);
+        assertEquals(films, readFilms);
+        final List<User> readUsers = new ArrayList<>();
+        BinarySnapshot.read(usersFile, new UserSnapshotCodec(), readUsers::add);
+        assertEquals(users, readUsers);
+    }
+
+    /**
+     * Файл другого формата не принимается за снимок.
+     */
+    @Test
+    void shouldRejectForeignFile() throws IOException {
+        final Path file = directory.resolve("foreign.dat");
+        Files.writeString(file, "{\"id\":1}");
+
+        assertThrows(IOException.class, () -> BinarySnapshot.read(file, new FilmSnapshotCodec(), film -> {
+        }));
+    }
+}
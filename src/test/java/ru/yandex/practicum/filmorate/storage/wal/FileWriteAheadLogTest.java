@@ -0,0 +1,394 @@
+package ru.yandex.practicum.filmorate.storage.wal;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.filmstorage.FilmSnapshotCodec;
+import ru.yandex.practicum.filmorate.storage.filmstorage.InMemoryFilmStorage;
+import util.ControllerTestHelper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Тесты для {@link FileWriteAheadLog}: восстановление, снимки, поврежденный хвост и групповая фиксация.
+ */
+final class FileWriteAheadLogTest {
+
+    private static final ObjectMapper objectMapper = ControllerTestHelper.getObjectMapper();
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Изменения, записанные в журнал, восстанавливаются после перезапуска, последняя версия побеждает.
+     */
+    @Test
+    void shouldRecoverAppendedEntitiesAfterRestart() {
+        final InMemoryFilmStorage storage = new InMemoryFilmStorage();
+        try (FileWriteAheadLog<Film> wal = open(storage)) {
+            wal.append(film(1, "first")).join();
+            wal.append(List.of(film(2, "second"), film(1, "first updated"))).join();
+        }
+
+        final InMemoryFilmStorage recovered = new InMemoryFilmStorage();
+        open(recovered).close();
+
+        assertEquals(2, recovered.size());
+        assertEquals("first updated", recovered.findById(1).orElseThrow().getName());
+        assertEquals("second", recovered.findById(2).orElseThrow().getName());
+    }
+
+    /**
+     * После снимка старые сегменты удаляются, а восстановление читает снимок и хвост журнала.
+     */
+    @Test
+    void shouldTruncateLogAfterSnapshot() throws IOException {
+        final InMemoryFilmStorage storage = new InMemoryFilmStorage();
+        try (FileWriteAheadLog<Film> wal = open(storage)) {
+            for (long id = 1; id <= 100; id++) {
+                final Film film = film(id, "film" + id);
+                storage.add(film);
+                wal.append(film).join();
+            }
+
+            wal.snapshot();
+
+            final Film tail = film(101, "after snapshot");
+            storage.add(tail);
+            wal.append(tail).join();
+        }
+
+        try (Stream<Path> files = Files.list(directory)) {
+            final List<String> names = files.map(file -> file.getFileName().toString()).sorted()
+                    .collect(Collectors.toList());
+            assertEquals(1, names.stream().filter(name -> name.startsWith("snapshot-")).count(), names.toString());
+            assertEquals(1, names.stream().filter(name -> name.startsWith("wal-")).count(), names.toString());
+        }
+
+        final InMemoryFilmStorage recovered = new InMemoryFilmStorage();
+        open(recovered).close();
+
+        assertEquals(101, recovered.size());
+        assertEquals("after snapshot", recovered.findById(101).orElseThrow().getName());
+    }
+
+    /**
+     * Неожиданная ошибка кодека не останавливает снимки по расписанию: следующая проверка создает снимок, а
+     * временный файл неудачного снимка удаляется.
+     */
+    @Test
+    void shouldKeepSnapshottingAfterCodecFailure() throws Exception {
+        final InMemoryFilmStorage storage = new InMemoryFilmStorage();
+        final FilmSnapshotCodec codec = new FilmSnapshotCodec();
+        final AtomicBoolean failed = new AtomicBoolean();
+        final SnapshotCodec<Film> failingOnce = new SnapshotCodec<>() {
+            @Override
+            public int recordSize() {
+                return codec.recordSize();
+            }
+
+            @Override
+            public void write(final Film entity, final BinarySnapshot.RecordWriter out) {
+                if (failed.compareAndSet(false, true)) {
+                    throw new IllegalStateException("Сбой кодека");
+                }
+                codec.write(entity, out);
+            }
+
+            @Override
+            public Film read(final BinarySnapshot.RecordReader in) {
+                return codec.read(in);
+            }
+        };
+
+        try (FileWriteAheadLog<Film> wal = FileWriteAheadLog.open(directory, Film.class, objectMapper, failingOnce,
+                storage::findAll, 1, Duration.ofMillis(20), film -> {
+                })) {
+            final Film film = film(1, "film");
+            storage.add(film);
+            wal.append(film).join();
+
+            final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (fileNames().stream().noneMatch(name -> name.startsWith("snapshot-") && name.endsWith(".dat"))) {
+                assertTrue(System.nanoTime() < deadline, "Снимок не создан: " + fileNames());
+                Thread.sleep(10);
+            }
+        }
+
+        assertTrue(failed.get());
+        assertTrue(fileNames().stream().noneMatch(name -> name.endsWith(".tmp")), fileNames().toString());
+
+        final InMemoryFilmStorage recovered = new InMemoryFilmStorage();
+        open(recovered).close();
+        assertEquals("film", recovered.findById(1).orElseThrow().getName());
+    }
+
+    /**
+     * Запись, оборванная падением процесса, отбрасывается, предыдущие записи восстанавливаются.
+     */
+    @Test
+    void shouldIgnoreTornTailRecord() throws IOException {
+        try (FileWriteAheadLog<Film> wal = open(new InMemoryFilmStorage())) {
+            wal.append(film(1, "complete")).join();
+        }
+
+        final Path segment;
+        try (Stream<Path> files = Files.list(directory)) {
+            segment = files.filter(file -> Files.isRegularFile(file) && fileSize(file) > 0).findFirst().orElseThrow();
+        }
+        Files.write(segment, new byte[]{0, 0, 0, 100, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        final InMemoryFilmStorage recovered = new InMemoryFilmStorage();
+        try (FileWriteAheadLog<Film> wal = open(recovered)) {
+            wal.append(film(2, "after repair")).join();
+        }
+        assertEquals(1, recovered.size());
+
+        final InMemoryFilmStorage recoveredAgain = new InMemoryFilmStorage();
+        open(recoveredAgain).close();
+        assertEquals(2, recoveredAgain.size());
+    }
+
+    /**
+     * Группа, запись которой оборвалась ошибкой диска, отрезается от сегмента: записи, подтвержденные после
+     * ошибки, восстанавливаются после перезапуска.
+     */
+    @Test
+    void shouldKeepAppendsAcknowledgedAfterFailedWrite() {
+        final AtomicBoolean failNextWrite = new AtomicBoolean();
+        final InMemoryFilmStorage storage = new InMemoryFilmStorage();
+
+        try (FileWriteAheadLog<Film> wal = FileWriteAheadLog.open(directory, Film.class, objectMapper,
+                new FilmSnapshotCodec(), storage::findAll, Long.MAX_VALUE, Duration.ofHours(1), film -> {
+                }, file -> new FailingOnceChannel(FileChannel.open(file, StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.APPEND), failNextWrite))) {
+            wal.append(film(1, "before failure")).join();
+
+            failNextWrite.set(true);
+            final CompletableFuture<Void> failed = wal.append(film(2, "failed"));
+            assertThrows(CompletionException.class, failed::join);
+
+            wal.append(film(3, "after failure")).join();
+        }
+
+        final InMemoryFilmStorage recovered = new InMemoryFilmStorage();
+        open(recovered).close();
+
+        assertEquals(2, recovered.size());
+        assertEquals("before failure", recovered.findById(1).orElseThrow().getName());
+        assertTrue(recovered.findById(2).isEmpty());
+        assertEquals("after failure", recovered.findById(3).orElseThrow().getName());
+    }
+
+    /**
+     * Одновременные писатели фиксируются группами: {@code fsync} выполняется реже, чем записи.
+     */
+    @Test
+    void shouldGroupConcurrentAppendsIntoFewerFsyncs() throws Exception {
+        final int threads = 16;
+        final int appendsPerThread = 200;
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        try (FileWriteAheadLog<Film> wal = open(new InMemoryFilmStorage())) {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < threads; thread++) {
+                final long base = (long) thread * appendsPerThread;
+                futures.add(executor.submit(() -> {
+                    for (int i = 1; i <= appendsPerThread; i++) {
+                        wal.append(film(base + i, "film")).join();
+                    }
+                }));
+            }
+            for (final Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+
+            assertTrue(wal.getFlushCount() < threads * appendsPerThread,
+                    "fsync: " + wal.getFlushCount() + ", записей: " + threads * appendsPerThread);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        final InMemoryFilmStorage recovered = new InMemoryFilmStorage();
+        open(recovered).close();
+        assertEquals(threads * appendsPerThread, recovered.size());
+    }
+
+    /**
+     * После закрытия журнал отклоняет записи.
+     */
+    @Test
+    void shouldRejectAppendsAfterClose() {
+        final FileWriteAheadLog<Film> wal = open(new InMemoryFilmStorage());
+        wal.close();
+
+        final CompletableFuture<Void> future = wal.append(film(1, "late"));
+
+        assertTrue(future.isCompletedExceptionally());
+    }
+
+    private FileWriteAheadLog<Film> open(final InMemoryFilmStorage storage) {
+        return FileWriteAheadLog.open(directory, Film.class, objectMapper, new FilmSnapshotCodec(), storage::findAll,
+                Long.MAX_VALUE, Duration.ofHours(1), film -> {
+                    if (!storage.add(film)) {
+                        storage.update(film);
+                    }
+                });
+    }
+
+    private List<String> fileNames() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString()).sorted().collect(Collectors.toList());
+        }
+    }
+
+    private static long fileSize(final Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Канал сегмента, который по флагу записывает половину буфера и завершается ошибкой, как при сбое диска.
+     */
+    private static final class FailingOnceChannel extends FileChannel {
+
+        private final FileChannel delegate;
+
+        private final AtomicBoolean failNextWrite;
+
+        private FailingOnceChannel(final FileChannel delegate, final AtomicBoolean failNextWrite) {
+            this.delegate = delegate;
+            this.failNextWrite = failNextWrite;
+        }
+
+        @Override
+        public int write(final ByteBuffer src) throws IOException {
+            if (failNextWrite.compareAndSet(true, false)) {
+                final ByteBuffer half = src.duplicate();
+                half.limit(src.position() + src.remaining() / 2);
+                delegate.write(half);
+                throw new IOException("Сбой диска");
+            }
+            return delegate.write(src);
+        }
+
+        @Override
+        public int read(final ByteBuffer dst) throws IOException {
+            return delegate.read(dst);
+        }
+
+        @Override
+        public long read(final ByteBuffer[] dsts, final int offset, final int length) throws IOException {
+            return delegate.read(dsts, offset, length);
+        }
+
+        @Override
+        public long write(final ByteBuffer[] srcs, final int offset, final int length) throws IOException {
+            return delegate.write(srcs, offset, length);
+        }
+
+        @Override
+        public long position() throws IOException {
+            return delegate.position();
+        }
+
+        @Override
+        public FileChannel position(final long newPosition) throws IOException {
+            delegate.position(newPosition);
+            return this;
+        }
+
+        @Override
+        public long size() throws IOException {
+            return delegate.size();
+        }
+
+        @Override
+        public FileChannel truncate(final long size) throws IOException {
+            delegate.truncate(size);
+            return this;
+        }
+
+        @Override
+        public void force(final boolean metaData) throws IOException {
+            delegate.force(metaData);
+        }
+
+        @Override
+        public long transferTo(final long position, final long count, final WritableByteChannel target)
+                throws IOException {
+            return delegate.transferTo(position, count, target);
+        }
+
+        @Override
+        public long transferFrom(final ReadableByteChannel src, final long position, final long count)
+                throws IOException {
+            return delegate.transferFrom(src, position, count);
+        }
+
+        @Override
+        public int read(final ByteBuffer dst, final long position) throws IOException {
+            return delegate.read(dst, position);
+        }
+
+        @Override
+        public int write(final ByteBuffer src, final long position) throws IOException {
+            return delegate.write(src, position);
+        }
+
+        @Override
+        public MappedByteBuffer map(final MapMode mode, final long position, final long size) throws IOException {
+            return delegate.map(mode, position, size);
+        }
+
+        @Override
+        public FileLock lock(final long position, final long size, final boolean shared) throws IOException {
+            return delegate.lock(position, size, shared);
+        }
+
+        @Override
+        public FileLock tryLock(final long position, final long size, final boolean shared) throws IOException {
+            return delegate.tryLock(position, size, shared);
+        }
+
+        @Override
+        protected void implCloseChannel() throws IOException {
+            delegate.close();
+        }
+    }
+
+    private static Film film(final long id, final String name) {
+        return new Film(id, name, "description", LocalDate.of(2000, 1, 1), 100);
+    }
+}
@@ -0,0 +1,84 @@
+package ru.yandex.practicum.filmorate.validation;
+
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validation;
+import javax.validation.Validator;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Тесты для {@link PrecompiledValidator}: результат всегда совпадает с Hibernate Validator.
+ */
+final class PrecompiledValidatorTest {
+
+    private static final Validator hibernate = Validation.buildDefaultValidatorFactory().getValidator();
+
+    private final PrecompiledValidator validator = new PrecompiledValidator(hibernate);
+
+    /**
+     * Нарушения и сообщения фильмов совпадают с Hibernate Validator, валидный фильм проверяется без него.
+     */
+    @Test
+    void shouldValidateFilmsLikeHibernate() {
+        final Film valid = film("Film", "d", LocalDate.of(1895, 12, 28), 1);
+        assertSame(Collections.emptySet(), validator.validate(valid));
+
+        for (final Film film : List.of(valid,
+                film(null, null, null, 0),
+                film(" \t", "x".repeat(200), LocalDate.of(1895, 12, 27), 1),
+                film("Film", "x".repeat(201), LocalDate.of(2000, 1, 1), -1))) {
+            assertEquals(violations(hibernate.validate(film)), violations(validator.validate(film)), film.toString());
+        }
+    }
+
+    /**
+     * Нарушения и сообщения пользователей совпадают с Hibernate Validator, в том числе для адресов, которые
+     * быстрая проверка не распознает.
+     */
+    @Test
+    void shouldValidateUsersLikeHibernate() {
+        final User valid = user("first.last+tag@mail-box.example.ru", "login_1", LocalDate.now());
+        assertSame(Collections.emptySet(), validator.validate(valid));
+
+        final List<String> emails = List.of("", "a@b", "a.b@c-d.e", "A_B-c@EXAMPLE.COM", ".a@b", "a.@b", "a..b@c",
+                "a@-b", "a@b-", "a@b.", "a@.b", "a@b..c", "@b", "a@", "ab", "\"a b\"@c", "a@[127.0.0.1]",
+                "имя@почта.рф", "a@b@c", "a!#$%&'*/=?^`{|}~@b", "x".repeat(64) + "@b", "x".repeat(65) + "@b",
+                "a@" + "x".repeat(63), "a@" + "x".repeat(64));
+        for (final String email : emails) {
+            final User user = user(email, "login", LocalDate.of(2000, 1, 1));
+            assertEquals(violations(hibernate.validate(user)), violations(validator.validate(user)), email);
+        }
+
+        for (final User user : List.of(
+                user(null, "", LocalDate.now().plusDays(1)),
+                user("a@b", "with space", null),
+                user("a@b", "кириллица", LocalDate.of(2000, 1, 1)))) {
+            assertEquals(violations(hibernate.validate(user)), violations(validator.validate(user)), user.toString());
+        }
+    }
+
+    private static Set<String> violations(final Set<? extends ConstraintViolation<?>> violations) {
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .collect(Collectors.toSet());
+    }
+
+    private static Film film(final String name, final String description, final LocalDate releaseDate,
+                             final int duration) {
+        return new Film(Film.NO_ID, name, description, releaseDate, duration);
+    }
+
+    private static User user(final String email, final String login, final LocalDate birthday) {
+        return new User(User.NO_ID, email, login, null, birthday);
+    }
+}
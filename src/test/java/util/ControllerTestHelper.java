@@ -4,6 +4,33 @@ import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import ru.yandex.practicum.filmorate.audit.AuditLog;
+import ru.yandex.practicum.filmorate.controller.JsonCache;
+import ru.yandex.practicum.filmorate.controller.NdjsonExporter;
+import ru.yandex.practicum.filmorate.controller.Pagination;
+import ru.yandex.practicum.filmorate.controller.filmcontroller.FilmController;
+import ru.yandex.practicum.filmorate.controller.filmcontroller.ReactiveFilmController;
+import ru.yandex.practicum.filmorate.controller.usercontroller.ReactiveUserController;
+import ru.yandex.practicum.filmorate.controller.usercontroller.UserController;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.changes.ChangeStream;
+import ru.yandex.practicum.filmorate.service.filmservice.FilmService;
+import ru.yandex.practicum.filmorate.service.idempotency.IdempotencyCache;
+import ru.yandex.practicum.filmorate.service.userservice.UserService;
+import ru.yandex.practicum.filmorate.storage.filmstorage.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.friendstorage.InMemoryFriendStorage;
+import ru.yandex.practicum.filmorate.storage.idgenerator.BlockIdGenerator;
+import ru.yandex.practicum.filmorate.storage.likestorage.InMemoryLikeStorage;
+import ru.yandex.practicum.filmorate.storage.userstorage.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.storage.userstorage.UserStorage;
+import ru.yandex.practicum.filmorate.storage.wal.WriteAheadLog;
+import ru.yandex.practicum.filmorate.validation.PrecompiledValidator;
+
+import javax.validation.Validation;
+import javax.validation.Validator;
+import java.time.Duration;
 
 /**
  * Набор утилит для тестирования контроллеров.
@@ -12,6 +39,9 @@ public final class ControllerTestHelper {
 
     public static final ObjectMapper objectMapper = new ObjectMapper();
 
+    private static final Validator validator =
+            new PrecompiledValidator(Validation.buildDefaultValidatorFactory().getValidator());
+
     static {
         objectMapper.registerModule(new JavaTimeModule());
         objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
@@ -22,4 +52,71 @@ public final class ControllerTestHelper {
         return objectMapper;
     }
 
+    /**
+     * Контроллер фильмов с пустым хранилищем в памяти.
+     */
+    public static FilmController newFilmController() {
+        return newFilmController(new InMemoryUserStorage());
+    }
+
+    /**
+     * Контроллер фильмов с пустым хранилищем в памяти, проверяющий пользователей по переданному хранилищу.
+     */
+    public static FilmController newFilmController(final UserStorage userStorage) {
+        return new FilmController(newFilmService(userStorage), new Pagination(), new NdjsonExporter(objectMapper),
+                newFilmJsonCache());
+    }
+
+    /**
+     * Реактивный контроллер фильмов с пустым хранилищем в памяти.
+     */
+    public static ReactiveFilmController newReactiveFilmController() {
+        return new ReactiveFilmController(newFilmService(new InMemoryUserStorage()), new Pagination(),
+                new NdjsonExporter(objectMapper), newFilmJsonCache());
+    }
+
+    /**
+     * Контроллер пользователей с пустым хранилищем в памяти.
+     */
+    public static UserController newUserController() {
+        return new UserController(newUserService(), new Pagination(), new NdjsonExporter(objectMapper),
+                newUserJsonCache());
+    }
+
+    /**
+     * Реактивный контроллер пользователей с пустым хранилищем в памяти.
+     */
+    public static ReactiveUserController newReactiveUserController() {
+        return new ReactiveUserController(newUserService(), new Pagination(), new NdjsonExporter(objectMapper),
+                newUserJsonCache());
+    }
+
+    private static FilmService newFilmService(final UserStorage userStorage) {
+        return new FilmService(new InMemoryFilmStorage(), new BlockIdGenerator(1), validator,
+                WriteAheadLog.disabled(), userStorage, new InMemoryLikeStorage(), WriteAheadLog.disabled(),
+                AuditLog.disabled(), newChangeStream(), newIdempotencyCache());
+    }
+
+    private static UserService newUserService() {
+        return new UserService(new InMemoryUserStorage(), new BlockIdGenerator(1), validator,
+                WriteAheadLog.disabled(), new InMemoryFriendStorage(), WriteAheadLog.disabled(), AuditLog.disabled(),
+                newChangeStream(), newIdempotencyCache());
+    }
+
+    private static <T> ChangeStream<T> newChangeStream() {
+        return new ChangeStream<>(256, Duration.ofSeconds(15));
+    }
+
+    private static <T> IdempotencyCache<T> newIdempotencyCache() {
+        return new IdempotencyCache<>(1000, Duration.ofHours(1));
+    }
+
+    private static JsonCache<Film> newFilmJsonCache() {
+        return new JsonCache<>(objectMapper, Film::getId, 64L << 20, new SimpleMeterRegistry(), "film");
+    }
+
+    private static JsonCache<User> newUserJsonCache() {
+        return new JsonCache<>(objectMapper, User::getId, 64L << 20, new SimpleMeterRegistry(), "user");
+    }
+
 }